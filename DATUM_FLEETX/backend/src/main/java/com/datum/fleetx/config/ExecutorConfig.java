@@ -0,0 +1,104 @@
+package com.datum.fleetx.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Executor Configuration - Bounded pools for work kept off request threads
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Document work (thumbnails, text extraction) - small fixed pool with a bounded queue;
+     * submissions beyond the queue are rejected and picked up lazily later
+     */
+    @Bean
+    public ThreadPoolTaskExecutor documentTaskExecutor(
+            @Value("${document.processing.threads:2}") int threads,
+            @Value("${document.processing.queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("document-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Password hashing (BCrypt) - caps the CPU logins can take; a short queue and
+     * no caller-runs fallback so overload is shed instead of spilling onto request threads
+     */
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashExecutor(
+            @Value("${security.password-hashing.threads:2}") int threads,
+            @Value("${security.password-hashing.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        return executor;
+    }
+
+    /**
+     * Quick search index builds - one company's index per task, so a first search (or a
+     * burst of them after a restart) never builds on a request thread
+     */
+    @Bean
+    public ThreadPoolTaskExecutor searchIndexExecutor(
+            @Value("${search.build-threads:2}") int threads,
+            @Value("${search.build-queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("search-index-");
+        return executor;
+    }
+
+    /**
+     * Number block reservations made ahead of need - one thread is plenty, and a full
+     * queue only means the block is reserved when it runs out instead
+     */
+    @Bean
+    public ThreadPoolTaskExecutor numberingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("numbering-");
+        return executor;
+    }
+
+    /**
+     * Billing runs - a couple of long-running workers; each run batches its own transactions
+     */
+    @Bean
+    public ThreadPoolTaskExecutor billingTaskExecutor(
+            @Value("${billing.run.threads:2}") int threads,
+            @Value("${billing.run.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("billing-");
+        return executor;
+    }
+
+    /**
+     * Batch dispatch planning - its own fork-join pool so solver runs don't compete
+     * with parallel streams on the common pool
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool dispatchPlanningPool(
+            @Value("${dispatch.planning.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+}
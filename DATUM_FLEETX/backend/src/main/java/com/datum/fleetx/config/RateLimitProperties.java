@@ -0,0 +1,34 @@
+package com.datum.fleetx.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rate limit settings for unauthenticated endpoints
+ * Rules are matched in order against the request path; the first match applies
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Upper bound on distinct IP / tracking code buckets kept in memory
+    private long maxTrackedKeys = 100_000;
+
+    private List<Rule> rules = new ArrayList<>();
+
+    @Data
+    public static class Rule {
+        private String name;
+        private String pattern;
+        private int perIp;
+        private int perCode;
+        private long periodSeconds = 60;
+    }
+}
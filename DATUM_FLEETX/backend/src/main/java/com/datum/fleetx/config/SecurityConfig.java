@@ -1,6 +1,8 @@
 package com.datum.fleetx.config;
 
+import com.datum.fleetx.security.BoundedPasswordEncoder;
 import com.datum.fleetx.security.JwtAuthenticationFilter;
+import com.datum.fleetx.security.PublicRateLimitFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -17,12 +19,14 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 
@@ -36,11 +40,16 @@ import java.util.List;
 public class SecurityConfig {
     
     private final JwtAuthenticationFilter jwtAuthFilter;
+    private final PublicRateLimitFilter publicRateLimitFilter;
     private final UserDetailsService userDetailsService;
+    private final ThreadPoolTaskExecutor passwordHashExecutor;
     
     @Value("${cors.allowed-origins}")
     private String allowedOrigins;
     
+    @Value("${security.password-hashing.timeout-ms:5000}")
+    private long passwordHashTimeoutMs;
+    
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -61,7 +70,8 @@ public class SecurityConfig {
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
                 .authenticationProvider(authenticationProvider())
-                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(publicRateLimitFilter, JwtAuthenticationFilter.class);
         
         return http.build();
     }
@@ -94,7 +104,9 @@ public class SecurityConfig {
     }
     
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder() {
+        // BCrypt runs on its own bounded pool, never on the request thread
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), passwordHashExecutor,
+                Duration.ofMillis(passwordHashTimeoutMs));
     }
 }
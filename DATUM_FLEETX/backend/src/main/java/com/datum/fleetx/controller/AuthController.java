@@ -8,24 +8,33 @@ import com.datum.fleetx.entity.Company;
 import com.datum.fleetx.entity.StaffMember;
 import com.datum.fleetx.repository.CompanyRepository;
 import com.datum.fleetx.repository.StaffMemberRepository;
+import com.datum.fleetx.security.BoundedPasswordEncoder;
 import com.datum.fleetx.security.CustomUserDetails;
 import com.datum.fleetx.security.JwtService;
+import com.datum.fleetx.security.LoginAttemptService;
+import com.datum.fleetx.security.RefreshTokenService;
+import com.datum.fleetx.security.StaffAccessService;
+import com.datum.fleetx.security.UserDetailsServiceImpl;
+import com.datum.fleetx.service.QuickSearchService;
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * Authentication Controller - handles login and registration
+ * Authentication Controller - handles login, registration and token refresh
+ * Access tokens are short-lived; clients renew them with a single-use refresh token.
  */
 @RestController
 @RequestMapping("/api/v1/auth")
@@ -34,9 +43,14 @@ public class AuthController {
     
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
-    private final PasswordEncoder passwordEncoder;
+    private final BoundedPasswordEncoder passwordEncoder;
     private final CompanyRepository companyRepository;
     private final StaffMemberRepository staffMemberRepository;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final LoginAttemptService loginAttemptService;
+    private final RefreshTokenService refreshTokenService;
+    private final StaffAccessService staffAccessService;
+    private final QuickSearchService quickSearchService;
     
     @PostMapping("/register")
     public ResponseEntity<ApiResponse<AuthResponse>> register(@Valid @RequestBody RegisterRequest request) {
@@ -71,12 +85,15 @@ public class AuthController {
         admin.setActive(true);
         admin = staffMemberRepository.save(admin);
         
-        // Generate token
+        // Generate tokens for a new session
         CustomUserDetails userDetails = new CustomUserDetails(admin);
-        String token = jwtService.generateToken(userDetails);
+        RefreshTokenService.IssuedToken refreshToken = refreshTokenService.issue(admin.getId());
+        String token = jwtService.generateToken(userDetails, refreshToken.getFamilyId());
         
         AuthResponse response = AuthResponse.builder()
                 .token(token)
+                .refreshToken(refreshToken.getToken())
+                .expiresIn(jwtService.getExpirationSeconds())
                 .userId(admin.getId())
                 .email(admin.getEmail())
                 .firstName(admin.getFirstName())
@@ -90,17 +107,40 @@ public class AuthController {
         return ResponseEntity.ok(ApiResponse.success("Registration successful", response));
     }
     
+    /**
+     * Runs on the password hashing pool, so the request thread is released while BCrypt works
+     */
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse<AuthResponse>> login(@Valid @RequestBody AuthRequest request) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
-        );
+    public CompletableFuture<ResponseEntity<ApiResponse<AuthResponse>>> login(@Valid @RequestBody AuthRequest request,
+                                                                             HttpServletRequest httpRequest) {
+        // Throttled IPs are turned away before any password hashing
+        String clientIp = httpRequest.getRemoteAddr();
+        loginAttemptService.checkIp(clientIp);
+        return passwordEncoder.supplyAsync(() -> authenticate(request, clientIp));
+    }
+    
+    private ResponseEntity<ApiResponse<AuthResponse>> authenticate(AuthRequest request, String clientIp) {
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
+            );
+        } catch (BadCredentialsException e) {
+            loginAttemptService.recordFailure(request.getEmail(), clientIp);
+            throw e;
+        }
         
         CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
-        String token = jwtService.generateToken(userDetails);
+        loginAttemptService.recordSuccess(userDetails.getId(), userDetails.getEmail());
+        // The company's search index is usually needed right after sign-in
+        quickSearchService.warm(userDetails.getCompanyId());
+        RefreshTokenService.IssuedToken refreshToken = refreshTokenService.issue(userDetails.getId());
+        String token = jwtService.generateToken(userDetails, refreshToken.getFamilyId());
         
         AuthResponse response = AuthResponse.builder()
                 .token(token)
+                .refreshToken(refreshToken.getToken())
+                .expiresIn(jwtService.getExpirationSeconds())
                 .userId(userDetails.getId())
                 .email(userDetails.getEmail())
                 .firstName(userDetails.getFirstName())
@@ -116,30 +156,45 @@ public class AuthController {
     
     @PostMapping("/refresh")
     public ResponseEntity<AuthResponse> refresh(@RequestBody Map<String, String> request) {
-        String token = request.get("token");
-        if (token != null) {
-            String email = jwtService.extractUsername(token);
-            StaffMember staffMember = staffMemberRepository.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
-            CustomUserDetails userDetails = new CustomUserDetails(staffMember);
-            String newToken = jwtService.generateToken(userDetails);
-            
-            AuthResponse response = AuthResponse.builder()
-                    .token(newToken)
-                    .userId(staffMember.getId())
-                    .email(staffMember.getEmail())
-                    .firstName(staffMember.getFirstName())
-                    .lastName(staffMember.getLastName())
-                    .role(staffMember.getRoleType())
-                    .companyId(staffMember.getCompany().getId())
-                    .companyName(staffMember.getCompany().getCompanyName())
-                    .subscriptionPlan(staffMember.getCompany().getSubscriptionPlan().name())
-                    .build();
-            
-            return ResponseEntity.ok(response);
+        String presented = request.get("refreshToken");
+        if (presented == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        // Single use: the presented token is rotated out, replaying it ends the session
+        RefreshTokenService.IssuedToken refreshToken = refreshTokenService.rotate(presented);
+        String email = staffMemberRepository.findEmailById(refreshToken.getStaffMemberId())
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+        CustomUserDetails userDetails = (CustomUserDetails) userDetailsService.loadUserByUsername(email);
+        if (!userDetails.isEnabled() || !userDetails.isAccountNonLocked() || !staffAccessService.isAllowed(userDetails)) {
+            throw new BadCredentialsException("Account is disabled or locked");
         }
+        String newToken = jwtService.generateToken(userDetails, refreshToken.getFamilyId());
+        
+        AuthResponse response = AuthResponse.builder()
+                .token(newToken)
+                .refreshToken(refreshToken.getToken())
+                .expiresIn(jwtService.getExpirationSeconds())
+                .userId(userDetails.getId())
+                .email(userDetails.getEmail())
+                .firstName(userDetails.getFirstName())
+                .lastName(userDetails.getLastName())
+                .role(userDetails.getRole())
+                .companyId(userDetails.getCompanyId())
+                .companyName(userDetails.getCompanyName())
+                .subscriptionPlan(userDetails.getSubscriptionPlan())
+                .build();
         
-        return ResponseEntity.badRequest().build();
+        return ResponseEntity.ok(response);
+    }
+    
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse<Void>> logout(@RequestBody Map<String, String> request) {
+        String presented = request.get("refreshToken");
+        if (presented != null) {
+            // Ends the refresh token and every access token issued under it
+            refreshTokenService.revoke(presented);
+        }
+        return ResponseEntity.ok(ApiResponse.success("Logged out", null));
     }
 }
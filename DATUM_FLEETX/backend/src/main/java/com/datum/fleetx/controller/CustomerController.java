@@ -6,10 +6,14 @@ import com.datum.fleetx.entity.Customer;
 import com.datum.fleetx.repository.CompanyRepository;
 import com.datum.fleetx.repository.CustomerRepository;
 import com.datum.fleetx.security.CustomUserDetails;
+import com.datum.fleetx.service.CollectionVersionService;
+import com.datum.fleetx.service.CustomerPortalService;
+import com.datum.fleetx.service.TrackingTokenGenerator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -25,23 +29,34 @@ public class CustomerController {
     
     private final CustomerRepository customerRepository;
     private final CompanyRepository companyRepository;
+    private final TrackingTokenGenerator trackingTokenGenerator;
+    private final CustomerPortalService customerPortalService;
+    private final CollectionVersionService collectionVersionService;
     
     @GetMapping
     public ResponseEntity<ApiResponse<List<Customer>>> getAllCustomers(
-            @AuthenticationPrincipal CustomUserDetails userDetails
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            WebRequest webRequest
     ) {
+        String etag = collectionVersionService.etag(userDetails.getCompanyId(), Customer.class);
+        if (webRequest.checkNotModified(etag)) {
+            return HttpCaching.notModified(etag);
+        }
         List<Customer> customers = customerRepository.findByCompanyIdAndActiveTrue(userDetails.getCompanyId());
-        return ResponseEntity.ok(ApiResponse.success(customers));
+        return HttpCaching.ok(etag).body(ApiResponse.success(customers));
     }
     
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<Customer>> getCustomer(
             @AuthenticationPrincipal CustomUserDetails userDetails,
-            @PathVariable UUID id
+            @PathVariable UUID id,
+            WebRequest webRequest
     ) {
         return customerRepository.findById(id)
                 .filter(customer -> customer.getCompany().getId().equals(userDetails.getCompanyId()))
-                .map(customer -> ResponseEntity.ok(ApiResponse.success(customer)))
+                .map(customer -> HttpCaching.isNotModified(webRequest, customer)
+                        ? HttpCaching.<ApiResponse<Customer>>notModified(customer)
+                        : HttpCaching.ok(customer).body(ApiResponse.success(customer)))
                 .orElse(ResponseEntity.ok(ApiResponse.error("Customer not found")));
     }
     
@@ -72,7 +87,7 @@ public class CustomerController {
         
         // Generate tracking token
         if (customer.getTrackingPortalEnabled()) {
-            customer.setTrackingToken(UUID.randomUUID().toString());
+            customer.setTrackingToken(trackingTokenGenerator.generate());
         }
         
         customer.setActive(true);
@@ -125,6 +140,7 @@ public class CustomerController {
                 .map(customer -> {
                     customer.setActive(false);
                     customerRepository.save(customer);
+                    customerPortalService.evict(customer.getTrackingToken());
                     return ResponseEntity.ok(ApiResponse.success("Customer deleted successfully", (Void) null));
                 })
                 .orElse(ResponseEntity.ok(ApiResponse.error("Customer not found")));
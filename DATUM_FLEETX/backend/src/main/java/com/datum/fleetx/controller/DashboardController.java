@@ -4,6 +4,7 @@ import com.datum.fleetx.dto.ApiResponse;
 import com.datum.fleetx.entity.Load;
 import com.datum.fleetx.repository.*;
 import com.datum.fleetx.security.CustomUserDetails;
+import com.datum.fleetx.service.LoadStatusRollupService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -30,6 +31,7 @@ public class DashboardController {
     private final CustomerRepository customerRepository;
     private final LoadRepository loadRepository;
     private final InvoiceRepository invoiceRepository;
+    private final LoadStatusRollupService loadStatusRollupService;
     
     @GetMapping("/stats")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getDashboardStats(
@@ -52,7 +54,8 @@ public class DashboardController {
         Long activeTrucks = truckRepository.countActiveByCompanyId(companyId);
         Long activeDrivers = driverRepository.countActiveByCompanyId(companyId);
         Long activeCustomers = customerRepository.findByCompanyIdAndActiveTrue(companyId).stream().count();
-        Long totalLoads = loadRepository.findByCompanyId(companyId).stream().count();
+        Map<Load.LoadStatus, Long> statusCounts = loadStatusRollupService.countsByStatus(companyId);
+        Long totalLoads = statusCounts.values().stream().mapToLong(Long::longValue).sum();
         
         stats.put("activeTrucks", activeTrucks);
         stats.put("activeDrivers", activeDrivers);
@@ -61,10 +64,7 @@ public class DashboardController {
         
         // Load status breakdown
         Map<String, Long> loadStatus = new HashMap<>();
-        for (Load.LoadStatus status : Load.LoadStatus.values()) {
-            Long count = loadRepository.countByCompanyIdAndStatus(companyId, status);
-            loadStatus.put(status.name(), count);
-        }
+        statusCounts.forEach((status, count) -> loadStatus.put(status.name(), count));
         stats.put("loadStatus", loadStatus);
         
         // Financial summary
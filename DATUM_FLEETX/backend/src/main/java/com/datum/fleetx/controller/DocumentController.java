@@ -2,12 +2,34 @@ package com.datum.fleetx.controller;
 
 import com.datum.fleetx.dto.ApiResponse;
 import com.datum.fleetx.entity.Document;
+import com.datum.fleetx.entity.DocumentContent;
 import com.datum.fleetx.entity.Load;
+import com.datum.fleetx.dto.document.DocumentArchiveRequest;
+import com.datum.fleetx.dto.document.DocumentSearchHit;
+import com.datum.fleetx.dto.document.StagedObject;
+import com.datum.fleetx.dto.document.StoredObject;
+import com.datum.fleetx.dto.document.UploadStatus;
+import com.datum.fleetx.exception.ResourceNotFoundException;
 import com.datum.fleetx.repository.DocumentRepository;
 import com.datum.fleetx.repository.LoadRepository;
+import com.datum.fleetx.repository.StaffMemberRepository;
 import com.datum.fleetx.security.CustomUserDetails;
+import com.datum.fleetx.service.ChunkedUploadService;
+import com.datum.fleetx.service.DocumentArchiveService;
+import com.datum.fleetx.service.DocumentContentService;
+import com.datum.fleetx.service.DocumentProcessingService;
+import com.datum.fleetx.service.DocumentSearchService;
+import com.datum.fleetx.service.DocumentStorageService;
+import com.datum.fleetx.service.ThumbnailService;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.PathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -15,10 +37,14 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.Base64;
-import java.util.HashMap;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -31,6 +57,14 @@ public class DocumentController {
 
     private final DocumentRepository documentRepository;
     private final LoadRepository loadRepository;
+    private final StaffMemberRepository staffMemberRepository;
+    private final DocumentStorageService documentStorageService;
+    private final DocumentContentService documentContentService;
+    private final ChunkedUploadService chunkedUploadService;
+    private final DocumentArchiveService documentArchiveService;
+    private final DocumentProcessingService documentProcessingService;
+    private final DocumentSearchService documentSearchService;
+    private final ThumbnailService thumbnailService;
 
     /**
      * Upload a document for a load (POD, BOL, etc.)
@@ -48,19 +82,171 @@ public class DocumentController {
             .filter(l -> l.getCompany().getId().equals(userDetails.getCompanyId()))
             .orElseThrow(() -> new RuntimeException("Load not found"));
         
-        // Save document
+        // Stream file bytes into the content-addressed store; identical files are stored once
+        StoredObject stored;
+        try (InputStream in = file.getInputStream()) {
+            stored = documentContentService.storeAndRetain(in);
+        }
+        
+        Document document = saveDocument(userDetails, load, documentType, file.getOriginalFilename(),
+            file.getContentType(), description, stored.getContentHash(), stored.getStorageKey(), stored.getSize());
+        
+        return ResponseEntity.ok(ApiResponse.success("Document uploaded successfully", document));
+    }
+
+    /**
+     * Attach already-stored content by its SHA-256 so the client can skip the upload
+     * Only content the company has uploaded before can be referenced
+     */
+    @PostMapping("/upload-by-hash")
+    public ResponseEntity<ApiResponse<Document>> uploadByHash(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam("contentHash") String contentHash,
+            @RequestParam("fileName") String fileName,
+            @RequestParam(value = "contentType", required = false) String contentType,
+            @RequestParam("loadId") UUID loadId,
+            @RequestParam("documentType") Document.DocumentType documentType,
+            @RequestParam(value = "description", required = false) String description) {
+        
+        // Verify load belongs to user's company
+        Load load = loadRepository.findById(loadId)
+            .filter(l -> l.getCompany().getId().equals(userDetails.getCompanyId()))
+            .orElseThrow(() -> new RuntimeException("Load not found"));
+        
+        String hash = contentHash.trim().toLowerCase();
+        if (!hash.matches("[0-9a-f]{64}")
+                || !documentRepository.existsByCompanyIdAndContentHashAndActiveTrue(userDetails.getCompanyId(), hash)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.error("Content not stored, upload the file instead"));
+        }
+        
+        DocumentContent content = documentContentService.retainExisting(hash).orElse(null);
+        if (content == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.error("Content not stored, upload the file instead"));
+        }
+        
+        Document document = saveDocument(userDetails, load, documentType, fileName, contentType, description,
+            content.getContentHash(), content.getStorageKey(), content.getFileSize());
+        
+        return ResponseEntity.ok(ApiResponse.success("Document uploaded successfully", document));
+    }
+
+    /**
+     * Start a resumable chunked upload (for large PODs/BOLs over cellular links)
+     */
+    @PostMapping("/uploads")
+    public ResponseEntity<ApiResponse<UploadStatus>> startChunkedUpload(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam("loadId") UUID loadId,
+            @RequestParam("documentType") Document.DocumentType documentType,
+            @RequestParam("fileName") String fileName,
+            @RequestParam(value = "contentType", required = false) String contentType,
+            @RequestParam(value = "description", required = false) String description,
+            @RequestParam("totalSize") long totalSize,
+            @RequestParam("sha256") String sha256,
+            @RequestParam(value = "chunkSize", required = false) Integer chunkSize) throws IOException {
+        
+        // Verify load belongs to user's company
+        loadRepository.findById(loadId)
+            .filter(l -> l.getCompany().getId().equals(userDetails.getCompanyId()))
+            .orElseThrow(() -> new RuntimeException("Load not found"));
+        
+        ChunkedUploadService.UploadSession session = chunkedUploadService.start(userDetails.getCompanyId(), loadId,
+            documentType, fileName, contentType, description, totalSize, sha256, chunkSize);
+        
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .body(ApiResponse.success("Upload started", chunkedUploadService.toStatus(session)));
+    }
+
+    /**
+     * Get upload progress - clients resume by sending the missing ranges
+     */
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<ApiResponse<UploadStatus>> getChunkedUpload(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @PathVariable UUID uploadId) {
+        
+        ChunkedUploadService.UploadSession session = chunkedUploadService.getSession(uploadId, userDetails.getCompanyId());
+        return ResponseEntity.ok(ApiResponse.success(chunkedUploadService.toStatus(session)));
+    }
+
+    /**
+     * Upload one chunk as a raw request body, written in place at the given offset
+     */
+    @PutMapping(value = "/uploads/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<ApiResponse<UploadStatus>> uploadChunk(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @PathVariable UUID uploadId,
+            @RequestParam("offset") long offset,
+            InputStream body) throws IOException {
+        
+        ChunkedUploadService.UploadSession session =
+            chunkedUploadService.writeChunk(uploadId, userDetails.getCompanyId(), offset, body);
+        return ResponseEntity.ok(ApiResponse.success(chunkedUploadService.toStatus(session)));
+    }
+
+    /**
+     * Verify the checksum of a fully received upload and create the document
+     */
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<ApiResponse<Document>> completeChunkedUpload(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @PathVariable UUID uploadId) throws IOException {
+        
+        ChunkedUploadService.UploadSession session = chunkedUploadService.getSession(uploadId, userDetails.getCompanyId());
+        Load load = loadRepository.findById(session.getLoadId())
+            .filter(l -> l.getCompany().getId().equals(userDetails.getCompanyId()))
+            .orElseThrow(() -> new RuntimeException("Load not found"));
+        
+        StagedObject staged = chunkedUploadService.complete(uploadId, userDetails.getCompanyId());
+        StoredObject stored = documentContentService.retainAndPublish(staged);
+        
+        Document document = saveDocument(userDetails, load, session.getDocumentType(), session.getFileName(),
+            session.getContentType(), session.getDescription(),
+            stored.getContentHash(), stored.getStorageKey(), stored.getSize());
+        
+        return ResponseEntity.ok(ApiResponse.success("Document uploaded successfully", document));
+    }
+
+    /**
+     * Abandon a chunked upload and discard what was received
+     */
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<ApiResponse<Void>> abortChunkedUpload(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @PathVariable UUID uploadId) throws IOException {
+        
+        chunkedUploadService.abort(uploadId, userDetails.getCompanyId());
+        return ResponseEntity.ok(ApiResponse.success("Upload cancelled", null));
+    }
+
+    private Document saveDocument(CustomUserDetails userDetails, Load load, Document.DocumentType documentType,
+                                  String fileName, String contentType, String description,
+                                  String contentHash, String storageKey, long size) {
         Document document = new Document();
+        document.setCompany(load.getCompany());
         document.setDocumentType(documentType);
-        document.setFileName(file.getOriginalFilename());
-        document.setContentType(file.getContentType());
-        document.setFileSize(file.getSize());
-        document.setFilePath("/uploads/" + file.getOriginalFilename());
+        document.setFileName(fileName);
+        document.setContentType(contentType);
+        document.setFileSize(size);
+        document.setFilePath(storageKey);
+        document.setContentHash(contentHash);
         document.setDescription(description);
         document.setLoad(load);
+        document.setUploadedBy(staffMemberRepository.getReferenceById(userDetails.getId()));
+        document.setUploadedAt(Instant.now());
         
-        document = documentRepository.save(document);
-        
-        return ResponseEntity.ok(ApiResponse.success("Document uploaded successfully", document));
+        try {
+            document = documentRepository.save(document);
+        } catch (RuntimeException e) {
+            // The reference taken for this document would otherwise never be released
+            documentContentService.release(contentHash);
+            throw e;
+        }
+        thumbnailService.scheduleThumbnail(document);
+        documentProcessingService.enqueue(document);
+        return document;
     }
 
     /**
@@ -80,6 +266,20 @@ public class DocumentController {
         return ResponseEntity.ok(ApiResponse.success(documents));
     }
 
+    /**
+     * Search document text and metadata, e.g. "BOL PO 44812"
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<List<DocumentSearchHit>>> searchDocuments(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        
+        List<DocumentSearchHit> hits = documentSearchService.search(userDetails.getCompanyId(), query,
+            Math.max(1, Math.min(limit, 100)));
+        return ResponseEntity.ok(ApiResponse.success(hits));
+    }
+
     /**
      * Get document by ID
      */
@@ -99,43 +299,85 @@ public class DocumentController {
      * Download document
      */
     @GetMapping("/{id}/download")
-    public ResponseEntity<String> downloadDocument(
+    public ResponseEntity<Resource> downloadDocument(
             @AuthenticationPrincipal CustomUserDetails userDetails,
             @PathVariable UUID id) {
         
         Document document = documentRepository.findById(id)
-            .filter(d -> d.getLoad().getCompany().getId().equals(userDetails.getCompanyId()))
+            .filter(d -> d.getCompany().getId().equals(userDetails.getCompanyId()))
             .orElseThrow(() -> new RuntimeException("Document not found"));
         
+        // Streamed from disk; Spring MVC answers Range requests with 206 partial content
+        Resource resource = documentStorageService.loadAsResource(document.getFilePath());
+        String mimeType = document.getContentType() != null ? document.getContentType() : "application/octet-stream";
+        
         return ResponseEntity.ok()
-            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + document.getFileName() + "\"")
-            .contentType(MediaType.parseMediaType(document.getContentType()))
-            .body(document.getFilePath());
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(document.getFileName(), StandardCharsets.UTF_8)
+                .build()
+                .toString())
+            .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+            .eTag(document.getContentHash())
+            .contentType(MediaType.parseMediaType(mimeType))
+            .body(resource);
     }
 
     /**
-     * Get document as base64 (for preview)
+     * Get document thumbnail (for preview); 202 while it is still being rendered
      */
     @GetMapping("/{id}/preview")
-    public ResponseEntity<ApiResponse<Map<String, String>>> previewDocument(
+    public ResponseEntity<Resource> previewDocument(
             @AuthenticationPrincipal CustomUserDetails userDetails,
-            @PathVariable UUID id) {
+            @PathVariable UUID id) throws IOException {
         
         Document document = documentRepository.findById(id)
-            .filter(d -> d.getLoad().getCompany().getId().equals(userDetails.getCompanyId()))
+            .filter(d -> d.getCompany().getId().equals(userDetails.getCompanyId()))
             .orElseThrow(() -> new RuntimeException("Document not found"));
         
-        String base64 = Base64.getEncoder().encodeToString(
-            document.getFilePath() != null ? document.getFilePath().getBytes() : new byte[0]);
-        String mimeType = document.getContentType() != null ? document.getContentType() : "application/octet-stream";
-        String dataUrl = "data:" + mimeType + ";base64," + base64;
+        Optional<Path> thumbnail = thumbnailService.findThumbnail(document);
+        if (thumbnail.isEmpty()) {
+            if (!thumbnailService.requestThumbnail(document)) {
+                throw new ResourceNotFoundException("Preview", "document", id);
+            }
+            // Rendering on the document executor; the client polls again
+            return ResponseEntity.accepted()
+                .header(HttpHeaders.RETRY_AFTER, "2")
+                .cacheControl(CacheControl.noStore())
+                .build();
+        }
+        
+        // Thumbnails are derived from immutable content, so clients may keep them
+        return ResponseEntity.ok()
+            .contentType(MediaType.IMAGE_JPEG)
+            .cacheControl(CacheControl.maxAge(Duration.ofDays(30)).cachePrivate())
+            .eTag(document.getContentHash() + "-thumb")
+            .body(new PathResource(thumbnail.get()));
+    }
+
+    /**
+     * Download the active documents of several loads (or invoices) as one streamed ZIP
+     */
+    @PostMapping("/archive")
+    public void downloadArchive(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Valid @RequestBody DocumentArchiveRequest request,
+            HttpServletResponse response) throws IOException {
         
-        Map<String, String> preview = new HashMap<>();
-        preview.put("fileName", document.getFileName());
-        preview.put("fileType", document.getContentType());
-        preview.put("dataUrl", dataUrl);
+        List<Load> loads = documentArchiveService.resolveLoads(userDetails.getCompanyId(),
+            request.getLoadIds(), request.getInvoiceIds());
+        if (loads.isEmpty()) {
+            throw new ResourceNotFoundException("No loads found for archive");
+        }
         
-        return ResponseEntity.ok(ApiResponse.success(preview));
+        // Written synchronously to the response so there is no async timeout on large packs
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+            .filename("documents-" + LocalDate.now() + ".zip")
+            .build()
+            .toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        documentArchiveService.writeArchive(loads, response.getOutputStream());
+        response.flushBuffer();
     }
 
     /**
@@ -150,8 +392,13 @@ public class DocumentController {
             .filter(d -> d.getLoad().getCompany().getId().equals(userDetails.getCompanyId()))
             .orElseThrow(() -> new RuntimeException("Document not found"));
         
-        document.setActive(false);
-        documentRepository.save(document);
+        if (Boolean.TRUE.equals(document.getActive())) {
+            document.setActive(false);
+            documentRepository.save(document);
+            // Drop this document's reference; the file is reclaimed once nothing uses it
+            documentContentService.release(document.getContentHash());
+            documentSearchService.remove(userDetails.getCompanyId(), document.getId());
+        }
         
         return ResponseEntity.ok(ApiResponse.success("Document deleted successfully", null));
     }
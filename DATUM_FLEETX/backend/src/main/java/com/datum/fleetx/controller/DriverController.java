@@ -7,11 +7,13 @@ import com.datum.fleetx.entity.Driver;
 import com.datum.fleetx.repository.CompanyRepository;
 import com.datum.fleetx.repository.DriverRepository;
 import com.datum.fleetx.security.CustomUserDetails;
+import com.datum.fleetx.service.CollectionVersionService;
 import javax.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -26,23 +28,32 @@ public class DriverController {
     
     private final DriverRepository driverRepository;
     private final CompanyRepository companyRepository;
+    private final CollectionVersionService collectionVersionService;
     
     @GetMapping
     public ResponseEntity<ApiResponse<List<Driver>>> getAllDrivers(
-            @AuthenticationPrincipal CustomUserDetails userDetails
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            WebRequest webRequest
     ) {
+        String etag = collectionVersionService.etag(userDetails.getCompanyId(), Driver.class);
+        if (webRequest.checkNotModified(etag)) {
+            return HttpCaching.notModified(etag);
+        }
         List<Driver> drivers = driverRepository.findByCompanyIdAndActiveTrue(userDetails.getCompanyId());
-        return ResponseEntity.ok(ApiResponse.success(drivers));
+        return HttpCaching.ok(etag).body(ApiResponse.success(drivers));
     }
     
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<Driver>> getDriver(
             @AuthenticationPrincipal CustomUserDetails userDetails,
-            @PathVariable UUID id
+            @PathVariable UUID id,
+            WebRequest webRequest
     ) {
         return driverRepository.findById(id)
                 .filter(driver -> driver.getCompany().getId().equals(userDetails.getCompanyId()))
-                .map(driver -> ResponseEntity.ok(ApiResponse.success(driver)))
+                .map(driver -> HttpCaching.isNotModified(webRequest, driver)
+                        ? HttpCaching.<ApiResponse<Driver>>notModified(driver)
+                        : HttpCaching.ok(driver).body(ApiResponse.success(driver)))
                 .orElse(ResponseEntity.ok(ApiResponse.error("Driver not found")));
     }
     
@@ -134,9 +145,14 @@ public class DriverController {
     
     @GetMapping("/available")
     public ResponseEntity<ApiResponse<List<Driver>>> getAvailableDrivers(
-            @AuthenticationPrincipal CustomUserDetails userDetails
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            WebRequest webRequest
     ) {
+        String etag = collectionVersionService.etag(userDetails.getCompanyId(), Driver.class);
+        if (webRequest.checkNotModified(etag)) {
+            return HttpCaching.notModified(etag);
+        }
         List<Driver> drivers = driverRepository.findAvailableByCompanyId(userDetails.getCompanyId());
-        return ResponseEntity.ok(ApiResponse.success(drivers));
+        return HttpCaching.ok(etag).body(ApiResponse.success(drivers));
     }
 }
@@ -0,0 +1,80 @@
+package com.datum.fleetx.controller;
+
+import com.datum.fleetx.entity.base.BaseEntity;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Conditional GET helpers shared by the read endpoints
+ * Clients must revalidate on every use; unchanged resources come back as 304 without a body
+ */
+final class HttpCaching {
+
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private HttpCaching() {
+    }
+
+    /**
+     * Weak ETag for an entity and the related entities embedded in its representation,
+     * from each one's id, version and last modification time (null relations are skipped)
+     */
+    static String entityEtag(BaseEntity entity, BaseEntity... embedded) {
+        StringBuilder fingerprint = new StringBuilder();
+        append(fingerprint, entity);
+        for (BaseEntity related : embedded) {
+            if (related != null) append(fingerprint.append(';'), related);
+        }
+        if (embedded.length == 0) {
+            return "W/\"" + fingerprint + "\"";
+        }
+        return "W/\"" + entity.getId() + "-"
+            + DigestUtils.md5DigestAsHex(fingerprint.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Latest modification among the entity and its embedded relations
+     */
+    static long lastModified(BaseEntity entity, BaseEntity... embedded) {
+        long latest = entity.getUpdatedAt() != null ? entity.getUpdatedAt().toEpochMilli() : -1L;
+        for (BaseEntity related : embedded) {
+            if (related != null && related.getUpdatedAt() != null) {
+                latest = Math.max(latest, related.getUpdatedAt().toEpochMilli());
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * True if the client's validators match, in which case the 304 has already been prepared
+     */
+    static boolean isNotModified(WebRequest webRequest, BaseEntity entity, BaseEntity... embedded) {
+        return webRequest.checkNotModified(entityEtag(entity, embedded), lastModified(entity, embedded));
+    }
+
+    static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+    }
+
+    static <T> ResponseEntity<T> notModified(BaseEntity entity, BaseEntity... embedded) {
+        return notModified(entityEtag(entity, embedded));
+    }
+
+    static ResponseEntity.BodyBuilder ok(String etag) {
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE);
+    }
+
+    static ResponseEntity.BodyBuilder ok(BaseEntity entity, BaseEntity... embedded) {
+        return ok(entityEtag(entity, embedded)).lastModified(lastModified(entity, embedded));
+    }
+
+    private static void append(StringBuilder fingerprint, BaseEntity entity) {
+        fingerprint.append(entity.getId()).append('-').append(entity.getVersion()).append('-')
+            .append(entity.getUpdatedAt() != null ? entity.getUpdatedAt().toEpochMilli() : 0L);
+    }
+}
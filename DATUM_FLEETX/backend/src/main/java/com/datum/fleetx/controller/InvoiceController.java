@@ -0,0 +1,57 @@
+package com.datum.fleetx.controller;
+
+import com.datum.fleetx.dto.ApiResponse;
+import com.datum.fleetx.dto.invoice.ArAgingReport;
+import com.datum.fleetx.dto.invoice.BillingRunRequest;
+import com.datum.fleetx.dto.invoice.BillingRunStatus;
+import com.datum.fleetx.security.CustomUserDetails;
+import com.datum.fleetx.service.BillingRunService;
+import com.datum.fleetx.service.ReceivablesService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+/**
+ * Invoice Controller - Billing runs over delivered loads and receivables aging
+ */
+@RestController
+@RequestMapping("/api/v1/invoices")
+@RequiredArgsConstructor
+public class InvoiceController {
+
+    private final BillingRunService billingRunService;
+    private final ReceivablesService receivablesService;
+
+    /**
+     * Open balances by days past due, for the company and per customer (or just one customer)
+     */
+    @GetMapping("/aging")
+    public ResponseEntity<ApiResponse<ArAgingReport>> getAging(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam(required = false) UUID customerId) {
+        return ResponseEntity.ok(ApiResponse.success(receivablesService.aging(userDetails.getCompanyId(), customerId)));
+    }
+
+    /**
+     * Start a billing run in the background; poll the returned run for progress
+     */
+    @PostMapping("/billing-runs")
+    public ResponseEntity<ApiResponse<BillingRunStatus>> startBillingRun(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestBody(required = false) BillingRunRequest request) {
+        BillingRunStatus run = billingRunService.start(userDetails.getCompanyId(),
+            request != null ? request : new BillingRunRequest());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.success("Billing run started", run));
+    }
+
+    @GetMapping("/billing-runs/{runId}")
+    public ResponseEntity<ApiResponse<BillingRunStatus>> getBillingRun(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @PathVariable UUID runId) {
+        return ResponseEntity.ok(ApiResponse.success(billingRunService.status(userDetails.getCompanyId(), runId)));
+    }
+}
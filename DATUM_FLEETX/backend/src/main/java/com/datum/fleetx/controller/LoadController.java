@@ -1,19 +1,45 @@
 package com.datum.fleetx.controller;
 
 import com.datum.fleetx.dto.ApiResponse;
+import com.datum.fleetx.dto.load.DispatchPlan;
+import com.datum.fleetx.dto.load.DispatchPlanRequest;
+import com.datum.fleetx.dto.load.DispatchRecommendations;
+import com.datum.fleetx.dto.load.LoadImportResult;
 import com.datum.fleetx.dto.load.LoadRequest;
+import com.datum.fleetx.dto.load.LoadSearchPage;
+import com.datum.fleetx.dto.load.LoadSearchRequest;
 import com.datum.fleetx.entity.*;
+import com.datum.fleetx.entity.base.BaseEntity;
 import com.datum.fleetx.repository.*;
 import com.datum.fleetx.security.CustomUserDetails;
+import com.datum.fleetx.service.CollectionVersionService;
+import com.datum.fleetx.service.DispatchPlanningService;
+import com.datum.fleetx.service.DispatchRecommendationService;
+import com.datum.fleetx.service.LoadDispatchService;
+import com.datum.fleetx.service.LoadImportService;
+import com.datum.fleetx.service.LoadSearchService;
+import com.datum.fleetx.service.LoadStateMachine;
+import com.datum.fleetx.service.LoadStatusChangedEvent;
+import com.datum.fleetx.service.NumberAllocator;
+import com.datum.fleetx.service.PublicTrackingService;
+import com.datum.fleetx.service.TrackingTokenGenerator;
 import javax.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
-import java.time.Instant;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.DateTimeException;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.UUID;
 
@@ -28,35 +54,85 @@ public class LoadController {
     private final LoadRepository loadRepository;
     private final CompanyRepository companyRepository;
     private final CustomerRepository customerRepository;
-    private final TruckRepository truckRepository;
-    private final DriverRepository driverRepository;
     private final LocationRepository locationRepository;
+    private final TrackingTokenGenerator trackingTokenGenerator;
+    private final PublicTrackingService publicTrackingService;
+    private final CollectionVersionService collectionVersionService;
+    private final LoadSearchService loadSearchService;
+    private final DispatchRecommendationService dispatchRecommendationService;
+    private final DispatchPlanningService dispatchPlanningService;
+    private final LoadDispatchService loadDispatchService;
+    private final LoadStateMachine loadStateMachine;
+    private final LoadImportService loadImportService;
+    private final NumberAllocator numberAllocator;
     
+    private static final int MAX_UNPAGED_LOADS = 500;
+    
+    /**
+     * Deprecated in favour of /search; capped to the most recent loads so it can't return a
+     * company's whole history in one response
+     */
+    @Deprecated
     @GetMapping
     public ResponseEntity<ApiResponse<List<Load>>> getAllLoads(
-            @AuthenticationPrincipal CustomUserDetails userDetails
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            WebRequest webRequest
     ) {
-        List<Load> loads = loadRepository.findByCompanyId(userDetails.getCompanyId());
-        return ResponseEntity.ok(ApiResponse.success(loads));
+        String etag = collectionVersionService.etag(userDetails.getCompanyId(), Load.class,
+            Truck.class, Driver.class, Customer.class, Location.class);
+        if (webRequest.checkNotModified(etag)) {
+            return HttpCaching.notModified(etag);
+        }
+        List<Load> loads = loadRepository.findByCompanyId(userDetails.getCompanyId(),
+            PageRequest.of(0, MAX_UNPAGED_LOADS, Sort.by(Sort.Direction.DESC, "createdAt"))).getContent();
+        return HttpCaching.ok(etag)
+            .header("Deprecation", "true")
+            .header(HttpHeaders.LINK, "</api/v1/loads/search>; rel=\"successor-version\"")
+            .body(ApiResponse.success(loads));
     }
     
     @GetMapping("/paged")
     public ResponseEntity<ApiResponse<Page<Load>>> getLoadsPaged(
             @AuthenticationPrincipal CustomUserDetails userDetails,
-            Pageable pageable
+            Pageable pageable,
+            WebRequest webRequest
     ) {
+        String etag = collectionVersionService.etag(userDetails.getCompanyId(), Load.class,
+            Truck.class, Driver.class, Customer.class, Location.class);
+        if (webRequest.checkNotModified(etag)) {
+            return HttpCaching.notModified(etag);
+        }
         Page<Load> loads = loadRepository.findByCompanyId(userDetails.getCompanyId(), pageable);
-        return ResponseEntity.ok(ApiResponse.success(loads));
+        return HttpCaching.ok(etag).body(ApiResponse.success(loads));
+    }
+    
+    /**
+     * Filtered, keyset-paginated load list; pass nextCursor back as cursor for the next page
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<LoadSearchPage>> searchLoads(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Valid LoadSearchRequest request
+    ) {
+        return ResponseEntity.ok(ApiResponse.success(loadSearchService.search(userDetails.getCompanyId(), request)));
     }
     
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<Load>> getLoad(
             @AuthenticationPrincipal CustomUserDetails userDetails,
-            @PathVariable UUID id
+            @PathVariable UUID id,
+            WebRequest webRequest
     ) {
-        return loadRepository.findById(id)
+        return loadRepository.findWithDetailsById(id)
                 .filter(load -> load.getCompany().getId().equals(userDetails.getCompanyId()))
-                .map(load -> ResponseEntity.ok(ApiResponse.success(load)))
+                .map(load -> {
+                    // Truck, driver, customer and stops are part of the representation
+                    BaseEntity[] embedded = {load.getTruck(), load.getDriver(), load.getCustomer(),
+                        load.getPickupLocation(), load.getDeliveryLocation()};
+                    return HttpCaching.isNotModified(webRequest, load, embedded)
+                        ? HttpCaching.<ApiResponse<Load>>notModified(load, embedded)
+                        : HttpCaching.ok(load, embedded).body(ApiResponse.success(load));
+                })
                 .orElse(ResponseEntity.ok(ApiResponse.error("Load not found")));
     }
     
@@ -70,7 +146,7 @@ public class LoadController {
         
         Load load = new Load();
         load.setCompany(company);
-        load.setLoadNumber(generateLoadNumber(company.getId()));
+        load.setLoadNumber(numberAllocator.next(company.getId(), NumberAllocator.Series.LOAD));
         load.setReferenceNumber(request.getReferenceNumber());
         
         // Set customer
@@ -117,16 +193,39 @@ public class LoadController {
         load.setSpecialInstructions(request.getSpecialInstructions());
         
         // Generate tracking token
-        load.setTrackingToken(UUID.randomUUID().toString());
+        load.setTrackingToken(trackingTokenGenerator.generate());
         
-        load.setStatus(Load.LoadStatus.CREATED);
         load.setActive(true);
         
-        load = loadRepository.save(load);
+        load = loadStateMachine.create(load);
         
         return ResponseEntity.ok(ApiResponse.success("Load created successfully", load));
     }
     
+    /**
+     * Create many loads from a CSV file or an X12 204 interchange; bad rows are reported, not fatal
+     */
+    @PostMapping("/import")
+    public ResponseEntity<ApiResponse<LoadImportResult>> importLoads(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "format", required = false) LoadImportResult.Format format,
+            @RequestParam(value = "timezone", defaultValue = "UTC") String timezone
+    ) throws IOException {
+        ZoneId zone;
+        try {
+            zone = ZoneId.of(timezone);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Unknown time zone: " + timezone);
+        }
+        LoadImportResult result;
+        try (InputStream in = file.getInputStream()) {
+            result = loadImportService.importLoads(userDetails.getCompanyId(), in, format, zone);
+        }
+        return ResponseEntity.ok(ApiResponse.success(
+                result.getImported() + " of " + result.getTotalRows() + " loads imported", result));
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<Load>> updateLoad(
             @AuthenticationPrincipal CustomUserDetails userDetails,
@@ -164,81 +263,78 @@ public class LoadController {
                     load.setSpecialInstructions(request.getSpecialInstructions());
                     
                     load = loadRepository.save(load);
+                    publicTrackingService.evict(load.getTrackingToken());
                     return ResponseEntity.ok(ApiResponse.success("Load updated successfully", load));
                 })
                 .orElse(ResponseEntity.ok(ApiResponse.error("Load not found")));
     }
     
+    /**
+     * Available trucks and drivers ranked for this load, best first
+     */
+    @GetMapping("/{id}/recommendations")
+    public ResponseEntity<ApiResponse<DispatchRecommendations>> getDispatchRecommendations(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @PathVariable UUID id,
+            @RequestParam(value = "limit", defaultValue = "10") int limit
+    ) {
+        DispatchRecommendations recommendations = dispatchRecommendationService.recommend(
+                userDetails.getCompanyId(), id, Math.max(1, Math.min(limit, 50)));
+        return ResponseEntity.ok(ApiResponse.success(recommendations));
+    }
+    
+    /**
+     * Propose truck/driver assignments for many loads at once; nothing is changed until commit
+     */
+    @PostMapping("/dispatch-plans")
+    public ResponseEntity<ApiResponse<DispatchPlan>> planDispatch(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Valid @RequestBody DispatchPlanRequest request
+    ) {
+        DispatchPlan plan = dispatchPlanningService.plan(userDetails.getCompanyId(), request);
+        return ResponseEntity.ok(ApiResponse.success(plan));
+    }
+    
+    @PostMapping("/dispatch-plans/{planId}/commit")
+    public ResponseEntity<ApiResponse<Integer>> commitDispatchPlan(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @PathVariable UUID planId
+    ) {
+        int dispatched = dispatchPlanningService.commit(userDetails.getCompanyId(), planId);
+        return ResponseEntity.ok(ApiResponse.success(dispatched + " loads dispatched", dispatched));
+    }
+    
     @PostMapping("/{id}/dispatch")
     public ResponseEntity<ApiResponse<Load>> dispatchLoad(
             @AuthenticationPrincipal CustomUserDetails userDetails,
             @PathVariable UUID id,
             @RequestBody DispatchRequest request
     ) {
-        return loadRepository.findById(id)
-                .filter(load -> load.getCompany().getId().equals(userDetails.getCompanyId()))
-                .map(load -> {
-                    if (request.getTruckId() != null) {
-                        Truck truck = truckRepository.findById(request.getTruckId())
-                                .orElseThrow(() -> new RuntimeException("Truck not found"));
-                        load.setTruck(truck);
-                        truck.setStatus(Truck.TruckStatus.ASSIGNED);
-                        truckRepository.save(truck);
-                    }
-                    
-                    if (request.getDriverId() != null) {
-                        Driver driver = driverRepository.findById(request.getDriverId())
-                                .orElseThrow(() -> new RuntimeException("Driver not found"));
-                        load.setDriver(driver);
-                        driver.setStatus(Driver.DriverStatus.ON_DUTY);
-                        driverRepository.save(driver);
-                    }
-                    
-                    load.setStatus(Load.LoadStatus.DISPATCHED);
-                    load.setDispatchedAt(Instant.now());
-                    
-                    load = loadRepository.save(load);
-                    return ResponseEntity.ok(ApiResponse.success("Load dispatched successfully", load));
-                })
+        // Truck and driver are claimed atomically; losing a race for either is a 409
+        return loadDispatchService.dispatch(userDetails.getCompanyId(), id, request.getTruckId(), request.getDriverId())
+                .map(load -> ResponseEntity.ok(ApiResponse.success("Load dispatched successfully", load)))
                 .orElse(ResponseEntity.ok(ApiResponse.error("Load not found")));
     }
     
+    /**
+     * Status transitions of the load, oldest first
+     */
+    @GetMapping("/{id}/status-history")
+    public ResponseEntity<ApiResponse<List<LoadStatusChangedEvent>>> getStatusHistory(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @PathVariable UUID id
+    ) {
+        return ResponseEntity.ok(ApiResponse.success(loadStateMachine.history(userDetails.getCompanyId(), id)));
+    }
+    
     @PostMapping("/{id}/status")
     public ResponseEntity<ApiResponse<Load>> updateStatus(
             @AuthenticationPrincipal CustomUserDetails userDetails,
             @PathVariable UUID id,
             @RequestBody StatusUpdateRequest request
     ) {
-        return loadRepository.findById(id)
-                .filter(load -> load.getCompany().getId().equals(userDetails.getCompanyId()))
-                .map(load -> {
-                    load.setStatus(request.getStatus());
-                    
-                    if (request.getStatus() == Load.LoadStatus.PICKED_UP) {
-                        load.setPickedUpAt(Instant.now());
-                    } else if (request.getStatus() == Load.LoadStatus.DELIVERED) {
-                        load.setDeliveredAt(Instant.now());
-                    } else if (request.getStatus() == Load.LoadStatus.CANCELLED) {
-                        load.setCancelledAt(Instant.now());
-                        load.setCancellationReason(request.getReason());
-                    }
-                    
-                    // Free up truck and driver if completed/cancelled
-                    if (request.getStatus() == Load.LoadStatus.COMPLETED || 
-                        request.getStatus() == Load.LoadStatus.CANCELLED) {
-                        if (load.getTruck() != null) {
-                            load.getTruck().setStatus(Truck.TruckStatus.AVAILABLE);
-                            truckRepository.save(load.getTruck());
-                        }
-                        if (load.getDriver() != null) {
-                            load.getDriver().setStatus(Driver.DriverStatus.AVAILABLE);
-                            driverRepository.save(load.getDriver());
-                        }
-                    }
-                    
-                    load = loadRepository.save(load);
-                    return ResponseEntity.ok(ApiResponse.success("Status updated successfully", load));
-                })
+        return loadDispatchService.updateStatus(userDetails.getCompanyId(), id, request.getStatus(), request.getReason())
+                .map(load -> ResponseEntity.ok(ApiResponse.success("Status updated successfully", load)))
                 .orElse(ResponseEntity.ok(ApiResponse.error("Load not found")));
     }
     
@@ -252,16 +348,12 @@ public class LoadController {
                 .map(load -> {
                     load.setActive(false);
                     loadRepository.save(load);
+                    publicTrackingService.evict(load.getTrackingToken());
                     return ResponseEntity.ok(ApiResponse.success("Load deleted successfully", (Void) null));
                 })
                 .orElse(ResponseEntity.ok(ApiResponse.error("Load not found")));
     }
     
-    private String generateLoadNumber(UUID companyId) {
-        return "LD-" + companyId.toString().substring(0, 8).toUpperCase() + "-" + 
-               System.currentTimeMillis();
-    }
-    
     public static class DispatchRequest {
         private UUID truckId;
         private UUID driverId;
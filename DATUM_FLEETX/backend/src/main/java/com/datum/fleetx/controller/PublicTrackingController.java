@@ -1,19 +1,19 @@
 package com.datum.fleetx.controller;
 
 import com.datum.fleetx.dto.ApiResponse;
-import com.datum.fleetx.entity.Customer;
+import com.datum.fleetx.dto.tracking.PortalShipment;
+import com.datum.fleetx.dto.tracking.TrackingSnapshot;
 import com.datum.fleetx.entity.Load;
-import com.datum.fleetx.entity.Truck;
-import com.datum.fleetx.entity.Driver;
-import com.datum.fleetx.repository.CustomerRepository;
-import com.datum.fleetx.repository.LoadRepository;
-import com.datum.fleetx.repository.TruckRepository;
-import com.datum.fleetx.repository.DriverRepository;
+import com.datum.fleetx.service.CustomerPortalService;
+import com.datum.fleetx.service.PublicTrackingService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
@@ -27,78 +27,52 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class PublicTrackingController {
 
-    private final LoadRepository loadRepository;
-    private final CustomerRepository customerRepository;
-    private final TruckRepository truckRepository;
-    private final DriverRepository driverRepository;
+    private static final int MAX_BATCH_SIZE = 100;
+
+    private final PublicTrackingService publicTrackingService;
+    private final CustomerPortalService customerPortalService;
 
     /**
-     * Track a shipment by load number or tracking code
+     * Track a shipment by tracking code
      */
     @GetMapping("/track/{trackingCode}")
     public ResponseEntity<ApiResponse<Map<String, Object>>> trackShipment(
-            @PathVariable String trackingCode) {
-        
-        // Try to find by load number
-        Optional<Load> loadOpt = loadRepository.findByLoadNumber(trackingCode);
-        
-        if (loadOpt.isEmpty()) {
-            // Try by ID
-            try {
-                UUID loadId = UUID.fromString(trackingCode);
-                loadOpt = loadRepository.findById(loadId);
-            } catch (IllegalArgumentException e) {
-                // Invalid UUID format
-            }
-        }
+            @PathVariable String trackingCode,
+            WebRequest webRequest) {
         
-        if (loadOpt.isEmpty()) {
+        Optional<TrackingSnapshot> snapshotOpt = publicTrackingService.findByToken(trackingCode);
+        
+        if (snapshotOpt.isEmpty()) {
             return ResponseEntity.ok(ApiResponse.error("Tracking code not found"));
         }
         
-        Load load = loadOpt.get();
-        
-        // Build tracking response
-        Map<String, Object> tracking = new HashMap<>();
-        tracking.put("loadNumber", load.getLoadNumber());
-        tracking.put("referenceNumber", load.getReferenceNumber());
-        tracking.put("status", load.getStatus());
-        tracking.put("pickupLocation", load.getPickupLocation());
-        tracking.put("deliveryLocation", load.getDeliveryLocation());
-        tracking.put("pickupDate", load.getPickupDateTime());
-        tracking.put("deliveryDate", load.getDeliveryDateTime());
-        tracking.put("estimatedArrival", load.getEstimatedArrival());
-        
-        // Get customer info
-        if (load.getCustomer() != null) {
-            tracking.put("customerName", load.getCustomer().getCompanyName());
+        TrackingSnapshot snapshot = snapshotOpt.get();
+        String etag = snapshot.etag();
+        if (webRequest.checkNotModified(etag)) {
+            return HttpCaching.notModified(etag);
         }
         
-        // Get truck info if assigned
-        if (load.getTruck() != null) {
-            Truck truck = load.getTruck();
-            Map<String, Object> truckInfo = new HashMap<>();
-            truckInfo.put("truckNumber", truck.getTruckNumber());
-            truckInfo.put("currentLatitude", truck.getCurrentLatitude());
-            truckInfo.put("currentLongitude", truck.getCurrentLongitude());
-            truckInfo.put("lastUpdate", truck.getLastLocationUpdate());
-            tracking.put("truck", truckInfo);
-        }
+        return HttpCaching.ok(etag).body(ApiResponse.success(buildTracking(snapshot)));
+    }
+
+    /**
+     * Track several shipments in one call
+     */
+    @PostMapping("/track/batch")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> trackShipments(
+            @RequestBody List<String> trackingCodes) {
         
-        // Get driver info if assigned
-        if (load.getDriver() != null) {
-            Driver driver = load.getDriver();
-            Map<String, Object> driverInfo = new HashMap<>();
-            driverInfo.put("name", driver.getFullName());
-            driverInfo.put("phone", driver.getPhoneNumber());
-            tracking.put("driver", driverInfo);
+        if (trackingCodes.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error("At most " + MAX_BATCH_SIZE + " tracking codes per request"));
         }
         
-        // Calculate progress percentage
-        int progress = calculateProgress(load);
-        tracking.put("progress", progress);
+        Map<String, TrackingSnapshot> snapshots = publicTrackingService.findByTokens(trackingCodes);
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        snapshots.forEach((code, snapshot) -> result.put(code, buildTracking(snapshot)));
         
-        return ResponseEntity.ok(ApiResponse.success(tracking));
+        return ResponseEntity.ok(ApiResponse.success(result));
     }
 
     /**
@@ -106,29 +80,34 @@ public class PublicTrackingController {
      */
     @GetMapping("/track/{trackingCode}/eta")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getETA(
-            @PathVariable String trackingCode) {
+            @PathVariable String trackingCode,
+            WebRequest webRequest) {
         
-        Optional<Load> loadOpt = loadRepository.findByLoadNumber(trackingCode);
+        Optional<TrackingSnapshot> snapshotOpt = publicTrackingService.findByToken(trackingCode);
         
-        if (loadOpt.isEmpty()) {
+        if (snapshotOpt.isEmpty()) {
             return ResponseEntity.ok(ApiResponse.error("Tracking code not found"));
         }
         
-        Load load = loadOpt.get();
+        TrackingSnapshot snapshot = snapshotOpt.get();
+        String etag = snapshot.etag();
+        if (webRequest.checkNotModified(etag)) {
+            return HttpCaching.notModified(etag);
+        }
         
         Map<String, Object> eta = new HashMap<>();
-        eta.put("loadNumber", load.getLoadNumber());
-        eta.put("estimatedArrival", load.getEstimatedArrival());
-        eta.put("status", load.getStatus());
-        
-        if (load.getTruck() != null) {
-            eta.put("currentLocation", Map.of(
-                "lat", load.getTruck().getCurrentLatitude(),
-                "lng", load.getTruck().getCurrentLongitude()
-            ));
+        eta.put("loadNumber", snapshot.getLoadNumber());
+        eta.put("estimatedArrival", snapshot.getEstimatedArrival());
+        eta.put("status", snapshot.getStatus());
+        
+        if (snapshot.isTruckAssigned()) {
+            Map<String, Object> currentLocation = new HashMap<>();
+            currentLocation.put("lat", snapshot.getTruckLatitude());
+            currentLocation.put("lng", snapshot.getTruckLongitude());
+            eta.put("currentLocation", currentLocation);
         }
         
-        return ResponseEntity.ok(ApiResponse.success(eta));
+        return HttpCaching.ok(etag).body(ApiResponse.success(eta));
     }
 
     /**
@@ -139,22 +118,21 @@ public class PublicTrackingController {
             @RequestParam String trackingCode,
             @RequestParam String email) {
         
-        Optional<Load> loadOpt = loadRepository.findByLoadNumber(trackingCode);
+        Optional<TrackingSnapshot> snapshotOpt = publicTrackingService.findByToken(trackingCode);
         
-        if (loadOpt.isEmpty()) {
+        if (snapshotOpt.isEmpty()) {
             return ResponseEntity.ok(ApiResponse.error("Invalid tracking code"));
         }
         
-        Load load = loadOpt.get();
+        TrackingSnapshot snapshot = snapshotOpt.get();
         
         // Check if email matches
-        if (load.getCustomer() != null && 
-            load.getCustomer().getEmail() != null &&
-            load.getCustomer().getEmail().equalsIgnoreCase(email)) {
+        if (snapshot.getCustomerEmail() != null &&
+            snapshot.getCustomerEmail().equalsIgnoreCase(email)) {
             
             Map<String, Object> result = new HashMap<>();
             result.put("verified", true);
-            result.put("loadNumber", load.getLoadNumber());
+            result.put("loadNumber", snapshot.getLoadNumber());
             
             return ResponseEntity.ok(ApiResponse.success(result));
         }
@@ -162,10 +140,76 @@ public class PublicTrackingController {
         return ResponseEntity.ok(ApiResponse.error("Email does not match our records"));
     }
 
-    private int calculateProgress(Load load) {
-        if (load.getStatus() == null) return 0;
+    /**
+     * Customer portal feed - all active shipments for a customer tracking code
+     * Supports If-None-Match so polling clients get 304 when nothing has changed
+     */
+    @GetMapping("/portal/{trackingCode}/shipments")
+    public ResponseEntity<ApiResponse<List<PortalShipment>>> getPortalShipments(
+            @PathVariable String trackingCode,
+            WebRequest webRequest) {
+        
+        Optional<UUID> customerId = customerPortalService.findCustomerId(trackingCode);
+        
+        if (customerId.isEmpty()) {
+            return ResponseEntity.ok(ApiResponse.error("Tracking code not found"));
+        }
+        
+        List<PortalShipment> shipments = customerPortalService.getActiveShipments(customerId.get());
+        String etag = customerPortalService.computeEtag(shipments);
+        
+        if (webRequest.checkNotModified(etag)) {
+            return HttpCaching.notModified(etag);
+        }
+        
+        return HttpCaching.ok(etag).body(ApiResponse.success(shipments));
+    }
+
+    private Map<String, Object> buildTracking(TrackingSnapshot snapshot) {
+        Map<String, Object> tracking = new HashMap<>();
+        tracking.put("loadNumber", snapshot.getLoadNumber());
+        tracking.put("referenceNumber", snapshot.getReferenceNumber());
+        tracking.put("status", snapshot.getStatus());
+        tracking.put("pickupLocation", snapshot.getPickupLocation());
+        tracking.put("deliveryLocation", snapshot.getDeliveryLocation());
+        tracking.put("pickupDate", snapshot.getPickupDate());
+        tracking.put("deliveryDate", snapshot.getDeliveryDate());
+        tracking.put("estimatedArrival", snapshot.getEstimatedArrival());
+        
+        // Get customer info
+        if (snapshot.getCustomerName() != null) {
+            tracking.put("customerName", snapshot.getCustomerName());
+        }
+        
+        // Get truck info if assigned
+        if (snapshot.isTruckAssigned()) {
+            Map<String, Object> truckInfo = new HashMap<>();
+            truckInfo.put("truckNumber", snapshot.getTruckNumber());
+            truckInfo.put("currentLatitude", snapshot.getTruckLatitude());
+            truckInfo.put("currentLongitude", snapshot.getTruckLongitude());
+            truckInfo.put("lastUpdate", snapshot.getTruckLastUpdate());
+            tracking.put("truck", truckInfo);
+        }
+        
+        // Get driver info if assigned
+        if (snapshot.isDriverAssigned()) {
+            Map<String, Object> driverInfo = new HashMap<>();
+            driverInfo.put("name", snapshot.getDriverName());
+            driverInfo.put("phone", snapshot.getDriverPhone());
+            tracking.put("driver", driverInfo);
+        }
+        
+        // Calculate progress percentage
+        int progress = calculateProgress(snapshot.getStatus());
+        tracking.put("progress", progress);
+        
+        return tracking;
+    }
+
+    private int calculateProgress(Load.LoadStatus loadStatus) {
+        if (loadStatus == null) return 0;
         
-        String status = load.getStatus().name();
+        String status = loadStatus.name();
         switch (status) {
             case "CREATED": return 10;
             case "DISPATCHED": return 25;
@@ -0,0 +1,36 @@
+package com.datum.fleetx.controller;
+
+import com.datum.fleetx.dto.ApiResponse;
+import com.datum.fleetx.dto.search.SearchHit;
+import com.datum.fleetx.security.CustomUserDetails;
+import com.datum.fleetx.service.QuickSearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Search Controller - Type-ahead across loads, customers, drivers, trucks and locations
+ */
+@RestController
+@RequestMapping("/api/v1/search")
+@RequiredArgsConstructor
+public class SearchController {
+    
+    private final QuickSearchService quickSearchService;
+    
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<SearchHit>>> search(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam("q") String query,
+            @RequestParam(value = "type", required = false) Set<SearchHit.Type> types,
+            @RequestParam(value = "limit", defaultValue = "10") int limit
+    ) {
+        List<SearchHit> hits = quickSearchService.search(userDetails.getCompanyId(), query, types,
+                Math.max(1, Math.min(limit, 50)));
+        return ResponseEntity.ok(ApiResponse.success(hits));
+    }
+}
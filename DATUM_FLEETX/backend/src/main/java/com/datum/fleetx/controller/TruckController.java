@@ -4,11 +4,13 @@ import com.datum.fleetx.dto.ApiResponse;
 import com.datum.fleetx.dto.truck.TruckRequest;
 import com.datum.fleetx.entity.Truck;
 import com.datum.fleetx.security.CustomUserDetails;
+import com.datum.fleetx.service.CollectionVersionService;
 import com.datum.fleetx.service.TruckService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -23,16 +25,22 @@ import java.util.UUID;
 public class TruckController {
     
     private final TruckService truckService;
+    private final CollectionVersionService collectionVersionService;
     
     /**
      * Get all trucks for the company
      */
     @GetMapping
     public ResponseEntity<ApiResponse<List<Truck>>> getAllTrucks(
-            @AuthenticationPrincipal CustomUserDetails userDetails
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            WebRequest webRequest
     ) {
+        String etag = collectionVersionService.etag(userDetails.getCompanyId(), Truck.class);
+        if (webRequest.checkNotModified(etag)) {
+            return HttpCaching.notModified(etag);
+        }
         List<Truck> trucks = truckService.getAllTrucksByCompany(userDetails.getCompanyId());
-        return ResponseEntity.ok(ApiResponse.success(trucks));
+        return HttpCaching.ok(etag).body(ApiResponse.success(trucks));
     }
     
     /**
@@ -41,10 +49,14 @@ public class TruckController {
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<Truck>> getTruck(
             @AuthenticationPrincipal CustomUserDetails userDetails,
-            @PathVariable UUID id
+            @PathVariable UUID id,
+            WebRequest webRequest
     ) {
         Truck truck = truckService.getTruckById(id, userDetails.getCompanyId());
-        return ResponseEntity.ok(ApiResponse.success(truck));
+        if (HttpCaching.isNotModified(webRequest, truck)) {
+            return HttpCaching.notModified(truck);
+        }
+        return HttpCaching.ok(truck).body(ApiResponse.success(truck));
     }
     
     /**
@@ -89,10 +101,15 @@ public class TruckController {
      */
     @GetMapping("/available")
     public ResponseEntity<ApiResponse<List<Truck>>> getAvailableTrucks(
-            @AuthenticationPrincipal CustomUserDetails userDetails
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            WebRequest webRequest
     ) {
+        String etag = collectionVersionService.etag(userDetails.getCompanyId(), Truck.class);
+        if (webRequest.checkNotModified(etag)) {
+            return HttpCaching.notModified(etag);
+        }
         List<Truck> trucks = truckService.getAvailableTrucks(userDetails.getCompanyId());
-        return ResponseEntity.ok(ApiResponse.success(trucks));
+        return HttpCaching.ok(etag).body(ApiResponse.success(trucks));
     }
     
     /**
@@ -17,6 +17,8 @@ import java.util.UUID;
 @AllArgsConstructor
 public class AuthResponse {
     private String token;
+    private String refreshToken;
+    private Long expiresIn;
     private UUID userId;
     private String email;
     private String firstName;
@@ -0,0 +1,30 @@
+package com.datum.fleetx.dto.document;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Document Archive Request DTO - Loads (directly or via their invoices) to bundle into one ZIP
+ */
+@Data
+public class DocumentArchiveRequest {
+    
+    @NotNull(message = "loadIds can't be null")
+    @Size(max = 1000, message = "At most 1000 loads per archive")
+    private List<@NotNull UUID> loadIds = new ArrayList<>();
+    
+    @NotNull(message = "invoiceIds can't be null")
+    @Size(max = 1000, message = "At most 1000 invoices per archive")
+    private List<@NotNull UUID> invoiceIds = new ArrayList<>();
+    
+    @AssertTrue(message = "Give at least one load or invoice")
+    public boolean isAnySelected() {
+        return (loadIds != null && !loadIds.isEmpty()) || (invoiceIds != null && !invoiceIds.isEmpty());
+    }
+}
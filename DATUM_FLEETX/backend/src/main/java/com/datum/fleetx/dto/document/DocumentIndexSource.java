@@ -0,0 +1,27 @@
+package com.datum.fleetx.dto.document;
+
+import com.datum.fleetx.entity.Document;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Document Index Source - Projection of everything the search index needs for one document
+ * Populated by a JPQL constructor expression (argument order matters)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentIndexSource {
+    private UUID documentId;
+    private UUID companyId;
+    private UUID loadId;
+    private String loadNumber;
+    private String referenceNumber;
+    private String fileName;
+    private Document.DocumentType documentType;
+    private String description;
+    private String content;
+}
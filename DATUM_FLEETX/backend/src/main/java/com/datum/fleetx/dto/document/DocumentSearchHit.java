@@ -0,0 +1,26 @@
+package com.datum.fleetx.dto.document;
+
+import com.datum.fleetx.entity.Document;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Document Search Hit - One ranked result of a document text search
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentSearchHit {
+    private UUID documentId;
+    private UUID loadId;
+    private String loadNumber;
+    private String fileName;
+    private Document.DocumentType documentType;
+    private double score;
+    private String snippet;
+}
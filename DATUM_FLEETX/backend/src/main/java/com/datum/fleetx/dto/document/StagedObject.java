@@ -0,0 +1,15 @@
+package com.datum.fleetx.dto.document;
+
+import lombok.Value;
+
+import java.nio.file.Path;
+
+/**
+ * Staged Object - Uploaded content written to a temp file but not yet published to the store
+ */
+@Value
+public class StagedObject {
+    Path tempFile;
+    String contentHash;
+    long size;
+}
@@ -0,0 +1,13 @@
+package com.datum.fleetx.dto.document;
+
+import lombok.Value;
+
+/**
+ * Stored Object - Result of writing content into the document store
+ */
+@Value
+public class StoredObject {
+    String contentHash;
+    long size;
+    String storageKey;
+}
@@ -0,0 +1,39 @@
+package com.datum.fleetx.dto.document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Upload Status - Progress of a resumable chunked upload
+ * Clients resend only the byte ranges listed in missingRanges
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadStatus {
+    private UUID uploadId;
+    private String fileName;
+    private long totalSize;
+    private int chunkSize;
+    private long receivedBytes;
+    private List<Range> missingRanges;
+    private boolean complete;
+    private Instant expiresAt;
+
+    /**
+     * Inclusive byte range, as in an HTTP Range header
+     */
+    @Value
+    public static class Range {
+        long start;
+        long end;
+    }
+}
@@ -0,0 +1,25 @@
+package com.datum.fleetx.dto.driver;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Driver Dispatch Info - The fields dispatch scoring needs from an available driver
+ * Populated directly by a JPQL constructor expression, no entity graph is loaded
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverDispatchInfo {
+    private UUID id;
+    private String firstName;
+    private String lastName;
+    private LocalDate licenseExpiry;
+    private Integer safetyScore;
+    private Double currentLatitude;
+    private Double currentLongitude;
+}
@@ -0,0 +1,46 @@
+package com.datum.fleetx.dto.invoice;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * AR Aging Report - Open invoice balances by days past due, for the company and per customer
+ * Buckets are keyed by currency; amounts in different currencies are never added together.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArAgingReport {
+    private LocalDate asOf;
+    private Map<String, Buckets> totals;
+    // By customer name
+    private List<CustomerAging> customers;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Buckets {
+        private BigDecimal current = BigDecimal.ZERO;
+        private BigDecimal days1To30 = BigDecimal.ZERO;
+        private BigDecimal days31To60 = BigDecimal.ZERO;
+        private BigDecimal days61To90 = BigDecimal.ZERO;
+        private BigDecimal over90 = BigDecimal.ZERO;
+        private BigDecimal total = BigDecimal.ZERO;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CustomerAging {
+        private UUID customerId;
+        private String customerName;
+        private Map<String, Buckets> buckets;
+    }
+}
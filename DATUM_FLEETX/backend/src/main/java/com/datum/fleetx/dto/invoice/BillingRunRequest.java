@@ -0,0 +1,24 @@
+package com.datum.fleetx.dto.invoice;
+
+import lombok.Data;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Billing Run Request - Which delivered loads to bill and how to group them into invoices
+ * Loads delivered before the cutoff (default: now) that aren't on an invoice yet are billed.
+ */
+@Data
+public class BillingRunRequest {
+    
+    public enum Grouping {
+        // One invoice per customer covering all of its loads in the run
+        PER_CUSTOMER,
+        // One invoice per load
+        PER_LOAD
+    }
+    
+    private Grouping grouping = Grouping.PER_CUSTOMER;
+    
+    private ZonedDateTime deliveredBefore;
+}
@@ -0,0 +1,45 @@
+package com.datum.fleetx.dto.invoice;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Billing Run Status - Progress of a background billing run, polled by runId
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillingRunStatus {
+    
+    public enum State {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+    
+    private UUID runId;
+    private State state;
+    private BillingRunRequest.Grouping grouping;
+    private Instant deliveredBefore;
+    // Loads found unbilled when the run started
+    private int totalLoads;
+    private int loadsBilled;
+    // No customer, or billed / changed by someone else while the run was going
+    private int loadsSkipped;
+    private int invoicesCreated;
+    // Invoiced total per currency
+    private Map<String, BigDecimal> totalAmounts;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private long elapsedMs;
+    private String error;
+}
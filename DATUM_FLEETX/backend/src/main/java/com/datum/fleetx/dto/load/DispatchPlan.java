@@ -0,0 +1,49 @@
+package com.datum.fleetx.dto.load;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Dispatch Plan - Proposed truck/driver pairs for a batch of loads, committed by planId
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DispatchPlan {
+    private UUID planId;
+    private List<Assignment> assignments;
+    private List<Unassigned> unassigned;
+    private double totalDeadheadMiles;
+    // False when the time budget ran out before the solver converged
+    private boolean optimal;
+    private long elapsedMs;
+    private Instant expiresAt;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Assignment {
+        private UUID loadId;
+        private String loadNumber;
+        private UUID truckId;
+        private String truckNumber;
+        private UUID driverId;
+        private String driverName;
+        // Null when the truck or the pickup has no known position
+        private Double deadheadMiles;
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Unassigned {
+        private UUID loadId;
+        private String loadNumber;
+        private String reason;
+    }
+}
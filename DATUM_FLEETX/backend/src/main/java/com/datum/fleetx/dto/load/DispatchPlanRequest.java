@@ -0,0 +1,29 @@
+package com.datum.fleetx.dto.load;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.Size;
+import lombok.Data;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Dispatch Plan Request - Which unassigned loads to plan and how long the solver may run
+ * Either list the loads or give a pickup window; with both, listed loads outside it are skipped.
+ */
+@Data
+public class DispatchPlanRequest {
+    
+    @Size(max = 2000)
+    private List<UUID> loadIds = new ArrayList<>();
+    
+    private ZonedDateTime pickupFrom;
+    private ZonedDateTime pickupTo;
+    
+    @Min(100)
+    @Max(30000)
+    private long timeBudgetMs = 5000;
+}
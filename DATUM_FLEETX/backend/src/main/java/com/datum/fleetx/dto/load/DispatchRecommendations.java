@@ -0,0 +1,49 @@
+package com.datum.fleetx.dto.load;
+
+import com.datum.fleetx.entity.Truck;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Dispatch Recommendations - Ranked trucks and drivers for one load (scores 0-100)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DispatchRecommendations {
+    private UUID loadId;
+    private List<TruckOption> trucks;
+    private List<DriverOption> drivers;
+    // Available trucks/drivers ruled out by equipment, capacity or expired documents
+    private int trucksExcluded;
+    private int driversExcluded;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TruckOption {
+        private UUID truckId;
+        private String truckNumber;
+        private Truck.TruckType truckType;
+        private Double capacityWeight;
+        // Null when either the truck or the pickup has no known position
+        private Double deadheadMiles;
+        private double score;
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DriverOption {
+        private UUID driverId;
+        private String firstName;
+        private String lastName;
+        private Integer safetyScore;
+        private Double distanceMiles;
+        private double score;
+    }
+}
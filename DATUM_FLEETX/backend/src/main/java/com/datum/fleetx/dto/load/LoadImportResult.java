@@ -0,0 +1,39 @@
+package com.datum.fleetx.dto.load;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Load Import Result DTO - Outcome of a bulk import; rows are file lines (CSV) or transaction sets (EDI)
+ */
+@Data
+@NoArgsConstructor
+public class LoadImportResult {
+
+    public enum Format {
+        CSV,
+        EDI_204
+    }
+
+    private Format format;
+    private int totalRows;
+    private int imported;
+    private int failed;
+    private long elapsedMs;
+    private List<RowError> errors = new ArrayList<>();
+    // Only the first errors are listed; failed has the full count
+    private boolean errorsTruncated;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private int row;
+        private String referenceNumber;
+        private String message;
+    }
+}
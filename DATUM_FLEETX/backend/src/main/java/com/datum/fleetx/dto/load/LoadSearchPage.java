@@ -0,0 +1,17 @@
+package com.datum.fleetx.dto.load;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Load Search Page - A page of results and the cursor for the next one (null on the last page)
+ */
+@Data
+@AllArgsConstructor
+public class LoadSearchPage {
+    private List<LoadSummary> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
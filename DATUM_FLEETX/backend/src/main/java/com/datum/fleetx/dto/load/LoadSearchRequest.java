@@ -0,0 +1,55 @@
+package com.datum.fleetx.dto.load;
+
+import com.datum.fleetx.entity.Load;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.ZonedDateTime;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Load Search Request - Filters, sort and keyset cursor for GET /loads/search
+ * Bound from query parameters; statuses repeat (?status=ASSIGNED&status=IN_TRANSIT).
+ */
+@Data
+public class LoadSearchRequest {
+    
+    public enum SortField {
+        PICKUP_DATE,
+        CREATED_AT
+    }
+    
+    private Set<Load.LoadStatus> status;
+    
+    // Pickup date range, inclusive from / exclusive to
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private ZonedDateTime from;
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private ZonedDateTime to;
+    
+    private UUID customerId;
+    private UUID truckId;
+    private UUID driverId;
+    
+    // Lane - pickup and delivery city/state, matched case-insensitively
+    private String originCity;
+    private String originState;
+    private String destinationCity;
+    private String destinationState;
+    
+    private Boolean hazmat;
+    
+    private SortField sort = SortField.PICKUP_DATE;
+    private boolean descending = false;
+    
+    // Opaque value of the previous page's nextCursor
+    private String cursor;
+    
+    @Min(1)
+    @Max(200)
+    private int limit = 50;
+}
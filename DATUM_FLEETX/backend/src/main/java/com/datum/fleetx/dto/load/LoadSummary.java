@@ -0,0 +1,42 @@
+package com.datum.fleetx.dto.load;
+
+import com.datum.fleetx.entity.Load;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * Load Summary - One row of a load search page
+ * Populated directly by a Criteria constructor expression, no entity graph is loaded
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoadSummary {
+    private UUID id;
+    private String loadNumber;
+    private String referenceNumber;
+    private Load.LoadStatus status;
+    private UUID customerId;
+    private String customerName;
+    private UUID truckId;
+    private String truckNumber;
+    private UUID driverId;
+    private String driverFirstName;
+    private String driverLastName;
+    private String pickupCity;
+    private String pickupState;
+    private ZonedDateTime pickupDateTime;
+    private String deliveryCity;
+    private String deliveryState;
+    private ZonedDateTime deliveryDateTime;
+    private Boolean isHazmat;
+    private BigDecimal totalRate;
+    private String currency;
+    private Instant createdAt;
+}
@@ -0,0 +1,30 @@
+package com.datum.fleetx.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Search Hit - One type-ahead result
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHit {
+    
+    public enum Type {
+        LOAD,
+        CUSTOMER,
+        DRIVER,
+        TRUCK,
+        LOCATION
+    }
+    
+    private Type type;
+    private UUID id;
+    private String title;
+    private String subtitle;
+    private double score;
+}
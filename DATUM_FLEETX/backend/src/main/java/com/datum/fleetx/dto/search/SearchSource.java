@@ -0,0 +1,22 @@
+package com.datum.fleetx.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Search Source - What the quick-search index needs from one load, customer, driver, truck
+ * or location; populated by JPQL constructor expressions
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchSource {
+    private UUID id;
+    private String title;
+    private String subtitle;
+    // Other searchable text (reference numbers, cities, plates...)
+    private String keywords;
+}
@@ -0,0 +1,39 @@
+package com.datum.fleetx.dto.tracking;
+
+import com.datum.fleetx.entity.Load;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * Portal Shipment - Projection of an active load for the customer tracking portal
+ * Populated directly by a JPQL constructor expression, no entity graph is loaded
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortalShipment {
+    private UUID loadId;
+    private String loadNumber;
+    private String referenceNumber;
+    private String trackingToken;
+    private Load.LoadStatus status;
+    private String pickupCity;
+    private String pickupState;
+    private String deliveryCity;
+    private String deliveryState;
+    private ZonedDateTime pickupDate;
+    private ZonedDateTime deliveryDate;
+    private ZonedDateTime estimatedArrival;
+    @JsonIgnore
+    private UUID truckId;
+    private Double currentLatitude;
+    private Double currentLongitude;
+    private Instant lastLocationUpdate;
+    private Instant updatedAt;
+}
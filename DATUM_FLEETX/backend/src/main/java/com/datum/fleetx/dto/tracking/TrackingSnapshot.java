@@ -0,0 +1,91 @@
+package com.datum.fleetx.dto.tracking;
+
+import com.datum.fleetx.entity.Load;
+import com.datum.fleetx.entity.Location;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * Tracking Snapshot - Immutable view of a load for the public tracking portal
+ * Built from a single fetch-join query so it can be cached without lazy associations
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrackingSnapshot {
+    private UUID loadId;
+    private String trackingToken;
+    private String loadNumber;
+    private String referenceNumber;
+    private Load.LoadStatus status;
+    private Location pickupLocation;
+    private Location deliveryLocation;
+    private ZonedDateTime pickupDate;
+    private ZonedDateTime deliveryDate;
+    private ZonedDateTime estimatedArrival;
+    private Instant updatedAt;
+
+    private String customerName;
+    private String customerEmail;
+
+    private boolean truckAssigned;
+    private String truckNumber;
+    private Double truckLatitude;
+    private Double truckLongitude;
+    private Instant truckLastUpdate;
+
+    private boolean driverAssigned;
+    private String driverName;
+    private String driverPhone;
+
+    public static TrackingSnapshot from(Load load) {
+        TrackingSnapshotBuilder builder = TrackingSnapshot.builder()
+            .loadId(load.getId())
+            .trackingToken(load.getTrackingToken())
+            .loadNumber(load.getLoadNumber())
+            .referenceNumber(load.getReferenceNumber())
+            .status(load.getStatus())
+            .pickupLocation(load.getPickupLocation())
+            .deliveryLocation(load.getDeliveryLocation())
+            .pickupDate(load.getPickupDateTime())
+            .deliveryDate(load.getDeliveryDateTime())
+            .estimatedArrival(load.getEstimatedArrival())
+            .updatedAt(load.getUpdatedAt());
+
+        if (load.getCustomer() != null) {
+            builder.customerName(load.getCustomer().getCompanyName())
+                .customerEmail(load.getCustomer().getEmail());
+        }
+        if (load.getTruck() != null) {
+            builder.truckAssigned(true)
+                .truckNumber(load.getTruck().getTruckNumber())
+                .truckLatitude(load.getTruck().getCurrentLatitude())
+                .truckLongitude(load.getTruck().getCurrentLongitude())
+                .truckLastUpdate(load.getTruck().getLastLocationUpdate());
+        }
+        if (load.getDriver() != null) {
+            builder.driverAssigned(true)
+                .driverName(load.getDriver().getFullName())
+                .driverPhone(load.getDriver().getPhoneNumber());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Weak validator covering the load row and the assigned truck's last GPS fix
+     */
+    public String etag() {
+        return "W/\"" + loadId + "-" + epochMilli(updatedAt) + "-" + epochMilli(truckLastUpdate) + "\"";
+    }
+
+    private static long epochMilli(Instant instant) {
+        return instant != null ? instant.toEpochMilli() : 0L;
+    }
+}
@@ -0,0 +1,15 @@
+package com.datum.fleetx.dto.tracking;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Truck Position - Last reported GPS fix for a truck
+ */
+@Value
+public class TruckPosition {
+    Double latitude;
+    Double longitude;
+    Instant reportedAt;
+}
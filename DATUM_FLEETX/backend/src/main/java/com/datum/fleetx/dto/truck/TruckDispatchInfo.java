@@ -0,0 +1,29 @@
+package com.datum.fleetx.dto.truck;
+
+import com.datum.fleetx.entity.Truck;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Truck Dispatch Info - The fields dispatch scoring needs from an available truck
+ * Populated directly by a JPQL constructor expression, no entity graph is loaded
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TruckDispatchInfo {
+    private UUID id;
+    private String truckNumber;
+    private Truck.TruckType truckType;
+    private Double capacityWeight;
+    private Double currentLatitude;
+    private Double currentLongitude;
+    private Instant lastLocationUpdate;
+    private LocalDate insuranceExpiry;
+    private LocalDate registrationExpiry;
+}
@@ -0,0 +1,31 @@
+package com.datum.fleetx.entity;
+
+import com.datum.fleetx.entity.base.BaseEntity;
+import javax.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.UUID;
+
+/**
+ * CollectionVersion - Change counter of one company's collection of an entity type
+ * Bumped in the transaction of every write to the collection, so list ETags stay right
+ * across restarts and instances. Shared (not company-owned) collections use the nil UUID.
+ */
+@Entity
+@Table(name = "collection_versions", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_collection_versions_collection", columnNames = {"company_id", "collection"})
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class CollectionVersion extends BaseEntity {
+    
+    @Column(name = "company_id", nullable = false)
+    private UUID companyId;
+    
+    @Column(name = "collection", nullable = false, length = 50)
+    private String collection;
+    
+    @Column(name = "change_count", nullable = false)
+    private Long changeCount;
+}
@@ -1,6 +1,7 @@
 package com.datum.fleetx.entity;
 
 import com.datum.fleetx.entity.base.BaseEntity;
+import com.datum.fleetx.security.CompanyChangeListener;
 import javax.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -16,6 +17,7 @@ import java.util.List;
  */
 @Entity
 @Table(name = "companies")
+@EntityListeners(CompanyChangeListener.class)
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class Company extends BaseEntity {
@@ -38,6 +40,10 @@ public class Company extends BaseEntity {
     @Column(name = "base_currency", nullable = false)
     private String baseCurrency = "USD";
     
+    // Unique short code in load and invoice numbers; assigned once by NumberAllocator, never by entity saves
+    @Column(name = "number_code", unique = true, updatable = false)
+    private Long numberCode;
+    
     @Enumerated(EnumType.STRING)
     @Column(name = "subscription_plan")
     private SubscriptionPlan subscriptionPlan = SubscriptionPlan.STARTER;
@@ -1,6 +1,8 @@
 package com.datum.fleetx.entity;
 
 import com.datum.fleetx.entity.base.BaseEntity;
+import com.datum.fleetx.entity.base.CompanyScoped;
+import com.datum.fleetx.entity.base.SearchIndexListener;
 import javax.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -14,9 +16,10 @@ import java.util.List;
  */
 @Entity
 @Table(name = "customers")
+@EntityListeners(SearchIndexListener.class)
 @Data
 @EqualsAndHashCode(callSuper = true)
-public class Customer extends BaseEntity {
+public class Customer extends BaseEntity implements CompanyScoped {
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "company_id", nullable = false)
@@ -52,9 +55,6 @@ public class Customer extends BaseEntity {
     @Column(name = "credit_limit")
     private BigDecimal creditLimit = BigDecimal.ZERO;
     
-    @Column(name = "current_balance")
-    private BigDecimal currentBalance = BigDecimal.ZERO;
-    
     @Column(name = "payment_terms")
     private Integer paymentTerms = 30;
     
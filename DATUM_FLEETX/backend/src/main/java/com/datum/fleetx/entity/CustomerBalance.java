@@ -0,0 +1,32 @@
+package com.datum.fleetx.entity;
+
+import com.datum.fleetx.entity.base.BaseEntity;
+import javax.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * CustomerBalance - A customer's open receivables in one currency
+ * Only moved by atomic upserts (CustomerRepository) in the transaction that changes an
+ * invoice, and recomputed from the invoices by the nightly reconcile; never saved as an entity.
+ */
+@Entity
+@Table(name = "customer_balances", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_customer_balances_currency", columnNames = {"customer_id", "currency"})
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class CustomerBalance extends BaseEntity {
+    
+    @Column(name = "customer_id", nullable = false)
+    private UUID customerId;
+    
+    @Column(name = "currency", nullable = false)
+    private String currency;
+    
+    @Column(name = "balance", precision = 14, scale = 2, nullable = false)
+    private BigDecimal balance = BigDecimal.ZERO;
+}
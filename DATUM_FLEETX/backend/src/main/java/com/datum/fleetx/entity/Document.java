@@ -1,6 +1,7 @@
 package com.datum.fleetx.entity;
 
 import com.datum.fleetx.entity.base.BaseEntity;
+import com.datum.fleetx.entity.base.CompanyScoped;
 import javax.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -12,10 +13,12 @@ import java.util.UUID;
  * Document - Represents uploaded documents (BOL, POD, etc.)
  */
 @Entity
-@Table(name = "documents")
+@Table(name = "documents", indexes = {
+    @Index(name = "idx_documents_content_hash", columnList = "content_hash")
+})
 @Data
 @EqualsAndHashCode(callSuper = true)
-public class Document extends BaseEntity {
+public class Document extends BaseEntity implements CompanyScoped {
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "company_id", nullable = false)
@@ -45,6 +48,9 @@ public class Document extends BaseEntity {
     @Column(name = "content_type")
     private String contentType;
     
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+    
     @Column(name = "description")
     private String description;
     
@@ -0,0 +1,38 @@
+package com.datum.fleetx.entity;
+
+import com.datum.fleetx.entity.base.BaseEntity;
+import javax.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.Instant;
+
+/**
+ * DocumentContent - One stored file in the content-addressed document store
+ * Shared by every Document with the same SHA-256; the file is reclaimed once
+ * no active document references it
+ */
+@Entity
+@Table(name = "document_contents", indexes = {
+    @Index(name = "idx_document_contents_released", columnList = "reference_count, released_at")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class DocumentContent extends BaseEntity {
+
+    @Column(name = "content_hash", nullable = false, unique = true, length = 64)
+    private String contentHash;
+
+    @Column(name = "storage_key", nullable = false)
+    private String storageKey;
+
+    @Column(name = "file_size", nullable = false)
+    private Long fileSize;
+
+    @Column(name = "reference_count", nullable = false)
+    private Integer referenceCount = 0;
+
+    // Set when the last reference is released; reclaim waits out a grace period from here
+    @Column(name = "released_at")
+    private Instant releasedAt;
+}
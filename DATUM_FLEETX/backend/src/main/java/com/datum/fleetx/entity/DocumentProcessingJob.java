@@ -0,0 +1,55 @@
+package com.datum.fleetx.entity;
+
+import com.datum.fleetx.entity.base.BaseEntity;
+import javax.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * DocumentProcessingJob - Persistent queue entry for background text extraction
+ * Jobs survive restarts and executor rejections; the poller picks up anything due
+ */
+@Entity
+@Table(name = "document_processing_jobs", indexes = {
+    @Index(name = "idx_document_jobs_status_next", columnList = "status, next_attempt_at"),
+    @Index(name = "idx_document_jobs_document", columnList = "document_id")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class DocumentProcessingJob extends BaseEntity {
+    
+    @Column(name = "document_id", nullable = false)
+    private UUID documentId;
+    
+    @Column(name = "company_id", nullable = false)
+    private UUID companyId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private JobStatus status = JobStatus.PENDING;
+    
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+    
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+    
+    @Column(name = "started_at")
+    private Instant startedAt;
+    
+    @Column(name = "completed_at")
+    private Instant completedAt;
+    
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+    
+    public enum JobStatus {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,45 @@
+package com.datum.fleetx.entity;
+
+import com.datum.fleetx.entity.base.BaseEntity;
+import javax.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.util.UUID;
+
+/**
+ * DocumentText - Text extracted from a document, kept apart from Document so
+ * document listings never load it
+ */
+@Entity
+@Table(name = "document_texts", indexes = {
+    @Index(name = "idx_document_texts_company", columnList = "company_id")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(exclude = "content")
+public class DocumentText extends BaseEntity {
+    
+    @Column(name = "document_id", nullable = false, unique = true)
+    private UUID documentId;
+    
+    @Column(name = "company_id", nullable = false)
+    private UUID companyId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "extraction_method", nullable = false)
+    private ExtractionMethod extractionMethod;
+    
+    @Column(name = "page_count")
+    private Integer pageCount;
+    
+    @Column(name = "content", columnDefinition = "TEXT")
+    private String content;
+    
+    public enum ExtractionMethod {
+        PDF_TEXT,
+        OCR,
+        METADATA_ONLY
+    }
+}
@@ -1,6 +1,8 @@
 package com.datum.fleetx.entity;
 
 import com.datum.fleetx.entity.base.BaseEntity;
+import com.datum.fleetx.entity.base.CompanyScoped;
+import com.datum.fleetx.entity.base.SearchIndexListener;
 import javax.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -13,9 +15,10 @@ import java.time.LocalDate;
  */
 @Entity
 @Table(name = "drivers")
+@EntityListeners(SearchIndexListener.class)
 @Data
 @EqualsAndHashCode(callSuper = true)
-public class Driver extends BaseEntity {
+public class Driver extends BaseEntity implements CompanyScoped {
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "company_id", nullable = false)
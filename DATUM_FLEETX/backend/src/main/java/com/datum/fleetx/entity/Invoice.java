@@ -1,6 +1,7 @@
 package com.datum.fleetx.entity;
 
 import com.datum.fleetx.entity.base.BaseEntity;
+import com.datum.fleetx.entity.base.CompanyScoped;
 import javax.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -14,10 +15,14 @@ import java.util.List;
  * Invoice - Represents an invoice sent to a customer
  */
 @Entity
-@Table(name = "invoices")
+@Table(name = "invoices", indexes = {
+    @Index(name = "idx_invoices_load", columnList = "load_id"),
+    @Index(name = "idx_invoices_company_status_due", columnList = "company_id, status, due_date"),
+    @Index(name = "idx_invoices_customer", columnList = "customer_id")
+})
 @Data
 @EqualsAndHashCode(callSuper = true)
-public class Invoice extends BaseEntity {
+public class Invoice extends BaseEntity implements CompanyScoped {
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "company_id", nullable = false)
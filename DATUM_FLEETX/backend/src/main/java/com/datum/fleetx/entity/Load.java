@@ -1,6 +1,8 @@
 package com.datum.fleetx.entity;
 
 import com.datum.fleetx.entity.base.BaseEntity;
+import com.datum.fleetx.entity.base.CompanyScoped;
+import com.datum.fleetx.entity.base.SearchIndexListener;
 import javax.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -10,16 +12,27 @@ import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * Load - Represents a shipment/delivery
  * This is the core entity in the dispatch system
  */
 @Entity
-@Table(name = "loads")
+@Table(name = "loads", indexes = {
+    // Company-leading composites backing the load search filters and keyset sorts
+    @Index(name = "idx_loads_company_pickup", columnList = "company_id, pickup_date_time, id"),
+    @Index(name = "idx_loads_company_created", columnList = "company_id, created_at, id"),
+    @Index(name = "idx_loads_company_status_pickup", columnList = "company_id, status, pickup_date_time"),
+    @Index(name = "idx_loads_company_customer", columnList = "company_id, customer_id"),
+    @Index(name = "idx_loads_company_truck", columnList = "company_id, truck_id"),
+    @Index(name = "idx_loads_company_driver", columnList = "company_id, driver_id"),
+    @Index(name = "idx_loads_company_status_invoice", columnList = "company_id, status, invoice_id")
+})
+@EntityListeners(SearchIndexListener.class)
 @Data
 @EqualsAndHashCode(callSuper = true)
-public class Load extends BaseEntity {
+public class Load extends BaseEntity implements CompanyScoped {
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "company_id", nullable = false)
@@ -154,6 +167,10 @@ public class Load extends BaseEntity {
     @Column(name = "cancellation_reason")
     private String cancellationReason;
     
+    // Invoice the load was billed on by a billing run
+    @Column(name = "invoice_id")
+    private UUID invoiceId;
+    
     // Documents relationship
     @OneToMany(mappedBy = "load", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Document> documents = new ArrayList<>();
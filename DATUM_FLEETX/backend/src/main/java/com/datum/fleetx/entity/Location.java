@@ -1,6 +1,8 @@
 package com.datum.fleetx.entity;
 
 import com.datum.fleetx.entity.base.BaseEntity;
+import com.datum.fleetx.entity.base.SearchIndexListener;
+import com.datum.fleetx.entity.base.SharedCollection;
 import javax.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -9,10 +11,15 @@ import lombok.EqualsAndHashCode;
  * Location - Represents a pickup or delivery location
  */
 @Entity
-@Table(name = "locations")
+@Table(name = "locations", indexes = {
+    // Candidate lookups when bulk imports match addresses to existing locations
+    @Index(name = "idx_locations_postal_code", columnList = "postal_code"),
+    @Index(name = "idx_locations_city", columnList = "city")
+})
+@EntityListeners(SearchIndexListener.class)
 @Data
 @EqualsAndHashCode(callSuper = true)
-public class Location extends BaseEntity {
+public class Location extends BaseEntity implements SharedCollection {
     
     @Column(name = "address_line_1")
     private String addressLine1;
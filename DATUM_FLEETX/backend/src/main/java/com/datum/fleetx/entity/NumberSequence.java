@@ -0,0 +1,34 @@
+package com.datum.fleetx.entity;
+
+import com.datum.fleetx.entity.base.BaseEntity;
+import javax.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.UUID;
+
+/**
+ * NumberSequence - High-water mark of a per-company, per-year document number series
+ * nextValue is the first number not yet handed out to any instance; instances reserve
+ * blocks by moving it forward, so numbers in an unused block are simply skipped.
+ */
+@Entity
+@Table(name = "number_sequences", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_number_sequences_series", columnNames = {"company_id", "sequence_name", "sequence_year"})
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class NumberSequence extends BaseEntity {
+    
+    @Column(name = "company_id", nullable = false)
+    private UUID companyId;
+    
+    @Column(name = "sequence_name", nullable = false, length = 20)
+    private String sequenceName;
+    
+    @Column(name = "sequence_year", nullable = false)
+    private Integer sequenceYear;
+    
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+}
@@ -0,0 +1,57 @@
+package com.datum.fleetx.entity;
+
+import com.datum.fleetx.entity.base.BaseEntity;
+import javax.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * OutboxEvent - Domain event written in the same transaction as the change it describes
+ * A relay publishes unpublished rows in batches; rows a subscriber failed on stay unpublished
+ * and are retried for that subscriber with backoff. Published rows are kept for a while as
+ * the aggregate's history (e.g. a load's status transitions).
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+    @Index(name = "idx_outbox_events_unpublished", columnList = "published_at, created_at"),
+    @Index(name = "idx_outbox_events_aggregate", columnList = "aggregate_id, created_at")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class OutboxEvent extends BaseEntity {
+    
+    @Column(name = "company_id", nullable = false)
+    private UUID companyId;
+    
+    @Column(name = "aggregate_type", nullable = false, length = 50)
+    private String aggregateType;
+    
+    @Column(name = "aggregate_id", nullable = false)
+    private UUID aggregateId;
+    
+    @Column(name = "event_type", nullable = false, length = 100)
+    private String eventType;
+    
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+    
+    @Column(name = "published_at")
+    private Instant publishedAt;
+    
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+    
+    // Failed delivery attempts so far
+    @Column(name = "attempts", nullable = false, columnDefinition = "integer default 0 not null")
+    private int attempts;
+    
+    @Column(name = "next_attempt_at")
+    private Instant nextAttemptAt;
+    
+    // Subscribers still owed the event after a failed attempt, comma-separated; null = all of them
+    @Column(name = "pending_subscribers", length = 500)
+    private String pendingSubscribers;
+}
@@ -0,0 +1,43 @@
+package com.datum.fleetx.entity;
+
+import com.datum.fleetx.entity.base.BaseEntity;
+import javax.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * RefreshToken - One issued refresh token, stored only as a SHA-256 of its secret
+ * Tokens rotate on every use; all tokens descended from one login share a family id,
+ * which access tokens carry as their session id so a revoked family ends the session.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+    @Index(name = "idx_refresh_tokens_family", columnList = "family_id"),
+    @Index(name = "idx_refresh_tokens_expires", columnList = "expires_at")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class RefreshToken extends BaseEntity {
+    
+    @Column(name = "staff_member_id", nullable = false)
+    private UUID staffMemberId;
+    
+    @Column(name = "family_id", nullable = false)
+    private UUID familyId;
+    
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
+    
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+    
+    @Column(name = "revoked_at")
+    private Instant revokedAt;
+    
+    // Set when the token was rotated (normal use); null on a revoked token means the session was ended
+    @Column(name = "replaced_by_id")
+    private UUID replacedById;
+}
@@ -1,6 +1,8 @@
 package com.datum.fleetx.entity;
 
 import com.datum.fleetx.entity.base.BaseEntity;
+import com.datum.fleetx.entity.base.CompanyScoped;
+import com.datum.fleetx.security.StaffMemberChangeListener;
 import javax.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -11,9 +13,10 @@ import lombok.EqualsAndHashCode;
  */
 @Entity
 @Table(name = "staff_members")
+@EntityListeners(StaffMemberChangeListener.class)
 @Data
 @EqualsAndHashCode(callSuper = true)
-public class StaffMember extends BaseEntity {
+public class StaffMember extends BaseEntity implements CompanyScoped {
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "company_id", nullable = false)
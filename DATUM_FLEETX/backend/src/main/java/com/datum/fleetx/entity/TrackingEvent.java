@@ -1,6 +1,7 @@
 package com.datum.fleetx.entity;
 
 import com.datum.fleetx.entity.base.BaseEntity;
+import com.datum.fleetx.entity.base.CompanyScoped;
 import javax.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -14,7 +15,7 @@ import java.time.Instant;
 @Table(name = "tracking_events")
 @Data
 @EqualsAndHashCode(callSuper = true)
-public class TrackingEvent extends BaseEntity {
+public class TrackingEvent extends BaseEntity implements CompanyScoped {
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "company_id", nullable = false)
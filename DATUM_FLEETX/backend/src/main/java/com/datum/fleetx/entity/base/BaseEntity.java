@@ -14,7 +14,7 @@ import java.util.UUID;
  */
 @Data
 @MappedSuperclass
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, CollectionVersionListener.class})
 public abstract class BaseEntity {
     
     @Id
@@ -31,4 +31,9 @@ public abstract class BaseEntity {
     
     @Column(name = "active", nullable = false)
     private Boolean active = true;
+    
+    // Optimistic lock; primitive so existing rows (backfilled to 0) aren't mistaken for new ones
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0 not null")
+    private long version;
 }
@@ -0,0 +1,40 @@
+package com.datum.fleetx.entity.base;
+
+import com.datum.fleetx.service.CollectionVersionService;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Entity listener that bumps the owning company's collection version on every write
+ * (or the shared version, for shared collections such as locations)
+ * Instantiated by Hibernate through Spring's bean container, hence field injection
+ */
+public class CollectionVersionListener {
+
+    @Autowired
+    private CollectionVersionService collectionVersionService;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onWrite(Object entity) {
+        if (collectionVersionService == null) {
+            return;
+        }
+        if (entity instanceof SharedCollection) {
+            collectionVersionService.markChanged(CollectionVersionService.SHARED, Hibernate.getClass(entity));
+            return;
+        }
+        if (!(entity instanceof CompanyScoped)) {
+            return;
+        }
+        CompanyScoped scoped = (CompanyScoped) entity;
+        if (scoped.getCompany() != null && scoped.getCompany().getId() != null) {
+            collectionVersionService.markChanged(scoped.getCompany().getId(), Hibernate.getClass(entity));
+        }
+    }
+}
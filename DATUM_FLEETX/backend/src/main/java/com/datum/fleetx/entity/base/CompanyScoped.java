@@ -0,0 +1,10 @@
+package com.datum.fleetx.entity.base;
+
+import com.datum.fleetx.entity.Company;
+
+/**
+ * Implemented by entities that belong to a single tenant company
+ */
+public interface CompanyScoped {
+    Company getCompany();
+}
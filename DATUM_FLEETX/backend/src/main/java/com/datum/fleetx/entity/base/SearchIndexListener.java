@@ -0,0 +1,48 @@
+package com.datum.fleetx.entity.base;
+
+import com.datum.fleetx.dto.search.SearchHit;
+import com.datum.fleetx.entity.Customer;
+import com.datum.fleetx.entity.Driver;
+import com.datum.fleetx.entity.Load;
+import com.datum.fleetx.entity.Location;
+import com.datum.fleetx.entity.Truck;
+import com.datum.fleetx.service.SearchableEntityChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Entity listener that announces writes to entities covered by quick search
+ * Instantiated by Hibernate through Spring's bean container, hence field injection
+ */
+public class SearchIndexListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onWrite(BaseEntity entity) {
+        SearchHit.Type type = typeOf(entity);
+        if (eventPublisher == null || type == null || entity.getId() == null) {
+            return;
+        }
+        CompanyScoped scoped = entity instanceof CompanyScoped ? (CompanyScoped) entity : null;
+        eventPublisher.publishEvent(new SearchableEntityChangedEvent(
+            scoped != null && scoped.getCompany() != null ? scoped.getCompany().getId() : null,
+            type, entity.getId()));
+    }
+
+    private static SearchHit.Type typeOf(BaseEntity entity) {
+        if (entity instanceof Load) return SearchHit.Type.LOAD;
+        if (entity instanceof Customer) return SearchHit.Type.CUSTOMER;
+        if (entity instanceof Driver) return SearchHit.Type.DRIVER;
+        if (entity instanceof Truck) return SearchHit.Type.TRUCK;
+        if (entity instanceof Location) return SearchHit.Type.LOCATION;
+        return null;
+    }
+}
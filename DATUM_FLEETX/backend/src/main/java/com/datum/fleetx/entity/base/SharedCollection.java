@@ -0,0 +1,7 @@
+package com.datum.fleetx.entity.base;
+
+/**
+ * Implemented by entities shared across companies whose collection is still versioned
+ */
+public interface SharedCollection {
+}
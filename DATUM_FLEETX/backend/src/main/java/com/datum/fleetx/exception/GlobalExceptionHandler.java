@@ -1,10 +1,14 @@
 package com.datum.fleetx.exception;
 
 import com.datum.fleetx.dto.ApiResponse;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
-import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
@@ -30,9 +34,10 @@ public class GlobalExceptionHandler {
     /**
      * Handle validation errors
      */
-    @ExceptionHandler(MethodArgumentNotValidException.class)
+    // Also covers invalid @RequestBody (MethodArgumentNotValidException is a BindException)
+    @ExceptionHandler(BindException.class)
     public ResponseEntity<ApiResponse<Map<String, String>>> handleValidationExceptions(
-            MethodArgumentNotValidException ex) {
+            BindException ex) {
         Map<String, String> errors = new HashMap<>();
         ex.getBindingResult().getAllErrors().forEach((error) -> {
             String fieldName = ((FieldError) error).getField();
@@ -61,6 +66,56 @@ public class GlobalExceptionHandler {
             .body(ApiResponse.error(ex.getMessage()));
     }
 
+    /**
+     * Handle failed logins - bad credentials, locked and disabled accounts all get the same
+     * answer, so a response never tells whether an account exists
+     */
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<ApiResponse<Void>> handleAuthenticationException(AuthenticationException ex) {
+        // The provider wraps a saturated hashing pool on the unknown-user path
+        if (ex instanceof InternalAuthenticationServiceException && ex.getCause() instanceof ServiceBusyException) {
+            return handleServiceBusyException((ServiceBusyException) ex.getCause());
+        }
+        return ResponseEntity
+            .status(HttpStatus.UNAUTHORIZED)
+            .body(ApiResponse.error("Invalid email or password"));
+    }
+
+    /**
+     * Handle TooManyRequestsException
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ApiResponse<Void>> handleTooManyRequestsException(TooManyRequestsException ex) {
+        return ResponseEntity
+            .status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+            .body(ApiResponse.error(ex.getMessage()));
+    }
+
+    /**
+     * Handle ServiceBusyException
+     */
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ApiResponse<Void>> handleServiceBusyException(ServiceBusyException ex) {
+        return ResponseEntity
+            .status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(ApiResponse.error(ex.getMessage()));
+    }
+
+    /**
+     * Handle ConflictException and stale optimistic-lock writes
+     */
+    @ExceptionHandler({ConflictException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<ApiResponse<Void>> handleConflictException(RuntimeException ex) {
+        String message = ex instanceof ConflictException
+            ? ex.getMessage()
+            : "The record was changed by someone else, reload and try again";
+        return ResponseEntity
+            .status(HttpStatus.CONFLICT)
+            .body(ApiResponse.error(message));
+    }
+
     /**
      * Handle all other exceptions
      */
@@ -1,10 +1,14 @@
 package com.datum.fleetx.repository;
 
+import com.datum.fleetx.dto.search.SearchSource;
 import com.datum.fleetx.entity.Company;
 import com.datum.fleetx.entity.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -20,7 +24,44 @@ public interface CustomerRepository extends JpaRepository<Customer, UUID> {
     
     Optional<Customer> findByTrackingToken(String trackingToken);
     
+    @Query("SELECT c.id FROM Customer c WHERE c.trackingToken = :trackingToken AND c.trackingPortalEnabled = true AND c.active = true")
+    Optional<UUID> findPortalCustomerIdByTrackingToken(String trackingToken);
+    
     boolean existsByEmailAndCompanyId(String email, UUID companyId);
     
     boolean existsByCompanyNameAndCompanyId(String companyName, UUID companyId);
+    
+    String SEARCH_SOURCE = "SELECT new com.datum.fleetx.dto.search.SearchSource(c.id, c.companyName, " +
+           "CONCAT(COALESCE(c.city, ''), ' ', COALESCE(c.stateProvince, '')), " +
+           "CONCAT(COALESCE(c.contactPerson, ''), ' ', COALESCE(c.email, ''), ' ', COALESCE(c.city, ''))) " +
+           "FROM Customer c ";
+    
+    @Query(SEARCH_SOURCE + "WHERE c.company.id = :companyId AND c.active = true")
+    List<SearchSource> findSearchSourcesByCompanyId(UUID companyId);
+    
+    // [customer id, payment terms in days]
+    @Query("SELECT c.id, c.paymentTerms FROM Customer c WHERE c.company.id = :companyId")
+    List<Object[]> findPaymentTermsByCompanyId(UUID companyId);
+    
+    // Open balance per currency; the upsert also row-locks an existing balance, even for a zero delta
+    @Modifying
+    @Query(value = "INSERT INTO customer_balances (id, created_at, updated_at, active, version, " +
+           "customer_id, currency, balance) VALUES (:id, now(), now(), true, 0, :customerId, :currency, :delta) " +
+           "ON CONFLICT (customer_id, currency) DO UPDATE SET " +
+           "balance = customer_balances.balance + :delta, updated_at = now()",
+           nativeQuery = true)
+    int adjustBalance(UUID id, UUID customerId, String currency, BigDecimal delta);
+    
+    // Recompute one balance from the open invoices; a new statement, so it sees every writer that held the row
+    @Modifying
+    @Query(value = "UPDATE customer_balances b SET balance = o.balance, updated_at = now() FROM (" +
+           "SELECT COALESCE(SUM(i.total_amount - COALESCE(i.paid_amount, 0)), 0) AS balance FROM invoices i " +
+           "WHERE i.customer_id = :customerId AND i.currency = :currency AND i.active = true " +
+           "AND i.status NOT IN ('PAID', 'CANCELLED')) o " +
+           "WHERE b.customer_id = :customerId AND b.currency = :currency AND b.balance <> o.balance",
+           nativeQuery = true)
+    int reconcileBalance(UUID customerId, String currency);
+    
+    @Query(SEARCH_SOURCE + "WHERE c.id = :id AND c.active = true")
+    Optional<SearchSource> findSearchSourceById(UUID id);
 }
@@ -0,0 +1,54 @@
+package com.datum.fleetx.repository;
+
+import com.datum.fleetx.entity.DocumentContent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface DocumentContentRepository extends JpaRepository<DocumentContent, UUID> {
+
+    Optional<DocumentContent> findByContentHash(String contentHash);
+
+    /**
+     * Atomically add a reference, creating the row on first upload of this content
+     */
+    @Modifying
+    @Query(value = "INSERT INTO document_contents " +
+           "(id, content_hash, storage_key, file_size, reference_count, released_at, created_at, updated_at, active) " +
+           "VALUES (:id, :contentHash, :storageKey, :fileSize, 1, NULL, now(), now(), true) " +
+           "ON CONFLICT (content_hash) DO UPDATE SET " +
+           "reference_count = document_contents.reference_count + 1, released_at = NULL, updated_at = now()",
+           nativeQuery = true)
+    int retain(UUID id, String contentHash, String storageKey, long fileSize);
+
+    /**
+     * Drop one reference; the row is stamped with released_at when the count reaches zero
+     */
+    @Modifying
+    @Query(value = "UPDATE document_contents SET " +
+           "reference_count = reference_count - 1, " +
+           "released_at = CASE WHEN reference_count = 1 THEN now() ELSE released_at END, " +
+           "updated_at = now() " +
+           "WHERE content_hash = :contentHash AND reference_count > 0",
+           nativeQuery = true)
+    int release(String contentHash);
+
+    @Query("SELECT c.id FROM DocumentContent c WHERE c.referenceCount = 0 AND c.releasedAt < :cutoff")
+    List<UUID> findReclaimableIds(Instant cutoff);
+
+    /**
+     * Row-locks an unreferenced object so a concurrent retain waits until reclaim commits
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM DocumentContent c WHERE c.id = :id AND c.referenceCount = 0")
+    Optional<DocumentContent> lockUnreferenced(UUID id);
+}
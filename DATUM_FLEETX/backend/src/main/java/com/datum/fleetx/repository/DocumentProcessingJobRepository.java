@@ -0,0 +1,41 @@
+package com.datum.fleetx.repository;
+
+import com.datum.fleetx.entity.Document;
+import com.datum.fleetx.entity.DocumentProcessingJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface DocumentProcessingJobRepository extends JpaRepository<DocumentProcessingJob, UUID> {
+    
+    @Query("SELECT j.id FROM DocumentProcessingJob j WHERE j.status = :status AND j.nextAttemptAt <= :now ORDER BY j.nextAttemptAt")
+    List<UUID> findDueJobIds(DocumentProcessingJob.JobStatus status, Instant now, Pageable pageable);
+    
+    /**
+     * Conditional transition so a job submitted twice (upload + poller) only runs once
+     */
+    @Modifying
+    @Query("UPDATE DocumentProcessingJob j SET j.status = :to, j.startedAt = :now, j.attempts = j.attempts + 1, j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.status = :from")
+    int transition(UUID id, DocumentProcessingJob.JobStatus from, DocumentProcessingJob.JobStatus to, Instant now);
+    
+    /**
+     * Requeue jobs whose worker died mid-run (e.g. the instance was restarted)
+     */
+    @Modifying
+    @Query("UPDATE DocumentProcessingJob j SET j.status = :pending, j.nextAttemptAt = :now, j.updatedAt = :now " +
+           "WHERE j.status = :running AND j.startedAt < :startedBefore")
+    int requeueStale(DocumentProcessingJob.JobStatus running, DocumentProcessingJob.JobStatus pending,
+                     Instant startedBefore, Instant now);
+    
+    @Query("SELECT d FROM Document d WHERE d.active = true AND NOT EXISTS " +
+           "(SELECT 1 FROM DocumentProcessingJob j WHERE j.documentId = d.id)")
+    List<Document> findActiveDocumentsWithoutJob(Pageable pageable);
+}
@@ -4,6 +4,7 @@ import com.datum.fleetx.entity.Document;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -14,7 +15,11 @@ public interface DocumentRepository extends JpaRepository<Document, UUID> {
     
     List<Document> findByLoadIdAndActiveTrue(UUID loadId);
     
+    List<Document> findByLoadIdInAndActiveTrue(Collection<UUID> loadIds);
+    
     List<Document> findByCompanyId(UUID companyId);
     
     List<Document> findByDocumentType(Document.DocumentType documentType);
+    
+    boolean existsByCompanyIdAndContentHashAndActiveTrue(UUID companyId, String contentHash);
 }
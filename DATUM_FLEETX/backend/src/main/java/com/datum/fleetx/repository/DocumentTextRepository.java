@@ -0,0 +1,33 @@
+package com.datum.fleetx.repository;
+
+import com.datum.fleetx.dto.document.DocumentIndexSource;
+import com.datum.fleetx.entity.DocumentText;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface DocumentTextRepository extends JpaRepository<DocumentText, UUID> {
+    
+    Optional<DocumentText> findByDocumentId(UUID documentId);
+    
+    List<DocumentText> findByDocumentIdIn(Collection<UUID> documentIds);
+    
+    @Query("SELECT new com.datum.fleetx.dto.document.DocumentIndexSource(" +
+           "d.id, d.company.id, l.id, l.loadNumber, l.referenceNumber, d.fileName, d.documentType, d.description, t.content) " +
+           "FROM Document d JOIN DocumentText t ON t.documentId = d.id LEFT JOIN d.load l " +
+           "WHERE d.company.id = :companyId AND d.active = true AND d.id > :afterId ORDER BY d.id")
+    List<DocumentIndexSource> findIndexSourcesByCompanyIdAfter(UUID companyId, UUID afterId, Pageable page);
+    
+    @Query("SELECT new com.datum.fleetx.dto.document.DocumentIndexSource(" +
+           "d.id, d.company.id, l.id, l.loadNumber, l.referenceNumber, d.fileName, d.documentType, d.description, t.content) " +
+           "FROM Document d JOIN DocumentText t ON t.documentId = d.id LEFT JOIN d.load l " +
+           "WHERE d.id = :documentId AND d.active = true")
+    Optional<DocumentIndexSource> findIndexSource(UUID documentId);
+}
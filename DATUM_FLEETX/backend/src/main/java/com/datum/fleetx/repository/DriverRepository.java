@@ -1,12 +1,17 @@
 package com.datum.fleetx.repository;
 
+import com.datum.fleetx.dto.driver.DriverDispatchInfo;
+import com.datum.fleetx.dto.search.SearchSource;
 import com.datum.fleetx.entity.Company;
 import com.datum.fleetx.entity.Driver;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -32,4 +37,40 @@ public interface DriverRepository extends JpaRepository<Driver, UUID> {
     
     @Query("SELECT COUNT(d) FROM Driver d WHERE d.company.id = :companyId AND d.active = true")
     Long countByCompanyId(UUID companyId);
+    
+    String SEARCH_SOURCE = "SELECT new com.datum.fleetx.dto.search.SearchSource(d.id, " +
+           "CONCAT(d.firstName, ' ', d.lastName), COALESCE(d.phoneNumber, ''), " +
+           "CONCAT(COALESCE(d.licenseNumber, ''), ' ', COALESCE(d.email, ''))) " +
+           "FROM Driver d ";
+    
+    @Query(SEARCH_SOURCE + "WHERE d.company.id = :companyId AND d.active = true")
+    List<SearchSource> findSearchSourcesByCompanyId(UUID companyId);
+    
+    @Query(SEARCH_SOURCE + "WHERE d.id = :id AND d.active = true")
+    Optional<SearchSource> findSearchSourceById(UUID id);
+    
+    @Query("SELECT new com.datum.fleetx.dto.driver.DriverDispatchInfo(d.id, d.firstName, d.lastName, " +
+           "d.licenseExpiry, d.safetyScore, d.currentLatitude, d.currentLongitude) " +
+           "FROM Driver d WHERE d.company.id = :companyId AND d.status = 'AVAILABLE' AND d.active = true")
+    List<DriverDispatchInfo> findAvailableDispatchInfoByCompanyId(UUID companyId);
+    
+    /**
+     * Atomic claim: only one concurrent dispatch can move a given driver out of AVAILABLE
+     */
+    @Modifying
+    @Query("UPDATE Driver d SET d.status = 'ON_DUTY', d.version = d.version + 1, d.updatedAt = :now " +
+           "WHERE d.id = :id AND d.company.id = :companyId AND d.status = 'AVAILABLE' AND d.active = true")
+    int claimAvailable(UUID id, UUID companyId, Instant now);
+    
+    // Drivers who went off duty or on leave meanwhile keep that status
+    @Modifying
+    @Query("UPDATE Driver d SET d.status = 'AVAILABLE', d.version = d.version + 1, d.updatedAt = :now " +
+           "WHERE d.id = :id AND d.status = 'ON_DUTY'")
+    int release(UUID id, Instant now);
+    
+    // Position pings touch only the position columns, so they never overwrite (or conflict with) a status change
+    @Modifying
+    @Query("UPDATE Driver d SET d.currentLatitude = :latitude, d.currentLongitude = :longitude, " +
+           "d.lastLocationUpdate = :reportedAt, d.updatedAt = :reportedAt WHERE d.id = :id AND d.company.id = :companyId")
+    int updatePosition(UUID id, UUID companyId, Double latitude, Double longitude, Instant reportedAt);
 }
@@ -10,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -33,6 +34,9 @@ public interface InvoiceRepository extends JpaRepository<Invoice, UUID> {
     
     List<Invoice> findByCompanyIdAndStatus(UUID companyId, Invoice.InvoiceStatus status);
     
+    @Query("SELECT i.load.id FROM Invoice i WHERE i.company.id = :companyId AND i.id IN :invoiceIds AND i.load IS NOT NULL")
+    List<UUID> findLoadIdsByCompanyIdAndIdIn(UUID companyId, Collection<UUID> invoiceIds);
+    
     @Query("SELECT i FROM Invoice i WHERE i.company.id = :companyId AND i.dueDate < :date AND i.status NOT IN ('PAID', 'CANCELLED')")
     List<Invoice> findOverdueInvoices(UUID companyId, LocalDate date);
     
@@ -44,4 +48,33 @@ public interface InvoiceRepository extends JpaRepository<Invoice, UUID> {
     
     @Query("SELECT SUM(i.totalAmount) FROM Invoice i WHERE i.company.id = :companyId AND i.status NOT IN ('PAID', 'CANCELLED')")
     java.math.BigDecimal sumOutstanding(UUID companyId);
+    
+    @Query("SELECT SUM(i.totalAmount) FROM Invoice i WHERE i.company.id = :companyId AND i.status = 'PAID'")
+    java.math.BigDecimal sumPaid(UUID companyId);
+    
+    @Query("SELECT SUM(i.totalAmount - COALESCE(i.paidAmount, 0)) FROM Invoice i WHERE i.company.id = :companyId " +
+           "AND i.active = true AND i.dueDate < CURRENT_DATE AND i.status NOT IN ('PAID', 'CANCELLED')")
+    java.math.BigDecimal sumOverdueBalance(UUID companyId);
+    
+    String OPEN_BALANCES_BY_AGE = "SELECT c.id, c.companyName, i.currency, " +
+           "SUM(CASE WHEN i.dueDate >= :asOf THEN i.totalAmount - COALESCE(i.paidAmount, 0) ELSE 0 END), " +
+           "SUM(CASE WHEN i.dueDate < :asOf AND i.dueDate >= :pastDue30 " +
+           "THEN i.totalAmount - COALESCE(i.paidAmount, 0) ELSE 0 END), " +
+           "SUM(CASE WHEN i.dueDate < :pastDue30 AND i.dueDate >= :pastDue60 " +
+           "THEN i.totalAmount - COALESCE(i.paidAmount, 0) ELSE 0 END), " +
+           "SUM(CASE WHEN i.dueDate < :pastDue60 AND i.dueDate >= :pastDue90 " +
+           "THEN i.totalAmount - COALESCE(i.paidAmount, 0) ELSE 0 END), " +
+           "SUM(CASE WHEN i.dueDate < :pastDue90 THEN i.totalAmount - COALESCE(i.paidAmount, 0) ELSE 0 END) " +
+           "FROM Invoice i JOIN i.customer c WHERE i.company.id = :companyId AND i.active = true " +
+           "AND i.status NOT IN ('PAID', 'CANCELLED')";
+    
+    // [customer id, customer name, currency, current, 1-30, 31-60, 61-90, 90+ days past due] of open balances
+    @Query(OPEN_BALANCES_BY_AGE + " GROUP BY c.id, c.companyName, i.currency")
+    List<Object[]> sumOpenBalancesByAge(UUID companyId, LocalDate asOf, LocalDate pastDue30, LocalDate pastDue60,
+                                        LocalDate pastDue90);
+    
+    // Same row, for one customer
+    @Query(OPEN_BALANCES_BY_AGE + " AND c.id = :customerId GROUP BY c.id, c.companyName, i.currency")
+    List<Object[]> sumOpenBalancesByAgeForCustomer(UUID companyId, UUID customerId, LocalDate asOf,
+                                                   LocalDate pastDue30, LocalDate pastDue60, LocalDate pastDue90);
 }
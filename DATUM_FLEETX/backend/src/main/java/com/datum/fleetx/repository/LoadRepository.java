@@ -1,14 +1,20 @@
 package com.datum.fleetx.repository;
 
+import com.datum.fleetx.dto.search.SearchSource;
+import com.datum.fleetx.dto.tracking.PortalShipment;
 import com.datum.fleetx.entity.Company;
 import com.datum.fleetx.entity.Load;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -22,8 +28,23 @@ public interface LoadRepository extends JpaRepository<Load, UUID> {
     
     Page<Load> findByCompanyId(UUID companyId, Pageable pageable);
     
+    List<Load> findByCompanyIdAndIdIn(UUID companyId, Collection<UUID> ids);
+    
+    // Loads stamped with one of the invoices, including those on consolidated invoices
+    @Query("SELECT l.id FROM Load l WHERE l.company.id = :companyId AND l.invoiceId IN :invoiceIds")
+    List<UUID> findIdsByCompanyIdAndInvoiceIdIn(UUID companyId, Collection<UUID> invoiceIds);
+    
+    // With everything the load representation embeds, for its ETag
+    @EntityGraph(attributePaths = {"customer", "truck", "driver", "pickupLocation", "deliveryLocation"})
+    Optional<Load> findWithDetailsById(UUID id);
+    
     Optional<Load> findByTrackingToken(String trackingToken);
     
+    @Query("SELECT l FROM Load l LEFT JOIN FETCH l.customer LEFT JOIN FETCH l.truck LEFT JOIN FETCH l.driver " +
+           "LEFT JOIN FETCH l.pickupLocation LEFT JOIN FETCH l.deliveryLocation " +
+           "WHERE l.trackingToken IN :trackingTokens AND l.active = true")
+    List<Load> findForTrackingByTokens(Collection<String> trackingTokens);
+    
     Optional<Load> findByLoadNumber(String loadNumber);
     
     boolean existsByLoadNumber(String loadNumber);
@@ -40,9 +61,67 @@ public interface LoadRepository extends JpaRepository<Load, UUID> {
     @Query("SELECT l FROM Load l WHERE l.customer.id = :customerId AND l.status NOT IN ('COMPLETED', 'CANCELLED')")
     List<Load> findActiveByCustomerId(UUID customerId);
     
+    @Query("SELECT new com.datum.fleetx.dto.tracking.PortalShipment(" +
+           "l.id, l.loadNumber, l.referenceNumber, l.trackingToken, l.status, " +
+           "pl.city, pl.stateProvince, dl.city, dl.stateProvince, " +
+           "l.pickupDateTime, l.deliveryDateTime, l.estimatedArrival, " +
+           "t.id, t.currentLatitude, t.currentLongitude, t.lastLocationUpdate, l.updatedAt) " +
+           "FROM Load l LEFT JOIN l.pickupLocation pl LEFT JOIN l.deliveryLocation dl LEFT JOIN l.truck t " +
+           "WHERE l.customer.id = :customerId AND l.active = true AND l.status NOT IN ('COMPLETED', 'CANCELLED') " +
+           "ORDER BY l.pickupDateTime")
+    List<PortalShipment> findActivePortalShipments(UUID customerId);
+    
     @Query("SELECT COUNT(l) FROM Load l WHERE l.company.id = :companyId AND l.status = :status")
     Long countByCompanyIdAndStatus(UUID companyId, Load.LoadStatus status);
     
+    // [load id, customer id, currency] of delivered loads not on an invoice yet, grouped by customer and
+    // currency; loads without a currency are billed in (and sorted as) the base currency
+    @Query("SELECT l.id, c.id, COALESCE(l.currency, :baseCurrency) FROM Load l LEFT JOIN l.customer c " +
+           "WHERE l.company.id = :companyId AND l.active = true AND l.status IN :statuses AND l.invoiceId IS NULL " +
+           "AND (l.deliveredAt IS NULL OR l.deliveredAt < :deliveredBefore) " +
+           "AND NOT EXISTS (SELECT i.id FROM Invoice i WHERE i.load = l AND i.active = true " +
+           "AND i.status <> 'CANCELLED') " +
+           "ORDER BY c.id, COALESCE(l.currency, :baseCurrency), l.deliveredAt, l.id")
+    List<Object[]> findUnbilled(UUID companyId, Collection<Load.LoadStatus> statuses, Instant deliveredBefore,
+                                String baseCurrency);
+    
+    // Unstamp the loads of a voided or deleted invoice, so the next billing run bills them again
+    @Modifying
+    @Query(value = "UPDATE loads SET invoice_id = NULL, updated_at = now(), version = version + 1 " +
+           "WHERE invoice_id = :invoiceId", nativeQuery = true)
+    int releaseFromInvoice(UUID invoiceId);
+    
     @Query("SELECT l FROM Load l WHERE l.company.id = :companyId AND l.pickupDateTime BETWEEN :startDate AND :endDate")
     List<Load> findByCompanyIdAndDateRange(UUID companyId, ZonedDateTime startDate, ZonedDateTime endDate);
+    
+    String SEARCH_SOURCE = "SELECT new com.datum.fleetx.dto.search.SearchSource(l.id, l.loadNumber, " +
+           "CONCAT(COALESCE(c.companyName, ''), ' · ', COALESCE(pl.city, ''), ' → ', COALESCE(dl.city, '')), " +
+           "CONCAT(COALESCE(l.referenceNumber, ''), ' ', COALESCE(c.companyName, ''), ' ', " +
+           "COALESCE(pl.city, ''), ' ', COALESCE(dl.city, ''))) " +
+           "FROM Load l LEFT JOIN l.customer c LEFT JOIN l.pickupLocation pl LEFT JOIN l.deliveryLocation dl ";
+    
+    @Query(SEARCH_SOURCE + "WHERE l.company.id = :companyId AND l.active = true")
+    List<SearchSource> findSearchSourcesByCompanyId(UUID companyId);
+    
+    @Query(SEARCH_SOURCE + "WHERE l.id = :id AND l.active = true")
+    Optional<SearchSource> findSearchSourceById(UUID id);
+    
+    // Loads whose index entry shows a customer's name or a location's city
+    @Query(SEARCH_SOURCE + "WHERE c.id = :customerId AND l.active = true")
+    List<SearchSource> findSearchSourcesByCustomerId(UUID customerId);
+    
+    @Query(SEARCH_SOURCE + "WHERE l.company.id = :companyId AND l.active = true " +
+           "AND (pl.id = :locationId OR dl.id = :locationId)")
+    List<SearchSource> findSearchSourcesByCompanyIdAndLocationId(UUID companyId, UUID locationId);
+    
+    @Query("SELECT l FROM Load l LEFT JOIN FETCH l.pickupLocation " +
+           "WHERE l.company.id = :companyId AND l.id IN :ids AND l.active = true AND l.truck IS NULL " +
+           "AND l.status IN :statuses")
+    List<Load> findPlannableByIds(UUID companyId, Collection<UUID> ids, Collection<Load.LoadStatus> statuses);
+    
+    @Query("SELECT l FROM Load l LEFT JOIN FETCH l.pickupLocation " +
+           "WHERE l.company.id = :companyId AND l.pickupDateTime >= :from AND l.pickupDateTime < :to " +
+           "AND l.active = true AND l.truck IS NULL AND l.status IN :statuses")
+    List<Load> findPlannableByPickupWindow(UUID companyId, ZonedDateTime from, ZonedDateTime to,
+                                           Collection<Load.LoadStatus> statuses);
 }
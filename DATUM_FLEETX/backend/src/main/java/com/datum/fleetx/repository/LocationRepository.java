@@ -1,11 +1,14 @@
 package com.datum.fleetx.repository;
 
+import com.datum.fleetx.dto.search.SearchSource;
 import com.datum.fleetx.entity.Location;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -15,9 +18,31 @@ public interface LocationRepository extends JpaRepository<Location, UUID> {
     
     List<Location> findByCountry(String country);
     
+    List<Location> findByActiveTrueAndPostalCodeIn(Collection<String> postalCodes);
+    
+    List<Location> findByActiveTrueAndCityIn(Collection<String> cities);
+    
     @Query("SELECT l FROM Location l WHERE LOWER(l.city) LIKE LOWER(CONCAT('%', :query, '%')) OR LOWER(l.addressLine1) LIKE LOWER(CONCAT('%', :query, '%'))")
     List<Location> searchLocations(String query);
     
     @Query("SELECT l FROM Location l WHERE l.latitude IS NOT NULL AND l.longitude IS NOT NULL")
     List<Location> findAllWithCoordinates();
+    
+    String SEARCH_SOURCE = "SELECT DISTINCT new com.datum.fleetx.dto.search.SearchSource(loc.id, " +
+           "COALESCE(loc.locationName, loc.addressLine1, loc.city), " +
+           "CONCAT(COALESCE(loc.city, ''), ', ', COALESCE(loc.stateProvince, '')), " +
+           "CONCAT(COALESCE(loc.addressLine1, ''), ' ', COALESCE(loc.city, ''), ' ', COALESCE(loc.postalCode, ''))) ";
+    
+    // Locations are shared; a company searches the ones its loads pick up from or deliver to
+    @Query(SEARCH_SOURCE + "FROM Load l, Location loc " +
+           "WHERE l.company.id = :companyId AND l.active = true " +
+           "AND (l.pickupLocation = loc OR l.deliveryLocation = loc)")
+    List<SearchSource> findSearchSourcesByCompanyId(UUID companyId);
+    
+    @Query(SEARCH_SOURCE + "FROM Load l, Location loc " +
+           "WHERE l.id = :loadId AND (l.pickupLocation = loc OR l.deliveryLocation = loc)")
+    List<SearchSource> findSearchSourcesByLoadId(UUID loadId);
+    
+    @Query(SEARCH_SOURCE + "FROM Location loc WHERE loc.id = :id")
+    Optional<SearchSource> findSearchSourceById(UUID id);
 }
@@ -0,0 +1,41 @@
+package com.datum.fleetx.repository;
+
+import com.datum.fleetx.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID> {
+    
+    /**
+     * Oldest unpublished events that are due, locked for this relay; a concurrent relay skips them instead of waiting
+     */
+    @Query(value = "SELECT * FROM outbox_events WHERE published_at IS NULL " +
+                   "AND (next_attempt_at IS NULL OR next_attempt_at <= :now) " +
+                   "ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> lockUnpublished(Instant now, int limit);
+    
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.publishedAt = :now, e.lastError = :error, e.updatedAt = :now " +
+           "WHERE e.id IN :ids")
+    int markPublished(Collection<UUID> ids, Instant now, String error);
+    
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.attempts = :attempts, e.nextAttemptAt = :nextAttemptAt, " +
+           "e.pendingSubscribers = :pendingSubscribers, e.lastError = :error, e.updatedAt = :now WHERE e.id IN :ids")
+    int markFailed(Collection<UUID> ids, int attempts, Instant nextAttemptAt, String pendingSubscribers,
+                   String error, Instant now);
+    
+    List<OutboxEvent> findByAggregateIdAndCompanyIdOrderByCreatedAt(UUID aggregateId, UUID companyId);
+    
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.publishedAt < :cutoff")
+    int deletePublishedBefore(Instant cutoff);
+}
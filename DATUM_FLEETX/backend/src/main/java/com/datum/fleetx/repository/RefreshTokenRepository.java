@@ -0,0 +1,39 @@
+package com.datum.fleetx.repository;
+
+import com.datum.fleetx.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+    
+    /**
+     * Single-use guard: only one concurrent refresh can rotate a given token
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revokedAt = :now, t.replacedById = :replacedById, t.updatedAt = :now " +
+           "WHERE t.id = :id AND t.revokedAt IS NULL")
+    int markRotated(UUID id, UUID replacedById, Instant now);
+    
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revokedAt = :now, t.updatedAt = :now " +
+           "WHERE t.familyId = :familyId AND t.revokedAt IS NULL")
+    int revokeFamily(UUID familyId, Instant now);
+    
+    // A revoked token that was never rotated means the session itself was ended
+    boolean existsByFamilyIdAndRevokedAtIsNotNullAndReplacedByIdIsNull(UUID familyId);
+    
+    @Query("SELECT DISTINCT t.familyId FROM RefreshToken t " +
+           "WHERE t.revokedAt IS NOT NULL AND t.replacedById IS NULL AND t.expiresAt > :now")
+    List<UUID> findRevokedFamilyIds(Instant now);
+    
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.expiresAt < :cutoff")
+    int deleteExpiredBefore(Instant cutoff);
+}
@@ -2,9 +2,13 @@ package com.datum.fleetx.repository;
 
 import com.datum.fleetx.entity.Company;
 import com.datum.fleetx.entity.StaffMember;
+import com.datum.fleetx.security.StaffAccessState;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -14,6 +18,12 @@ public interface StaffMemberRepository extends JpaRepository<StaffMember, UUID>
     
     Optional<StaffMember> findByEmail(String email);
     
+    @Query("SELECT s FROM StaffMember s JOIN FETCH s.company WHERE s.email = :email")
+    Optional<StaffMember> findWithCompanyByEmail(String email);
+    
+    @Query("SELECT s.email FROM StaffMember s WHERE s.id = :id")
+    Optional<String> findEmailById(UUID id);
+    
     boolean existsByEmail(String email);
     
     List<StaffMember> findByCompany(Company company);
@@ -23,4 +33,28 @@ public interface StaffMemberRepository extends JpaRepository<StaffMember, UUID>
     List<StaffMember> findByCompanyAndRoleType(Company company, StaffMember.RoleType roleType);
     
     List<StaffMember> findByCompanyIdAndActiveTrue(UUID companyId);
+    
+    @Query("SELECT s.id FROM StaffMember s WHERE s.email = :email")
+    Optional<UUID> findIdByEmail(String email);
+    
+    @Modifying
+    @Query("UPDATE StaffMember s SET s.failedLoginAttempts = COALESCE(s.failedLoginAttempts, 0) + 1 WHERE s.id = :id")
+    int incrementFailedLoginAttempts(UUID id);
+    
+    /**
+     * Lock the account once it reaches the failure limit; the counter restarts for after the lock
+     */
+    @Modifying
+    @Query("UPDATE StaffMember s SET s.lockedUntil = :lockedUntil, s.failedLoginAttempts = 0 " +
+           "WHERE s.id = :id AND s.failedLoginAttempts >= :maxAttempts")
+    int lockIfAttemptsReached(UUID id, int maxAttempts, Instant lockedUntil);
+    
+    @Modifying
+    @Query("UPDATE StaffMember s SET s.failedLoginAttempts = 0, s.lockedUntil = NULL " +
+           "WHERE s.id = :id AND (s.failedLoginAttempts > 0 OR s.lockedUntil IS NOT NULL)")
+    int resetFailedLoginAttempts(UUID id);
+    
+    @Query("SELECT new com.datum.fleetx.security.StaffAccessState(s.active, s.lockedUntil, s.roleType) " +
+           "FROM StaffMember s WHERE s.id = :id")
+    Optional<StaffAccessState> findAccessStateById(UUID id);
 }
@@ -1,12 +1,18 @@
 package com.datum.fleetx.repository;
 
+import com.datum.fleetx.dto.search.SearchSource;
+import com.datum.fleetx.dto.truck.TruckDispatchInfo;
 import com.datum.fleetx.entity.Company;
 import com.datum.fleetx.entity.Truck;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -32,4 +38,57 @@ public interface TruckRepository extends JpaRepository<Truck, UUID> {
     
     @Query("SELECT t FROM Truck t WHERE t.company.id = :companyId AND t.status = :status AND t.active = true")
     List<Truck> findByCompanyIdAndStatus(UUID companyId, Truck.TruckStatus status);
+    
+    String SEARCH_SOURCE = "SELECT new com.datum.fleetx.dto.search.SearchSource(t.id, t.truckNumber, " +
+           "CONCAT(COALESCE(t.make, ''), ' ', COALESCE(t.model, '')), " +
+           "CONCAT(COALESCE(t.plateNumber, ''), ' ', COALESCE(t.vin, ''))) " +
+           "FROM Truck t ";
+    
+    @Query(SEARCH_SOURCE + "WHERE t.company.id = :companyId AND t.active = true")
+    List<SearchSource> findSearchSourcesByCompanyId(UUID companyId);
+    
+    @Query(SEARCH_SOURCE + "WHERE t.id = :id AND t.active = true")
+    Optional<SearchSource> findSearchSourceById(UUID id);
+    
+    @Query("SELECT new com.datum.fleetx.dto.truck.TruckDispatchInfo(t.id, t.truckNumber, t.truckType, " +
+           "t.capacityWeight, t.currentLatitude, t.currentLongitude, t.lastLocationUpdate, " +
+           "t.insuranceExpiry, t.registrationExpiry) " +
+           "FROM Truck t WHERE t.company.id = :companyId AND t.status = 'AVAILABLE' AND t.active = true")
+    List<TruckDispatchInfo> findAvailableDispatchInfoByCompanyId(UUID companyId);
+    
+    @Query("SELECT new com.datum.fleetx.dto.truck.TruckDispatchInfo(t.id, t.truckNumber, t.truckType, " +
+           "t.capacityWeight, t.currentLatitude, t.currentLongitude, t.lastLocationUpdate, " +
+           "t.insuranceExpiry, t.registrationExpiry) " +
+           "FROM Truck t WHERE t.company.id = :companyId AND t.id IN :ids AND t.status = 'AVAILABLE' AND t.active = true")
+    List<TruckDispatchInfo> findAvailableDispatchInfoByCompanyIdAndIdIn(UUID companyId, Collection<UUID> ids);
+    
+    // Rows: id, company id, latitude, longitude, reported at
+    @Query("SELECT t.id, t.company.id, t.currentLatitude, t.currentLongitude, t.lastLocationUpdate FROM Truck t " +
+           "WHERE t.active = true AND t.currentLatitude IS NOT NULL AND t.currentLongitude IS NOT NULL")
+    List<Object[]> findActivePositions();
+    
+    // Rows: id, company id, active, latitude, longitude, reported at
+    @Query("SELECT t.id, t.company.id, t.active, t.currentLatitude, t.currentLongitude, t.lastLocationUpdate " +
+           "FROM Truck t WHERE t.updatedAt > :since")
+    List<Object[]> findPositionsUpdatedSince(Instant since);
+    
+    /**
+     * Atomic claim: only one concurrent dispatch can move a given truck out of AVAILABLE
+     */
+    @Modifying
+    @Query("UPDATE Truck t SET t.status = 'ASSIGNED', t.version = t.version + 1, t.updatedAt = :now " +
+           "WHERE t.id = :id AND t.company.id = :companyId AND t.status = 'AVAILABLE' AND t.active = true")
+    int claimAvailable(UUID id, UUID companyId, Instant now);
+    
+    // Trucks sent to maintenance or out of service meanwhile keep that status
+    @Modifying
+    @Query("UPDATE Truck t SET t.status = 'AVAILABLE', t.version = t.version + 1, t.updatedAt = :now " +
+           "WHERE t.id = :id AND t.status IN ('ASSIGNED', 'IN_TRANSIT')")
+    int release(UUID id, Instant now);
+    
+    // Position pings touch only the position columns, so they never overwrite (or conflict with) a status change
+    @Modifying
+    @Query("UPDATE Truck t SET t.currentLatitude = :latitude, t.currentLongitude = :longitude, " +
+           "t.lastLocationUpdate = :reportedAt, t.updatedAt = :reportedAt WHERE t.id = :id AND t.company.id = :companyId")
+    int updatePosition(UUID id, UUID companyId, Double latitude, Double longitude, Instant reportedAt);
 }
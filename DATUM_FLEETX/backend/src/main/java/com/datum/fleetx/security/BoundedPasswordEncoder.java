@@ -0,0 +1,123 @@
+package com.datum.fleetx.security;
+
+import com.datum.fleetx.exception.ServiceBusyException;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * PasswordEncoder that runs the (deliberately slow) delegate on a small dedicated pool
+ * Hashing CPU is capped at the pool size, so a login spike can't starve API threads;
+ * when the queue is full or the wait times out the login fails fast with 503. Whole sign-in
+ * flows can be handed to the pool with {@link #supplyAsync}, which releases the request
+ * thread; hashing inside such a flow runs inline on the pool thread it already holds.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    
+    private final PasswordEncoder delegate;
+    private final AsyncTaskExecutor executor;
+    private final long timeoutMillis;
+    
+    private static final ThreadLocal<Boolean> ON_POOL = new ThreadLocal<>();
+    
+    public BoundedPasswordEncoder(PasswordEncoder delegate, AsyncTaskExecutor executor, Duration timeout) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.timeoutMillis = timeout.toMillis();
+    }
+    
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+    
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+    
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+    
+    /**
+     * Run a task that hashes passwords on the pool, completing with 503 when the pool is
+     * saturated or the task doesn't finish within the timeout
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> future;
+        try {
+            future = executor.submit(() -> {
+                ON_POOL.set(Boolean.TRUE);
+                try {
+                    result.complete(task.get());
+                } catch (RuntimeException | Error e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    ON_POOL.remove();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            throw new ServiceBusyException("Too many sign-ins in progress, please retry shortly");
+        }
+        return result
+            .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+            .exceptionally(e -> {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof TimeoutException) {
+                    future.cancel(true);
+                    throw new ServiceBusyException("Too many sign-ins in progress, please retry shortly");
+                }
+                throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(cause);
+            });
+    }
+    
+    private <T> T run(Callable<T> task) {
+        if (ON_POOL.get() != null) {
+            return call(task);
+        }
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (TaskRejectedException e) {
+            throw new ServiceBusyException("Too many sign-ins in progress, please retry shortly");
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceBusyException("Too many sign-ins in progress, please retry shortly");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Sign-in interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+    
+    private static <T> T call(Callable<T> task) {
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Password hashing failed", e);
+        }
+    }
+}
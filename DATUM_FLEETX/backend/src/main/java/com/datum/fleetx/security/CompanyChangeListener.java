@@ -0,0 +1,26 @@
+package com.datum.fleetx.security;
+
+import com.datum.fleetx.entity.Company;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Entity listener that announces Company writes (name, subscription plan, deactivation)
+ * Instantiated by Hibernate through Spring's bean container, hence field injection
+ */
+public class CompanyChangeListener {
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @PostUpdate
+    @PostRemove
+    public void onWrite(Company company) {
+        if (eventPublisher != null && company.getId() != null) {
+            eventPublisher.publishEvent(new CompanyChangedEvent(company.getId()));
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.datum.fleetx.security;
+
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * Published whenever a Company row is written, so cached principals carrying its name or plan are dropped
+ */
+@Value
+public class CompanyChangedEvent {
+    UUID companyId;
+}
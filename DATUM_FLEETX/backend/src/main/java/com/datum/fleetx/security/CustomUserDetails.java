@@ -1,11 +1,13 @@
 package com.datum.fleetx.security;
 
 import com.datum.fleetx.entity.StaffMember;
+import io.jsonwebtoken.Claims;
 import lombok.Getter;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
@@ -22,9 +24,11 @@ public class CustomUserDetails implements UserDetails {
     private final String firstName;
     private final String lastName;
     private final String companyName;
+    private final String subscriptionPlan;
     private final StaffMember.RoleType role;
     private final UUID companyId;
     private final boolean active;
+    private final Instant lockedUntil;
     
     public CustomUserDetails(StaffMember staffMember) {
         this.id = staffMember.getId();
@@ -33,9 +37,48 @@ public class CustomUserDetails implements UserDetails {
         this.firstName = staffMember.getFirstName();
         this.lastName = staffMember.getLastName();
         this.companyName = staffMember.getCompany().getCompanyName();
+        this.subscriptionPlan = staffMember.getCompany().getSubscriptionPlan() != null
+            ? staffMember.getCompany().getSubscriptionPlan().name() : null;
         this.role = staffMember.getRoleType();
         this.companyId = staffMember.getCompany().getId();
         this.active = staffMember.getActive();
+        this.lockedUntil = staffMember.getLockedUntil();
+    }
+    
+    private CustomUserDetails(UUID id, String email, String firstName, String lastName, String companyName,
+                              StaffMember.RoleType role, UUID companyId) {
+        this.id = id;
+        this.email = email;
+        this.password = null;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.companyName = companyName;
+        this.subscriptionPlan = null;
+        this.role = role;
+        this.companyId = companyId;
+        this.active = true;
+        this.lockedUntil = null;
+    }
+    
+    /**
+     * Rebuild the principal from a verified token - no database lookup.
+     * Returns null for tokens issued before these claims were added.
+     */
+    public static CustomUserDetails fromClaims(Claims claims) {
+        String staffId = claims.get(JwtService.CLAIM_STAFF_ID, String.class);
+        String companyId = claims.get(JwtService.CLAIM_COMPANY_ID, String.class);
+        String role = claims.get(JwtService.CLAIM_ROLE, String.class);
+        if (staffId == null || companyId == null || role == null) {
+            return null;
+        }
+        return new CustomUserDetails(
+            UUID.fromString(staffId),
+            claims.getSubject(),
+            claims.get(JwtService.CLAIM_FIRST_NAME, String.class),
+            claims.get(JwtService.CLAIM_LAST_NAME, String.class),
+            claims.get(JwtService.CLAIM_COMPANY_NAME, String.class),
+            StaffMember.RoleType.valueOf(role),
+            UUID.fromString(companyId));
     }
     
     @Override
@@ -60,7 +103,8 @@ public class CustomUserDetails implements UserDetails {
     
     @Override
     public boolean isAccountNonLocked() {
-        return true;
+        // Checked by DaoAuthenticationProvider before the password, so locked accounts cost no hashing
+        return lockedUntil == null || !Instant.now().isBefore(lockedUntil);
     }
     
     @Override
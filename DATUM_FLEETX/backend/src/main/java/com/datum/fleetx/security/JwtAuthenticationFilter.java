@@ -4,6 +4,7 @@ import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -14,6 +15,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.UUID;
 
 /**
  * JWT Authentication Filter - validates JWT tokens on each request
@@ -24,6 +26,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtService jwtService;
     private final UserDetailsServiceImpl userDetailsService;
+    private final StaffAccessService staffAccessService;
+    private final RefreshTokenService refreshTokenService;
     
     @Override
     protected void doFilterInternal(
@@ -33,7 +37,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String userEmail;
         
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -43,12 +46,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
         
         try {
-            userEmail = jwtService.extractUsername(jwt);
+            // Parsed and verified once; the claims are reused for validation below
+            Claims claims = jwtService.parseClaims(jwt);
+            String userEmail = claims.getSubject();
             
             if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
+                UserDetails userDetails = resolvePrincipal(claims, userEmail);
                 
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                if (userDetails != null && jwtService.isTokenValid(claims, userDetails)) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -64,4 +69,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         filterChain.doFilter(request, response);
     }
+    
+    /**
+     * Principal from the token's claims, checked against the cached lock/deactivation state;
+     * tokens issued before the claims existed still go through the user lookup
+     */
+    private UserDetails resolvePrincipal(Claims claims, String userEmail) {
+        String sessionId = claims.get(JwtService.CLAIM_SESSION_ID, String.class);
+        if (sessionId != null && refreshTokenService.isSessionRevoked(UUID.fromString(sessionId))) {
+            return null;
+        }
+        CustomUserDetails principal = CustomUserDetails.fromClaims(claims);
+        if (principal == null) {
+            return userDetailsService.loadUserByUsername(userEmail);
+        }
+        return staffAccessService.isAllowed(principal) ? principal : null;
+    }
 }
@@ -1,6 +1,10 @@
 package com.datum.fleetx.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
@@ -8,35 +12,124 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 /**
  * JWT Service for token generation and validation
+ * The signing key and parser are built once; verified tokens are cached with their claims
+ * (never past the token's own expiry) so repeat requests skip the HMAC check and JSON parse.
+ * Access tokens are short-lived and carry the refresh-token session id ("sid") they belong to.
  */
 @Service
 public class JwtService {
     
+    public static final String CLAIM_STAFF_ID = "staffId";
+    public static final String CLAIM_COMPANY_ID = "companyId";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_COMPANY_NAME = "companyName";
+    public static final String CLAIM_FIRST_NAME = "firstName";
+    public static final String CLAIM_LAST_NAME = "lastName";
+    public static final String CLAIM_SESSION_ID = "sid";
+    
     @Value("${jwt.secret}")
     private String secretKey;
     
     @Value("${jwt.expiration}")
     private long jwtExpiration;
     
+    @Value("${jwt.claims-cache.max-size:10000}")
+    private long claimsCacheMaxSize;
+    
+    @Value("${jwt.claims-cache.ttl-seconds:300}")
+    private long claimsCacheTtlSeconds;
+    
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+    private Cache<String, Claims> verifiedClaims;
+    
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        jwtParser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String token, Claims claims, long currentTime) {
+                        long ttl = TimeUnit.SECONDS.toNanos(claimsCacheTtlSeconds);
+                        if (claims.getExpiration() == null) {
+                            return ttl;
+                        }
+                        long untilExpiry = TimeUnit.MILLISECONDS.toNanos(
+                                claims.getExpiration().getTime() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(ttl, untilExpiry));
+                    }
+                    
+                    @Override
+                    public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                    
+                    @Override
+                    public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+    
+    /**
+     * Verify signature and expiry once and return the claims; throws on an invalid token
+     */
+    public Claims parseClaims(String token) {
+        Claims cached = verifiedClaims.getIfPresent(token);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        verifiedClaims.put(token, claims);
+        return claims;
+    }
+    
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
     
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseClaims(token);
         return claimsResolver.apply(claims);
     }
     
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        return generateToken(userDetails, null);
+    }
+    
+    /**
+     * Access token tied to a refresh-token session, so logging out also ends it
+     */
+    public String generateToken(UserDetails userDetails, UUID sessionId) {
+        Map<String, Object> claims = new HashMap<>();
+        if (sessionId != null) {
+            claims.put(CLAIM_SESSION_ID, sessionId.toString());
+        }
+        if (userDetails instanceof CustomUserDetails) {
+            // Enough to rebuild the principal per request without loading the StaffMember
+            CustomUserDetails user = (CustomUserDetails) userDetails;
+            claims.put(CLAIM_STAFF_ID, user.getId().toString());
+            claims.put(CLAIM_COMPANY_ID, user.getCompanyId().toString());
+            claims.put(CLAIM_ROLE, user.getRole().name());
+            claims.put(CLAIM_COMPANY_NAME, user.getCompanyName());
+            claims.put(CLAIM_FIRST_NAME, user.getFirstName());
+            claims.put(CLAIM_LAST_NAME, user.getLastName());
+        }
+        return generateToken(claims, userDetails);
     }
     
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
@@ -49,32 +142,26 @@ public class JwtService {
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey())
+                .signWith(signingKey)
                 .compact();
     }
     
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+    public long getExpirationSeconds() {
+        return TimeUnit.MILLISECONDS.toSeconds(jwtExpiration);
     }
     
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-    
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public boolean isTokenValid(String token, UserDetails userDetails) {
+        return isTokenValid(parseClaims(token), userDetails);
     }
     
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(getSignInKey())
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Validate already-parsed claims against the user, without touching the token again
+     */
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return userDetails.getUsername().equals(claims.getSubject()) && !isTokenExpired(claims);
     }
     
-    private SecretKey getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration() != null && claims.getExpiration().before(new Date());
     }
 }
@@ -0,0 +1,86 @@
+package com.datum.fleetx.security;
+
+import com.datum.fleetx.exception.TooManyRequestsException;
+import com.datum.fleetx.repository.StaffMemberRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Login Attempt Service - Brute-force throttling checked before any password hashing
+ * Per account: failedLoginAttempts/lockedUntil on StaffMember (enforced through
+ * CustomUserDetails.isAccountNonLocked). Per IP: an in-memory failure count per window.
+ */
+@Service
+@RequiredArgsConstructor
+public class LoginAttemptService {
+    
+    private final StaffMemberRepository staffMemberRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @Value("${security.login.max-failed-attempts:5}")
+    private int maxFailedAttempts;
+    
+    @Value("${security.login.lockout-minutes:15}")
+    private long lockoutMinutes;
+    
+    @Value("${security.login.max-failed-per-ip:20}")
+    private int maxFailedPerIp;
+    
+    @Value("${security.login.ip-window-minutes:15}")
+    private long ipWindowMinutes;
+    
+    private Cache<String, AtomicInteger> failuresByIp;
+    
+    @PostConstruct
+    void initCache() {
+        failuresByIp = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofMinutes(ipWindowMinutes))
+            .build();
+    }
+    
+    /**
+     * Reject the attempt outright if this IP has failed too often in the current window
+     */
+    public void checkIp(String ip) {
+        AtomicInteger failures = failuresByIp.getIfPresent(ip);
+        if (failures != null && failures.get() >= maxFailedPerIp) {
+            throw new TooManyRequestsException("Too many failed sign-in attempts, please try again later",
+                Duration.ofMinutes(ipWindowMinutes).toSeconds());
+        }
+    }
+    
+    @Transactional
+    public void recordFailure(String email, String ip) {
+        failuresByIp.get(ip, k -> new AtomicInteger()).incrementAndGet();
+        staffMemberRepository.findIdByEmail(email).ifPresent(staffId -> {
+            staffMemberRepository.incrementFailedLoginAttempts(staffId);
+            staffMemberRepository.lockIfAttemptsReached(staffId, maxFailedAttempts,
+                Instant.now().plus(Duration.ofMinutes(lockoutMinutes)));
+            publishChange(staffId, email);
+        });
+    }
+    
+    @Transactional
+    public void recordSuccess(UUID staffId, String email) {
+        if (staffMemberRepository.resetFailedLoginAttempts(staffId) > 0) {
+            publishChange(staffId, email);
+        }
+    }
+    
+    private void publishChange(UUID staffId, String email) {
+        // Bulk updates skip entity listeners, so announce the change for the auth caches
+        eventPublisher.publishEvent(new StaffMemberChangedEvent(staffId, email));
+    }
+}
@@ -0,0 +1,125 @@
+package com.datum.fleetx.security;
+
+import com.datum.fleetx.config.RateLimitProperties;
+import com.datum.fleetx.dto.ApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate Limit Filter - per-IP and per-tracking-code limits for /api/v1/public endpoints
+ * Runs ahead of authentication so rejected requests never reach a controller or the database
+ */
+@Component
+@RequiredArgsConstructor
+public class PublicRateLimitFilter extends OncePerRequestFilter {
+
+    private static final String PUBLIC_PREFIX = "/api/v1/public/";
+    private static final String TRACKING_CODE = "trackingCode";
+
+    private final RateLimitProperties properties;
+    private final ObjectMapper objectMapper;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<LimitedEndpoint> endpoints = new ArrayList<>();
+
+    @PostConstruct
+    void initLimiters() {
+        for (RateLimitProperties.Rule rule : properties.getRules()) {
+            Duration period = Duration.ofSeconds(rule.getPeriodSeconds());
+            endpoints.add(new LimitedEndpoint(
+                rule,
+                rule.getPerIp() > 0
+                    ? new TokenBucketRateLimiter(rule.getPerIp(), period, properties.getMaxTrackedKeys())
+                    : null,
+                rule.getPerCode() > 0
+                    ? new TokenBucketRateLimiter(rule.getPerCode(), period, properties.getMaxTrackedKeys())
+                    : null));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !properties.isEnabled() || !request.getRequestURI().startsWith(PUBLIC_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        String path = request.getRequestURI();
+
+        for (LimitedEndpoint endpoint : endpoints) {
+            if (!pathMatcher.match(endpoint.rule.getPattern(), path)) {
+                continue;
+            }
+
+            if (endpoint.perIp != null) {
+                long wait = endpoint.perIp.tryAcquire(request.getRemoteAddr());
+                if (wait > 0) {
+                    reject(response, wait);
+                    return;
+                }
+            }
+
+            String trackingCode = extractTrackingCode(endpoint.rule.getPattern(), path, request);
+            if (endpoint.perCode != null && trackingCode != null) {
+                long wait = endpoint.perCode.tryAcquire(trackingCode.trim().toUpperCase());
+                if (wait > 0) {
+                    reject(response, wait);
+                    return;
+                }
+            }
+            break;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private String extractTrackingCode(String pattern, String path, HttpServletRequest request) {
+        Map<String, String> variables = pathMatcher.extractUriTemplateVariables(pattern, path);
+        String code = variables.get(TRACKING_CODE);
+        return code != null ? code : request.getParameter(TRACKING_CODE);
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+            ApiResponse.error("Too many requests, please retry later"));
+    }
+
+    private static class LimitedEndpoint {
+        private final RateLimitProperties.Rule rule;
+        private final TokenBucketRateLimiter perIp;
+        private final TokenBucketRateLimiter perCode;
+
+        LimitedEndpoint(RateLimitProperties.Rule rule, TokenBucketRateLimiter perIp, TokenBucketRateLimiter perCode) {
+            this.rule = rule;
+            this.perIp = perIp;
+            this.perCode = perCode;
+        }
+    }
+}
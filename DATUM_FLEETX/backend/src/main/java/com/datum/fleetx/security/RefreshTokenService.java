@@ -0,0 +1,242 @@
+package com.datum.fleetx.security;
+
+import com.datum.fleetx.entity.RefreshToken;
+import com.datum.fleetx.repository.RefreshTokenRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Refresh Token Service - Rotating refresh tokens and session revocation
+ * A refresh token is "<id>.<secret>": the id is the row's primary key and only a SHA-256 of
+ * the secret is stored, so a refresh is one PK lookup. Each use rotates the token; presenting
+ * an already-rotated token revokes the whole family (it was copied). Access tokens carry the
+ * family id as their session id and are checked against an in-memory Bloom filter of
+ * revoked families, which keeps the per-request check stateless unless the filter says "maybe".
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int SECRET_BYTES = 32;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @org.springframework.beans.factory.annotation.Value("${jwt.refresh.expiration-days:30}")
+    private long refreshExpirationDays;
+
+    @org.springframework.beans.factory.annotation.Value("${jwt.refresh.revoked-filter.expected-entries:100000}")
+    private int expectedRevokedEntries;
+
+    @org.springframework.beans.factory.annotation.Value("${jwt.refresh.revoked-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile UuidBloomFilter revokedFamilies;
+    private volatile UuidBloomFilter rebuilding;
+    private LoadingCache<UUID, Boolean> confirmedRevocations;
+
+    @Value
+    public static class IssuedToken {
+        String token;
+        UUID familyId;
+        UUID staffMemberId;
+        Instant expiresAt;
+    }
+
+    @PostConstruct
+    void init() {
+        // "Maybe revoked" answers are confirmed against the table and remembered briefly
+        confirmedRevocations = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build(refreshTokenRepository::existsByFamilyIdAndRevokedAtIsNotNullAndReplacedByIdIsNull);
+        rebuildRevokedFilter();
+    }
+
+    /**
+     * Start a new session (family) at login
+     */
+    @Transactional
+    public IssuedToken issue(UUID staffMemberId) {
+        return create(staffMemberId, UUID.randomUUID());
+    }
+
+    /**
+     * Exchange a refresh token for its successor; the presented token can't be used again
+     */
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public IssuedToken rotate(String presented) {
+        RefreshToken current = find(presented);
+        Instant now = Instant.now();
+
+        if (current.getRevokedAt() != null) {
+            if (current.getReplacedById() != null) {
+                // A rotated token came back: someone else holds a copy, so end the session
+                log.warn("Refresh token reuse detected, revoking session {}", current.getFamilyId());
+                revokeFamilyNow(current.getFamilyId(), now);
+            }
+            throw new BadCredentialsException("Refresh token revoked");
+        }
+        if (current.getExpiresAt().isBefore(now)) {
+            throw new BadCredentialsException("Refresh token expired");
+        }
+
+        IssuedToken next = create(current.getStaffMemberId(), current.getFamilyId());
+        UUID nextId = UUID.fromString(next.getToken().substring(0, next.getToken().indexOf('.')));
+        if (refreshTokenRepository.markRotated(current.getId(), nextId, now) == 0) {
+            // Lost a race with a concurrent refresh of the same token
+            throw new BadCredentialsException("Refresh token already used");
+        }
+        return next;
+    }
+
+    /**
+     * End the session the token belongs to (logout)
+     */
+    @Transactional
+    public void revoke(String presented) {
+        revokeFamilyNow(find(presented).getFamilyId(), Instant.now());
+    }
+
+    /**
+     * Per-request session check for access tokens - a Bloom filter probe, and a lookup only
+     * when the filter reports a possible revocation
+     */
+    public boolean isSessionRevoked(UUID familyId) {
+        if (!revokedFamilies.mightContain(familyId)) {
+            return false;
+        }
+        return Boolean.TRUE.equals(confirmedRevocations.get(familyId));
+    }
+
+    /**
+     * Rebuild the filter from the table (drops sessions whose tokens have all expired, and
+     * picks up revocations made by other instances); expired rows are purged at the same time
+     */
+    @Scheduled(fixedDelayString = "${jwt.refresh.maintenance-interval-ms:3600000}",
+               initialDelayString = "${jwt.refresh.maintenance-interval-ms:3600000}")
+    public void maintain() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            int purged = refreshTokenRepository.deleteExpiredBefore(Instant.now().minus(Duration.ofDays(1)));
+            if (purged > 0) {
+                log.info("Purged {} expired refresh tokens", purged);
+            }
+        });
+        rebuildRevokedFilter();
+    }
+
+    private void rebuildRevokedFilter() {
+        UuidBloomFilter next = new UuidBloomFilter(expectedRevokedEntries, falsePositiveRate);
+        // Revocations made while the table is read go into both filters
+        rebuilding = next;
+        try {
+            refreshTokenRepository.findRevokedFamilyIds(Instant.now()).forEach(next::put);
+            revokedFamilies = next;
+        } finally {
+            rebuilding = null;
+        }
+        confirmedRevocations.invalidateAll();
+    }
+
+    private void revokeFamilyNow(UUID familyId, Instant now) {
+        refreshTokenRepository.revokeFamily(familyId, now);
+        markRevoked(familyId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            confirmedRevocations.invalidate(familyId);
+            return;
+        }
+        // A lookup before the commit still sees the session as live and may cache that; once
+        // committed, mark again (a rebuild that read the table before the commit may have
+        // swapped in a filter without it) and drop whatever was cached
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                markRevoked(familyId);
+                confirmedRevocations.invalidate(familyId);
+            }
+        });
+    }
+
+    private void markRevoked(UUID familyId) {
+        // Read the rebuild first: once it is cleared, revokedFamilies is already the new filter
+        UuidBloomFilter inProgress = rebuilding;
+        if (inProgress != null) {
+            inProgress.put(familyId);
+        }
+        revokedFamilies.put(familyId);
+    }
+
+    private IssuedToken create(UUID staffMemberId, UUID familyId) {
+        byte[] secretBytes = new byte[SECRET_BYTES];
+        RANDOM.nextBytes(secretBytes);
+        String secret = Base64.getUrlEncoder().withoutPadding().encodeToString(secretBytes);
+
+        RefreshToken token = new RefreshToken();
+        token.setStaffMemberId(staffMemberId);
+        token.setFamilyId(familyId);
+        token.setTokenHash(sha256(secret));
+        token.setExpiresAt(Instant.now().plus(Duration.ofDays(refreshExpirationDays)));
+        token = refreshTokenRepository.save(token);
+
+        return new IssuedToken(token.getId() + "." + secret, familyId, staffMemberId, token.getExpiresAt());
+    }
+
+    private RefreshToken find(String presented) {
+        int dot = presented != null ? presented.indexOf('.') : -1;
+        if (dot <= 0) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        UUID id;
+        try {
+            id = UUID.fromString(presented.substring(0, dot));
+        } catch (IllegalArgumentException e) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        RefreshToken token = refreshTokenRepository.findById(id)
+            .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+        byte[] expected = token.getTokenHash().getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = sha256(presented.substring(dot + 1)).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        return token;
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
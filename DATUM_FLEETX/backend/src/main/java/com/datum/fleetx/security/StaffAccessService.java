@@ -0,0 +1,61 @@
+package com.datum.fleetx.security;
+
+import com.datum.fleetx.repository.StaffMemberRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Staff Access Service - Revocation/lock check for stateless JWT principals
+ * Access state is cached briefly per staff member and dropped as soon as the row changes,
+ * so a locked or deactivated account is refused on its next request without a DB hit per call.
+ */
+@Service
+@RequiredArgsConstructor
+public class StaffAccessService {
+    
+    private final StaffMemberRepository staffMemberRepository;
+    
+    @Value("${security.access-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+    
+    @Value("${security.access-cache.max-size:50000}")
+    private long maxSize;
+    
+    private LoadingCache<UUID, Optional<StaffAccessState>> accessStates;
+    
+    @PostConstruct
+    void initCache() {
+        accessStates = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .build(staffMemberRepository::findAccessStateById);
+    }
+    
+    /**
+     * Whether a token issued for this staff member and role may still be used
+     */
+    public boolean isAllowed(CustomUserDetails principal) {
+        return accessStates.get(principal.getId())
+            .map(state -> state.permits(principal.getRole()))
+            .orElse(false);
+    }
+    
+    public void invalidate(UUID staffId) {
+        accessStates.invalidate(staffId);
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStaffMemberChanged(StaffMemberChangedEvent event) {
+        invalidate(event.getStaffId());
+    }
+}
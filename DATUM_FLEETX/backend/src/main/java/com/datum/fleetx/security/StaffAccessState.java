@@ -0,0 +1,22 @@
+package com.datum.fleetx.security;
+
+import com.datum.fleetx.entity.StaffMember;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Staff Access State - The few StaffMember columns that decide whether a token is still honoured
+ */
+@Value
+public class StaffAccessState {
+    Boolean active;
+    Instant lockedUntil;
+    StaffMember.RoleType role;
+    
+    public boolean permits(StaffMember.RoleType tokenRole) {
+        return Boolean.TRUE.equals(active)
+            && (lockedUntil == null || !Instant.now().isBefore(lockedUntil))
+            && role == tokenRole;
+    }
+}
@@ -0,0 +1,28 @@
+package com.datum.fleetx.security;
+
+import com.datum.fleetx.entity.StaffMember;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Entity listener that announces StaffMember writes (lock, deactivation, role or password change)
+ * Instantiated by Hibernate through Spring's bean container, hence field injection
+ */
+public class StaffMemberChangeListener {
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onWrite(StaffMember staffMember) {
+        if (eventPublisher != null && staffMember.getId() != null) {
+            eventPublisher.publishEvent(new StaffMemberChangedEvent(staffMember.getId(), staffMember.getEmail()));
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.datum.fleetx.security;
+
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * Published whenever a StaffMember row is written, so in-memory auth caches can drop stale entries
+ */
+@Value
+public class StaffMemberChangedEvent {
+    UUID staffId;
+    String email;
+}
@@ -0,0 +1,53 @@
+package com.datum.fleetx.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket rate limiter keyed by an arbitrary string (client IP, tracking code, ...)
+ * Each bucket is a single AtomicLong holding its theoretical arrival time (GCRA form of a
+ * token bucket), so acquiring a permit is one CAS with no locks. Idle buckets are dropped
+ * from the bounded map after a full refill period.
+ */
+public class TokenBucketRateLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final Cache<String, AtomicLong> buckets;
+
+    public TokenBucketRateLimiter(int capacity, Duration period, long maxKeys) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Rate limit capacity must be positive");
+        }
+        this.emissionIntervalNanos = period.toNanos() / capacity;
+        this.burstToleranceNanos = emissionIntervalNanos * capacity;
+        this.buckets = Caffeine.newBuilder()
+            .maximumSize(maxKeys)
+            .expireAfterAccess(period)
+            .build();
+    }
+
+    /**
+     * Try to take one permit for the key
+     * @return 0 if permitted, otherwise nanoseconds until a permit becomes available
+     */
+    public long tryAcquire(String key) {
+        AtomicLong theoreticalArrival = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        while (true) {
+            long now = System.nanoTime();
+            long tat = theoreticalArrival.get();
+            long start = tat == Long.MIN_VALUE || tat < now ? now : tat;
+            long next = start + emissionIntervalNanos;
+            long wait = next - now - burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+}
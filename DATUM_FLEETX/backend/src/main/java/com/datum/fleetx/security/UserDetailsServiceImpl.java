@@ -2,26 +2,94 @@ package com.datum.fleetx.security;
 
 import com.datum.fleetx.entity.StaffMember;
 import com.datum.fleetx.repository.StaffMemberRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Custom UserDetailsService implementation
+ * Loaded users are kept in a bounded cache (hit rate published as cache.* metrics under
+ * "userDetails") and evicted whenever the StaffMember row changes - password, lock,
+ * failed attempts or deactivation - or its Company does, so repeated logins don't repeat
+ * the same lookup. Entries are loaded through the cache, so an eviction that races a load
+ * waits for it and then removes the stale entry instead of being overwritten by it.
  */
 @Service
 @RequiredArgsConstructor
 public class UserDetailsServiceImpl implements UserDetailsService {
     
     private final StaffMemberRepository staffMemberRepository;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${security.user-details-cache.max-size:10000}")
+    private long maxSize;
+    
+    @Value("${security.user-details-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+    
+    private Cache<String, CustomUserDetails> users;
+    
+    // Cached email per staff member, so a change is evicted by id even after an email change
+    private final Map<UUID, String> emailsByStaffId = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    void initCache() {
+        users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .<String, CustomUserDetails>removalListener((email, user, cause) -> {
+                    if (email != null && user != null) {
+                        emailsByStaffId.remove(user.getId(), email);
+                    }
+                })
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "userDetails");
+    }
     
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        StaffMember staffMember = staffMemberRepository.findByEmail(email)
+        return users.get(email, this::load);
+    }
+    
+    private CustomUserDetails load(String email) {
+        // Company is fetched with the user so the details are complete outside a session
+        StaffMember staffMember = staffMemberRepository.findWithCompanyByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
-        
+        emailsByStaffId.put(staffMember.getId(), email);
         return new CustomUserDetails(staffMember);
     }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStaffMemberChanged(StaffMemberChangedEvent event) {
+        users.invalidate(event.getEmail());
+        // Also covers an email change, where the cached entry sits under the old address
+        String cachedEmail = emailsByStaffId.get(event.getStaffId());
+        if (cachedEmail != null) {
+            users.invalidate(cachedEmail);
+        }
+    }
+    
+    /**
+     * Company writes are rare admin actions, so a scan of the cache is fine here
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCompanyChanged(CompanyChangedEvent event) {
+        users.asMap().values().removeIf(user -> user.getCompanyId().equals(event.getCompanyId()));
+    }
 }
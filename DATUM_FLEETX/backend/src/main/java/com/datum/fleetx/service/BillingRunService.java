@@ -0,0 +1,366 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.dto.invoice.BillingRunRequest;
+import com.datum.fleetx.dto.invoice.BillingRunStatus;
+import com.datum.fleetx.entity.Company;
+import com.datum.fleetx.entity.Invoice;
+import com.datum.fleetx.entity.Load;
+import com.datum.fleetx.exception.ConflictException;
+import com.datum.fleetx.exception.ResourceNotFoundException;
+import com.datum.fleetx.exception.ServiceBusyException;
+import com.datum.fleetx.repository.CompanyRepository;
+import com.datum.fleetx.repository.CustomerRepository;
+import com.datum.fleetx.repository.LoadRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Billing Run Service - Invoices delivered loads in bulk on a background executor
+ * The unbilled loads are read once as (load, customer, currency) rows and cut into batches at
+ * invoice boundaries; a consolidated invoice covers one customer's loads in one currency. Each
+ * batch is one transaction: it locks its loads, drops any billed or changed since the run
+ * started, then inserts the invoices and stamps the loads with JDBC batch statements and
+ * moves each customer's balance in each currency. A failed batch stops the run; committed
+ * batches stay billed and the next run picks up the rest. Progress is kept in memory and polled by run id.
+ */
+@Slf4j
+@Service
+public class BillingRunService {
+
+    private static final Set<Load.LoadStatus> BILLABLE = EnumSet.of(Load.LoadStatus.DELIVERED, Load.LoadStatus.COMPLETED);
+    private static final int DEFAULT_PAYMENT_TERMS = 30;
+
+    private static final String LOCK_LOADS = "SELECT l.id, l.customer_id, l.load_number, l.total_rate, l.currency FROM loads l " +
+        "WHERE l.id IN (%s) AND l.active = true AND l.invoice_id IS NULL AND l.status IN (%s) " +
+        "AND NOT EXISTS (SELECT 1 FROM invoices i WHERE i.load_id = l.id AND i.active = true " +
+        "AND i.status <> 'CANCELLED') " +
+        "ORDER BY l.id FOR UPDATE OF l";
+
+    private static final String INSERT_INVOICE = "INSERT INTO invoices (id, created_at, updated_at, active, version, " +
+        "company_id, customer_id, load_id, invoice_number, issue_date, due_date, subtotal, tax_amount, tax_rate, " +
+        "discount_amount, total_amount, currency, status, paid_amount, notes) " +
+        "VALUES (?, ?, ?, true, 0, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?, ?, ?, 0, ?)";
+    private static final int[] INVOICE_TYPES = {Types.OTHER, Types.TIMESTAMP, Types.TIMESTAMP,
+        Types.OTHER, Types.OTHER, Types.OTHER, Types.VARCHAR, Types.DATE, Types.DATE, Types.NUMERIC, Types.NUMERIC,
+        Types.NUMERIC, Types.NUMERIC, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR};
+
+    private static final String BILL_LOAD = "UPDATE loads SET invoice_id = ?, updated_at = ?, version = version + 1 " +
+        "WHERE id = ?";
+    private static final int[] BILL_LOAD_TYPES = {Types.OTHER, Types.TIMESTAMP, Types.OTHER};
+
+    @Autowired
+    private LoadRepository loadRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private NumberAllocator numberAllocator;
+
+    @Autowired
+    private ReceivablesService receivablesService;
+
+    @Autowired
+    private CollectionVersionService collectionVersionService;
+
+    @Autowired
+    private ThreadPoolTaskExecutor billingTaskExecutor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${billing.run.batch-size:500}")
+    private int batchSize;
+
+    @Value("${billing.run.retain-hours:24}")
+    private long retainHours;
+
+    @Value("${invoicing.tax-rate:0.08}")
+    private BigDecimal taxRate;
+
+    private final Map<UUID, UUID> activeRuns = new ConcurrentHashMap<>();
+    private Cache<UUID, Run> runs;
+    private TransactionTemplate transactionTemplate;
+    private String billableStatuses;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        runs = Caffeine.newBuilder()
+            .maximumSize(1_000)
+            .expireAfterWrite(Duration.ofHours(retainHours))
+            .build();
+        billableStatuses = BILLABLE.stream().map(s -> "'" + s.name() + "'").collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Queue a run for the company; one run per company at a time
+     */
+    public BillingRunStatus start(UUID companyId, BillingRunRequest request) {
+        Company company = companyRepository.findById(companyId)
+            .orElseThrow(() -> new ResourceNotFoundException("Company", "id", companyId));
+        Instant deliveredBefore = request.getDeliveredBefore() != null
+            ? request.getDeliveredBefore().toInstant() : Instant.now();
+        Run run = new Run(companyId, company.getBaseCurrency() != null ? company.getBaseCurrency() : "USD",
+            request.getGrouping() != null ? request.getGrouping() : BillingRunRequest.Grouping.PER_CUSTOMER,
+            deliveredBefore);
+
+        if (activeRuns.putIfAbsent(companyId, run.id) != null) {
+            throw new ConflictException("A billing run is already in progress for this company");
+        }
+        runs.put(run.id, run);
+        try {
+            billingTaskExecutor.execute(() -> execute(run));
+        } catch (TaskRejectedException e) {
+            activeRuns.remove(companyId, run.id);
+            runs.invalidate(run.id);
+            throw new ServiceBusyException("Too many billing runs in progress, try again shortly");
+        }
+        return run.snapshot();
+    }
+
+    public BillingRunStatus status(UUID companyId, UUID runId) {
+        Run run = runs.getIfPresent(runId);
+        if (run == null || !run.companyId.equals(companyId)) {
+            throw new ResourceNotFoundException("Billing run", "id", runId);
+        }
+        return run.snapshot();
+    }
+
+    private void execute(Run run) {
+        run.startedAt = Instant.now();
+        run.state = BillingRunStatus.State.RUNNING;
+        try {
+            Map<UUID, Integer> paymentTerms = new HashMap<>();
+            for (Object[] row : customerRepository.findPaymentTermsByCompanyId(run.companyId)) {
+                if (row[1] != null) paymentTerms.put((UUID) row[0], (Integer) row[1]);
+            }
+            List<Object[]> unbilled = loadRepository.findUnbilled(run.companyId, BILLABLE, run.deliveredBefore,
+                run.currency);
+            run.totalLoads = unbilled.size();
+
+            List<UUID> batch = new ArrayList<>();
+            int invoices = 0;
+            String lastKey = null;
+            for (Object[] row : unbilled) {
+                UUID loadId = (UUID) row[0];
+                UUID customerId = (UUID) row[1];
+                if (customerId == null) {
+                    run.loadsSkipped++;
+                    continue;
+                }
+                String key = invoiceKey(customerId, (String) row[2], run.currency);
+                boolean newInvoice = run.grouping == BillingRunRequest.Grouping.PER_LOAD || !key.equals(lastKey);
+                // Cut at an invoice boundary so a consolidated invoice is never split
+                if (batch.size() >= batchSize && newInvoice) {
+                    bill(run, batch, invoices, paymentTerms);
+                    batch = new ArrayList<>();
+                    invoices = 0;
+                }
+                batch.add(loadId);
+                if (newInvoice) invoices++;
+                lastKey = key;
+            }
+            if (!batch.isEmpty()) {
+                bill(run, batch, invoices, paymentTerms);
+            }
+            run.state = BillingRunStatus.State.COMPLETED;
+        } catch (RuntimeException e) {
+            log.error("Billing run {} for company {} failed", run.id, run.companyId, e);
+            run.error = e.getMessage();
+            run.state = BillingRunStatus.State.FAILED;
+        } finally {
+            run.finishedAt = Instant.now();
+            activeRuns.remove(run.companyId, run.id);
+            log.info("Billing run {} for company {}: {} invoices for {} of {} loads ({} skipped) in {} ms",
+                run.id, run.companyId, run.invoicesCreated, run.loadsBilled, run.totalLoads, run.loadsSkipped,
+                Duration.between(run.startedAt, run.finishedAt).toMillis());
+        }
+    }
+
+    /**
+     * One transaction: lock the batch's loads, group what is still billable, write invoices and stamp loads
+     */
+    private void bill(Run run, List<UUID> loadIds, int invoices, Map<UUID, Integer> paymentTerms) {
+        // Invoice numbers are reserved up front so the transaction never waits on a second connection
+        numberAllocator.reserve(run.companyId, NumberAllocator.Series.INVOICE, invoices);
+        Billed billed = transactionTemplate.execute(status -> {
+            String sql = String.format(LOCK_LOADS, String.join(", ", Collections.nCopies(loadIds.size(), "?")),
+                billableStatuses);
+            List<BillableLoad> locked = jdbcTemplate.query(sql, (rs, i) -> new BillableLoad(
+                rs.getObject(1, UUID.class), rs.getObject(2, UUID.class), rs.getString(3), rs.getBigDecimal(4),
+                rs.getString(5) != null ? rs.getString(5) : run.currency), loadIds.toArray());
+
+            Map<String, List<BillableLoad>> groups = new LinkedHashMap<>();
+            for (BillableLoad load : locked) {
+                if (load.customerId == null) continue;
+                String key = run.grouping == BillingRunRequest.Grouping.PER_LOAD
+                    ? load.id.toString() : invoiceKey(load.customerId, load.currency, run.currency);
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(load);
+            }
+
+            Timestamp now = Timestamp.from(Instant.now());
+            LocalDate issueDate = LocalDate.now();
+            Billed result = new Billed();
+            List<Object[]> invoiceArgs = new ArrayList<>(groups.size());
+            List<Object[]> loadArgs = new ArrayList<>(locked.size());
+            Map<UUID, Map<String, BigDecimal>> balances = new HashMap<>();
+            for (List<BillableLoad> group : groups.values()) {
+                UUID invoiceId = UUID.randomUUID();
+                UUID customerId = group.get(0).customerId;
+                String currency = group.get(0).currency;
+                BigDecimal subtotal = group.stream()
+                    .map(load -> load.totalRate != null ? load.totalRate : BigDecimal.ZERO)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add)
+                    .setScale(2, RoundingMode.HALF_UP);
+                BigDecimal taxAmount = subtotal.multiply(taxRate).setScale(2, RoundingMode.HALF_UP);
+                BigDecimal totalAmount = subtotal.add(taxAmount);
+                LocalDate dueDate = issueDate.plusDays(paymentTerms.getOrDefault(customerId, DEFAULT_PAYMENT_TERMS));
+                boolean single = group.size() == 1;
+                invoiceArgs.add(new Object[]{invoiceId, now, now, run.companyId, customerId,
+                    single ? group.get(0).id : null,
+                    numberAllocator.next(run.companyId, NumberAllocator.Series.INVOICE),
+                    Date.valueOf(issueDate), Date.valueOf(dueDate), subtotal, taxAmount, taxRate, totalAmount,
+                    currency, Invoice.InvoiceStatus.DRAFT.name(),
+                    single ? "Load " + group.get(0).loadNumber : group.size() + " loads"});
+                for (BillableLoad load : group) {
+                    loadArgs.add(new Object[]{invoiceId, now, load.id});
+                }
+                balances.computeIfAbsent(customerId, k -> new HashMap<>())
+                    .merge(currency, totalAmount, BigDecimal::add);
+                result.invoices++;
+                result.loads += group.size();
+                result.amounts.merge(currency, totalAmount, BigDecimal::add);
+            }
+
+            if (!invoiceArgs.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_INVOICE, invoiceArgs, INVOICE_TYPES);
+                jdbcTemplate.batchUpdate(BILL_LOAD, loadArgs, BILL_LOAD_TYPES);
+                receivablesService.adjustBalances(balances);
+                // JDBC writes skip the entity listeners
+                collectionVersionService.markChanged(run.companyId, Invoice.class);
+                collectionVersionService.markChanged(run.companyId, Load.class);
+            }
+            return result;
+        });
+
+        run.invoicesCreated += billed.invoices;
+        run.loadsBilled += billed.loads;
+        run.loadsSkipped += loadIds.size() - billed.loads;
+        Map<String, BigDecimal> totals = new TreeMap<>(run.totalAmounts);
+        billed.amounts.forEach((currency, amount) -> totals.merge(currency, amount, BigDecimal::add));
+        run.totalAmounts = Collections.unmodifiableMap(totals);
+    }
+
+    private static String invoiceKey(UUID customerId, String currency, String fallbackCurrency) {
+        return customerId + ":" + (currency != null ? currency : fallbackCurrency);
+    }
+
+    private static final class BillableLoad {
+        private final UUID id;
+        private final UUID customerId;
+        private final String loadNumber;
+        private final BigDecimal totalRate;
+        private final String currency;
+
+        BillableLoad(UUID id, UUID customerId, String loadNumber, BigDecimal totalRate, String currency) {
+            this.id = id;
+            this.customerId = customerId;
+            this.loadNumber = loadNumber;
+            this.totalRate = totalRate;
+            this.currency = currency;
+        }
+    }
+
+    private static final class Billed {
+        private int invoices;
+        private int loads;
+        private final Map<String, BigDecimal> amounts = new HashMap<>();
+    }
+
+    /**
+     * Live state of a run; only its worker thread writes, pollers read
+     */
+    private static final class Run {
+        private final UUID id = UUID.randomUUID();
+        private final UUID companyId;
+        // Company base currency, for loads without one
+        private final String currency;
+        private final BillingRunRequest.Grouping grouping;
+        private final Instant deliveredBefore;
+        private volatile BillingRunStatus.State state = BillingRunStatus.State.QUEUED;
+        private volatile int totalLoads;
+        private volatile int loadsBilled;
+        private volatile int loadsSkipped;
+        private volatile int invoicesCreated;
+        private volatile Map<String, BigDecimal> totalAmounts = Collections.emptyMap();
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        Run(UUID companyId, String currency, BillingRunRequest.Grouping grouping, Instant deliveredBefore) {
+            this.companyId = companyId;
+            this.currency = currency;
+            this.grouping = grouping;
+            this.deliveredBefore = deliveredBefore;
+        }
+
+        BillingRunStatus snapshot() {
+            Instant started = startedAt;
+            Instant finished = finishedAt;
+            return BillingRunStatus.builder()
+                .runId(id)
+                .state(state)
+                .grouping(grouping)
+                .deliveredBefore(deliveredBefore)
+                .totalLoads(totalLoads)
+                .loadsBilled(loadsBilled)
+                .loadsSkipped(loadsSkipped)
+                .invoicesCreated(invoicesCreated)
+                .totalAmounts(totalAmounts)
+                .startedAt(started)
+                .finishedAt(finished)
+                .elapsedMs(started == null ? 0
+                    : Duration.between(started, finished != null ? finished : Instant.now()).toMillis())
+                .error(error)
+                .build();
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.dto.document.StagedObject;
+import com.datum.fleetx.dto.document.UploadStatus;
+import com.datum.fleetx.entity.Document;
+import com.datum.fleetx.exception.ConflictException;
+import com.datum.fleetx.exception.ResourceNotFoundException;
+import com.datum.fleetx.exception.TooManyRequestsException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Chunked Upload Service - Resumable uploads for PODs/BOLs sent over unreliable links
+ * A session preallocates a file of the declared size; chunks are written in place with
+ * positional FileChannel writes, so retries resend only the chunks that are missing.
+ * The whole file is checked against the declared SHA-256 before it enters the store.
+ * Sessions are held in memory only, so part files left behind by a restart are swept.
+ * A session's state (chunk writes in flight, finalizing, ended) is checked and changed under
+ * its lock: complete waits for no write to be running, and a chunk sent to a session that is
+ * finalizing or has ended gets 409 or 404 instead of touching a file that may be gone.
+ */
+@Slf4j
+@Service
+public class ChunkedUploadService {
+
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+    private static final int MAX_CHUNK_SIZE = 8 * 1024 * 1024;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final String PART_PREFIX = "chunked-";
+
+    @Autowired
+    private DocumentStorageService documentStorageService;
+
+    @Value("${document.upload.max-size:${file.max-size}}")
+    private long maxUploadSize;
+
+    @Value("${document.upload.chunk-size:1048576}")
+    private int defaultChunkSize;
+
+    @Value("${document.upload.session-ttl-hours:24}")
+    private long sessionTtlHours;
+
+    @Value("${document.upload.max-sessions-per-company:50}")
+    private int maxSessionsPerCompany;
+
+    private final Map<UUID, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Upload metadata and progress; the file itself lives in the store's tmp directory
+     */
+    @Getter
+    public static class UploadSession {
+        private final UUID id = UUID.randomUUID();
+        private final UUID companyId;
+        private final UUID loadId;
+        private final Document.DocumentType documentType;
+        private final String fileName;
+        private final String contentType;
+        private final String description;
+        private final String expectedHash;
+        private final long totalSize;
+        private final int chunkSize;
+        private final int chunkCount;
+        private final Path file;
+        private final BitSet received;
+        private volatile Instant lastActivity = Instant.now();
+        // Guarded by this
+        @Getter(AccessLevel.NONE)
+        private int writers;
+        @Getter(AccessLevel.NONE)
+        private boolean finalizing;
+        @Getter(AccessLevel.NONE)
+        private boolean ended;
+
+        UploadSession(UUID companyId, UUID loadId, Document.DocumentType documentType, String fileName,
+                      String contentType, String description, String expectedHash,
+                      long totalSize, int chunkSize, Path file) {
+            this.companyId = companyId;
+            this.loadId = loadId;
+            this.documentType = documentType;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.description = description;
+            this.expectedHash = expectedHash;
+            this.totalSize = totalSize;
+            this.chunkSize = chunkSize;
+            this.chunkCount = (int) ((totalSize + chunkSize - 1) / chunkSize);
+            this.file = file;
+            this.received = new BitSet(chunkCount);
+        }
+
+        long chunkLength(int index) {
+            return Math.min(chunkSize, totalSize - (long) index * chunkSize);
+        }
+
+        synchronized void beginWrite() {
+            checkOpen();
+            writers++;
+        }
+
+        /**
+         * @return true if the session ended during the write and its file is now ours to delete
+         */
+        synchronized boolean endWrite(int index, boolean success) {
+            writers--;
+            if (success && !ended) {
+                received.set(index);
+            }
+            return ended && writers == 0;
+        }
+
+        synchronized void beginFinalize() {
+            checkOpen();
+            if (writers > 0) {
+                throw new ConflictException("Chunks are still being written, retry once they finish");
+            }
+            if (received.cardinality() != chunkCount) {
+                throw new IllegalArgumentException("Upload is incomplete, " + missingRanges(this).size()
+                    + " range(s) missing");
+            }
+            finalizing = true;
+        }
+
+        synchronized void cancelFinalize() {
+            finalizing = false;
+        }
+
+        /**
+         * @param force also end a session that is being finalized (by the finalizer itself)
+         * @return true if no write is running and the caller has to delete the file
+         */
+        synchronized boolean end(boolean force) {
+            if (ended) {
+                throw new ResourceNotFoundException("Upload", "id", id);
+            }
+            if (finalizing && !force) {
+                throw new ConflictException("Upload is already being finalized");
+            }
+            ended = true;
+            return writers == 0;
+        }
+
+        synchronized boolean isIdleSince(Instant cutoff) {
+            return !finalizing && !ended && writers == 0 && lastActivity.isBefore(cutoff);
+        }
+
+        private void checkOpen() {
+            if (ended) {
+                throw new ResourceNotFoundException("Upload", "id", id);
+            }
+            if (finalizing) {
+                throw new ConflictException("Upload is already being finalized");
+            }
+        }
+    }
+
+    public UploadSession start(UUID companyId, UUID loadId, Document.DocumentType documentType, String fileName,
+                               String contentType, String description, long totalSize, String sha256,
+                               Integer requestedChunkSize) throws IOException {
+        if (totalSize <= 0 || totalSize > maxUploadSize) {
+            throw new IllegalArgumentException("File size must be between 1 and " + maxUploadSize + " bytes");
+        }
+        String expectedHash = sha256 != null ? sha256.trim().toLowerCase() : "";
+        if (!expectedHash.matches("[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("sha256 must be a hex-encoded SHA-256 digest");
+        }
+        int chunkSize = requestedChunkSize != null ? requestedChunkSize : defaultChunkSize;
+        if (chunkSize < MIN_CHUNK_SIZE || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be between " + MIN_CHUNK_SIZE + " and " + MAX_CHUNK_SIZE);
+        }
+
+        long open = sessions.values().stream().filter(s -> s.getCompanyId().equals(companyId)).count();
+        if (open >= maxSessionsPerCompany) {
+            throw new TooManyRequestsException("Too many uploads in progress, finish or abort one first", 60);
+        }
+
+        // Preallocate so every chunk can be written at its final position in any order
+        Path file = documentStorageService.createTempFile(PART_PREFIX);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(totalSize);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        UploadSession session = new UploadSession(companyId, loadId, documentType, fileName, contentType,
+            description, expectedHash, totalSize, chunkSize, file);
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    public UploadSession getSession(UUID uploadId, UUID companyId) {
+        UploadSession session = sessions.get(uploadId);
+        if (session == null || !session.getCompanyId().equals(companyId)) {
+            throw new ResourceNotFoundException("Upload", "id", uploadId);
+        }
+        return session;
+    }
+
+    /**
+     * Write one chunk at its offset; the body must be exactly the chunk's length
+     */
+    public UploadSession writeChunk(UUID uploadId, UUID companyId, long offset, InputStream body) throws IOException {
+        UploadSession session = getSession(uploadId, companyId);
+        if (offset < 0 || offset >= session.getTotalSize() || offset % session.getChunkSize() != 0) {
+            throw new IllegalArgumentException("Offset must be a multiple of " + session.getChunkSize()
+                + " below " + session.getTotalSize());
+        }
+        int index = (int) (offset / session.getChunkSize());
+        long expected = session.chunkLength(index);
+
+        session.beginWrite();
+        boolean success = false;
+        try {
+            long written = 0;
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            try (FileChannel channel = FileChannel.open(session.getFile(), StandardOpenOption.WRITE)) {
+                int read;
+                while ((read = body.read(buffer)) != -1) {
+                    if (written + read > expected) {
+                        throw new IllegalArgumentException("Chunk at offset " + offset + " must be " + expected
+                            + " bytes");
+                    }
+                    ByteBuffer slice = ByteBuffer.wrap(buffer, 0, read);
+                    while (slice.hasRemaining()) {
+                        written += channel.write(slice, offset + written);
+                    }
+                }
+            }
+            if (written != expected) {
+                throw new IllegalArgumentException("Chunk at offset " + offset + " must be " + expected + " bytes");
+            }
+            success = true;
+        } finally {
+            if (session.endWrite(index, success)) {
+                // Aborted or expired while this chunk was being written
+                Files.deleteIfExists(session.getFile());
+                throw new ResourceNotFoundException("Upload", "id", uploadId);
+            }
+        }
+        session.lastActivity = Instant.now();
+        return session;
+    }
+
+    /**
+     * Verify the assembled file and hand it over as staged content; the session ends here
+     */
+    public StagedObject complete(UUID uploadId, UUID companyId) throws IOException {
+        UploadSession session = getSession(uploadId, companyId);
+        session.beginFinalize();
+
+        String actualHash;
+        try {
+            actualHash = documentStorageService.hash(session.getFile());
+        } catch (IOException | RuntimeException e) {
+            session.cancelFinalize();
+            throw e;
+        }
+        // No write can start once finalizing, so the file is handed over as hashed
+        session.end(true);
+        sessions.remove(uploadId);
+        if (!actualHash.equals(session.getExpectedHash())) {
+            // Content is corrupt somewhere; the client has to start over
+            Files.deleteIfExists(session.getFile());
+            throw new IllegalArgumentException("Checksum mismatch, upload discarded");
+        }
+        return new StagedObject(session.getFile(), actualHash, session.getTotalSize());
+    }
+
+    public void abort(UUID uploadId, UUID companyId) throws IOException {
+        UploadSession session = getSession(uploadId, companyId);
+        boolean idle = session.end(false);
+        sessions.remove(uploadId);
+        if (idle) {
+            // Otherwise the last running chunk write deletes it
+            Files.deleteIfExists(session.getFile());
+        }
+    }
+
+    public UploadStatus toStatus(UploadSession session) {
+        List<UploadStatus.Range> missing;
+        long receivedBytes = 0;
+        synchronized (session) {
+            missing = missingRanges(session);
+            BitSet received = session.getReceived();
+            for (int i = received.nextSetBit(0); i >= 0; i = received.nextSetBit(i + 1)) {
+                receivedBytes += session.chunkLength(i);
+            }
+        }
+        return UploadStatus.builder()
+            .uploadId(session.getId())
+            .fileName(session.getFileName())
+            .totalSize(session.getTotalSize())
+            .chunkSize(session.getChunkSize())
+            .receivedBytes(receivedBytes)
+            .missingRanges(missing)
+            .complete(missing.isEmpty())
+            .expiresAt(session.getLastActivity().plus(Duration.ofHours(sessionTtlHours)))
+            .build();
+    }
+
+    /**
+     * Drop sessions that have been idle longer than the TTL along with their files
+     */
+    @Scheduled(fixedDelayString = "${document.upload.cleanup-interval-ms:600000}")
+    public void expireIdleSessions() {
+        Instant cutoff = Instant.now().minus(Duration.ofHours(sessionTtlHours));
+        sessions.values().removeIf(session -> {
+            synchronized (session) {
+                if (!session.isIdleSince(cutoff)) {
+                    return false;
+                }
+                session.end(false);
+            }
+            try {
+                Files.deleteIfExists(session.getFile());
+            } catch (IOException e) {
+                log.warn("Could not delete expired upload {}: {}", session.getId(), e.getMessage());
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Nothing survives a restart, so every part file found at startup is an orphan
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void sweepOrphanedPartsOnStartup() {
+        sweepPartFiles(Instant.MAX);
+    }
+
+    /**
+     * Delete part files no live session owns and that have not been written within the TTL
+     */
+    @Scheduled(fixedDelayString = "${document.upload.cleanup-interval-ms:600000}")
+    public void sweepOrphanedParts() {
+        sweepPartFiles(Instant.now().minus(Duration.ofHours(sessionTtlHours)));
+    }
+
+    private void sweepPartFiles(Instant modifiedBefore) {
+        Set<Path> owned = sessions.values().stream().map(UploadSession::getFile).collect(Collectors.toSet());
+        List<Path> parts;
+        try {
+            parts = documentStorageService.listTempFiles(PART_PREFIX);
+        } catch (IOException e) {
+            log.warn("Could not list upload part files: {}", e.getMessage());
+            return;
+        }
+        int deleted = 0;
+        for (Path part : parts) {
+            try {
+                if (!owned.contains(part)
+                        && Files.getLastModifiedTime(part).toInstant().isBefore(modifiedBefore)
+                        && Files.deleteIfExists(part)) {
+                    deleted++;
+                }
+            } catch (IOException e) {
+                log.warn("Could not delete orphaned upload part {}: {}", part.getFileName(), e.getMessage());
+            }
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} orphaned upload part file(s)", deleted);
+        }
+    }
+
+    private static List<UploadStatus.Range> missingRanges(UploadSession session) {
+        List<UploadStatus.Range> ranges = new ArrayList<>();
+        BitSet received = session.getReceived();
+        int start = received.nextClearBit(0);
+        while (start < session.getChunkCount()) {
+            int next = received.nextSetBit(start);
+            int end = next < 0 ? session.getChunkCount() : next;
+            ranges.add(new UploadStatus.Range((long) start * session.getChunkSize(),
+                Math.min((long) end * session.getChunkSize(), session.getTotalSize()) - 1));
+            start = received.nextClearBit(end);
+        }
+        return ranges;
+    }
+}
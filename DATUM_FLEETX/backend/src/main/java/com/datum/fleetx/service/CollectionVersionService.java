@@ -0,0 +1,208 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.entity.base.CompanyScoped;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.event.spi.EventSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collection Version Service - Per-company change counters for entity collections
+ * A counter moves whenever an entity of that type is written for the company, which lets
+ * list endpoints build an ETag from one small lookup instead of the data. Counters live in
+ * collection_versions and are bumped right before the writing transaction commits (after
+ * its final flush, in one statement, in key order so writers never deadlock), so they
+ * survive restarts, are shared by all instances and never move for rolled-back writes.
+ * High-frequency writes (live positions) are coalesced instead: they are noted after commit
+ * and each noted counter is bumped once per interval, so a fleet's GPS pings don't all
+ * contend on one counter row and lists lag by at most the interval.
+ */
+@Service
+public class CollectionVersionService {
+
+    // Owner of collections not scoped to a company (locations)
+    public static final UUID SHARED = new UUID(0L, 0L);
+
+    private static final String BUMP_ROW = "(?, now(), now(), true, 0, ?, ?, 1)";
+    private static final String BUMP = "INSERT INTO collection_versions (id, created_at, updated_at, active, version, " +
+        "company_id, collection, change_count) VALUES %s ON CONFLICT (company_id, collection) " +
+        "DO UPDATE SET change_count = collection_versions.change_count + 1, updated_at = now()";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Object pendingResourceKey = new Object();
+
+    // Keys with committed high-frequency writes not yet counted
+    private final Set<String> coalesced = ConcurrentHashMap.newKeySet();
+
+    public long version(UUID companyId, Class<?> type) {
+        return versions(companyId, Collections.singletonList(type)).get(0);
+    }
+
+    /**
+     * Weak ETag over a company's collection of the given entity type plus the types its
+     * representation embeds, so a change to any of them invalidates the list
+     */
+    public String etag(UUID companyId, Class<?> type, Class<?>... embedded) {
+        List<Class<?>> types = new ArrayList<>();
+        types.add(type);
+        Collections.addAll(types, embedded);
+        StringBuilder etag = new StringBuilder("W/\"")
+            .append(type.getSimpleName().toLowerCase())
+            .append('-').append(Integer.toHexString(companyId.hashCode()));
+        for (long version : versions(companyId, types)) {
+            etag.append('-').append(version);
+        }
+        return etag.append('"').toString();
+    }
+
+    public void markChanged(UUID companyId, Class<?> type) {
+        String key = key(owner(companyId, type), type);
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            bump(Collections.singleton(key));
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<String> pending = (Set<String>) TransactionSynchronizationManager.getResource(pendingResourceKey);
+        if (pending == null) {
+            // Sorted: every writer locks the counter rows in the same order
+            Set<String> keys = new TreeSet<>();
+            TransactionSynchronizationManager.bindResource(pendingResourceKey, keys);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(pendingResourceKey);
+                }
+            });
+            // Runs after the commit flush, so writes seen by entity listeners during it are included
+            entityManager.unwrap(EventSource.class).getActionQueue().registerProcess(
+                (BeforeTransactionCompletionProcess) session -> session.doWork(connection -> {
+                    try (PreparedStatement statement = connection.prepareStatement(bumpSql(keys.size()))) {
+                        bind(statement, keys);
+                        statement.executeUpdate();
+                    }
+                }));
+            pending = keys;
+        }
+        pending.add(key);
+    }
+
+    /**
+     * Like {@link #markChanged}, but the counter moves at most once per
+     * {@code collections.coalesce-interval-ms}; for writes that come too often to count one by one
+     */
+    public void markChangedCoalesced(UUID companyId, Class<?> type) {
+        String key = key(owner(companyId, type), type);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            coalesced.add(key);
+            return;
+        }
+        // Noted after commit, so the bump can never run ahead of the write it covers
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                coalesced.add(key);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${collections.coalesce-interval-ms:5000}")
+    public void flushCoalesced() {
+        if (coalesced.isEmpty()) {
+            return;
+        }
+        // Sorted, like transactional bumps, so the two never deadlock
+        Set<String> keys = new TreeSet<>();
+        for (Iterator<String> it = coalesced.iterator(); it.hasNext(); ) {
+            keys.add(it.next());
+            it.remove();
+        }
+        bump(keys);
+    }
+
+    private void bump(Set<String> keys) {
+        jdbcTemplate.update(bumpSql(keys.size()), statement -> bind(statement, keys));
+    }
+
+    private List<Long> versions(UUID companyId, List<Class<?>> types) {
+        List<String> keys = new ArrayList<>(types.size());
+        for (Class<?> type : types) {
+            keys.add(key(owner(companyId, type), type));
+        }
+        Map<String, Long> counts = new HashMap<>();
+        String placeholders = String.join(", ", Collections.nCopies(keys.size(), "(?, ?)"));
+        Object[] args = new Object[keys.size() * 2];
+        for (int i = 0; i < keys.size(); i++) {
+            args[2 * i] = companyOf(keys.get(i));
+            args[2 * i + 1] = collectionOf(keys.get(i));
+        }
+        jdbcTemplate.query("SELECT company_id, collection, change_count FROM collection_versions " +
+                "WHERE (company_id, collection) IN (" + placeholders + ")",
+            rs -> {
+                counts.put(key(rs.getObject(1, UUID.class), rs.getString(2)), rs.getLong(3));
+            }, args);
+        List<Long> versions = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            versions.add(counts.getOrDefault(key, 0L));
+        }
+        return versions;
+    }
+
+    private static String bumpSql(int rows) {
+        return String.format(BUMP, String.join(", ", Collections.nCopies(rows, BUMP_ROW)));
+    }
+
+    private static void bind(PreparedStatement statement, Collection<String> keys) throws java.sql.SQLException {
+        int index = 1;
+        for (String key : keys) {
+            statement.setObject(index++, UUID.randomUUID());
+            statement.setObject(index++, companyOf(key));
+            statement.setString(index++, collectionOf(key));
+        }
+    }
+
+    private static UUID owner(UUID companyId, Class<?> type) {
+        return CompanyScoped.class.isAssignableFrom(type) ? companyId : SHARED;
+    }
+
+    private static String key(UUID owner, Class<?> type) {
+        return key(owner, type.getSimpleName());
+    }
+
+    // Fixed-width company id first, so keys sort by company then collection
+    private static String key(UUID owner, String collection) {
+        return owner + ":" + collection;
+    }
+
+    private static UUID companyOf(String key) {
+        return UUID.fromString(key.substring(0, 36));
+    }
+
+    private static String collectionOf(String key) {
+        return key.substring(37);
+    }
+}
@@ -0,0 +1,129 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.dto.search.SearchHit;
+import com.datum.fleetx.dto.tracking.PortalShipment;
+import com.datum.fleetx.dto.tracking.TruckPosition;
+import com.datum.fleetx.repository.CustomerRepository;
+import com.datum.fleetx.repository.LoadRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Customer Portal Service - All active shipments for a customer tracking token
+ * Shipments come from a projection query, with truck positions overlaid from the
+ * live position cache so the feed reflects GPS updates between load writes.
+ * Token lookups are cached; any committed write to a customer drops its cached token.
+ */
+@Service
+@RequiredArgsConstructor
+public class CustomerPortalService {
+
+    private final CustomerRepository customerRepository;
+    private final LoadRepository loadRepository;
+    private final LivePositionService livePositionService;
+    private final TrackingTokenGenerator trackingTokenGenerator;
+
+    @Value("${tracking.cache.ttl-seconds:30}")
+    private long cacheTtlSeconds;
+
+    @Value("${tracking.cache.max-size:50000}")
+    private long cacheMaxSize;
+
+    private LoadingCache<String, Optional<UUID>> customersByToken;
+    // customer id -> cached token, so a customer write can evict without scanning the cache
+    private final Map<UUID, String> tokensByCustomer = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void initCache() {
+        customersByToken = Caffeine.newBuilder()
+            .maximumSize(cacheMaxSize)
+            .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+            .<String, Optional<UUID>>removalListener((token, customerId, cause) -> {
+                if (token != null && customerId != null) {
+                    customerId.ifPresent(id -> tokensByCustomer.remove(id, token));
+                }
+            })
+            .build(token -> {
+                Optional<UUID> customerId = customerRepository.findPortalCustomerIdByTrackingToken(token);
+                customerId.ifPresent(id -> tokensByCustomer.put(id, token));
+                return customerId;
+            });
+    }
+
+    /**
+     * Resolve a customer tracking token to the customer id, if the portal is enabled
+     */
+    public Optional<UUID> findCustomerId(String customerToken) {
+        String token = trackingTokenGenerator.normalize(customerToken);
+        if (!trackingTokenGenerator.isWellFormed(token)) {
+            return Optional.empty();
+        }
+        return customersByToken.get(token);
+    }
+
+    public List<PortalShipment> getActiveShipments(UUID customerId) {
+        List<PortalShipment> shipments = loadRepository.findActivePortalShipments(customerId);
+        for (PortalShipment shipment : shipments) {
+            if (shipment.getTruckId() == null) continue;
+            TruckPosition position = livePositionService.resolve(
+                shipment.getTruckId(),
+                shipment.getCurrentLatitude(),
+                shipment.getCurrentLongitude(),
+                shipment.getLastLocationUpdate());
+            shipment.setCurrentLatitude(position.getLatitude());
+            shipment.setCurrentLongitude(position.getLongitude());
+            shipment.setLastLocationUpdate(position.getReportedAt());
+        }
+        return shipments;
+    }
+
+    /**
+     * Strong validator over everything the feed exposes - changes whenever a load
+     * is written, a load enters or leaves the active set, or a truck reports a new fix
+     */
+    public String computeEtag(List<PortalShipment> shipments) {
+        StringBuilder fingerprint = new StringBuilder();
+        for (PortalShipment shipment : shipments) {
+            fingerprint.append(shipment.getLoadId()).append('|')
+                .append(shipment.getUpdatedAt()).append('|')
+                .append(shipment.getStatus()).append('|')
+                .append(shipment.getCurrentLatitude()).append('|')
+                .append(shipment.getCurrentLongitude()).append('|')
+                .append(shipment.getLastLocationUpdate()).append(';');
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(fingerprint.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    public void evict(String customerToken) {
+        if (customerToken != null) {
+            customersByToken.invalidate(customerToken);
+        }
+    }
+
+    /**
+     * Deactivation, portal toggles and token changes all go through a customer write
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntityChanged(SearchableEntityChangedEvent event) {
+        if (event.getType() != SearchHit.Type.CUSTOMER) return;
+        String token = tokensByCustomer.remove(event.getId());
+        if (token != null) {
+            customersByToken.invalidate(token);
+        }
+    }
+}
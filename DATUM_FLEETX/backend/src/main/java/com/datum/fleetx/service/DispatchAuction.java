@@ -0,0 +1,234 @@
+package com.datum.fleetx.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Dispatch Auction - Assigns loads to their candidate trucks, maximizing sum of (penalty - deadhead)
+ * Every load may also stay unassigned at value 0, so a truck is only taken when it beats that.
+ * Forward-reverse auction (Bertsekas) with epsilon scaling; bids of a round are computed with a
+ * parallel stream, so run it on the pool that should do the work. A forward phase alone can leave
+ * trucks nobody holds at a positive price (more trucks than loads, or prices carried over from a
+ * coarser phase), which is not optimal; every phase therefore ends with a reverse auction that
+ * drops those prices to zero or hands the truck to a load that gains by it. After the last phase
+ * the total is within {@link #FINAL_EPSILON} of the optimum over the candidate edges.
+ */
+final class DispatchAuction {
+
+    static final double FINAL_EPSILON = 0.01;
+    private static final double EPSILON_FACTOR = 0.2;
+
+    private DispatchAuction() {
+    }
+
+    static class Result {
+        // Truck index per load, -1 = unassigned
+        final int[] truckOf;
+        final boolean optimal;
+
+        Result(int[] truckOf, boolean optimal) {
+            this.truckOf = truckOf;
+            this.optimal = optimal;
+        }
+    }
+
+    /**
+     * @param trucks candidate truck indexes per load
+     * @param miles  deadhead miles per load, matching {@code trucks}
+     * @return the last completed assignment (or a greedy one) if the deadline passes first
+     */
+    static Result solve(int[][] trucks, double[][] miles, int truckCount, double penalty, long deadline) {
+        int n = trucks.length;
+        double[] price = new double[truckCount];
+        int[] best = greedy(trucks, miles, truckCount);
+
+        double epsilon = penalty / 4;
+        double finalEpsilon = FINAL_EPSILON / Math.max(1, n);
+        while (true) {
+            int[] truckOf = new int[n];
+            Arrays.fill(truckOf, -2);   // -2 = still bidding, -1 = stays unassigned
+            int[] ownerOf = new int[truckCount];
+            Arrays.fill(ownerOf, -1);
+            List<Integer> bidding = IntStream.range(0, n).boxed().collect(Collectors.toList());
+            double phaseEpsilon = epsilon;
+
+            while (!bidding.isEmpty() && System.nanoTime() < deadline) {
+                // Jacobi round: every unassigned load bids against the same prices, in parallel
+                Bid[] bids = bidding.parallelStream()
+                    .map(i -> bid(i, trucks[i], miles[i], price, penalty, phaseEpsilon))
+                    .toArray(Bid[]::new);
+
+                Map<Integer, Bid> winning = new HashMap<>();
+                List<Integer> next = new ArrayList<>();
+                for (Bid bid : bids) {
+                    if (bid.truck < 0) {
+                        truckOf[bid.load] = -1;
+                    } else {
+                        winning.merge(bid.truck, bid, (a, b) -> b.price > a.price ? b : a);
+                    }
+                }
+                for (Bid bid : bids) {
+                    if (bid.truck >= 0 && winning.get(bid.truck) != bid) next.add(bid.load);
+                }
+                for (Bid bid : winning.values()) {
+                    int previous = ownerOf[bid.truck];
+                    if (previous >= 0) {
+                        truckOf[previous] = -2;
+                        next.add(previous);
+                    }
+                    ownerOf[bid.truck] = bid.load;
+                    truckOf[bid.load] = bid.truck;
+                    price[bid.truck] = bid.price;
+                }
+                bidding = next;
+            }
+            // Then bring trucks priced out of every load back down, so the next phase starts from sane prices
+            if (!bidding.isEmpty() || !reverse(trucks, miles, penalty, epsilon, price, truckOf, ownerOf, deadline)) {
+                return new Result(best, false);
+            }
+            best = truckOf;
+            if (epsilon <= finalEpsilon) {
+                return new Result(best, true);
+            }
+            epsilon = Math.max(finalEpsilon, epsilon * EPSILON_FACTOR);
+        }
+    }
+
+    private static Bid bid(int load, int[] trucks, double[] miles, double[] price, double penalty, double epsilon) {
+        // Staying unassigned is always an option, worth 0
+        double bestValue = 0;
+        double secondValue = 0;
+        int bestTruck = -1;
+        for (int k = 0; k < trucks.length; k++) {
+            int t = trucks[k];
+            double value = penalty - miles[k] - price[t];
+            if (value > bestValue) {
+                secondValue = bestValue;
+                bestValue = value;
+                bestTruck = t;
+            } else if (value > secondValue) {
+                secondValue = value;
+            }
+        }
+        if (bestTruck < 0) {
+            return new Bid(load, -1, 0);
+        }
+        return new Bid(load, bestTruck, price[bestTruck] + bestValue - secondValue + epsilon);
+    }
+
+    /**
+     * Reverse auction over the trucks left without a load at a positive price: each one either
+     * takes the load that values it most (lowering its price just enough to win it, which
+     * leaves that load's previous truck free) or, if no load gains by it, drops its price to zero.
+     * Loads' epsilon-complementary slackness is kept, so once no free truck has a price the
+     * assignment is optimal within n * epsilon.
+     * @return false if the deadline passed first
+     */
+    private static boolean reverse(int[][] trucks, double[][] miles, double penalty, double epsilon,
+                                   double[] price, int[] truckOf, int[] ownerOf, long deadline) {
+        int n = trucks.length;
+        List<List<int[]>> loadsOf = new ArrayList<>(price.length);
+        for (int t = 0; t < price.length; t++) {
+            loadsOf.add(new ArrayList<>());
+        }
+        double[] profit = new double[n];
+        for (int i = 0; i < n; i++) {
+            for (int k = 0; k < trucks[i].length; k++) {
+                loadsOf.get(trucks[i][k]).add(new int[]{i, k});
+                if (trucks[i][k] == truckOf[i]) {
+                    profit[i] = penalty - miles[i][k] - price[truckOf[i]];
+                }
+            }
+        }
+
+        Deque<Integer> free = new ArrayDeque<>();
+        for (int t = 0; t < price.length; t++) {
+            if (ownerOf[t] < 0 && price[t] > 0) free.add(t);
+        }
+        while (!free.isEmpty()) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            int t = free.poll();
+            // Staying free at price 0 is always an option, worth 0
+            double bestValue = 0;
+            double secondValue = 0;
+            int bestLoad = -1;
+            double bestWorth = 0;
+            for (int[] edge : loadsOf.get(t)) {
+                double worth = penalty - miles[edge[0]][edge[1]];
+                double value = worth - profit[edge[0]];
+                if (value > bestValue) {
+                    secondValue = bestValue;
+                    bestValue = value;
+                    bestLoad = edge[0];
+                    bestWorth = worth;
+                } else if (value > secondValue) {
+                    secondValue = value;
+                }
+            }
+            if (bestLoad < 0) {
+                price[t] = 0;
+                continue;
+            }
+            price[t] = Math.max(0, secondValue - epsilon);
+            int previous = truckOf[bestLoad];
+            truckOf[bestLoad] = t;
+            ownerOf[t] = bestLoad;
+            profit[bestLoad] = bestWorth - price[t];
+            if (previous >= 0) {
+                ownerOf[previous] = -1;
+                if (price[previous] > 0) free.add(previous);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cheapest edges first; the answer if the budget runs out before the first auction phase ends
+     */
+    private static int[] greedy(int[][] trucks, double[][] miles, int truckCount) {
+        List<long[]> edges = new ArrayList<>();
+        List<Double> costs = new ArrayList<>();
+        for (int i = 0; i < trucks.length; i++) {
+            for (int k = 0; k < trucks[i].length; k++) {
+                edges.add(new long[]{i, trucks[i][k]});
+                costs.add(miles[i][k]);
+            }
+        }
+        Integer[] order = IntStream.range(0, edges.size()).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparingDouble(costs::get));
+        int[] truckOf = new int[trucks.length];
+        Arrays.fill(truckOf, -1);
+        boolean[] taken = new boolean[truckCount];
+        for (int e : order) {
+            int load = (int) edges.get(e)[0];
+            int truck = (int) edges.get(e)[1];
+            if (truckOf[load] < 0 && !taken[truck]) {
+                truckOf[load] = truck;
+                taken[truck] = true;
+            }
+        }
+        return truckOf;
+    }
+
+    private static class Bid {
+        private final int load;
+        private final int truck;
+        private final double price;
+
+        Bid(int load, int truck, double price) {
+            this.load = load;
+            this.truck = truck;
+            this.price = price;
+        }
+    }
+}
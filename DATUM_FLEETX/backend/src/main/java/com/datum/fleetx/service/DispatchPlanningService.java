@@ -0,0 +1,390 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.dto.driver.DriverDispatchInfo;
+import com.datum.fleetx.dto.load.DispatchPlan;
+import com.datum.fleetx.dto.load.DispatchPlanRequest;
+import com.datum.fleetx.dto.truck.TruckDispatchInfo;
+import com.datum.fleetx.entity.Driver;
+import com.datum.fleetx.entity.Load;
+import com.datum.fleetx.entity.Location;
+import com.datum.fleetx.entity.Truck;
+import com.datum.fleetx.exception.ConflictException;
+import com.datum.fleetx.exception.ResourceNotFoundException;
+import com.datum.fleetx.exception.ServiceBusyException;
+import com.datum.fleetx.repository.DriverRepository;
+import com.datum.fleetx.repository.LoadRepository;
+import com.datum.fleetx.repository.TruckRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Dispatch Planning Service - Assigns a batch of unassigned loads to available trucks and drivers
+ * Each load gets its nearest feasible trucks as candidates (live position grid, equipment,
+ * capacity and document checks), then an epsilon-scaling auction ({@link DispatchAuction}) finds
+ * the assignment with the least total deadhead; bids are computed in parallel on the planning
+ * fork-join pool. If the time budget runs out, the last converged phase (or a greedy pass) is
+ * returned instead and the plan is not reported as optimal.
+ * Loads left over are filled greedily from the remaining trucks, drivers are paired by
+ * safety score and distance, and the proposal is held briefly so it can be committed in one
+ * transaction.
+ */
+@Slf4j
+@Service
+public class DispatchPlanningService {
+
+    private static final Set<Load.LoadStatus> PLANNABLE = EnumSet.of(
+        Load.LoadStatus.CREATED, Load.LoadStatus.QUOTED, Load.LoadStatus.BOOKED);
+    private static final int CANDIDATES_PER_LOAD = 25;
+
+    @Autowired
+    private LoadRepository loadRepository;
+
+    @Autowired
+    private TruckRepository truckRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private LivePositionService livePositionService;
+
+    @Autowired
+    private LoadStateMachine loadStateMachine;
+
+    @Autowired
+    private ForkJoinPool dispatchPlanningPool;
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    @Value("${dispatch.max-deadhead-miles:500}")
+    private double maxDeadheadMiles;
+
+    @Value("${dispatch.planning.max-concurrent-runs:2}")
+    private int maxConcurrentRuns;
+
+    @Value("${dispatch.planning.plan-ttl-minutes:30}")
+    private long planTtlMinutes;
+
+    private Semaphore runs;
+    private Cache<UUID, StoredPlan> plans;
+
+    @PostConstruct
+    void init() {
+        runs = new Semaphore(maxConcurrentRuns);
+        plans = Caffeine.newBuilder()
+            .maximumSize(1_000)
+            .expireAfterWrite(Duration.ofMinutes(planTtlMinutes))
+            .build();
+    }
+
+    /**
+     * Not transactional: loads come with their pickup locations fetched, and no connection
+     * is held while the solver runs
+     */
+    public DispatchPlan plan(UUID companyId, DispatchPlanRequest request) {
+        if (!runs.tryAcquire()) {
+            throw new ServiceBusyException("Another dispatch plan is being computed, try again shortly");
+        }
+        try {
+            return computePlan(companyId, request);
+        } finally {
+            runs.release();
+        }
+    }
+
+    /**
+     * Apply a proposal; every truck, driver and load must still be free or nothing is applied.
+     * All rows are written under their versions, so a dispatch racing the commit either
+     * lands first (and the re-run reports the plan as out of date) or fails itself.
+     */
+    public int commit(UUID companyId, UUID planId) {
+        StoredPlan stored = plans.getIfPresent(planId);
+        if (stored == null || !stored.companyId.equals(companyId)) {
+            throw new ResourceNotFoundException("Dispatch plan", "id", planId);
+        }
+        int dispatched = optimisticRetry.execute("Dispatch plan commit", () -> apply(stored.plan));
+        plans.invalidate(planId);
+        return dispatched;
+    }
+
+    private int apply(DispatchPlan plan) {
+        List<DispatchPlan.Assignment> assignments = plan.getAssignments();
+        Map<UUID, Load> loads = index(loadRepository.findAllById(
+            assignments.stream().map(DispatchPlan.Assignment::getLoadId).collect(Collectors.toList())), Load::getId);
+        Map<UUID, Truck> trucks = index(truckRepository.findAllById(
+            assignments.stream().map(DispatchPlan.Assignment::getTruckId).collect(Collectors.toList())), Truck::getId);
+        Map<UUID, Driver> drivers = index(driverRepository.findAllById(
+            assignments.stream().map(DispatchPlan.Assignment::getDriverId).collect(Collectors.toList())), Driver::getId);
+
+        for (DispatchPlan.Assignment assignment : assignments) {
+            Load load = loads.get(assignment.getLoadId());
+            Truck truck = trucks.get(assignment.getTruckId());
+            Driver driver = drivers.get(assignment.getDriverId());
+            if (load == null || load.getTruck() != null || !PLANNABLE.contains(load.getStatus())) {
+                throw new ConflictException("Plan is out of date: load " + assignment.getLoadNumber()
+                    + " is no longer waiting for dispatch");
+            }
+            if (truck == null || truck.getStatus() != Truck.TruckStatus.AVAILABLE) {
+                throw new ConflictException("Plan is out of date: truck " + assignment.getTruckNumber()
+                    + " is no longer available");
+            }
+            if (driver == null || driver.getStatus() != Driver.DriverStatus.AVAILABLE) {
+                throw new ConflictException("Plan is out of date: driver " + assignment.getDriverName()
+                    + " is no longer available");
+            }
+            load.setTruck(truck);
+            load.setDriver(driver);
+            loadStateMachine.transition(load, Load.LoadStatus.DISPATCHED, null);
+            truck.setStatus(Truck.TruckStatus.ASSIGNED);
+            driver.setStatus(Driver.DriverStatus.ON_DUTY);
+        }
+        loadRepository.saveAll(loads.values());
+        truckRepository.saveAll(trucks.values());
+        driverRepository.saveAll(drivers.values());
+        loadRepository.flush();
+        return assignments.size();
+    }
+
+    private DispatchPlan computePlan(UUID companyId, DispatchPlanRequest request) {
+        long start = System.nanoTime();
+        long deadline = start + Duration.ofMillis(request.getTimeBudgetMs()).toNanos();
+
+        List<Load> loads = findLoads(companyId, request);
+        List<TruckDispatchInfo> trucks = truckRepository.findAvailableDispatchInfoByCompanyId(companyId);
+        Map<UUID, Integer> truckIndex = new HashMap<>();
+        for (int t = 0; t < trucks.size(); t++) {
+            truckIndex.put(trucks.get(t).getId(), t);
+        }
+
+        // Candidate generation is independent per load - done in parallel
+        Candidates[] candidates = submit(() -> IntStream.range(0, loads.size()).parallel()
+            .mapToObj(i -> candidatesFor(companyId, loads.get(i), trucks, truckIndex))
+            .toArray(Candidates[]::new));
+
+        double unassignedPenalty = maxDeadheadMiles * 2 + 1;
+        int[][] candidateTrucks = Arrays.stream(candidates).map(c -> c.trucks).toArray(int[][]::new);
+        double[][] candidateMiles = Arrays.stream(candidates).map(c -> c.miles).toArray(double[][]::new);
+        DispatchAuction.Result auction = submit(() -> DispatchAuction.solve(candidateTrucks, candidateMiles,
+            trucks.size(), unassignedPenalty, deadline));
+
+        // Loads the auction left without a truck take any remaining feasible truck
+        int[] truckOf = auction.truckOf;
+        boolean[] truckTaken = new boolean[trucks.size()];
+        for (int t : truckOf) {
+            if (t >= 0) truckTaken[t] = true;
+        }
+        for (int i = 0; i < loads.size(); i++) {
+            if (truckOf[i] >= 0 || candidates[i].feasibleCount == 0) continue;
+            int fallback = fallbackTruck(loads.get(i), candidates[i], trucks, truckTaken);
+            if (fallback >= 0) {
+                truckOf[i] = fallback;
+                truckTaken[fallback] = true;
+            }
+        }
+
+        DispatchPlan plan = pairDrivers(companyId, loads, trucks, candidates, truckOf);
+        plan.setOptimal(auction.optimal);
+        plan.setElapsedMs((System.nanoTime() - start) / 1_000_000);
+        plans.put(plan.getPlanId(), new StoredPlan(companyId, plan));
+        log.info("Dispatch plan {} for company {}: {} of {} loads assigned, {} deadhead miles, {} ms{}",
+            plan.getPlanId(), companyId, plan.getAssignments().size(), loads.size(),
+            Math.round(plan.getTotalDeadheadMiles()), plan.getElapsedMs(), auction.optimal ? "" : " (budget reached)");
+        return plan;
+    }
+
+    private List<Load> findLoads(UUID companyId, DispatchPlanRequest request) {
+        if (!request.getLoadIds().isEmpty()) {
+            return loadRepository.findPlannableByIds(companyId, request.getLoadIds(), PLANNABLE).stream()
+                .filter(l -> request.getPickupFrom() == null || l.getPickupDateTime() == null
+                    || !l.getPickupDateTime().isBefore(request.getPickupFrom()))
+                .filter(l -> request.getPickupTo() == null || l.getPickupDateTime() == null
+                    || l.getPickupDateTime().isBefore(request.getPickupTo()))
+                .collect(Collectors.toList());
+        }
+        if (request.getPickupFrom() == null || request.getPickupTo() == null) {
+            throw new IllegalArgumentException("Give loadIds or both pickupFrom and pickupTo");
+        }
+        return loadRepository.findPlannableByPickupWindow(companyId, request.getPickupFrom(), request.getPickupTo(),
+            PLANNABLE);
+    }
+
+    private Candidates candidatesFor(UUID companyId, Load load, List<TruckDispatchInfo> trucks,
+                                     Map<UUID, Integer> truckIndex) {
+        boolean needsReefer = DispatchRules.requiresReefer(load);
+        Double weightLbs = DispatchRules.weightLbs(load);
+        LocalDate serviceDate = DispatchRules.serviceDate(load);
+        Location pickup = load.getPickupLocation();
+
+        boolean[] feasible = new boolean[trucks.size()];
+        Candidates result = new Candidates();
+        for (int t = 0; t < trucks.size(); t++) {
+            if (DispatchRules.canCarry(trucks.get(t), load, needsReefer, weightLbs, serviceDate)) {
+                feasible[t] = true;
+                result.feasibleCount++;
+            }
+        }
+        if (pickup == null || pickup.getLatitude() == null || pickup.getLongitude() == null) {
+            result.trucks = new int[0];
+            result.miles = new double[0];
+            return result;
+        }
+
+        List<LivePositionService.NearbyTruck> nearby = livePositionService.nearest(companyId, pickup.getLatitude(),
+            pickup.getLongitude(), CANDIDATES_PER_LOAD, maxDeadheadMiles,
+            truckId -> {
+                Integer t = truckIndex.get(truckId);
+                return t != null && feasible[t];
+            });
+        result.trucks = new int[nearby.size()];
+        result.miles = new double[nearby.size()];
+        for (int k = 0; k < nearby.size(); k++) {
+            result.trucks[k] = truckIndex.get(nearby.get(k).getTruckId());
+            result.miles[k] = nearby.get(k).getDistanceMiles();
+        }
+        return result;
+    }
+
+    /**
+     * Any free truck that can carry the load - nearest candidates first, then the rest
+     * (too far away or without a known position)
+     */
+    private int fallbackTruck(Load load, Candidates candidates, List<TruckDispatchInfo> trucks, boolean[] truckTaken) {
+        for (int t : candidates.trucks) {
+            if (!truckTaken[t]) return t;
+        }
+        boolean needsReefer = DispatchRules.requiresReefer(load);
+        Double weightLbs = DispatchRules.weightLbs(load);
+        LocalDate serviceDate = DispatchRules.serviceDate(load);
+        for (int t = 0; t < trucks.size(); t++) {
+            if (!truckTaken[t] && DispatchRules.canCarry(trucks.get(t), load, needsReefer, weightLbs, serviceDate)) {
+                return t;
+            }
+        }
+        return -1;
+    }
+
+    private DispatchPlan pairDrivers(UUID companyId, List<Load> loads, List<TruckDispatchInfo> trucks,
+                                     Candidates[] candidates, int[] truckOf) {
+        List<DriverDispatchInfo> drivers = new ArrayList<>(driverRepository.findAvailableDispatchInfoByCompanyId(companyId));
+        boolean[] driverTaken = new boolean[drivers.size()];
+
+        // Earliest pickups choose drivers first
+        Integer[] order = IntStream.range(0, loads.size()).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparing(i -> loads.get(i).getPickupDateTime(),
+            Comparator.nullsLast(Comparator.naturalOrder())));
+
+        List<DispatchPlan.Assignment> assignments = new ArrayList<>();
+        List<DispatchPlan.Unassigned> unassigned = new ArrayList<>();
+        double totalDeadhead = 0;
+        for (int i : order) {
+            Load load = loads.get(i);
+            if (truckOf[i] < 0) {
+                unassigned.add(new DispatchPlan.Unassigned(load.getId(), load.getLoadNumber(),
+                    candidates[i].feasibleCount == 0 ? "No available truck can carry this load"
+                        : "All suitable trucks are used by other loads in this plan"));
+                continue;
+            }
+            Location pickup = load.getPickupLocation();
+            boolean pickupKnown = pickup != null && pickup.getLatitude() != null && pickup.getLongitude() != null;
+            LocalDate serviceDate = DispatchRules.serviceDate(load);
+            int chosen = -1;
+            double chosenScore = -1;
+            for (int d = 0; d < drivers.size(); d++) {
+                DriverDispatchInfo driver = drivers.get(d);
+                if (driverTaken[d] || !DispatchRules.canDrive(driver, serviceDate)) continue;
+                Double miles = pickupKnown && driver.getCurrentLatitude() != null && driver.getCurrentLongitude() != null
+                    ? LivePositionService.distanceMiles(pickup.getLatitude(), pickup.getLongitude(),
+                        driver.getCurrentLatitude(), driver.getCurrentLongitude())
+                    : null;
+                double score = 60 * DispatchRules.safety(driver.getSafetyScore())
+                    + 40 * DispatchRules.proximity(miles, maxDeadheadMiles);
+                if (score > chosenScore) {
+                    chosenScore = score;
+                    chosen = d;
+                }
+            }
+            if (chosen < 0) {
+                unassigned.add(new DispatchPlan.Unassigned(load.getId(), load.getLoadNumber(),
+                    "No available driver with a valid license"));
+                continue;
+            }
+            driverTaken[chosen] = true;
+            DriverDispatchInfo driver = drivers.get(chosen);
+            TruckDispatchInfo truck = trucks.get(truckOf[i]);
+            Double deadhead = deadheadOf(candidates[i], truckOf[i]);
+            if (deadhead != null) totalDeadhead += deadhead;
+            assignments.add(new DispatchPlan.Assignment(load.getId(), load.getLoadNumber(), truck.getId(),
+                truck.getTruckNumber(), driver.getId(), driver.getFirstName() + " " + driver.getLastName(), deadhead));
+        }
+
+        Instant expiresAt = Instant.now().plus(Duration.ofMinutes(planTtlMinutes));
+        return new DispatchPlan(UUID.randomUUID(), assignments, unassigned,
+            Math.round(totalDeadhead * 10) / 10.0, false, 0, expiresAt);
+    }
+
+    private static Double deadheadOf(Candidates candidates, int truck) {
+        for (int k = 0; k < candidates.trucks.length; k++) {
+            if (candidates.trucks[k] == truck) return Math.round(candidates.miles[k] * 10) / 10.0;
+        }
+        return null;
+    }
+
+    private <T> T submit(Callable<T> task) {
+        try {
+            return dispatchPlanningPool.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Dispatch planning interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                : new IllegalStateException("Dispatch planning failed", e.getCause());
+        }
+    }
+
+    private static <T> Map<UUID, T> index(List<T> entities, Function<T, UUID> id) {
+        return entities.stream().collect(Collectors.toMap(id, e -> e));
+    }
+
+    private static class Candidates {
+        // Nearest feasible trucks (indexes into the truck list) and their deadhead miles
+        private int[] trucks;
+        private double[] miles;
+        private int feasibleCount;
+    }
+
+    private static class StoredPlan {
+        private final UUID companyId;
+        private final DispatchPlan plan;
+
+        StoredPlan(UUID companyId, DispatchPlan plan) {
+            this.companyId = companyId;
+            this.plan = plan;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.dto.driver.DriverDispatchInfo;
+import com.datum.fleetx.dto.load.DispatchRecommendations;
+import com.datum.fleetx.dto.tracking.TruckPosition;
+import com.datum.fleetx.dto.truck.TruckDispatchInfo;
+import com.datum.fleetx.entity.Load;
+import com.datum.fleetx.entity.Location;
+import com.datum.fleetx.exception.ResourceNotFoundException;
+import com.datum.fleetx.repository.DriverRepository;
+import com.datum.fleetx.repository.LoadRepository;
+import com.datum.fleetx.repository.TruckRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Dispatch Recommendation Service - Ranks available trucks and drivers for a load
+ * Trucks are pulled nearest-first from the live position grid around the pickup, and only
+ * those are loaded to rule out the ones that can't legally or physically take it; the rest
+ * (or every available truck, when too few are in range) are scored on
+ * deadhead (60), capacity fit (25) and equipment fit (15). Drivers are scored on safety
+ * score (60) and distance to the pickup (40).
+ */
+@Service
+public class DispatchRecommendationService {
+
+    private static final int CANDIDATES_PER_RESULT = 5;
+
+    @Autowired
+    private LoadRepository loadRepository;
+
+    @Autowired
+    private TruckRepository truckRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private LivePositionService livePositionService;
+
+    @Value("${dispatch.max-deadhead-miles:500}")
+    private double maxDeadheadMiles;
+
+    @Transactional(readOnly = true)
+    public DispatchRecommendations recommend(UUID companyId, UUID loadId, int limit) {
+        Load load = loadRepository.findById(loadId)
+            .filter(l -> l.getCompany().getId().equals(companyId))
+            .orElseThrow(() -> new ResourceNotFoundException("Load", "id", loadId));
+        Location pickup = load.getPickupLocation();
+        boolean pickupKnown = pickup != null && pickup.getLatitude() != null && pickup.getLongitude() != null;
+        boolean needsReefer = DispatchRules.requiresReefer(load);
+        Double weightLbs = DispatchRules.weightLbs(load);
+        LocalDate serviceDate = DispatchRules.serviceDate(load);
+
+        Map<UUID, Double> deadhead = new HashMap<>();
+        List<TruckDispatchInfo> candidates = new ArrayList<>();
+        int trucksExcluded = 0;
+        int wanted = limit * CANDIDATES_PER_RESULT;
+        if (pickupKnown) {
+            // Nearest trucks first; details only for those, in rounds until enough of them qualify
+            Set<UUID> seen = new HashSet<>();
+            while (candidates.size() < wanted) {
+                List<LivePositionService.NearbyTruck> nearby = livePositionService.nearest(companyId,
+                    pickup.getLatitude(), pickup.getLongitude(), wanted, maxDeadheadMiles, id -> !seen.contains(id));
+                if (nearby.isEmpty()) break;
+                Map<UUID, TruckDispatchInfo> details = truckRepository.findAvailableDispatchInfoByCompanyIdAndIdIn(
+                        companyId, nearby.stream().map(LivePositionService.NearbyTruck::getTruckId).collect(Collectors.toList()))
+                    .stream().collect(Collectors.toMap(TruckDispatchInfo::getId, truck -> truck));
+                for (LivePositionService.NearbyTruck truck : nearby) {
+                    seen.add(truck.getTruckId());
+                    TruckDispatchInfo info = details.get(truck.getTruckId());
+                    if (info == null) continue;
+                    if (DispatchRules.canCarry(info, load, needsReefer, weightLbs, serviceDate)) {
+                        deadhead.put(info.getId(), truck.getDistanceMiles());
+                        candidates.add(info);
+                    } else {
+                        trucksExcluded++;
+                    }
+                }
+                if (nearby.size() < wanted) break;
+            }
+        }
+        if (candidates.size() < limit) {
+            // Not enough trucks in range; fill up with the rest (too far or position unknown)
+            trucksExcluded = 0;
+            for (TruckDispatchInfo truck : truckRepository.findAvailableDispatchInfoByCompanyId(companyId)) {
+                if (!DispatchRules.canCarry(truck, load, needsReefer, weightLbs, serviceDate)) {
+                    trucksExcluded++;
+                } else if (!deadhead.containsKey(truck.getId())) {
+                    if (pickupKnown) {
+                        TruckPosition position = livePositionService.resolve(truck.getId(), truck.getCurrentLatitude(),
+                            truck.getCurrentLongitude(), truck.getLastLocationUpdate());
+                        if (position.getLatitude() != null && position.getLongitude() != null) {
+                            deadhead.put(truck.getId(), LivePositionService.distanceMiles(pickup.getLatitude(),
+                                pickup.getLongitude(), position.getLatitude(), position.getLongitude()));
+                        }
+                    }
+                    candidates.add(truck);
+                }
+            }
+        }
+
+        List<DispatchRecommendations.TruckOption> trucks = candidates.stream()
+            .map(truck -> {
+                Double miles = deadhead.get(truck.getId());
+                double score = 60 * DispatchRules.proximity(miles, maxDeadheadMiles)
+                    + 25 * DispatchRules.capacityFit(truck.getCapacityWeight(), weightLbs)
+                    + 15 * DispatchRules.equipmentFit(truck.getTruckType(), load);
+                return new DispatchRecommendations.TruckOption(truck.getId(), truck.getTruckNumber(),
+                    truck.getTruckType(), truck.getCapacityWeight(), miles, round(score));
+            })
+            .sorted(Comparator.comparingDouble(DispatchRecommendations.TruckOption::getScore).reversed())
+            .limit(limit)
+            .collect(Collectors.toList());
+
+        List<DriverDispatchInfo> availableDrivers = driverRepository.findAvailableDispatchInfoByCompanyId(companyId);
+        List<DispatchRecommendations.DriverOption> drivers = availableDrivers.stream()
+            .filter(driver -> DispatchRules.canDrive(driver, serviceDate))
+            .map(driver -> {
+                Double miles = pickupKnown && driver.getCurrentLatitude() != null && driver.getCurrentLongitude() != null
+                    ? LivePositionService.distanceMiles(pickup.getLatitude(), pickup.getLongitude(),
+                        driver.getCurrentLatitude(), driver.getCurrentLongitude())
+                    : null;
+                double score = 60 * DispatchRules.safety(driver.getSafetyScore())
+                    + 40 * DispatchRules.proximity(miles, maxDeadheadMiles);
+                return new DispatchRecommendations.DriverOption(driver.getId(), driver.getFirstName(),
+                    driver.getLastName(), driver.getSafetyScore(), miles, round(score));
+            })
+            .sorted(Comparator.comparingDouble(DispatchRecommendations.DriverOption::getScore).reversed())
+            .collect(Collectors.toList());
+        int driversExcluded = availableDrivers.size() - drivers.size();
+
+        return new DispatchRecommendations(load.getId(), trucks,
+            drivers.size() > limit ? new ArrayList<>(drivers.subList(0, limit)) : drivers,
+            trucksExcluded, driversExcluded);
+    }
+
+    private static double round(double score) {
+        return Math.round(score * 10) / 10.0;
+    }
+}
@@ -0,0 +1,97 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.dto.driver.DriverDispatchInfo;
+import com.datum.fleetx.dto.truck.TruckDispatchInfo;
+import com.datum.fleetx.entity.Load;
+import com.datum.fleetx.entity.Truck;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.regex.Pattern;
+
+/**
+ * Dispatch Rules - Hard constraints and fit scores shared by dispatch recommendations and
+ * batch planning. Scores are 0..1; a truck or driver failing a constraint is never offered.
+ */
+final class DispatchRules {
+
+    private static final double KG_TO_LBS = 2.20462;
+    private static final Pattern TEMPERATURE_CONTROLLED = Pattern.compile(
+        "\\b(reefer|refrigerated|frozen|chilled|perishable|temperature[- ]controlled)", Pattern.CASE_INSENSITIVE);
+
+    private DispatchRules() {
+    }
+
+    /**
+     * Load weight in pounds (truck capacities are recorded in pounds), or null if unknown
+     */
+    static Double weightLbs(Load load) {
+        if (load.getWeight() == null) {
+            return null;
+        }
+        return "KG".equalsIgnoreCase(load.getWeightUnit()) ? load.getWeight() * KG_TO_LBS : load.getWeight();
+    }
+
+    static boolean requiresReefer(Load load) {
+        return load.getCommodity() != null && TEMPERATURE_CONTROLLED.matcher(load.getCommodity()).find();
+    }
+
+    /**
+     * Day the truck and driver must still be legal on: delivery, else pickup, else today
+     */
+    static LocalDate serviceDate(Load load) {
+        ZonedDateTime at = load.getDeliveryDateTime() != null ? load.getDeliveryDateTime() : load.getPickupDateTime();
+        LocalDate today = LocalDate.now();
+        return at != null && at.toLocalDate().isAfter(today) ? at.toLocalDate() : today;
+    }
+
+    /**
+     * needsReefer and weightLbs are passed in so they're worked out once per load, not per truck
+     */
+    static boolean canCarry(TruckDispatchInfo truck, Load load, boolean needsReefer, Double weightLbs,
+                            LocalDate serviceDate) {
+        Truck.TruckType type = truck.getTruckType();
+        if (type == null) return false;
+        if (needsReefer && type != Truck.TruckType.REEFER) return false;
+        if (Boolean.TRUE.equals(load.getIsOverdimensional()) && type != Truck.TruckType.FLATBED) return false;
+        if (Boolean.TRUE.equals(load.getIsHazmat())
+                && (type == Truck.TruckType.LIMOUSINE || type == Truck.TruckType.SPRINTER_VAN)) return false;
+        if (weightLbs != null && truck.getCapacityWeight() != null && truck.getCapacityWeight() < weightLbs) return false;
+        if (truck.getInsuranceExpiry() != null && truck.getInsuranceExpiry().isBefore(serviceDate)) return false;
+        return truck.getRegistrationExpiry() == null || !truck.getRegistrationExpiry().isBefore(serviceDate);
+    }
+
+    static boolean canDrive(DriverDispatchInfo driver, LocalDate serviceDate) {
+        return driver.getLicenseExpiry() == null || !driver.getLicenseExpiry().isBefore(serviceDate);
+    }
+
+    /**
+     * Fuller trucks score higher, so big trucks stay free for big loads
+     */
+    static double capacityFit(Double capacityWeight, Double weightLbs) {
+        if (capacityWeight == null || weightLbs == null || capacityWeight <= 0) {
+            return 0.5;
+        }
+        return Math.min(1.0, weightLbs / capacityWeight);
+    }
+
+    /**
+     * Specialized equipment matched to the cargo that needs it scores best; using it on
+     * cargo that doesn't need it scores worst
+     */
+    static double equipmentFit(Truck.TruckType type, Load load) {
+        boolean needsSpecial = requiresReefer(load) || Boolean.TRUE.equals(load.getIsOverdimensional());
+        boolean isSpecial = type == Truck.TruckType.REEFER || type == Truck.TruckType.FLATBED
+            || type == Truck.TruckType.TANKER || type == Truck.TruckType.CAR_CARRIER;
+        if (needsSpecial) return 1.0;
+        return isSpecial ? 0.4 : 0.8;
+    }
+
+    static double proximity(Double miles, double maxMiles) {
+        return miles == null ? 0.0 : Math.max(0.0, 1.0 - miles / maxMiles);
+    }
+
+    static double safety(Integer safetyScore) {
+        return safetyScore == null ? 0.5 : Math.max(0, Math.min(100, safetyScore)) / 100.0;
+    }
+}
@@ -0,0 +1,163 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.entity.Document;
+import com.datum.fleetx.entity.Load;
+import com.datum.fleetx.repository.DocumentRepository;
+import com.datum.fleetx.repository.InvoiceRepository;
+import com.datum.fleetx.repository.LoadRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Document Archive Service - Bundles the active documents of many loads into one ZIP
+ * Entries are compressed straight into the response stream one file at a time,
+ * so the download starts immediately and memory use does not grow with the pack.
+ * PDFs, photos and ZIPs are already compressed and are stored as they are.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentArchiveService {
+
+    private static final String MISSING_MANIFEST = "MISSING-FILES.txt";
+    private static final Set<String> COMPRESSED_TYPES = Set.of("application/pdf", "application/zip",
+        "image/jpeg", "image/png", "image/gif", "image/webp", "image/heic");
+
+    private final DocumentRepository documentRepository;
+    private final LoadRepository loadRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final DocumentStorageService documentStorageService;
+
+    /**
+     * Loads of the company that were asked for directly or through one of their invoices
+     */
+    public List<Load> resolveLoads(UUID companyId, List<UUID> loadIds, List<UUID> invoiceIds) {
+        Set<UUID> ids = new LinkedHashSet<>(loadIds);
+        if (!invoiceIds.isEmpty()) {
+            ids.addAll(invoiceRepository.findLoadIdsByCompanyIdAndIdIn(companyId, invoiceIds));
+            // Consolidated invoices have no load of their own; their loads point back at them
+            ids.addAll(loadRepository.findIdsByCompanyIdAndInvoiceIdIn(companyId, invoiceIds));
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Load> loads = new ArrayList<>(loadRepository.findByCompanyIdAndIdIn(companyId, ids));
+        loads.sort(Comparator.comparing(Load::getLoadNumber, Comparator.nullsLast(Comparator.naturalOrder())));
+        return loads;
+    }
+
+    /**
+     * Write the ZIP - one folder per load number, documents in upload order
+     */
+    public void writeArchive(List<Load> loads, OutputStream out) throws IOException {
+        Map<UUID, List<Document>> documentsByLoad = documentRepository
+            .findByLoadIdInAndActiveTrue(loads.stream().map(Load::getId).collect(Collectors.toList()))
+            .stream()
+            .collect(Collectors.groupingBy(d -> d.getLoad().getId()));
+
+        Set<String> usedNames = new HashSet<>();
+        List<String> missing = new ArrayList<>();
+
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        for (Load load : loads) {
+            List<Document> documents = documentsByLoad.getOrDefault(load.getId(), new ArrayList<>());
+            documents.sort(Comparator.comparing(Document::getUploadedAt, Comparator.nullsLast(Comparator.naturalOrder())));
+
+            String folder = sanitize(load.getLoadNumber() != null ? load.getLoadNumber() : load.getId().toString());
+            for (Document document : documents) {
+                String name = uniqueName(usedNames, folder + "/"
+                    + sanitize(document.getDocumentType() + "-" + document.getFileName()));
+                if (!documentStorageService.exists(document.getFilePath())) {
+                    missing.add(name);
+                    continue;
+                }
+
+                Path source = documentStorageService.resolve(document.getFilePath());
+                ZipEntry entry = new ZipEntry(name);
+                Instant uploadedAt = document.getUploadedAt();
+                if (uploadedAt != null) {
+                    entry.setTime(uploadedAt.toEpochMilli());
+                }
+                if (isCompressed(document.getContentType())) {
+                    // Stored entries need their size and CRC before the data
+                    long size = Files.size(source);
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(size);
+                    entry.setCompressedSize(size);
+                    entry.setCrc(crc(source));
+                }
+                zip.putNextEntry(entry);
+                Files.copy(source, zip);
+                zip.closeEntry();
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            zip.putNextEntry(new ZipEntry(MISSING_MANIFEST));
+            zip.write(("Files not available in storage:\n" + String.join("\n", missing) + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+            log.warn("Document archive skipped {} missing file(s)", missing.size());
+        }
+        zip.finish();
+        zip.flush();
+    }
+
+    private static boolean isCompressed(String contentType) {
+        return contentType != null && COMPRESSED_TYPES.contains(contentType.toLowerCase(Locale.ROOT));
+    }
+
+    private static long crc(Path source) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(source)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, n);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static String uniqueName(Set<String> usedNames, String name) {
+        if (usedNames.add(name)) {
+            return name;
+        }
+        int dot = name.lastIndexOf('.');
+        String base = dot > name.lastIndexOf('/') ? name.substring(0, dot) : name;
+        String extension = dot > name.lastIndexOf('/') ? name.substring(dot) : "";
+        for (int i = 2; ; i++) {
+            String candidate = base + " (" + i + ")" + extension;
+            if (usedNames.add(candidate)) {
+                return candidate;
+            }
+        }
+    }
+
+    private static String sanitize(String name) {
+        String cleaned = name.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").replace("..", "_").trim();
+        return cleaned.isEmpty() ? "document" : cleaned;
+    }
+}
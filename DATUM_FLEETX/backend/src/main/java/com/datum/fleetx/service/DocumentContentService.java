@@ -0,0 +1,131 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.dto.document.StagedObject;
+import com.datum.fleetx.dto.document.StoredObject;
+import com.datum.fleetx.entity.DocumentContent;
+import com.datum.fleetx.repository.DocumentContentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Document Content Service - Reference-counted, deduplicated document content
+ * Every active Document holds one reference on its content row. Uploads take the
+ * reference before the file is published and reclaim deletes files under a row lock,
+ * so a re-upload racing with reclaim always ends with the file on disk.
+ */
+@Slf4j
+@Service
+public class DocumentContentService {
+
+    @Autowired
+    private DocumentContentRepository documentContentRepository;
+
+    @Autowired
+    private DocumentStorageService documentStorageService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${document.storage.reclaim-grace-hours:24}")
+    private long reclaimGraceHours;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Store uploaded content and take a reference on it
+     */
+    public StoredObject storeAndRetain(InputStream content) throws IOException {
+        return retainAndPublish(documentStorageService.stage(content));
+    }
+
+    /**
+     * Take a reference on staged content, then publish it to the store
+     */
+    public StoredObject retainAndPublish(StagedObject staged) throws IOException {
+        try {
+            retain(staged.getContentHash(), documentStorageService.storageKeyFor(staged.getContentHash()), staged.getSize());
+        } catch (RuntimeException e) {
+            documentStorageService.discard(staged);
+            throw e;
+        }
+        try {
+            return documentStorageService.publish(staged);
+        } catch (IOException | RuntimeException e) {
+            release(staged.getContentHash());
+            throw e;
+        }
+    }
+
+    /**
+     * Take another reference on content that is already stored, so the client can skip the upload
+     */
+    public Optional<DocumentContent> retainExisting(String contentHash) {
+        return transactionTemplate.execute(status -> documentContentRepository.findByContentHash(contentHash)
+            .filter(content -> documentStorageService.exists(content.getStorageKey()))
+            .map(content -> {
+                documentContentRepository.retain(UUID.randomUUID(), content.getContentHash(),
+                    content.getStorageKey(), content.getFileSize());
+                return content;
+            }));
+    }
+
+    public void retain(String contentHash, String storageKey, long size) {
+        transactionTemplate.executeWithoutResult(status ->
+            documentContentRepository.retain(UUID.randomUUID(), contentHash, storageKey, size));
+    }
+
+    public void release(String contentHash) {
+        if (contentHash == null) return;
+        transactionTemplate.executeWithoutResult(status -> documentContentRepository.release(contentHash));
+    }
+
+    /**
+     * Delete files whose last reference was dropped more than the grace period ago
+     */
+    @Scheduled(fixedDelayString = "${document.storage.reclaim-interval-ms:3600000}",
+               initialDelayString = "${document.storage.reclaim-interval-ms:3600000}")
+    public void reclaimUnreferenced() {
+        Instant cutoff = Instant.now().minus(Duration.ofHours(reclaimGraceHours));
+        List<UUID> candidates = documentContentRepository.findReclaimableIds(cutoff);
+        int reclaimed = 0;
+        for (UUID id : candidates) {
+            try {
+                Boolean deleted = transactionTemplate.execute(status ->
+                    documentContentRepository.lockUnreferenced(id).map(content -> {
+                        try {
+                            documentStorageService.delete(content.getContentHash());
+                        } catch (IOException e) {
+                            throw new IllegalStateException("Could not delete " + content.getStorageKey(), e);
+                        }
+                        documentContentRepository.delete(content);
+                        return true;
+                    }).orElse(false));
+                if (Boolean.TRUE.equals(deleted)) reclaimed++;
+            } catch (RuntimeException e) {
+                log.warn("Reclaim of document content {} failed: {}", id, e.getMessage());
+            }
+        }
+        if (reclaimed > 0) {
+            log.info("Reclaimed {} unreferenced document files", reclaimed);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.entity.Document;
+import com.datum.fleetx.entity.DocumentProcessingJob;
+import com.datum.fleetx.entity.DocumentText;
+import com.datum.fleetx.repository.DocumentProcessingJobRepository;
+import com.datum.fleetx.repository.DocumentRepository;
+import com.datum.fleetx.repository.DocumentTextRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Document Processing Service - Background text extraction feeding document search
+ * Each upload gets a row in document_processing_jobs and is handed to the bounded document
+ * executor; a poller retries failures with backoff and picks up anything the executor
+ * rejected or a restart interrupted. PDFs with a text layer are extracted with PDFBox;
+ * photos and scanned PDFs go through OCR when it is enabled, and are otherwise indexed on
+ * their metadata only.
+ */
+@Slf4j
+@Service
+public class DocumentProcessingService {
+
+    private static final String PDF = "application/pdf";
+    private static final int POLL_BATCH_SIZE = 100;
+    private static final Duration BASE_RETRY_DELAY = Duration.ofSeconds(30);
+    private static final Duration STALE_AFTER = Duration.ofMinutes(15);
+
+    @Autowired
+    private DocumentProcessingJobRepository jobRepository;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private DocumentTextRepository documentTextRepository;
+
+    @Autowired
+    private DocumentStorageService documentStorageService;
+
+    @Autowired
+    private DocumentSearchService documentSearchService;
+
+    @Autowired
+    private OcrService ocrService;
+
+    @Autowired
+    private ThreadPoolTaskExecutor documentTaskExecutor;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${document.processing.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${document.processing.max-pages:50}")
+    private int maxPages;
+
+    @Value("${document.processing.max-text-chars:200000}")
+    private int maxTextChars;
+
+    @Value("${document.ocr.max-pages:5}")
+    private int maxOcrPages;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Record a job for a newly uploaded document and try to start it right away
+     */
+    public void enqueue(Document document) {
+        DocumentProcessingJob job = createJob(document);
+        submit(job.getId());
+    }
+
+    /**
+     * Run due jobs, requeue stalled ones and backfill documents uploaded before the pipeline existed
+     */
+    @Scheduled(fixedDelayString = "${document.processing.poll-interval-ms:30000}")
+    public void pollJobs() {
+        Instant now = Instant.now();
+        int requeued = transactionTemplate.execute(status -> jobRepository.requeueStale(
+            DocumentProcessingJob.JobStatus.RUNNING, DocumentProcessingJob.JobStatus.PENDING,
+            now.minus(STALE_AFTER), now));
+        if (requeued > 0) {
+            log.warn("Requeued {} stalled document processing jobs", requeued);
+        }
+
+        for (Document document : jobRepository.findActiveDocumentsWithoutJob(PageRequest.of(0, POLL_BATCH_SIZE))) {
+            createJob(document);
+        }
+
+        List<UUID> due = jobRepository.findDueJobIds(DocumentProcessingJob.JobStatus.PENDING, now,
+            PageRequest.of(0, POLL_BATCH_SIZE));
+        for (UUID jobId : due) {
+            if (!submit(jobId)) break;
+        }
+    }
+
+    private DocumentProcessingJob createJob(Document document) {
+        DocumentProcessingJob job = new DocumentProcessingJob();
+        job.setDocumentId(document.getId());
+        job.setCompanyId(document.getCompany().getId());
+        job.setNextAttemptAt(Instant.now());
+        return jobRepository.save(job);
+    }
+
+    private boolean submit(UUID jobId) {
+        try {
+            documentTaskExecutor.execute(() -> process(jobId));
+            return true;
+        } catch (TaskRejectedException e) {
+            // Queue is full; the job stays PENDING for the poller
+            return false;
+        }
+    }
+
+    private void process(UUID jobId) {
+        int claimed = transactionTemplate.execute(status -> jobRepository.transition(jobId,
+            DocumentProcessingJob.JobStatus.PENDING, DocumentProcessingJob.JobStatus.RUNNING, Instant.now()));
+        if (claimed == 0) {
+            return;
+        }
+        DocumentProcessingJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+
+        try {
+            documentRepository.findById(job.getDocumentId())
+                .filter(d -> Boolean.TRUE.equals(d.getActive()))
+                .ifPresent(document -> saveText(job, document));
+            finish(job, DocumentProcessingJob.JobStatus.COMPLETED, null, null);
+            documentSearchService.index(job.getDocumentId());
+        } catch (RuntimeException e) {
+            boolean giveUp = job.getAttempts() >= maxAttempts;
+            Instant retryAt = Instant.now().plus(BASE_RETRY_DELAY.multipliedBy(1L << Math.min(job.getAttempts() - 1, 10)));
+            finish(job, giveUp ? DocumentProcessingJob.JobStatus.FAILED : DocumentProcessingJob.JobStatus.PENDING,
+                e.getMessage(), retryAt);
+            log.warn("Document processing job {} failed (attempt {}): {}", jobId, job.getAttempts(), e.getMessage());
+        }
+    }
+
+    private void saveText(DocumentProcessingJob job, Document document) {
+        DocumentText text = documentTextRepository.findByDocumentId(document.getId()).orElseGet(DocumentText::new);
+        text.setDocumentId(document.getId());
+        text.setCompanyId(job.getCompanyId());
+        text.setExtractionMethod(DocumentText.ExtractionMethod.METADATA_ONLY);
+        text.setPageCount(null);
+        text.setContent(null);
+
+        String contentType = document.getContentType();
+        if (contentType == null || !documentStorageService.exists(document.getFilePath())) {
+            documentTextRepository.save(text);
+            return;
+        }
+        Path source = documentStorageService.resolve(document.getFilePath());
+        try {
+            if (PDF.equals(contentType)) {
+                try (PDDocument pdf = PDDocument.load(source.toFile(), MemoryUsageSetting.setupTempFileOnly())) {
+                    PDFTextStripper stripper = new PDFTextStripper();
+                    stripper.setEndPage(maxPages);
+                    String extracted = stripper.getText(pdf).trim();
+                    text.setPageCount(pdf.getNumberOfPages());
+                    if (!extracted.isEmpty()) {
+                        setContent(text, DocumentText.ExtractionMethod.PDF_TEXT, extracted);
+                    } else if (ocrService.isAvailable()) {
+                        // Scanned PDF without a text layer
+                        setContent(text, DocumentText.ExtractionMethod.OCR, recognizePages(pdf));
+                    }
+                }
+            } else if (contentType.startsWith("image/") && ocrService.isAvailable()) {
+                BufferedImage image = ImageIO.read(source.toFile());
+                if (image != null) {
+                    text.setPageCount(1);
+                    setContent(text, DocumentText.ExtractionMethod.OCR, ocrService.recognize(image));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Text extraction failed: " + e.getMessage(), e);
+        }
+        documentTextRepository.save(text);
+    }
+
+    private String recognizePages(PDDocument pdf) throws IOException {
+        PDFRenderer renderer = new PDFRenderer(pdf);
+        StringBuilder recognized = new StringBuilder();
+        int pages = Math.min(pdf.getNumberOfPages(), maxOcrPages);
+        for (int page = 0; page < pages && recognized.length() < maxTextChars; page++) {
+            String pageText = ocrService.recognize(renderer.renderImageWithDPI(page, ocrService.getDpi(), ImageType.GRAY));
+            if (!pageText.isEmpty()) {
+                recognized.append(pageText).append("\n\n");
+            }
+        }
+        return recognized.toString().trim();
+    }
+
+    private void setContent(DocumentText text, DocumentText.ExtractionMethod method, String content) {
+        if (content.isEmpty()) {
+            return;
+        }
+        text.setExtractionMethod(method);
+        text.setContent(content.length() > maxTextChars ? content.substring(0, maxTextChars) : content);
+    }
+
+    private void finish(DocumentProcessingJob job, DocumentProcessingJob.JobStatus status, String error, Instant retryAt) {
+        job.setStatus(status);
+        job.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+        if (status == DocumentProcessingJob.JobStatus.COMPLETED || status == DocumentProcessingJob.JobStatus.FAILED) {
+            job.setCompletedAt(Instant.now());
+        }
+        if (retryAt != null) {
+            job.setNextAttemptAt(retryAt);
+        }
+        jobRepository.save(job);
+    }
+}
@@ -0,0 +1,385 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.dto.document.DocumentIndexSource;
+import com.datum.fleetx.dto.document.DocumentSearchHit;
+import com.datum.fleetx.entity.Document;
+import com.datum.fleetx.entity.DocumentText;
+import com.datum.fleetx.exception.ServiceBusyException;
+import com.datum.fleetx.repository.DocumentTextRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Document Search Service - Per-company in-memory inverted index over extracted document text
+ * A company's index is built from document_texts on its first search, on the document executor
+ * and a page of texts at a time (the search waits briefly, then answers 503 until it is ready),
+ * and then kept current as processing jobs finish. Documents indexed or removed while a build
+ * is scanning are queued and re-read when it finishes, so no change is lost. Queries are OR-matched and ranked by summed IDF, so
+ * "BOL with PO 44812" puts the bill of lading mentioning 44812 first.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentSearchService {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern LETTER_DIGIT_BOUNDARY = Pattern.compile("(?<=\\p{L})(?=\\p{N})|(?<=\\p{N})(?=\\p{L})");
+    private static final int MAX_TERM_LENGTH = 40;
+    private static final int MAX_TERMS_PER_DOCUMENT = 20_000;
+    private static final int SNIPPET_RADIUS = 80;
+
+    private static final Map<Document.DocumentType, String> TYPE_ABBREVIATIONS = Map.of(
+        Document.DocumentType.BILL_OF_LADING, "bol",
+        Document.DocumentType.PROOF_OF_DELIVERY, "pod",
+        Document.DocumentType.RATE_CONTRACT, "ratecon");
+
+    private final DocumentTextRepository documentTextRepository;
+    private final ThreadPoolTaskExecutor documentTaskExecutor;
+
+    @Value("${document.search.max-companies:500}")
+    private long maxCompanies;
+
+    @Value("${document.search.idle-hours:6}")
+    private long idleHours;
+
+    @Value("${document.search.build-wait-ms:500}")
+    private long buildWaitMs;
+
+    @Value("${document.search.build-page-size:100}")
+    private int buildPageSize;
+
+    private Cache<UUID, CompanyIndex> indexes;
+
+    // Builds queued or running, one per company
+    private final Map<UUID, Build> builds = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void initCache() {
+        indexes = Caffeine.newBuilder()
+            .maximumSize(maxCompanies)
+            .expireAfterAccess(Duration.ofHours(idleHours))
+            .build();
+    }
+
+    /**
+     * Search one company's documents, best matches first
+     */
+    public List<DocumentSearchHit> search(UUID companyId, String query, int limit) {
+        List<String> terms = new ArrayList<>(tokenize(query));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        CompanyIndex index = awaitIndex(companyId);
+
+        Map<UUID, Double> scores = new HashMap<>();
+        Map<UUID, String> bestTerm = new HashMap<>();
+        Map<UUID, Double> bestWeight = new HashMap<>();
+        int documentCount = Math.max(1, index.documents.size());
+        for (String term : terms) {
+            Set<UUID> postings = index.postings.get(term);
+            if (postings == null || postings.isEmpty()) continue;
+            double idf = Math.log(1.0 + (double) documentCount / postings.size());
+            for (UUID documentId : postings) {
+                scores.merge(documentId, idf, Double::sum);
+                if (idf > bestWeight.getOrDefault(documentId, 0.0)) {
+                    bestWeight.put(documentId, idf);
+                    bestTerm.put(documentId, term);
+                }
+            }
+        }
+
+        List<IndexedDocument> ranked = scores.entrySet().stream()
+            .sorted(Map.Entry.<UUID, Double>comparingByValue(Comparator.reverseOrder()))
+            .map(e -> index.documents.get(e.getKey()))
+            .filter(d -> d != null)
+            .limit(limit)
+            .collect(Collectors.toList());
+        if (ranked.isEmpty()) {
+            return List.of();
+        }
+
+        // Snippets come from the stored text of the few documents actually returned
+        Map<UUID, String> texts = documentTextRepository
+            .findByDocumentIdIn(ranked.stream().map(d -> d.documentId).collect(Collectors.toList()))
+            .stream()
+            .filter(t -> t.getContent() != null)
+            .collect(Collectors.toMap(DocumentText::getDocumentId, DocumentText::getContent));
+
+        return ranked.stream()
+            .map(d -> DocumentSearchHit.builder()
+                .documentId(d.documentId)
+                .loadId(d.loadId)
+                .loadNumber(d.loadNumber)
+                .fileName(d.fileName)
+                .documentType(d.documentType)
+                .score(scores.get(d.documentId))
+                .snippet(snippet(texts.get(d.documentId), bestTerm.get(d.documentId)))
+                .build())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Add or refresh one document in its company's index, if that index is loaded
+     */
+    public void index(UUID documentId) {
+        documentTextRepository.findIndexSource(documentId).ifPresent(source -> {
+            if (queuedForBuild(source.getCompanyId(), documentId)) {
+                return;
+            }
+            indexes.asMap().computeIfPresent(source.getCompanyId(), (companyId, index) -> {
+                index.add(source);
+                return index;
+            });
+        });
+    }
+
+    public void remove(UUID companyId, UUID documentId) {
+        if (queuedForBuild(companyId, documentId)) {
+            return;
+        }
+        // Through the cache entry, so a removal racing the end of a build waits for it instead of being dropped
+        indexes.asMap().computeIfPresent(companyId, (id, index) -> {
+            index.remove(documentId);
+            return index;
+        });
+    }
+
+    private CompanyIndex awaitIndex(UUID companyId) {
+        CompanyIndex index = indexes.getIfPresent(companyId);
+        if (index != null) {
+            return index;
+        }
+        try {
+            return startBuild(companyId).future.get(buildWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceBusyException("Document search index is being prepared, please retry shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Document search interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Document search index build failed", e.getCause());
+        }
+    }
+
+    private Build startBuild(UUID companyId) {
+        Build build = new Build();
+        Build existing = builds.putIfAbsent(companyId, build);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            documentTaskExecutor.execute(() -> {
+                try {
+                    build.future.complete(indexes.get(companyId, id -> buildIndex(id, build)));
+                } catch (RuntimeException e) {
+                    log.warn("Document index build failed for company {}: {}", companyId, e.getMessage());
+                    build.future.completeExceptionally(e);
+                } finally {
+                    builds.remove(companyId, build);
+                    // Changes queued while the cache already held an index (no scan ran to replay them)
+                    for (UUID documentId : build.close()) {
+                        indexes.asMap().computeIfPresent(companyId, (id, index) -> {
+                            refresh(index, id, documentId);
+                            return index;
+                        });
+                    }
+                }
+            });
+        } catch (TaskRejectedException e) {
+            builds.remove(companyId, build);
+            throw new ServiceBusyException("Document search is busy, please retry shortly");
+        }
+        return build;
+    }
+
+    private boolean queuedForBuild(UUID companyId, UUID documentId) {
+        Build build = builds.get(companyId);
+        return build != null && build.queue(documentId);
+    }
+
+    /**
+     * Keyset pages of texts, so only one page of content is held at a time
+     */
+    private CompanyIndex buildIndex(UUID companyId, Build build) {
+        long start = System.nanoTime();
+        CompanyIndex index = new CompanyIndex();
+        UUID after = new UUID(0L, 0L);
+        List<DocumentIndexSource> page;
+        do {
+            page = documentTextRepository.findIndexSourcesByCompanyIdAfter(companyId, after,
+                PageRequest.of(0, buildPageSize));
+            for (DocumentIndexSource source : page) {
+                index.add(source);
+                after = source.getDocumentId();
+            }
+        } while (page.size() == buildPageSize);
+        for (UUID documentId : build.close()) {
+            refresh(index, companyId, documentId);
+        }
+        log.info("Built document index for company {}: {} documents, {} terms in {} ms", companyId,
+            index.documents.size(), index.postings.size(), (System.nanoTime() - start) / 1_000_000);
+        return index;
+    }
+
+    private void refresh(CompanyIndex index, UUID companyId, UUID documentId) {
+        Optional<DocumentIndexSource> source = documentTextRepository.findIndexSource(documentId)
+            .filter(s -> companyId.equals(s.getCompanyId()));
+        if (source.isPresent()) {
+            index.add(source.get());
+        } else {
+            index.remove(documentId);
+        }
+    }
+
+    private static String snippet(String content, String term) {
+        if (content == null || term == null) {
+            return null;
+        }
+        int at = content.toLowerCase(Locale.ROOT).indexOf(term);
+        if (at < 0) {
+            return null;
+        }
+        int from = Math.max(0, at - SNIPPET_RADIUS);
+        int to = Math.min(content.length(), at + term.length() + SNIPPET_RADIUS);
+        return (from > 0 ? "…" : "") + content.substring(from, to).replaceAll("\\s+", " ").trim()
+            + (to < content.length() ? "…" : "");
+    }
+
+    /**
+     * Lowercased alphanumeric terms; "PO44812" is also indexed as "po" and "44812"
+     */
+    static Set<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptySet();
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        for (String token : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            addTerm(terms, token);
+            for (String part : LETTER_DIGIT_BOUNDARY.split(token)) {
+                if (part.length() != token.length()) {
+                    addTerm(terms, part);
+                }
+            }
+            if (terms.size() >= MAX_TERMS_PER_DOCUMENT) break;
+        }
+        return terms;
+    }
+
+    private static void addTerm(Set<String> terms, String term) {
+        if (term.length() >= 2 && term.length() <= MAX_TERM_LENGTH) {
+            terms.add(term);
+        }
+    }
+
+    /**
+     * A build in progress and the documents that changed while it was scanning
+     */
+    private static class Build {
+        private final CompletableFuture<CompanyIndex> future = new CompletableFuture<>();
+        private final Set<UUID> changed = new LinkedHashSet<>();
+        private boolean closed;
+
+        synchronized boolean queue(UUID documentId) {
+            if (closed) {
+                return false;
+            }
+            changed.add(documentId);
+            return true;
+        }
+
+        synchronized List<UUID> close() {
+            closed = true;
+            List<UUID> queued = new ArrayList<>(changed);
+            changed.clear();
+            return queued;
+        }
+    }
+
+    private static class IndexedDocument {
+        private final UUID documentId;
+        private final UUID loadId;
+        private final String loadNumber;
+        private final String fileName;
+        private final Document.DocumentType documentType;
+        private final Set<String> terms;
+
+        IndexedDocument(DocumentIndexSource source, Set<String> terms) {
+            this.documentId = source.getDocumentId();
+            this.loadId = source.getLoadId();
+            this.loadNumber = source.getLoadNumber();
+            this.fileName = source.getFileName();
+            this.documentType = source.getDocumentType();
+            this.terms = terms;
+        }
+    }
+
+    /**
+     * Postings are concurrent sets so searches run lock-free alongside single-writer updates
+     */
+    private static class CompanyIndex {
+        private final Map<UUID, IndexedDocument> documents = new ConcurrentHashMap<>();
+        private final Map<String, Set<UUID>> postings = new ConcurrentHashMap<>();
+
+        synchronized void add(DocumentIndexSource source) {
+            remove(source.getDocumentId());
+            StringBuilder text = new StringBuilder();
+            Function<String, StringBuilder> append = s -> s == null ? text : text.append(' ').append(s);
+            append.apply(source.getLoadNumber());
+            append.apply(source.getReferenceNumber());
+            append.apply(source.getFileName());
+            append.apply(source.getDescription());
+            if (source.getDocumentType() != null) {
+                append.apply(source.getDocumentType().name());
+                append.apply(TYPE_ABBREVIATIONS.get(source.getDocumentType()));
+            }
+            append.apply(source.getContent());
+
+            Set<String> terms = tokenize(text.toString());
+            for (String term : terms) {
+                postings.computeIfAbsent(term, t -> ConcurrentHashMap.newKeySet()).add(source.getDocumentId());
+            }
+            documents.put(source.getDocumentId(), new IndexedDocument(source, terms));
+        }
+
+        synchronized void remove(UUID documentId) {
+            IndexedDocument existing = documents.remove(documentId);
+            if (existing == null) return;
+            for (String term : existing.terms) {
+                Set<UUID> ids = postings.get(term);
+                if (ids != null) {
+                    ids.remove(documentId);
+                    if (ids.isEmpty()) postings.remove(term);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.dto.document.StagedObject;
+import com.datum.fleetx.dto.document.StoredObject;
+import com.datum.fleetx.exception.ResourceNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.PathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Document Storage Service - Content-addressed file store under file.upload-dir
+ * Uploads are streamed to a temp file while their SHA-256 is computed, then moved to
+ * objects/ab/cd/<sha256>. Identical content maps to the same file and names never collide.
+ * Reference counting of stored objects lives in DocumentContentService.
+ */
+@Service
+public class DocumentStorageService {
+
+    private static final String OBJECTS_DIR = "objects";
+    private static final String TMP_DIR = "tmp";
+    private static final String THUMBNAILS_DIR = "thumbnails";
+
+    @Value("${file.upload-dir}")
+    private String uploadDir;
+
+    private Path objectsRoot;
+    private Path tmpRoot;
+    private Path thumbnailsRoot;
+
+    @PostConstruct
+    void initDirectories() throws IOException {
+        Path root = Paths.get(uploadDir).toAbsolutePath().normalize();
+        objectsRoot = Files.createDirectories(root.resolve(OBJECTS_DIR));
+        tmpRoot = Files.createDirectories(root.resolve(TMP_DIR));
+        thumbnailsRoot = Files.createDirectories(root.resolve(THUMBNAILS_DIR));
+    }
+
+    /**
+     * Stream content to a temp file, hashing as it is written - nothing is visible in
+     * the store until the staged object is published
+     */
+    public StagedObject stage(InputStream content) throws IOException {
+        Path temp = createTempFile("upload-");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(content, digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                size = in.transferTo(out);
+            }
+            return new StagedObject(temp, toHex(digest.digest()), size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Move a staged object to its content address (a no-op if that content is already stored)
+     */
+    public StoredObject publish(StagedObject staged) throws IOException {
+        String storageKey = storageKeyFor(staged.getContentHash());
+        Path target = objectsRoot.resolve(storageKey);
+        try {
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(staged.getTempFile(), target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Same content stored concurrently
+                }
+            }
+            if (!Files.exists(target)) {
+                throw new IOException("Stored object missing after move: " + storageKey);
+            }
+            return new StoredObject(staged.getContentHash(), staged.getSize(), storageKey);
+        } finally {
+            discard(staged);
+        }
+    }
+
+    /**
+     * SHA-256 of a file, read in constant memory
+     */
+    public String hash(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return toHex(digest.digest());
+    }
+
+    public void discard(StagedObject staged) throws IOException {
+        Files.deleteIfExists(staged.getTempFile());
+    }
+
+    /**
+     * Remove a stored object and anything derived from it
+     */
+    public void delete(String contentHash) throws IOException {
+        Files.deleteIfExists(objectsRoot.resolve(storageKeyFor(contentHash)));
+        Files.deleteIfExists(thumbnailPath(contentHash));
+    }
+
+    public boolean exists(String storageKey) {
+        if (storageKey == null) return false;
+        try {
+            return Files.isRegularFile(resolve(storageKey));
+        } catch (IllegalArgumentException e) {
+            // Rows from before the store existed carry a bare "/uploads/<name>" path
+            return false;
+        }
+    }
+
+    /**
+     * Open a stored object as a streamable Resource (supports HTTP Range via Spring MVC)
+     */
+    public Resource loadAsResource(String storageKey) {
+        if (!exists(storageKey)) {
+            throw new ResourceNotFoundException("Stored file", "key", storageKey);
+        }
+        return new PathResource(resolve(storageKey));
+    }
+
+    public Path resolve(String storageKey) {
+        Path path = objectsRoot.resolve(storageKey).normalize();
+        if (!path.startsWith(objectsRoot)) {
+            throw new IllegalArgumentException("Invalid storage key");
+        }
+        return path;
+    }
+
+    /**
+     * Derived thumbnail location - keyed by content hash, so shared by identical uploads
+     */
+    public Path thumbnailPath(String contentHash) {
+        return thumbnailsRoot.resolve(storageKeyFor(contentHash) + ".jpg");
+    }
+
+    /**
+     * Temp file on the same volume as the store, so finished files can be moved atomically
+     */
+    public Path createTempFile(String prefix) throws IOException {
+        return Files.createTempFile(tmpRoot, prefix, ".part");
+    }
+
+    public List<Path> listTempFiles(String prefix) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(tmpRoot, prefix + "*.part")) {
+            stream.forEach(files::add);
+        }
+        return files;
+    }
+
+    public String storageKeyFor(String contentHash) {
+        return contentHash.substring(0, 2) + "/" + contentHash.substring(2, 4) + "/" + contentHash;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -23,6 +23,9 @@ public class DriverService {
     @Autowired
     private CompanyRepository companyRepository;
 
+    @Autowired
+    private CollectionVersionService collectionVersionService;
+
     public List<Driver> getAllDriversByCompany(UUID companyId) {
         return driverRepository.findByCompanyId(companyId);
     }
@@ -93,11 +96,12 @@ public class DriverService {
     }
 
     public Driver updateDriverLocation(UUID id, Double latitude, Double longitude, UUID companyId) {
-        Driver driver = getDriverById(id, companyId);
-        driver.setCurrentLatitude(latitude);
-        driver.setCurrentLongitude(longitude);
-        driver.setLastLocationUpdate(java.time.Instant.now());
-        return driverRepository.save(driver);
+        if (driverRepository.updatePosition(id, companyId, latitude, longitude, java.time.Instant.now()) == 0) {
+            throw new ResourceNotFoundException("Driver", "id", id);
+        }
+        // Pings are frequent; the driver list's ETag catches up within the coalesce interval
+        collectionVersionService.markChangedCoalesced(companyId, Driver.class);
+        return getDriverById(id, companyId);
     }
 
     public List<Driver> getAvailableDrivers(UUID companyId) {
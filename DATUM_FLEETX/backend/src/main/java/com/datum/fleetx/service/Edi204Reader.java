@@ -0,0 +1,281 @@
+package com.datum.fleetx.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Streams load tenders out of an X12 204 (Motor Carrier Load Tender) interchange
+ * Each ST..SE transaction set is one load. Separators come from the fixed-width ISA header.
+ * Read: B2 shipment id, L11 references, N1*BT bill-to (customer), AT8/L3 weight and charge,
+ * L5 commodity, LH1 hazmat, and the S5 stop loops with their N1/N3/N4 address and G62 date.
+ * The first pickup stop and the last delivery stop become the load's pickup and delivery.
+ */
+final class Edi204Reader {
+
+    private static final int ISA_LENGTH = 106;
+    private static final DateTimeFormatter DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final ZoneId zone;
+
+    Edi204Reader(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    void read(Reader in, Consumer<LoadImportRow> sink) throws IOException {
+        char[] isa = new char[ISA_LENGTH];
+        int n = 0;
+        while (n < ISA_LENGTH) {
+            int read = in.read(isa, n, ISA_LENGTH - n);
+            if (read < 0) break;
+            n += read;
+        }
+        if (n < ISA_LENGTH || !new String(isa, 0, 3).equals("ISA")) {
+            throw new IllegalArgumentException("Not an X12 interchange: missing ISA header");
+        }
+        char elementSeparator = isa[3];
+        char segmentTerminator = isa[ISA_LENGTH - 1];
+
+        Pattern elements = Pattern.compile(Pattern.quote(String.valueOf(elementSeparator)));
+
+        Tender tender = null;
+        int transactionSets = 0;
+        String segment;
+        while ((segment = nextSegment(in, segmentTerminator)) != null) {
+            String[] e = elements.split(segment, -1);
+            String id = e[0];
+            if ("ST".equals(id)) {
+                transactionSets++;
+                tender = new Tender(transactionSets);
+                if (!"204".equals(element(e, 1))) {
+                    tender.row.fail("Transaction set " + element(e, 1) + " is not a 204 load tender");
+                }
+            } else if (tender == null) {
+                continue;
+            } else if ("SE".equals(id)) {
+                sink.accept(tender.finish());
+                tender = null;
+            } else {
+                tender.accept(id, e);
+            }
+        }
+        if (tender != null) {
+            tender.row.fail("Transaction set is missing its SE trailer");
+            sink.accept(tender.finish());
+        }
+    }
+
+    private static String nextSegment(Reader in, char terminator) throws IOException {
+        StringBuilder segment = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1 && c != terminator) {
+            // Line breaks after terminators are common and not part of the data
+            if (c == '\r' || c == '\n') continue;
+            segment.append((char) c);
+        }
+        if (c == -1 && segment.toString().isBlank()) {
+            return null;
+        }
+        return segment.toString().trim();
+    }
+
+    private static String element(String[] elements, int index) {
+        if (index >= elements.length) return null;
+        String value = elements[index].trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Accumulates one transaction set
+     */
+    private final class Tender {
+        private final LoadImportRow row = new LoadImportRow();
+        private final List<String> references = new ArrayList<>();
+        private String shipperName;
+        private int stops;
+        private int extraStops;
+        // Current stop loop: null before the first S5
+        private LoadImportRow.Stop stop;
+        private boolean stopIsPickup;
+        private ZonedDateTime stopDate;
+
+        Tender(int number) {
+            row.setRowNumber(number);
+        }
+
+        void accept(String id, String[] e) {
+            switch (id) {
+                case "B2":
+                    row.setReferenceNumber(element(e, 4));
+                    break;
+                case "L11":
+                    if (element(e, 1) != null) {
+                        references.add((element(e, 2) != null ? element(e, 2) + " " : "") + element(e, 1));
+                    }
+                    break;
+                case "N1":
+                    name(e);
+                    break;
+                case "N3":
+                    if (stop != null) stop.setAddressLine1(element(e, 1));
+                    break;
+                case "N4":
+                    if (stop != null) {
+                        stop.setCity(element(e, 1));
+                        stop.setStateProvince(element(e, 2));
+                        stop.setPostalCode(element(e, 3));
+                        stop.setCountry(element(e, 4));
+                    }
+                    break;
+                case "G62":
+                    if (stop != null && stopDate == null) stopDate = date(e);
+                    break;
+                case "S5":
+                    closeStop();
+                    openStop(element(e, 2));
+                    break;
+                case "AT8":
+                    weight(element(e, 3), element(e, 2));
+                    if (element(e, 4) != null && row.getPieces() == null) row.setPieces(integer(element(e, 4), "AT8-04"));
+                    break;
+                case "L3":
+                    if (row.getWeight() == null) weight(element(e, 1), "L");
+                    if (element(e, 5) != null) row.setRate(charge(element(e, 5)));
+                    break;
+                case "L5":
+                    if (row.getCommodity() == null) row.setCommodity(element(e, 2));
+                    break;
+                case "LH1":
+                    row.setHazmat(true);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        LoadImportRow finish() {
+            closeStop();
+            if (row.getReferenceNumber() == null && !references.isEmpty()) {
+                row.setReferenceNumber(references.get(0));
+            }
+            if (row.getCustomerName() == null) {
+                row.setCustomerName(shipperName);
+            }
+            List<String> notes = new ArrayList<>();
+            if (!references.isEmpty()) notes.add("References: " + String.join(", ", references));
+            if (extraStops > 0) notes.add(extraStops + " additional stop(s) in the tender");
+            if (!notes.isEmpty()) row.setNotes(String.join("\n", notes));
+            if (stops == 0) row.fail("Tender has no stops");
+            return row;
+        }
+
+        private void name(String[] e) {
+            String qualifier = element(e, 1);
+            String name = element(e, 2);
+            if (stop != null) {
+                if (stop.getName() == null) stop.setName(name);
+            } else if ("BT".equals(qualifier)) {
+                row.setCustomerName(name);
+            } else if ("SH".equals(qualifier) && shipperName == null) {
+                shipperName = name;
+            }
+        }
+
+        private void openStop(String reason) {
+            stops++;
+            stop = new LoadImportRow.Stop();
+            // LD/CL/PL load at the stop, UL/CU/PU unload
+            stopIsPickup = reason == null || reason.equals("LD") || reason.equals("CL") || reason.equals("PL");
+            stopDate = null;
+        }
+
+        private void closeStop() {
+            if (stop == null) return;
+            if (stopIsPickup) {
+                if (row.getPickup().isEmpty()) {
+                    row.setPickup(stop);
+                    row.setPickupDateTime(stopDate);
+                } else {
+                    extraStops++;
+                }
+            } else {
+                // Last delivery wins; earlier ones are intermediate drops
+                if (!row.getDelivery().isEmpty()) extraStops++;
+                row.setDelivery(stop);
+                row.setDeliveryDateTime(stopDate);
+            }
+            stop = null;
+        }
+
+        private ZonedDateTime date(String[] e) {
+            String date = element(e, 2);
+            if (date == null) return null;
+            try {
+                LocalDate day = LocalDate.parse(date.length() == 6 ? "20" + date : date, DATE);
+                String time = element(e, 4);
+                LocalTime at = time != null && time.length() >= 4
+                    ? LocalTime.of(Integer.parseInt(time.substring(0, 2)), Integer.parseInt(time.substring(2, 4)))
+                    : LocalTime.MIDNIGHT;
+                return day.atTime(at).atZone(timeZone(element(e, 5)));
+            } catch (DateTimeException | NumberFormatException ex) {
+                row.fail("G62: unrecognized date '" + date + "'");
+                return null;
+            }
+        }
+
+        private void weight(String value, String unitCode) {
+            if (value == null) return;
+            try {
+                row.setWeight(new BigDecimal(value).doubleValue());
+                row.setWeightUnit("K".equals(unitCode) ? "KG" : "LBS");
+            } catch (NumberFormatException ex) {
+                row.fail("Weight: not a number '" + value + "'");
+            }
+        }
+
+        private BigDecimal charge(String value) {
+            try {
+                // L3-05 is N2: two implied decimal places
+                return value.contains(".") ? new BigDecimal(value) : new BigDecimal(value).movePointLeft(2);
+            } catch (NumberFormatException ex) {
+                row.fail("L3: charge is not a number '" + value + "'");
+                return null;
+            }
+        }
+
+        private Integer integer(String value, String element) {
+            try {
+                return Integer.valueOf(value);
+            } catch (NumberFormatException ex) {
+                row.fail(element + ": not a whole number '" + value + "'");
+                return null;
+            }
+        }
+    }
+
+    /**
+     * X12 time codes for US zones; LT (local) and anything else use the import's zone
+     */
+    private ZoneId timeZone(String code) {
+        if (code == null) return zone;
+        switch (code) {
+            case "ET": case "ES": case "ED": return ZoneId.of("America/New_York");
+            case "CT": case "CS": case "CD": return ZoneId.of("America/Chicago");
+            case "MT": case "MS": case "MD": return ZoneId.of("America/Denver");
+            case "PT": case "PS": case "PD": return ZoneId.of("America/Los_Angeles");
+            case "UT": case "GM": return ZoneOffset.UTC;
+            default: return zone;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.datum.fleetx.entity.*;
 import com.datum.fleetx.exception.ResourceNotFoundException;
 import com.datum.fleetx.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,6 +26,21 @@ public class InvoiceService {
     @Autowired
     private CustomerRepository customerRepository;
 
+    @Autowired
+    private NumberAllocator numberAllocator;
+
+    @Autowired
+    private ReceivablesService receivablesService;
+
+    @Autowired
+    private LoadRepository loadRepository;
+
+    @Autowired
+    private CollectionVersionService collectionVersionService;
+
+    @Value("${invoicing.tax-rate:0.08}")
+    private BigDecimal taxRate;
+
     public List<Invoice> getAllInvoicesByCompany(UUID companyId) {
         return invoiceRepository.findByCompanyId(companyId);
     }
@@ -43,11 +59,9 @@ public class InvoiceService {
             .filter(c -> c.getCompany().getId().equals(companyId))
             .orElseThrow(() -> new ResourceNotFoundException("Customer", "id", customerId));
 
-        // Generate invoice number
-        String invoiceNumber = generateInvoiceNumber(companyId);
+        String invoiceNumber = numberAllocator.next(companyId, NumberAllocator.Series.INVOICE);
 
         // Calculate tax
-        BigDecimal taxRate = new BigDecimal("0.08"); // 8% default
         BigDecimal taxAmount = amount.multiply(taxRate);
         BigDecimal totalAmount = amount.add(taxAmount);
 
@@ -67,23 +81,28 @@ public class InvoiceService {
         invoice.setPaidAmount(BigDecimal.ZERO);
         invoice.setNotes(description);
 
-        return invoiceRepository.save(invoice);
+        return save(invoice, BigDecimal.ZERO);
     }
 
     public Invoice updateInvoiceStatus(UUID id, Invoice.InvoiceStatus status, UUID companyId) {
         Invoice invoice = getInvoiceById(id, companyId);
+        BigDecimal openBefore = ReceivablesService.openBalance(invoice);
         invoice.setStatus(status);
         
+        if (status == Invoice.InvoiceStatus.CANCELLED) {
+            releaseLoads(invoice);
+        }
         if (status == Invoice.InvoiceStatus.PAID) {
             invoice.setPaidAt(LocalDate.now());
             invoice.setPaidAmount(invoice.getTotalAmount());
         }
         
-        return invoiceRepository.save(invoice);
+        return save(invoice, openBefore);
     }
 
     public Invoice recordPayment(UUID id, BigDecimal amount, UUID companyId) {
         Invoice invoice = getInvoiceById(id, companyId);
+        BigDecimal openBefore = ReceivablesService.openBalance(invoice);
         
         BigDecimal currentPaid = invoice.getPaidAmount() != null ? invoice.getPaidAmount() : BigDecimal.ZERO;
         invoice.setPaidAmount(currentPaid.add(amount));
@@ -95,14 +114,15 @@ public class InvoiceService {
             invoice.setStatus(Invoice.InvoiceStatus.PARTIAL_PAID);
         }
         
-        return invoiceRepository.save(invoice);
+        return save(invoice, openBefore);
     }
 
     public Invoice sendInvoice(UUID id, UUID companyId) {
         Invoice invoice = getInvoiceById(id, companyId);
+        BigDecimal openBefore = ReceivablesService.openBalance(invoice);
         invoice.setStatus(Invoice.InvoiceStatus.SENT);
         invoice.setSentAt(LocalDate.now());
-        return invoiceRepository.save(invoice);
+        return save(invoice, openBefore);
     }
 
     public void deleteInvoice(UUID id, UUID companyId) {
@@ -110,8 +130,10 @@ public class InvoiceService {
         if (invoice.getStatus() == Invoice.InvoiceStatus.PAID) {
             throw new IllegalArgumentException("Cannot delete a paid invoice");
         }
+        BigDecimal openBefore = ReceivablesService.openBalance(invoice);
         invoice.setActive(false);
-        invoiceRepository.save(invoice);
+        releaseLoads(invoice);
+        save(invoice, openBefore);
     }
 
     public List<Invoice> getOverdueInvoices(UUID companyId) {
@@ -124,10 +146,8 @@ public class InvoiceService {
 
     // Statistics
     public BigDecimal getTotalRevenue(UUID companyId) {
-        List<Invoice> paidInvoices = invoiceRepository.findByCompanyIdAndStatus(companyId, Invoice.InvoiceStatus.PAID);
-        return paidInvoices.stream()
-            .map(Invoice::getTotalAmount)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal revenue = invoiceRepository.sumPaid(companyId);
+        return revenue != null ? revenue : BigDecimal.ZERO;
     }
 
     public BigDecimal getTotalPending(UUID companyId) {
@@ -136,15 +156,27 @@ public class InvoiceService {
     }
 
     public BigDecimal getTotalOverdue(UUID companyId) {
-        List<Invoice> overdueInvoices = getOverdueInvoices(companyId);
-        return overdueInvoices.stream()
-            .map(Invoice::getBalance)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal overdue = invoiceRepository.sumOverdueBalance(companyId);
+        return overdue != null ? overdue : BigDecimal.ZERO;
+    }
+
+    /**
+     * Loads billed on a voided or deleted invoice go back to unbilled
+     */
+    private void releaseLoads(Invoice invoice) {
+        if (loadRepository.releaseFromInvoice(invoice.getId()) > 0) {
+            // Native update: the load listing's ETag is not moved by the entity listener
+            collectionVersionService.markChanged(invoice.getCompany().getId(), Load.class);
+        }
     }
 
-    private String generateInvoiceNumber(UUID companyId) {
-        long count = invoiceRepository.count() + 1;
-        return String.format("INV-%s-%04d", 
-            LocalDate.now().getYear(), count);
+    /**
+     * Save, moving the customer's balance by whatever the change opened or settled
+     */
+    private Invoice save(Invoice invoice, BigDecimal openBefore) {
+        Invoice saved = invoiceRepository.save(invoice);
+        receivablesService.adjustBalance(saved.getCustomer().getId(), saved.getCurrency(),
+            ReceivablesService.openBalance(saved).subtract(openBefore));
+        return saved;
     }
 }
@@ -0,0 +1,216 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.dto.tracking.TruckPosition;
+import com.datum.fleetx.repository.TruckRepository;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Live Position Service - In-memory view of the latest GPS fix per truck
+ * Written through on every location update so read paths (tracking portal,
+ * dispatch board) don't need to reload trucks to see current positions.
+ * Fixes are also bucketed into a lat/lon grid so nearest-truck lookups only
+ * visit the cells around the point instead of every truck. The grid is seeded from
+ * the persisted positions once at startup and then polled for rows written since the
+ * last pass, which also picks up pings and deactivations handled by other instances.
+ */
+@Slf4j
+@Service
+public class LivePositionService {
+
+    private static final double EARTH_RADIUS_MILES = 3958.8;
+    private static final double CELL_DEGREES = 0.25;
+    private static final double MILES_PER_DEGREE_LAT = 69.0;
+
+    private final Map<UUID, TruckPosition> positions = new ConcurrentHashMap<>();
+    private final Map<Long, Set<UUID>> cells = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> cellOfTruck = new ConcurrentHashMap<>();
+    private final Map<UUID, UUID> companyOfTruck = new ConcurrentHashMap<>();
+
+    // Commits can land a little after the timestamp they carry; re-read that window each pass
+    private static final Duration REFRESH_OVERLAP = Duration.ofSeconds(10);
+
+    @Autowired
+    private TruckRepository truckRepository;
+
+    private volatile Instant refreshedAt;
+
+    @Value
+    public static class NearbyTruck {
+        UUID truckId;
+        TruckPosition position;
+        double distanceMiles;
+    }
+
+    public void update(UUID companyId, UUID truckId, Double latitude, Double longitude, Instant reportedAt) {
+        if (companyId == null || truckId == null || latitude == null || longitude == null) return;
+        companyOfTruck.put(truckId, companyId);
+        TruckPosition position = new TruckPosition(latitude, longitude, reportedAt);
+        // Older or repeated fixes leave the grid alone
+        if (positions.merge(truckId, position, (current, incoming) -> isNewer(incoming, current) ? incoming : current)
+                == position) {
+            syncCell(truckId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        Instant startedAt = Instant.now();
+        List<Object[]> rows = truckRepository.findActivePositions();
+        for (Object[] row : rows) {
+            update((UUID) row[1], (UUID) row[0], (Double) row[2], (Double) row[3], (Instant) row[4]);
+        }
+        refreshedAt = startedAt;
+        log.info("Seeded live positions of {} trucks", rows.size());
+    }
+
+    /**
+     * Apply positions and deactivations written since the last pass
+     */
+    @Scheduled(fixedDelayString = "${tracking.position-refresh-ms:15000}")
+    public void refresh() {
+        Instant since = refreshedAt;
+        if (since == null) return;
+        Instant startedAt = Instant.now();
+        for (Object[] row : truckRepository.findPositionsUpdatedSince(since.minus(REFRESH_OVERLAP))) {
+            if (Boolean.TRUE.equals(row[2])) {
+                update((UUID) row[1], (UUID) row[0], (Double) row[3], (Double) row[4], (Instant) row[5]);
+            } else {
+                remove((UUID) row[0]);
+            }
+        }
+        refreshedAt = startedAt;
+    }
+
+    public Optional<TruckPosition> get(UUID truckId) {
+        return truckId == null ? Optional.empty() : Optional.ofNullable(positions.get(truckId));
+    }
+
+    /**
+     * Pick the newer of the cached fix and the persisted one
+     */
+    public TruckPosition resolve(UUID truckId, Double latitude, Double longitude, Instant reportedAt) {
+        TruckPosition persisted = new TruckPosition(latitude, longitude, reportedAt);
+        return get(truckId)
+            .filter(cached -> isNewer(cached, persisted))
+            .orElse(persisted);
+    }
+
+    public void remove(UUID truckId) {
+        if (truckId != null) {
+            positions.remove(truckId);
+            companyOfTruck.remove(truckId);
+            syncCell(truckId);
+        }
+    }
+
+    /**
+     * Up to {@code limit} accepted trucks of the company closest to the point and within
+     * {@code maxMiles}, nearest first; grid rings are searched outwards until no closer truck can remain
+     */
+    public List<NearbyTruck> nearest(UUID companyId, double latitude, double longitude, int limit, double maxMiles,
+                                     Predicate<UUID> accept) {
+        List<NearbyTruck> found = new ArrayList<>();
+        if (limit <= 0) {
+            return found;
+        }
+        int centerLat = cellIndex(latitude);
+        int centerLon = cellIndex(longitude);
+        // Longitude cells narrow towards the poles; use the narrower side as the ring step
+        double ringMiles = CELL_DEGREES * MILES_PER_DEGREE_LAT
+            * Math.max(0.05, Math.min(1.0, Math.cos(Math.toRadians(Math.min(89.0, Math.abs(latitude) + CELL_DEGREES)))));
+        int maxRing = (int) Math.ceil(maxMiles / ringMiles) + 1;
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Anything in this ring or beyond is at least this far away
+            double ringFloor = Math.max(0, ring - 1) * ringMiles;
+            if (found.size() >= limit && ringFloor > found.get(limit - 1).getDistanceMiles()) {
+                break;
+            }
+            for (int dLat = -ring; dLat <= ring; dLat++) {
+                for (int dLon = -ring; dLon <= ring; dLon++) {
+                    if (Math.abs(dLat) != ring && Math.abs(dLon) != ring) continue;
+                    Set<UUID> trucks = cells.get(cellKey(centerLat + dLat, centerLon + dLon));
+                    if (trucks == null) continue;
+                    for (UUID truckId : trucks) {
+                        TruckPosition position = positions.get(truckId);
+                        if (position == null || !companyId.equals(companyOfTruck.get(truckId))
+                                || !accept.test(truckId)) continue;
+                        double miles = distanceMiles(latitude, longitude, position.getLatitude(), position.getLongitude());
+                        if (miles <= maxMiles) {
+                            found.add(new NearbyTruck(truckId, position, miles));
+                        }
+                    }
+                }
+            }
+            found.sort(Comparator.comparingDouble(NearbyTruck::getDistanceMiles));
+        }
+        return found.size() > limit ? new ArrayList<>(found.subList(0, limit)) : found;
+    }
+
+    /**
+     * Great-circle distance in miles
+     */
+    public static double distanceMiles(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_MILES * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Put the truck in the cell of whatever fix is current, so racing updates can't
+     * leave it filed under an older position
+     */
+    private synchronized void syncCell(UUID truckId) {
+        TruckPosition position = positions.get(truckId);
+        Long cell = position != null ? cellKey(position.getLatitude(), position.getLongitude()) : null;
+        Long previous = cell != null ? cellOfTruck.put(truckId, cell) : cellOfTruck.remove(truckId);
+        if (previous != null && !previous.equals(cell)) {
+            Set<UUID> trucks = cells.get(previous);
+            if (trucks != null) {
+                trucks.remove(truckId);
+                if (trucks.isEmpty()) cells.remove(previous);
+            }
+        }
+        if (cell != null) {
+            cells.computeIfAbsent(cell, c -> ConcurrentHashMap.newKeySet()).add(truckId);
+        }
+    }
+
+    private static int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long cellKey(double latitude, double longitude) {
+        return cellKey(cellIndex(latitude), cellIndex(longitude));
+    }
+
+    private static long cellKey(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xFFFFFFFFL);
+    }
+
+    private boolean isNewer(TruckPosition candidate, TruckPosition reference) {
+        if (reference.getReportedAt() == null) return true;
+        if (candidate.getReportedAt() == null) return false;
+        return candidate.getReportedAt().isAfter(reference.getReportedAt());
+    }
+}
@@ -0,0 +1,257 @@
+package com.datum.fleetx.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Streams load tenders out of a CSV file (RFC 4180 quoting, header row required)
+ * Header names are matched ignoring case, spaces and underscores, so "Pickup City" and
+ * "pickup_city" are the same column. Unknown columns are ignored.
+ */
+final class LoadCsvReader {
+
+    private static final DateTimeFormatter LOCAL_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd[ ]['T']HH:mm[:ss]");
+
+    private final ZoneId zone;
+
+    LoadCsvReader(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    void read(Reader in, Consumer<LoadImportRow> sink) throws IOException {
+        RecordReader records = new RecordReader(in);
+        List<String> header = records.next();
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.putIfAbsent(normalize(header.get(i)), i);
+        }
+        if (!columns.containsKey("customer") && !columns.containsKey("customerid")) {
+            throw new IllegalArgumentException("CSV header needs a customer or customer_id column");
+        }
+
+        List<String> record;
+        while ((record = records.next()) != null) {
+            if (record.size() == 1 && record.get(0).isBlank()) continue;
+            sink.accept(toRow(records.recordLine, new Fields(columns, record)));
+        }
+    }
+
+    private LoadImportRow toRow(int line, Fields f) {
+        LoadImportRow row = new LoadImportRow();
+        row.setRowNumber(line);
+        row.setReferenceNumber(f.text("referencenumber", "reference"));
+        row.setCustomerId(f.uuid(row, "customerid"));
+        row.setCustomerName(f.text("customer", "customername"));
+
+        row.setPickupLocationId(f.uuid(row, "pickuplocationid"));
+        stop(f, "pickup", row.getPickup());
+        row.setPickupDateTime(f.dateTime(row, "pickupdate", "pickupdatetime"));
+
+        row.setDeliveryLocationId(f.uuid(row, "deliverylocationid"));
+        stop(f, "delivery", row.getDelivery());
+        row.setDeliveryDateTime(f.dateTime(row, "deliverydate", "deliverydatetime"));
+
+        row.setCommodity(f.text("commodity"));
+        BigDecimal weight = f.decimal(row, "weight");
+        row.setWeight(weight != null ? weight.doubleValue() : null);
+        row.setWeightUnit(f.text("weightunit"));
+        row.setPieces(f.integer(row, "pieces"));
+        row.setPallets(f.integer(row, "pallets"));
+        row.setHazmat(f.bool(row, "hazmat", "ishazmat"));
+
+        row.setRate(f.decimal(row, "rate"));
+        row.setCurrency(f.text("currency"));
+        row.setFuelSurcharge(f.decimal(row, "fuelsurcharge"));
+        row.setAccessorials(f.decimal(row, "accessorials"));
+        BigDecimal miles = f.decimal(row, "distancemiles", "miles");
+        row.setDistanceMiles(miles != null ? miles.doubleValue() : null);
+        row.setNotes(f.text("notes"));
+        return row;
+    }
+
+    private static void stop(Fields f, String prefix, LoadImportRow.Stop stop) {
+        stop.setName(f.text(prefix + "name"));
+        stop.setAddressLine1(f.text(prefix + "address", prefix + "addressline1"));
+        stop.setCity(f.text(prefix + "city"));
+        stop.setStateProvince(f.text(prefix + "state", prefix + "stateprovince"));
+        stop.setPostalCode(f.text(prefix + "postalcode", prefix + "zip"));
+        stop.setCountry(f.text(prefix + "country"));
+    }
+
+    private static String normalize(String header) {
+        return header.replaceAll("[^A-Za-z0-9]", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Typed access to one record; parse failures are recorded on the row
+     */
+    private final class Fields {
+        private final Map<String, Integer> columns;
+        private final List<String> values;
+
+        Fields(Map<String, Integer> columns, List<String> values) {
+            this.columns = columns;
+            this.values = values;
+        }
+
+        String text(String... names) {
+            for (String name : names) {
+                Integer index = columns.get(name);
+                if (index != null && index < values.size()) {
+                    String value = values.get(index).trim();
+                    if (!value.isEmpty()) return value;
+                }
+            }
+            return null;
+        }
+
+        UUID uuid(LoadImportRow row, String name) {
+            String value = text(name);
+            if (value == null) return null;
+            try {
+                return UUID.fromString(value);
+            } catch (IllegalArgumentException e) {
+                row.fail(name + ": not a valid id '" + value + "'");
+                return null;
+            }
+        }
+
+        BigDecimal decimal(LoadImportRow row, String... names) {
+            String value = text(names);
+            if (value == null) return null;
+            try {
+                return new BigDecimal(value.replace(",", "").replace("$", ""));
+            } catch (NumberFormatException e) {
+                row.fail(names[0] + ": not a number '" + value + "'");
+                return null;
+            }
+        }
+
+        Integer integer(LoadImportRow row, String name) {
+            BigDecimal value = decimal(row, name);
+            if (value == null) return null;
+            try {
+                return value.intValueExact();
+            } catch (ArithmeticException e) {
+                row.fail(name + ": not a whole number '" + value + "'");
+                return null;
+            }
+        }
+
+        Boolean bool(LoadImportRow row, String... names) {
+            String value = text(names);
+            if (value == null) return null;
+            switch (value.toLowerCase(Locale.ROOT)) {
+                case "true": case "yes": case "y": case "1": return true;
+                case "false": case "no": case "n": case "0": return false;
+                default:
+                    row.fail(names[0] + ": expected yes/no, got '" + value + "'");
+                    return null;
+            }
+        }
+
+        /**
+         * ISO date-times with an offset are taken as is; local ones use the import's time zone
+         */
+        ZonedDateTime dateTime(LoadImportRow row, String... names) {
+            String value = text(names);
+            if (value == null) return null;
+            try {
+                return OffsetDateTime.parse(value).toZonedDateTime();
+            } catch (DateTimeParseException ignored) {
+                // fall through to local forms
+            }
+            try {
+                return LocalDateTime.parse(value, LOCAL_DATE_TIME).atZone(zone);
+            } catch (DateTimeParseException ignored) {
+                // fall through to date only
+            }
+            try {
+                return LocalDate.parse(value).atStartOfDay(zone);
+            } catch (DateTimeParseException e) {
+                row.fail(names[0] + ": unrecognized date '" + value + "'");
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Splits the stream into records; quoted fields may contain commas, quotes ("") and newlines
+     */
+    private static final class RecordReader {
+        private final Reader in;
+        private int line = 1;
+        private int recordLine;
+
+        RecordReader(Reader in) {
+            this.in = in;
+        }
+
+        List<String> next() throws IOException {
+            int c = read();
+            if (c == -1) return null;
+            recordLine = line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        break;
+                    } else if (c == '"') {
+                        int following = read();
+                        if (following == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = following;
+                            continue;
+                        }
+                    } else {
+                        if (c == '\n') line++;
+                        field.append((char) c);
+                    }
+                } else if (c == -1 || c == '\n') {
+                    if (c == '\n') line++;
+                    break;
+                } else if (c == '\r') {
+                    // CRLF line ends; a lone CR is dropped
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        private int read() throws IOException {
+            int c = in.read();
+            // Excel writes a byte order mark in front of the header
+            return c == '\uFEFF' && line == 1 ? in.read() : c;
+        }
+    }
+}
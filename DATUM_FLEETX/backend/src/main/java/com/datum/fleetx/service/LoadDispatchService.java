@@ -0,0 +1,134 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.entity.Driver;
+import com.datum.fleetx.entity.Load;
+import com.datum.fleetx.entity.Truck;
+import com.datum.fleetx.exception.ConflictException;
+import com.datum.fleetx.exception.ResourceNotFoundException;
+import com.datum.fleetx.repository.DriverRepository;
+import com.datum.fleetx.repository.LoadRepository;
+import com.datum.fleetx.repository.TruckRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Load Dispatch Service - Assigns trucks and drivers to loads without double-booking
+ * Trucks and drivers are claimed with a conditional update (only from AVAILABLE), so of two
+ * dispatchers racing for the same truck exactly one wins and the other gets a 409. The load
+ * itself is written under its version; a concurrent edit of the load re-runs the attempt.
+ * Status changes go through the LoadStateMachine.
+ */
+@Service
+public class LoadDispatchService {
+
+    @Autowired
+    private LoadRepository loadRepository;
+
+    @Autowired
+    private TruckRepository truckRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private CollectionVersionService collectionVersionService;
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    @Autowired
+    private LoadStateMachine loadStateMachine;
+
+    public Optional<Load> dispatch(UUID companyId, UUID loadId, UUID truckId, UUID driverId) {
+        return optimisticRetry.execute("Dispatch", () -> loadRepository.findById(loadId)
+            .filter(load -> load.getCompany().getId().equals(companyId))
+            .map(load -> {
+                if (load.getStatus() != Load.LoadStatus.DISPATCHED
+                        && !LoadStateMachine.canTransition(load.getStatus(), Load.LoadStatus.DISPATCHED)) {
+                    throw new ConflictException("Load " + load.getLoadNumber() + " can't be dispatched while "
+                        + load.getStatus());
+                }
+                Instant now = Instant.now();
+                if (truckId != null && (load.getTruck() == null || !truckId.equals(load.getTruck().getId()))) {
+                    claimTruck(companyId, truckId, now);
+                    if (load.getTruck() != null) {
+                        // Re-dispatch to another truck frees the previous one
+                        releaseTruck(companyId, load.getTruck().getId(), now);
+                    }
+                    load.setTruck(truckRepository.findById(truckId).orElseThrow());
+                }
+                if (driverId != null && (load.getDriver() == null || !driverId.equals(load.getDriver().getId()))) {
+                    claimDriver(companyId, driverId, now);
+                    if (load.getDriver() != null) {
+                        releaseDriver(companyId, load.getDriver().getId(), now);
+                    }
+                    load.setDriver(driverRepository.findById(driverId).orElseThrow());
+                }
+                if (load.getStatus() != Load.LoadStatus.DISPATCHED) {
+                    // Re-dispatching an already dispatched load only swaps the truck/driver
+                    loadStateMachine.transition(load, Load.LoadStatus.DISPATCHED, null);
+                }
+                return loadRepository.saveAndFlush(load);
+            }));
+    }
+
+    public Optional<Load> updateStatus(UUID companyId, UUID loadId, Load.LoadStatus status, String reason) {
+        return optimisticRetry.execute("Status update", () -> loadRepository.findById(loadId)
+            .filter(load -> load.getCompany().getId().equals(companyId))
+            .map(load -> {
+                Instant now = Instant.now();
+                loadStateMachine.transition(load, status, reason);
+
+                // Free up truck and driver if completed/cancelled
+                if (status == Load.LoadStatus.COMPLETED || status == Load.LoadStatus.CANCELLED) {
+                    if (load.getTruck() != null) {
+                        releaseTruck(companyId, load.getTruck().getId(), now);
+                    }
+                    if (load.getDriver() != null) {
+                        releaseDriver(companyId, load.getDriver().getId(), now);
+                    }
+                }
+                return loadRepository.saveAndFlush(load);
+            }));
+    }
+
+    /**
+     * Claim a truck for dispatch; the caller's transaction must roll back on conflict
+     */
+    void claimTruck(UUID companyId, UUID truckId, Instant now) {
+        if (truckRepository.claimAvailable(truckId, companyId, now) == 0) {
+            Truck truck = truckRepository.findById(truckId)
+                .filter(t -> t.getCompany().getId().equals(companyId))
+                .orElseThrow(() -> new ResourceNotFoundException("Truck", "id", truckId));
+            throw new ConflictException("Truck " + truck.getTruckNumber() + " is not available");
+        }
+        // Bulk updates skip the entity listeners
+        collectionVersionService.markChanged(companyId, Truck.class);
+    }
+
+    void claimDriver(UUID companyId, UUID driverId, Instant now) {
+        if (driverRepository.claimAvailable(driverId, companyId, now) == 0) {
+            Driver driver = driverRepository.findById(driverId)
+                .filter(d -> d.getCompany().getId().equals(companyId))
+                .orElseThrow(() -> new ResourceNotFoundException("Driver", "id", driverId));
+            throw new ConflictException("Driver " + driver.getFullName() + " is not available");
+        }
+        collectionVersionService.markChanged(companyId, Driver.class);
+    }
+
+    void releaseTruck(UUID companyId, UUID truckId, Instant now) {
+        if (truckRepository.release(truckId, now) > 0) {
+            collectionVersionService.markChanged(companyId, Truck.class);
+        }
+    }
+
+    void releaseDriver(UUID companyId, UUID driverId, Instant now) {
+        if (driverRepository.release(driverId, now) > 0) {
+            collectionVersionService.markChanged(companyId, Driver.class);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.entity.OutboxEvent;
+import com.datum.fleetx.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Load Event Relay - Publishes outbox events to in-process subscribers in batches
+ * Each batch is claimed with FOR UPDATE SKIP LOCKED, so overlapping runs never deliver a row
+ * twice, and every event is delivered once in total - not once per instance. Subscribers keep
+ * per-instance caches, so on a multi-instance deployment the other instances rely on those
+ * caches expiring. Rows every subscriber took are marked published; rows a subscriber threw on
+ * stay unpublished, owed to that subscriber only, and are retried with exponential backoff
+ * until outbox.relay.max-attempts, after which they are published with the error kept.
+ */
+@Slf4j
+@Service
+public class LoadEventRelay {
+
+    // Bounds how long one scheduler tick can keep draining a backlog
+    private static final int MAX_BATCHES_PER_RUN = 20;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private LoadStateMachine loadStateMachine;
+
+    @Autowired
+    private List<LoadEventSubscriber> subscribers;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${outbox.relay.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.relay.retry-delay-ms:1000}")
+    private long retryDelayMs;
+
+    @Value("${outbox.relay.max-retry-delay-ms:300000}")
+    private long maxRetryDelayMs;
+
+    @Value("${outbox.retention-days:90}")
+    private long retentionDays;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:500}")
+    public void relay() {
+        for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+            Integer relayed = transactionTemplate.execute(status -> relayBatch());
+            if (relayed == null || relayed < batchSize) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Published events are kept as load history for the retention period
+     */
+    @Scheduled(cron = "${outbox.purge-cron:0 30 3 * * *}")
+    public void purge() {
+        int purged = transactionTemplate.execute(status ->
+            outboxEventRepository.deletePublishedBefore(Instant.now().minus(Duration.ofDays(retentionDays))));
+        if (purged > 0) {
+            log.info("Purged {} published outbox events", purged);
+        }
+    }
+
+    private int relayBatch() {
+        Instant now = Instant.now();
+        List<OutboxEvent> batch = outboxEventRepository.lockUnpublished(now, batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Map<UUID, LoadStatusChangedEvent> parsed = new HashMap<>();
+        for (OutboxEvent event : batch) {
+            if (!LoadStateMachine.STATUS_CHANGED.equals(event.getEventType())) continue;
+            try {
+                parsed.put(event.getId(), loadStateMachine.parse(event));
+            } catch (IllegalStateException e) {
+                // A bad payload must not block the rows behind it
+                log.error("Skipping outbox event {}: {}", event.getId(), e.getMessage());
+            }
+        }
+
+        // Each subscriber gets the rows it is still owed; the ones it fails on are owed to it again
+        Map<UUID, Set<String>> failedBy = new HashMap<>();
+        String error = null;
+        for (LoadEventSubscriber subscriber : subscribers) {
+            String name = ClassUtils.getUserClass(subscriber).getSimpleName();
+            List<OutboxEvent> owed = batch.stream()
+                .filter(event -> parsed.containsKey(event.getId()) && isOwed(event, name))
+                .collect(Collectors.toList());
+            if (owed.isEmpty()) continue;
+            try {
+                subscriber.onLoadEvents(owed.stream().map(event -> parsed.get(event.getId())).collect(Collectors.toList()));
+            } catch (RuntimeException e) {
+                log.warn("Load event subscriber {} failed on a batch of {}: {}", name, owed.size(), e.getMessage());
+                String message = name + ": " + e.getMessage();
+                error = message.length() > 1000 ? message.substring(0, 1000) : message;
+                owed.forEach(event -> failedBy.computeIfAbsent(event.getId(), id -> new TreeSet<>()).add(name));
+            }
+        }
+
+        List<UUID> published = new ArrayList<>();
+        List<UUID> abandoned = new ArrayList<>();
+        Map<String, List<OutboxEvent>> retries = new HashMap<>();
+        for (OutboxEvent event : batch) {
+            Set<String> failed = failedBy.get(event.getId());
+            if (failed == null) {
+                published.add(event.getId());
+            } else if (event.getAttempts() + 1 >= maxAttempts) {
+                abandoned.add(event.getId());
+            } else {
+                retries.computeIfAbsent(event.getAttempts() + ":" + String.join(",", failed), k -> new ArrayList<>())
+                    .add(event);
+            }
+        }
+        if (!published.isEmpty()) {
+            outboxEventRepository.markPublished(published, now, null);
+        }
+        if (!abandoned.isEmpty()) {
+            // Kept with the error for inspection, like any other published row
+            log.error("Giving up on {} outbox events after {} attempts: {}", abandoned.size(), maxAttempts, error);
+            outboxEventRepository.markPublished(abandoned, now, error);
+        }
+        for (List<OutboxEvent> group : retries.values()) {
+            int attempts = group.get(0).getAttempts() + 1;
+            long delay = Math.min(maxRetryDelayMs, retryDelayMs << Math.min(attempts - 1, 20));
+            outboxEventRepository.markFailed(group.stream().map(OutboxEvent::getId).collect(Collectors.toList()),
+                attempts, now.plusMillis(delay), String.join(",", failedBy.get(group.get(0).getId())), error, now);
+        }
+        return batch.size();
+    }
+
+    private static boolean isOwed(OutboxEvent event, String subscriber) {
+        return event.getPendingSubscribers() == null
+            || Arrays.asList(event.getPendingSubscribers().split(",")).contains(subscriber);
+    }
+}
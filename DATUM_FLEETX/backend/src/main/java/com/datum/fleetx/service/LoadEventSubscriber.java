@@ -0,0 +1,16 @@
+package com.datum.fleetx.service;
+
+import java.util.List;
+
+/**
+ * In-process consumer of load status events relayed from the outbox
+ * Batches arrive in creation order, only after the transitions have committed. A batch the
+ * subscriber throws on is delivered to it again later (with backoff), and a relay that dies
+ * mid-batch can deliver one again, so handling must be idempotent or tolerate repeats. Each
+ * event reaches one instance only, so per-instance state must also expire or be rebuilt from
+ * the database.
+ */
+public interface LoadEventSubscriber {
+
+    void onLoadEvents(List<LoadStatusChangedEvent> events);
+}
@@ -0,0 +1,74 @@
+package com.datum.fleetx.service;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * One tender read from an import file, before customers and locations are resolved
+ * Readers set {@code error} instead of throwing so one bad row never stops the file.
+ */
+@Data
+class LoadImportRow {
+
+    private int rowNumber;
+    private String error;
+    // Assigned before the insert transaction, so a row retried on its own keeps its number
+    private String loadNumber;
+
+    private String referenceNumber;
+    private UUID customerId;
+    private String customerName;
+
+    private UUID pickupLocationId;
+    private Stop pickup = new Stop();
+    private ZonedDateTime pickupDateTime;
+
+    private UUID deliveryLocationId;
+    private Stop delivery = new Stop();
+    private ZonedDateTime deliveryDateTime;
+
+    private String commodity;
+    private Double weight;
+    private String weightUnit;
+    private Integer pieces;
+    private Integer pallets;
+    private Boolean hazmat;
+
+    private BigDecimal rate;
+    private String currency;
+    private BigDecimal fuelSurcharge;
+    private BigDecimal accessorials;
+    private Double distanceMiles;
+    private String notes;
+
+    void fail(String message) {
+        // Keep the first problem; later ones are usually consequences of it
+        if (error == null) {
+            error = message;
+        }
+    }
+
+    /**
+     * Address of a pickup or delivery given inline rather than by location id
+     */
+    @Data
+    static class Stop {
+        private String name;
+        private String addressLine1;
+        private String city;
+        private String stateProvince;
+        private String postalCode;
+        private String country;
+
+        boolean isEmpty() {
+            return isBlank(name) && isBlank(addressLine1) && isBlank(city) && isBlank(postalCode);
+        }
+
+        private static boolean isBlank(String value) {
+            return value == null || value.isBlank();
+        }
+    }
+}
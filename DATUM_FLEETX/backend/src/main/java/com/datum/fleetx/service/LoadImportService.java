@@ -0,0 +1,423 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.dto.load.LoadImportResult;
+import com.datum.fleetx.dto.search.SearchSource;
+import com.datum.fleetx.entity.Load;
+import com.datum.fleetx.entity.Location;
+import com.datum.fleetx.exception.ResourceNotFoundException;
+import com.datum.fleetx.repository.CompanyRepository;
+import com.datum.fleetx.repository.CustomerRepository;
+import com.datum.fleetx.repository.LocationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Load Import Service - Bulk load creation from CSV files and X12 204 tenders
+ * The file is streamed and handled in batches: each batch resolves its customers and
+ * locations with a couple of set-based lookups, then inserts loads, new locations and the
+ * loads' outbox events with JDBC batch statements in one transaction. Ids are generated
+ * here, so nothing waits on the database for keys. Rows that fail validation are reported
+ * with their row number and don't stop the rest of the file; a batch the database rejects
+ * is retried row by row so only the offending rows are reported.
+ */
+@Slf4j
+@Service
+public class LoadImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_TEXT = 255;
+
+    private static final String INSERT_LOCATION = "INSERT INTO locations (id, created_at, updated_at, active, version, " +
+        "location_name, address_line_1, city, state_province, postal_code, country, is_warehouse) " +
+        "VALUES (?, ?, ?, true, 0, ?, ?, ?, ?, ?, ?, false)";
+    private static final int[] LOCATION_TYPES = {Types.OTHER, Types.TIMESTAMP, Types.TIMESTAMP,
+        Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR};
+
+    private static final String INSERT_LOAD = "INSERT INTO loads (id, created_at, updated_at, active, version, " +
+        "company_id, customer_id, load_number, reference_number, pickup_location_id, pickup_date_time, " +
+        "delivery_location_id, delivery_date_time, commodity, weight, weight_unit, pieces, pallets, is_hazmat, " +
+        "is_overdimensional, rate, currency, fuel_surcharge, accessorials, total_rate, distance_miles, notes, " +
+        "status, tracking_token) " +
+        "VALUES (?, ?, ?, true, 0, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, false, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int[] LOAD_TYPES = {Types.OTHER, Types.TIMESTAMP, Types.TIMESTAMP,
+        Types.OTHER, Types.OTHER, Types.VARCHAR, Types.VARCHAR, Types.OTHER, Types.TIMESTAMP,
+        Types.OTHER, Types.TIMESTAMP, Types.VARCHAR, Types.DOUBLE, Types.VARCHAR, Types.INTEGER, Types.INTEGER,
+        Types.BOOLEAN, Types.NUMERIC, Types.VARCHAR, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.DOUBLE,
+        Types.VARCHAR, Types.VARCHAR, Types.VARCHAR};
+
+    private static final String INSERT_EVENT = "INSERT INTO outbox_events (id, created_at, updated_at, active, version, " +
+        "company_id, aggregate_type, aggregate_id, event_type, payload) VALUES (?, ?, ?, true, 0, ?, ?, ?, ?, ?)";
+    private static final int[] EVENT_TYPES = {Types.OTHER, Types.TIMESTAMP, Types.TIMESTAMP,
+        Types.OTHER, Types.VARCHAR, Types.OTHER, Types.VARCHAR, Types.VARCHAR};
+
+    @Autowired
+    private CompanyRepository companyRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private LoadStateMachine loadStateMachine;
+
+    @Autowired
+    private TrackingTokenGenerator trackingTokenGenerator;
+
+    @Autowired
+    private CollectionVersionService collectionVersionService;
+
+    @Autowired
+    private QuickSearchService quickSearchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private NumberAllocator numberAllocator;
+
+    @Value("${loads.import.batch-size:500}")
+    private int batchSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public LoadImportResult importLoads(UUID companyId, InputStream in, LoadImportResult.Format format,
+                                        ZoneId zone) throws IOException {
+        long start = System.nanoTime();
+        companyRepository.findById(companyId)
+            .orElseThrow(() -> new ResourceNotFoundException("Company", "id", companyId));
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        LoadImportResult.Format detected = detect(reader);
+        Run run = new Run(companyId, format != null ? format : detected);
+        if (run.result.getFormat() == LoadImportResult.Format.EDI_204) {
+            new Edi204Reader(zone).read(reader, run::add);
+        } else {
+            new LoadCsvReader(zone).read(reader, run::add);
+        }
+        run.flush();
+
+        if (run.result.getImported() > 0) {
+            quickSearchService.invalidate(companyId);
+        }
+        run.result.setElapsedMs((System.nanoTime() - start) / 1_000_000);
+        log.info("Imported {} of {} loads for company {} ({}) in {} ms", run.result.getImported(),
+            run.result.getTotalRows(), companyId, run.result.getFormat(), run.result.getElapsedMs());
+        return run.result;
+    }
+
+    /**
+     * Skips a byte order mark and leading blank lines, then peeks: an X12 interchange
+     * always opens with an ISA segment
+     */
+    private static LoadImportResult.Format detect(BufferedReader reader) throws IOException {
+        int c;
+        do {
+            reader.mark(4);
+            c = reader.read();
+        } while (c == '\uFEFF' || (c != -1 && Character.isWhitespace(c)));
+        reader.reset();
+        char[] head = new char[3];
+        reader.mark(4);
+        int n = reader.read(head);
+        reader.reset();
+        return n == 3 && new String(head).equals("ISA") ? LoadImportResult.Format.EDI_204 : LoadImportResult.Format.CSV;
+    }
+
+    /**
+     * State of one import: the customer lookup (loaded once) and the pending batch
+     */
+    private final class Run {
+        private final UUID companyId;
+        private final LoadImportResult result = new LoadImportResult();
+        private final Set<UUID> customerIds = new HashSet<>();
+        // Lower-cased name -> id; null marks a name shared by several customers
+        private final Map<String, UUID> customersByName = new HashMap<>();
+        private final List<LoadImportRow> batch = new ArrayList<>();
+
+        Run(UUID companyId, LoadImportResult.Format format) {
+            this.companyId = companyId;
+            result.setFormat(format);
+            for (SearchSource customer : customerRepository.findSearchSourcesByCompanyId(companyId)) {
+                customerIds.add(customer.getId());
+                if (customer.getTitle() != null) {
+                    String key = customer.getTitle().trim().toLowerCase(Locale.ROOT);
+                    customersByName.put(key, customersByName.containsKey(key) ? null : customer.getId());
+                }
+            }
+        }
+
+        void add(LoadImportRow row) {
+            result.setTotalRows(result.getTotalRows() + 1);
+            batch.add(row);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) return;
+            List<LoadImportRow> rows = new ArrayList<>(batch);
+            batch.clear();
+
+            rows.forEach(this::validate);
+            Map<UUID, LoadImportRow.Stop> newLocations = resolveLocations(rows);
+            List<LoadImportRow> valid = rows.stream().filter(r -> r.getError() == null).collect(Collectors.toList());
+            // Load numbers are reserved and assigned up front so the insert transaction never waits on a
+            // second connection, and a rejected batch's numbers are reused by its row-by-row retry
+            numberAllocator.reserve(companyId, NumberAllocator.Series.LOAD, valid.size());
+            valid.forEach(row -> row.setLoadNumber(numberAllocator.next(companyId, NumberAllocator.Series.LOAD)));
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(valid, newLocations));
+                result.setImported(result.getImported() + valid.size());
+            } catch (DataAccessException | TransactionException e) {
+                log.warn("Load import batch of {} rows failed for company {}, retrying row by row: {}", valid.size(),
+                    companyId, e.getMostSpecificCause().getMessage());
+                insertOneByOne(valid, newLocations);
+            }
+            rows.stream().filter(r -> r.getError() != null).forEach(this::report);
+        }
+
+        /**
+         * A rejected batch is retried one row per transaction, so only the offending rows fail
+         */
+        private void insertOneByOne(List<LoadImportRow> rows, Map<UUID, LoadImportRow.Stop> newLocations) {
+            for (LoadImportRow row : rows) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(row), newLocations));
+                    result.setImported(result.getImported() + 1);
+                    // Its new locations exist now; later rows sharing them must not insert them again
+                    newLocations.remove(row.getPickupLocationId());
+                    newLocations.remove(row.getDeliveryLocationId());
+                } catch (DataAccessException | TransactionException e) {
+                    // Includes failures on commit (deferred constraints), which would otherwise end the import
+                    row.fail("Rejected by the database: " + e.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+
+        private void validate(LoadImportRow row) {
+            if (row.getCustomerId() != null) {
+                if (!customerIds.contains(row.getCustomerId())) {
+                    row.fail("Customer " + row.getCustomerId() + " not found");
+                }
+            } else if (row.getCustomerName() != null) {
+                String key = row.getCustomerName().trim().toLowerCase(Locale.ROOT);
+                UUID id = customersByName.get(key);
+                if (id != null) {
+                    row.setCustomerId(id);
+                } else {
+                    row.fail(customersByName.containsKey(key)
+                        ? "Customer name '" + row.getCustomerName() + "' matches several customers, use customer_id"
+                        : "Customer '" + row.getCustomerName() + "' not found");
+                }
+            } else {
+                row.fail("Customer is required");
+            }
+            if (row.getPickupDateTime() != null && row.getDeliveryDateTime() != null
+                    && row.getDeliveryDateTime().isBefore(row.getPickupDateTime())) {
+                row.fail("Delivery is before pickup");
+            }
+            if (row.getWeight() != null && row.getWeight() < 0) {
+                row.fail("Weight can't be negative");
+            }
+            checkLength(row, "reference number", row.getReferenceNumber());
+            checkLength(row, "commodity", row.getCommodity());
+            checkLength(row, "weight unit", row.getWeightUnit());
+            checkLength(row, "currency", row.getCurrency());
+            for (LoadImportRow.Stop stop : List.of(row.getPickup(), row.getDelivery())) {
+                checkLength(row, "location name", stop.getName());
+                checkLength(row, "address", stop.getAddressLine1());
+                checkLength(row, "city", stop.getCity());
+                checkLength(row, "state", stop.getStateProvince());
+                checkLength(row, "postal code", stop.getPostalCode());
+                checkLength(row, "country", stop.getCountry());
+            }
+        }
+
+        /**
+         * Fill in location ids: given ids are checked in one query, inline addresses are
+         * matched against existing locations sharing a postal code or city, and the rest
+         * become new locations (returned for insert)
+         */
+        private Map<UUID, LoadImportRow.Stop> resolveLocations(List<LoadImportRow> rows) {
+            Set<UUID> givenIds = new HashSet<>();
+            Set<String> postalCodes = new HashSet<>();
+            Set<String> cities = new HashSet<>();
+            for (LoadImportRow row : rows) {
+                if (row.getError() != null) continue;
+                if (row.getPickupLocationId() != null) givenIds.add(row.getPickupLocationId());
+                if (row.getDeliveryLocationId() != null) givenIds.add(row.getDeliveryLocationId());
+                for (LoadImportRow.Stop stop : List.of(row.getPickup(), row.getDelivery())) {
+                    if (stop.getPostalCode() != null) postalCodes.add(stop.getPostalCode());
+                    else if (stop.getCity() != null) cities.add(stop.getCity());
+                }
+            }
+
+            Set<UUID> existingIds = givenIds.isEmpty() ? Set.of()
+                : locationRepository.findAllById(givenIds).stream().map(Location::getId).collect(Collectors.toSet());
+            Map<String, UUID> byKey = new HashMap<>();
+            List<Location> candidates = new ArrayList<>();
+            if (!postalCodes.isEmpty()) candidates.addAll(locationRepository.findByActiveTrueAndPostalCodeIn(postalCodes));
+            if (!cities.isEmpty()) candidates.addAll(locationRepository.findByActiveTrueAndCityIn(cities));
+            for (Location location : candidates) {
+                byKey.putIfAbsent(key(location.getLocationName(), location.getAddressLine1(), location.getCity(),
+                    location.getStateProvince(), location.getPostalCode()), location.getId());
+            }
+
+            Map<UUID, LoadImportRow.Stop> created = new HashMap<>();
+            for (LoadImportRow row : rows) {
+                if (row.getError() != null) continue;
+                row.setPickupLocationId(locationId(row, "Pickup", row.getPickupLocationId(), row.getPickup(),
+                    existingIds, byKey, created));
+                row.setDeliveryLocationId(locationId(row, "Delivery", row.getDeliveryLocationId(), row.getDelivery(),
+                    existingIds, byKey, created));
+            }
+            return created;
+        }
+
+        private UUID locationId(LoadImportRow row, String label, UUID givenId, LoadImportRow.Stop stop,
+                                Set<UUID> existingIds, Map<String, UUID> byKey, Map<UUID, LoadImportRow.Stop> created) {
+            if (givenId != null) {
+                if (!existingIds.contains(givenId)) {
+                    row.fail(label + " location " + givenId + " not found");
+                }
+                return givenId;
+            }
+            if (stop.isEmpty()) {
+                return null;
+            }
+            if (stop.getCity() == null) {
+                row.fail(label + " city is required");
+                return null;
+            }
+            if (row.getError() != null) {
+                return null;
+            }
+            String key = key(stop.getName(), stop.getAddressLine1(), stop.getCity(), stop.getStateProvince(),
+                stop.getPostalCode());
+            return byKey.computeIfAbsent(key, k -> {
+                UUID id = UUID.randomUUID();
+                created.put(id, stop);
+                return id;
+            });
+        }
+
+        private void insert(List<LoadImportRow> rows, Map<UUID, LoadImportRow.Stop> newLocations) {
+            Timestamp now = Timestamp.from(Instant.now());
+
+            // Only locations some surviving row still points at
+            Set<UUID> used = new HashSet<>();
+            rows.forEach(row -> {
+                used.add(row.getPickupLocationId());
+                used.add(row.getDeliveryLocationId());
+            });
+            List<Object[]> locationArgs = new ArrayList<>();
+            newLocations.forEach((id, stop) -> {
+                if (!used.contains(id)) return;
+                locationArgs.add(new Object[]{id, now, now, stop.getName(), stop.getAddressLine1(), stop.getCity(),
+                    stop.getStateProvince(), stop.getPostalCode(), stop.getCountry() != null ? stop.getCountry() : "US"});
+            });
+
+            List<Object[]> loadArgs = new ArrayList<>(rows.size());
+            List<Object[]> eventArgs = new ArrayList<>(rows.size());
+            for (LoadImportRow row : rows) {
+                UUID id = UUID.randomUUID();
+                String loadNumber = row.getLoadNumber();
+                String trackingToken = trackingTokenGenerator.generate();
+                BigDecimal fuelSurcharge = row.getFuelSurcharge() != null ? row.getFuelSurcharge() : BigDecimal.ZERO;
+                BigDecimal accessorials = row.getAccessorials() != null ? row.getAccessorials() : BigDecimal.ZERO;
+                BigDecimal totalRate = (row.getRate() != null ? row.getRate() : BigDecimal.ZERO)
+                    .add(fuelSurcharge).add(accessorials);
+                loadArgs.add(new Object[]{id, now, now, companyId, row.getCustomerId(), loadNumber,
+                    row.getReferenceNumber(), row.getPickupLocationId(), timestamp(row.getPickupDateTime()),
+                    row.getDeliveryLocationId(), timestamp(row.getDeliveryDateTime()), row.getCommodity(),
+                    row.getWeight(), row.getWeightUnit() != null ? row.getWeightUnit() : "LBS",
+                    row.getPieces(), row.getPallets(), Boolean.TRUE.equals(row.getHazmat()), row.getRate(),
+                    row.getCurrency() != null ? row.getCurrency() : "USD", fuelSurcharge, accessorials, totalRate,
+                    row.getDistanceMiles(), row.getNotes(), Load.LoadStatus.CREATED.name(), trackingToken});
+
+                LoadStatusChangedEvent event = new LoadStatusChangedEvent(id, companyId, loadNumber, trackingToken,
+                    null, Load.LoadStatus.CREATED, null, null, null, now.toInstant(), null);
+                eventArgs.add(new Object[]{UUID.randomUUID(), now, now, companyId, LoadStateMachine.AGGREGATE_TYPE,
+                    id, LoadStateMachine.STATUS_CHANGED, loadStateMachine.serialize(event)});
+            }
+
+            if (!locationArgs.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_LOCATION, locationArgs, LOCATION_TYPES);
+                collectionVersionService.markChanged(companyId, Location.class);
+            }
+            jdbcTemplate.batchUpdate(INSERT_LOAD, loadArgs, LOAD_TYPES);
+            jdbcTemplate.batchUpdate(INSERT_EVENT, eventArgs, EVENT_TYPES);
+            // JDBC writes skip the entity listeners
+            collectionVersionService.markChanged(companyId, Load.class);
+        }
+
+        private void report(LoadImportRow row) {
+            result.setFailed(result.getFailed() + 1);
+            if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+                result.getErrors().add(new LoadImportResult.RowError(row.getRowNumber(), row.getReferenceNumber(),
+                    row.getError()));
+            } else {
+                result.setErrorsTruncated(true);
+            }
+        }
+    }
+
+    private static void checkLength(LoadImportRow row, String field, String value) {
+        if (value != null && value.length() > MAX_TEXT) {
+            row.fail(field + " is longer than " + MAX_TEXT + " characters");
+        }
+    }
+
+    private static Timestamp timestamp(ZonedDateTime value) {
+        return value != null ? Timestamp.from(value.toInstant()) : null;
+    }
+
+    private static String key(String name, String address, String city, String state, String postalCode) {
+        return String.join("|", normalize(name), normalize(address), normalize(city), normalize(state),
+            normalize(postalCode));
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
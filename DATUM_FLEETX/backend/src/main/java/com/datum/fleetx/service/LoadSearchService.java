@@ -0,0 +1,192 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.dto.load.LoadSearchPage;
+import com.datum.fleetx.dto.load.LoadSearchRequest;
+import com.datum.fleetx.dto.load.LoadSummary;
+import com.datum.fleetx.entity.Customer;
+import com.datum.fleetx.entity.Driver;
+import com.datum.fleetx.entity.Load;
+import com.datum.fleetx.entity.Location;
+import com.datum.fleetx.entity.Truck;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Load Search Service - Filtered, keyset-paginated load listing
+ * Pages continue from the last row's (sort value, id) rather than an offset, so deep pages
+ * cost the same as the first and rows don't shift when loads are added in between. Rows
+ * are projected straight into LoadSummary; the company-leading indexes on loads serve
+ * both the filters and the sort.
+ */
+@Service
+public class LoadSearchService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public LoadSearchPage search(UUID companyId, LoadSearchRequest request) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<LoadSummary> query = cb.createQuery(LoadSummary.class);
+        Root<Load> load = query.from(Load.class);
+        Join<Load, Customer> customer = load.join("customer", JoinType.LEFT);
+        Join<Load, Truck> truck = load.join("truck", JoinType.LEFT);
+        Join<Load, Driver> driver = load.join("driver", JoinType.LEFT);
+        Join<Load, Location> pickup = load.join("pickupLocation", JoinType.LEFT);
+        Join<Load, Location> delivery = load.join("deliveryLocation", JoinType.LEFT);
+
+        query.select(cb.construct(LoadSummary.class,
+            load.get("id"), load.get("loadNumber"), load.get("referenceNumber"), load.get("status"),
+            customer.get("id"), customer.get("companyName"),
+            truck.get("id"), truck.get("truckNumber"),
+            driver.get("id"), driver.get("firstName"), driver.get("lastName"),
+            pickup.get("city"), pickup.get("stateProvince"), load.get("pickupDateTime"),
+            delivery.get("city"), delivery.get("stateProvince"), load.get("deliveryDateTime"),
+            load.get("isHazmat"), load.get("totalRate"), load.get("currency"), load.get("createdAt")));
+
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.equal(load.get("company").get("id"), companyId));
+        where.add(cb.isTrue(load.get("active")));
+        if (request.getStatus() != null && !request.getStatus().isEmpty()) {
+            where.add(load.get("status").in(request.getStatus()));
+        }
+        if (request.getFrom() != null) {
+            where.add(cb.greaterThanOrEqualTo(load.get("pickupDateTime"), request.getFrom()));
+        }
+        if (request.getTo() != null) {
+            where.add(cb.lessThan(load.get("pickupDateTime"), request.getTo()));
+        }
+        // Filter on the foreign key columns themselves, not the joined rows
+        if (request.getCustomerId() != null) {
+            where.add(cb.equal(load.get("customer").get("id"), request.getCustomerId()));
+        }
+        if (request.getTruckId() != null) {
+            where.add(cb.equal(load.get("truck").get("id"), request.getTruckId()));
+        }
+        if (request.getDriverId() != null) {
+            where.add(cb.equal(load.get("driver").get("id"), request.getDriverId()));
+        }
+        addLaneFilter(cb, where, pickup.get("city"), request.getOriginCity());
+        addLaneFilter(cb, where, pickup.get("stateProvince"), request.getOriginState());
+        addLaneFilter(cb, where, delivery.get("city"), request.getDestinationCity());
+        addLaneFilter(cb, where, delivery.get("stateProvince"), request.getDestinationState());
+        if (request.getHazmat() != null) {
+            where.add(cb.equal(load.get("isHazmat"), request.getHazmat()));
+        }
+
+        boolean descending = request.isDescending();
+        Path<UUID> id = load.get("id");
+        Cursor cursor = request.getCursor() != null ? Cursor.decode(request.getCursor(), request) : null;
+        if (request.getSort() == LoadSearchRequest.SortField.CREATED_AT) {
+            Path<Instant> createdAt = load.get("createdAt");
+            if (cursor != null) {
+                where.add(after(cb, createdAt, id, cursor.value, cursor.id, descending));
+            }
+            query.orderBy(descending ? cb.desc(createdAt) : cb.asc(createdAt), descending ? cb.desc(id) : cb.asc(id));
+        } else {
+            Path<ZonedDateTime> pickupDateTime = load.get("pickupDateTime");
+            if (cursor != null) {
+                ZonedDateTime value = cursor.value != null ? cursor.value.atZone(ZoneOffset.UTC) : null;
+                where.add(after(cb, pickupDateTime, id, value, cursor.id, descending));
+            }
+            query.orderBy(descending ? cb.desc(pickupDateTime) : cb.asc(pickupDateTime),
+                descending ? cb.desc(id) : cb.asc(id));
+        }
+        query.where(where.toArray(new Predicate[0]));
+
+        // One extra row tells whether another page exists
+        List<LoadSummary> rows = entityManager.createQuery(query)
+            .setMaxResults(request.getLimit() + 1)
+            .getResultList();
+        boolean hasMore = rows.size() > request.getLimit();
+        if (!hasMore) {
+            return new LoadSearchPage(rows, null, false);
+        }
+        List<LoadSummary> items = new ArrayList<>(rows.subList(0, request.getLimit()));
+        LoadSummary last = items.get(items.size() - 1);
+        Instant lastValue = request.getSort() == LoadSearchRequest.SortField.CREATED_AT
+            ? last.getCreatedAt()
+            : last.getPickupDateTime() != null ? last.getPickupDateTime().toInstant() : null;
+        return new LoadSearchPage(items, new Cursor(lastValue, last.getId()).encode(request), true);
+    }
+
+    private static void addLaneFilter(CriteriaBuilder cb, List<Predicate> where, Path<String> path, String value) {
+        if (value != null && !value.isBlank()) {
+            where.add(cb.equal(cb.lower(path), value.trim().toLowerCase(Locale.ROOT)));
+        }
+    }
+
+    /**
+     * Rows strictly after (value, id) in the sort order; PostgreSQL sorts nulls last
+     * ascending and first descending, so loads without a pickup date page correctly too
+     */
+    private static <T extends Comparable<? super T>> Predicate after(CriteriaBuilder cb, Path<T> sort,
+                                                                     Path<UUID> id, T value, UUID lastId,
+                                                                     boolean descending) {
+        if (!descending) {
+            if (value == null) {
+                return cb.and(cb.isNull(sort), cb.greaterThan(id, lastId));
+            }
+            return cb.or(cb.greaterThan(sort, value),
+                cb.and(cb.equal(sort, value), cb.greaterThan(id, lastId)),
+                cb.isNull(sort));
+        }
+        if (value == null) {
+            return cb.or(cb.and(cb.isNull(sort), cb.lessThan(id, lastId)), cb.isNotNull(sort));
+        }
+        return cb.or(cb.lessThan(sort, value), cb.and(cb.equal(sort, value), cb.lessThan(id, lastId)));
+    }
+
+    /**
+     * Position of the last row returned, bound to the sort it was produced under
+     */
+    private static class Cursor {
+        private final Instant value;
+        private final UUID id;
+
+        Cursor(Instant value, UUID id) {
+            this.value = value;
+            this.id = id;
+        }
+
+        String encode(LoadSearchRequest request) {
+            String raw = request.getSort() + "|" + request.isDescending() + "|"
+                + (value != null ? value.toString() : "") + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String encoded, LoadSearchRequest request) {
+            String[] parts;
+            Cursor cursor;
+            try {
+                parts = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8).split("\\|", -1);
+                cursor = new Cursor(parts[2].isEmpty() ? null : Instant.parse(parts[2]), UUID.fromString(parts[3]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            if (!parts[0].equals(request.getSort().name()) || Boolean.parseBoolean(parts[1]) != request.isDescending()) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort");
+            }
+            return cursor;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.entity.Load;
+import com.datum.fleetx.entity.OutboxEvent;
+import com.datum.fleetx.exception.ConflictException;
+import com.datum.fleetx.repository.LoadRepository;
+import com.datum.fleetx.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Load State Machine - The only way a load's status changes
+ * Each transition is checked against the lifecycle below and recorded as an outbox event in
+ * the caller's transaction, so the status and its event commit (or roll back) together.
+ * Downstream work (rollups, tracking cache) happens off the request path in the relay.
+ *
+ * CREATED -> QUOTED -> BOOKED -> DISPATCHED -> EN_ROUTE -> AT_PICKUP -> PICKED_UP
+ *         -> IN_TRANSIT -> AT_DELIVERY -> DELIVERED -> COMPLETED, with forward skips allowed
+ *         and CANCELLED reachable until the freight is picked up.
+ */
+@Service
+public class LoadStateMachine {
+
+    public static final String AGGREGATE_TYPE = "Load";
+    public static final String STATUS_CHANGED = "LoadStatusChanged";
+
+    private static final Map<Load.LoadStatus, Set<Load.LoadStatus>> TRANSITIONS = new EnumMap<>(Load.LoadStatus.class);
+
+    static {
+        allow(Load.LoadStatus.CREATED, Load.LoadStatus.QUOTED, Load.LoadStatus.BOOKED,
+            Load.LoadStatus.DISPATCHED, Load.LoadStatus.CANCELLED);
+        allow(Load.LoadStatus.QUOTED, Load.LoadStatus.BOOKED, Load.LoadStatus.DISPATCHED, Load.LoadStatus.CANCELLED);
+        allow(Load.LoadStatus.BOOKED, Load.LoadStatus.DISPATCHED, Load.LoadStatus.CANCELLED);
+        allow(Load.LoadStatus.DISPATCHED, Load.LoadStatus.EN_ROUTE, Load.LoadStatus.AT_PICKUP,
+            Load.LoadStatus.PICKED_UP, Load.LoadStatus.CANCELLED);
+        allow(Load.LoadStatus.EN_ROUTE, Load.LoadStatus.AT_PICKUP, Load.LoadStatus.PICKED_UP, Load.LoadStatus.CANCELLED);
+        allow(Load.LoadStatus.AT_PICKUP, Load.LoadStatus.PICKED_UP, Load.LoadStatus.CANCELLED);
+        allow(Load.LoadStatus.PICKED_UP, Load.LoadStatus.IN_TRANSIT, Load.LoadStatus.AT_DELIVERY,
+            Load.LoadStatus.DELIVERED);
+        allow(Load.LoadStatus.IN_TRANSIT, Load.LoadStatus.AT_DELIVERY, Load.LoadStatus.DELIVERED);
+        allow(Load.LoadStatus.AT_DELIVERY, Load.LoadStatus.DELIVERED);
+        allow(Load.LoadStatus.DELIVERED, Load.LoadStatus.COMPLETED);
+        allow(Load.LoadStatus.COMPLETED);
+        allow(Load.LoadStatus.CANCELLED);
+    }
+
+    @Autowired
+    private LoadRepository loadRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public static boolean canTransition(Load.LoadStatus from, Load.LoadStatus to) {
+        return from != null && to != null && TRANSITIONS.get(from).contains(to);
+    }
+
+    /**
+     * Save a new load in CREATED together with its first event
+     */
+    @Transactional
+    public Load create(Load load) {
+        load.setStatus(Load.LoadStatus.CREATED);
+        Load saved = loadRepository.save(load);
+        record(saved, null, null);
+        return saved;
+    }
+
+    /**
+     * Move the load to {@code to}, stamping the matching milestone; the caller saves the load
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void transition(Load load, Load.LoadStatus to, String reason) {
+        Load.LoadStatus from = load.getStatus();
+        if (to == null) {
+            throw new IllegalArgumentException("Status is required");
+        }
+        if (!canTransition(from, to)) {
+            throw new ConflictException("Load " + load.getLoadNumber() + " can't move from " + from + " to " + to);
+        }
+        Instant now = Instant.now();
+        load.setStatus(to);
+        switch (to) {
+            case DISPATCHED:
+                load.setDispatchedAt(now);
+                break;
+            case PICKED_UP:
+                load.setPickedUpAt(now);
+                break;
+            case DELIVERED:
+                load.setDeliveredAt(now);
+                break;
+            case CANCELLED:
+                load.setCancelledAt(now);
+                load.setCancellationReason(reason);
+                break;
+            default:
+                break;
+        }
+        record(load, from, reason);
+    }
+
+    /**
+     * Status transitions of a load, oldest first
+     */
+    @Transactional(readOnly = true)
+    public List<LoadStatusChangedEvent> history(UUID companyId, UUID loadId) {
+        return outboxEventRepository.findByAggregateIdAndCompanyIdOrderByCreatedAt(loadId, companyId).stream()
+            .filter(event -> STATUS_CHANGED.equals(event.getEventType()))
+            .map(this::parse)
+            .collect(Collectors.toList());
+    }
+
+    LoadStatusChangedEvent parse(OutboxEvent event) {
+        try {
+            LoadStatusChangedEvent parsed = objectMapper.readValue(event.getPayload(), LoadStatusChangedEvent.class);
+            parsed.setEventId(event.getId());
+            return parsed;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable outbox event " + event.getId(), e);
+        }
+    }
+
+    private void record(Load load, Load.LoadStatus from, String reason) {
+        LoadStatusChangedEvent payload = new LoadStatusChangedEvent(load.getId(), load.getCompany().getId(),
+            load.getLoadNumber(), load.getTrackingToken(), from, load.getStatus(),
+            load.getTruck() != null ? load.getTruck().getId() : null,
+            load.getDriver() != null ? load.getDriver().getId() : null,
+            reason, Instant.now(), null);
+        OutboxEvent event = new OutboxEvent();
+        event.setCompanyId(payload.getCompanyId());
+        event.setAggregateType(AGGREGATE_TYPE);
+        event.setAggregateId(payload.getLoadId());
+        event.setEventType(STATUS_CHANGED);
+        event.setPayload(serialize(payload));
+        outboxEventRepository.save(event);
+    }
+
+    String serialize(LoadStatusChangedEvent payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize load event", e);
+        }
+    }
+
+    private static void allow(Load.LoadStatus from, Load.LoadStatus... to) {
+        Set<Load.LoadStatus> targets = EnumSet.noneOf(Load.LoadStatus.class);
+        Collections.addAll(targets, to);
+        TRANSITIONS.put(from, targets);
+    }
+}
@@ -0,0 +1,32 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.entity.Load;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Outbox payload for a load status transition; fromStatus is null when the load was created
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoadStatusChangedEvent {
+    private UUID loadId;
+    private UUID companyId;
+    private String loadNumber;
+    private String trackingToken;
+    private Load.LoadStatus fromStatus;
+    private Load.LoadStatus toStatus;
+    private UUID truckId;
+    private UUID driverId;
+    private String reason;
+    private Instant occurredAt;
+    // Outbox row the event was read from; set by the reader, not part of the payload
+    @JsonIgnore
+    private UUID eventId;
+}
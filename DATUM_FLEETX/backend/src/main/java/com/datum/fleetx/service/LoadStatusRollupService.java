@@ -0,0 +1,94 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.entity.Load;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Load Status Rollup Service - Per-company load counts by status for the dashboard
+ * Seeded with one grouped query and then moved by relayed status events; entries expire
+ * after a while and are re-seeded, which also heals any drift from missed events. The seed
+ * reads the counts and the not yet relayed transitions in one statement (one snapshot), and
+ * those transitions plus every event applied since are remembered, so neither a relayed
+ * transition the counts already include nor a redelivered event is counted twice.
+ */
+@Service
+public class LoadStatusRollupService implements LoadEventSubscriber {
+
+    private static final Load.LoadStatus[] STATUSES = Load.LoadStatus.values();
+    // [status, count] rows, then [null, null, event id] rows for transitions not yet relayed
+    private static final String SEED = "SELECT status, COUNT(*), NULL FROM loads WHERE company_id = ? GROUP BY status " +
+        "UNION ALL SELECT NULL, NULL, id FROM outbox_events " +
+        "WHERE company_id = ? AND event_type = ? AND published_at IS NULL";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${outbox.rollup.ttl-minutes:10}")
+    private long ttlMinutes;
+
+    private LoadingCache<UUID, Rollup> counts;
+
+    @PostConstruct
+    void init() {
+        counts = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+            .build(this::seed);
+    }
+
+    public Map<Load.LoadStatus, Long> countsByStatus(UUID companyId) {
+        AtomicLongArray current = counts.get(companyId).counts;
+        Map<Load.LoadStatus, Long> result = new EnumMap<>(Load.LoadStatus.class);
+        for (Load.LoadStatus status : STATUSES) {
+            result.put(status, Math.max(0, current.get(status.ordinal())));
+        }
+        return result;
+    }
+
+    @Override
+    public void onLoadEvents(List<LoadStatusChangedEvent> events) {
+        for (LoadStatusChangedEvent event : events) {
+            // Companies nobody has looked at yet are seeded on first read instead
+            Rollup rollup = counts.getIfPresent(event.getCompanyId());
+            if (rollup == null || (event.getEventId() != null && !rollup.counted.add(event.getEventId()))) continue;
+            if (event.getFromStatus() != null) {
+                rollup.counts.decrementAndGet(event.getFromStatus().ordinal());
+            }
+            rollup.counts.incrementAndGet(event.getToStatus().ordinal());
+        }
+    }
+
+    private Rollup seed(UUID companyId) {
+        Rollup seeded = new Rollup();
+        jdbcTemplate.query(SEED, rs -> {
+            String status = rs.getString(1);
+            if (status != null) {
+                seeded.counts.set(Load.LoadStatus.valueOf(status).ordinal(), rs.getLong(2));
+            } else {
+                seeded.counted.add(rs.getObject(3, UUID.class));
+            }
+        }, companyId, companyId, LoadStateMachine.STATUS_CHANGED);
+        return seeded;
+    }
+
+    private static class Rollup {
+        private final AtomicLongArray counts = new AtomicLongArray(STATUSES.length);
+        // Events already reflected in the counts
+        private final Set<UUID> counted = ConcurrentHashMap.newKeySet();
+    }
+}
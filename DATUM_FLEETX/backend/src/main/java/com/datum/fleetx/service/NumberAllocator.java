@@ -0,0 +1,250 @@
+package com.datum.fleetx.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.Year;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Number Allocator - Load and invoice numbers, unique per company and year
+ * Numbers carry the company's number code, handed out once per company from a global series,
+ * so the load_number and invoice_number columns stay unique across companies.
+ * Numbers are reserved from number_sequences in blocks (one upsert per block, in its own
+ * short transaction so the row is never locked for the caller's whole transaction) and
+ * handed out from memory with an atomic counter. Several instances each hold their own
+ * block, and numbers of a rolled-back creation or of a block left over at shutdown are
+ * skipped, so series are unique and increasing per instance but may have gaps.
+ * A reservation made inside the caller's transaction needs a second pooled connection, so
+ * the next block is reserved in the background once half of the current one is used, and
+ * batch writers call {@link #reserve} for what they need before opening their transaction.
+ */
+@Component
+public class NumberAllocator {
+
+    public enum Series {
+        LOAD("LD", 6),
+        INVOICE("INV", 5);
+
+        private final String prefix;
+        private final int width;
+
+        Series(String prefix, int width) {
+            this.prefix = prefix;
+            this.width = width;
+        }
+    }
+
+    private static final String RESERVE = "INSERT INTO number_sequences (id, created_at, updated_at, active, version, " +
+        "company_id, sequence_name, sequence_year, next_value) VALUES (?, now(), now(), true, 0, ?, ?, ?, ? + 1) " +
+        "ON CONFLICT (company_id, sequence_name, sequence_year) " +
+        "DO UPDATE SET next_value = number_sequences.next_value + ?, updated_at = now() " +
+        "RETURNING next_value";
+
+    // Takes the next code of the global series and stamps it on the company unless it already has one
+    private static final String ASSIGN_CODE = "WITH code AS (INSERT INTO number_sequences (id, created_at, " +
+        "updated_at, active, version, company_id, sequence_name, sequence_year, next_value) " +
+        "VALUES (?, now(), now(), true, 0, ?, 'COMPANY_CODE', 0, 2) " +
+        "ON CONFLICT (company_id, sequence_name, sequence_year) " +
+        "DO UPDATE SET next_value = number_sequences.next_value + 1, updated_at = now() " +
+        "RETURNING next_value - 1 AS value) " +
+        "UPDATE companies SET number_code = (SELECT value FROM code) WHERE id = ? AND number_code IS NULL";
+
+    private static final String FIND_CODE = "SELECT number_code FROM companies WHERE id = ?";
+
+    // Owner of the global company code series
+    private static final UUID GLOBAL = new UUID(0L, 0L);
+    private static final int CODE_WIDTH = 4;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ThreadPoolTaskExecutor numberingExecutor;
+
+    @Value("${numbering.block-size:100}")
+    private int blockSize;
+
+    private final Map<Key, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<UUID, String> companyCodes = new ConcurrentHashMap<>();
+    private volatile int year = Year.now().getValue();
+    private TransactionTemplate reserveTransaction;
+
+    @PostConstruct
+    void init() {
+        reserveTransaction = new TransactionTemplate(transactionManager);
+        reserveTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Next number of the series for the current year, e.g. LD-002K-2026-000042; the company
+     * code segment keeps numbers globally unique as the columns require
+     */
+    public String next(UUID companyId, Series series) {
+        int year = currentYear();
+        String code = companyCode(companyId);
+        long value = counters.computeIfAbsent(new Key(companyId, series, year), Counter::new).next();
+        return String.format("%s-%s-%d-%0" + series.width + "d", series.prefix, code, year, value);
+    }
+
+    /**
+     * Hold at least {@code count} numbers of the series in memory, so the next {@code count}
+     * calls to {@link #next} don't touch the database; call it outside any transaction
+     */
+    public void reserve(UUID companyId, Series series, int count) {
+        companyCode(companyId);
+        counters.computeIfAbsent(new Key(companyId, series, currentYear()), Counter::new).ensure(count);
+    }
+
+    /**
+     * Base-36 code of the company, assigned in its own short transaction on first use
+     */
+    private String companyCode(UUID companyId) {
+        String cached = companyCodes.get(companyId);
+        if (cached != null) {
+            return cached;
+        }
+        Long code = reserveTransaction.execute(status -> {
+            Long existing = jdbcTemplate.queryForObject(FIND_CODE, Long.class, companyId);
+            if (existing != null) {
+                return existing;
+            }
+            // Two instances may race; the loser's code is skipped and it reads the winner's
+            jdbcTemplate.update(ASSIGN_CODE, UUID.randomUUID(), GLOBAL, companyId);
+            return jdbcTemplate.queryForObject(FIND_CODE, Long.class, companyId);
+        });
+        String formatted = Long.toString(Objects.requireNonNull(code), 36).toUpperCase();
+        if (formatted.length() < CODE_WIDTH) {
+            formatted = "0".repeat(CODE_WIDTH - formatted.length()) + formatted;
+        }
+        companyCodes.put(companyId, formatted);
+        return formatted;
+    }
+
+    private int currentYear() {
+        int now = Year.now().getValue();
+        if (now != year) {
+            year = now;
+            // Counters of earlier years are never used again
+            counters.keySet().removeIf(key -> key.year < now);
+        }
+        return now;
+    }
+
+    private Block reserveBlock(Key key, int size) {
+        Long next = reserveTransaction.execute(status -> jdbcTemplate.queryForObject(RESERVE, Long.class,
+            UUID.randomUUID(), key.companyId, key.series.name(), key.year, size, size));
+        // The block is [next - size, next)
+        return new Block(Objects.requireNonNull(next) - size, next);
+    }
+
+    /**
+     * Hands out one reserved block at a time, then the spare blocks reserved ahead; only the
+     * thread that finds a block exhausted moves on to the next one
+     */
+    private final class Counter {
+        private final Key key;
+        private volatile Block block = new Block(0, 0);
+        // Reserved ahead, used in order; guarded by this
+        private final Deque<Block> spares = new ArrayDeque<>();
+
+        Counter(Key key) {
+            this.key = key;
+        }
+
+        long next() {
+            while (true) {
+                Block current = block;
+                long value = current.next.getAndIncrement();
+                if (value < current.end) {
+                    if (value == current.halfway) {
+                        prefetch();
+                    }
+                    return value;
+                }
+                refill(current);
+            }
+        }
+
+        synchronized void ensure(int count) {
+            long held = Math.max(0, block.end - block.next.get());
+            for (Block spare : spares) {
+                held += spare.end - spare.start;
+            }
+            if (held < count) {
+                spares.add(reserveBlock(key, (int) Math.max(blockSize, count - held)));
+            }
+        }
+
+        private void prefetch() {
+            try {
+                numberingExecutor.execute(() -> ensure(blockSize));
+            } catch (TaskRejectedException e) {
+                // Reserved by whoever exhausts the block instead
+            }
+        }
+
+        private synchronized void refill(Block exhausted) {
+            if (block != exhausted) {
+                return;
+            }
+            Block spare = spares.poll();
+            block = spare != null ? spare : reserveBlock(key, blockSize);
+        }
+    }
+
+    private static final class Block {
+        private final long start;
+        private final AtomicLong next;
+        private final long end;
+        private final long halfway;
+
+        Block(long start, long end) {
+            this.start = start;
+            this.next = new AtomicLong(start);
+            this.end = end;
+            this.halfway = start + (end - start) / 2;
+        }
+    }
+
+    private static final class Key {
+        private final UUID companyId;
+        private final Series series;
+        private final int year;
+
+        Key(UUID companyId, Series series, int year) {
+            this.companyId = companyId;
+            this.series = series;
+            this.year = year;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return companyId.equals(other.companyId) && series == other.series && year == other.year;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(companyId, series, year);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.datum.fleetx.service;
+
+import lombok.extern.slf4j.Slf4j;
+import net.sourceforge.tess4j.ITessAPI;
+import net.sourceforge.tess4j.Tesseract;
+import net.sourceforge.tess4j.TesseractException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * OCR Service - Text recognition for photos and scanned PDFs through Tesseract
+ * Disabled unless document.ocr.enabled is set; it also switches itself off at startup when
+ * the native library or the language data is missing, so documents fall back to metadata.
+ */
+@Slf4j
+@Service
+public class OcrService {
+
+    @Value("${document.ocr.enabled:false}")
+    private boolean enabled;
+
+    @Value("${document.ocr.datapath:/usr/share/tesseract-ocr/5/tessdata}")
+    private String datapath;
+
+    @Value("${document.ocr.language:eng}")
+    private String language;
+
+    @Value("${document.ocr.dpi:300}")
+    private int dpi;
+
+    private volatile boolean available;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        if (!Files.isRegularFile(Paths.get(datapath, language + ".traineddata"))) {
+            log.warn("OCR disabled: no {} language data under {}", language, datapath);
+            return;
+        }
+        try {
+            // Loads the native library once so a missing install shows up at startup
+            newEngine().doOCR(new BufferedImage(8, 8, BufferedImage.TYPE_BYTE_GRAY));
+            available = true;
+        } catch (TesseractException | LinkageError e) {
+            log.warn("OCR disabled: Tesseract could not be loaded ({})", e.getMessage());
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public int getDpi() {
+        return dpi;
+    }
+
+    /**
+     * Recognize the text of one page image; engines are not thread-safe, so each call gets its own
+     */
+    public String recognize(BufferedImage image) {
+        try {
+            return newEngine().doOCR(image).trim();
+        } catch (TesseractException e) {
+            throw new IllegalStateException("OCR failed: " + e.getMessage(), e);
+        }
+    }
+
+    private Tesseract newEngine() {
+        Tesseract tesseract = new Tesseract();
+        tesseract.setDatapath(datapath);
+        tesseract.setLanguage(language);
+        tesseract.setPageSegMode(ITessAPI.TessPageSegMode.PSM_AUTO);
+        tesseract.setVariable("user_defined_dpi", String.valueOf(dpi));
+        return tesseract;
+    }
+}
@@ -0,0 +1,58 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.exception.ConflictException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Optimistic Retry - Runs a unit of work in its own transaction and re-runs it when a
+ * versioned write loses a race. Attempts are bounded and spaced with jittered backoff, so
+ * contention costs a few milliseconds instead of a held row lock; when every attempt
+ * loses the caller gets a 409.
+ */
+@Slf4j
+@Component
+public class OptimisticRetry {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${dispatch.claim.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${dispatch.claim.backoff-ms:25}")
+    private long backoffMs;
+
+    public <T> T execute(String operation, Supplier<T> work) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.info("{} lost {} optimistic lock races, giving up", operation, attempt);
+                    throw new ConflictException(operation + " conflicted with concurrent changes, try again");
+                }
+                pause(attempt);
+            }
+        }
+    }
+
+    private void pause(int attempt) {
+        long ceiling = backoffMs * (1L << (attempt - 1));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Interrupted while retrying");
+        }
+    }
+}
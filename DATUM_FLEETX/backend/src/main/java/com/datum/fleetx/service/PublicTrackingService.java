@@ -0,0 +1,116 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.dto.tracking.TrackingSnapshot;
+import com.datum.fleetx.entity.Load;
+import com.datum.fleetx.repository.LoadRepository;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Public Tracking Service - Resolves tracking tokens for the customer tracking portal
+ * Lookups go through a bounded cache (including negative entries) in front of a single
+ * indexed query, so malformed or probed codes never reach the database
+ */
+@Service
+@RequiredArgsConstructor
+public class PublicTrackingService implements LoadEventSubscriber {
+
+    private final LoadRepository loadRepository;
+    private final TrackingTokenGenerator trackingTokenGenerator;
+
+    @Value("${tracking.cache.ttl-seconds:30}")
+    private long cacheTtlSeconds;
+
+    @Value("${tracking.cache.max-size:50000}")
+    private long cacheMaxSize;
+
+    private LoadingCache<String, Optional<TrackingSnapshot>> snapshots;
+
+    @PostConstruct
+    void initCache() {
+        snapshots = Caffeine.newBuilder()
+            .maximumSize(cacheMaxSize)
+            .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+            .build(new CacheLoader<String, Optional<TrackingSnapshot>>() {
+                @Override
+                public Optional<TrackingSnapshot> load(String token) {
+                    return loadAll(List.of(token)).get(token);
+                }
+
+                @Override
+                public Map<String, Optional<TrackingSnapshot>> loadAll(Iterable<? extends String> tokens) {
+                    List<String> keys = new ArrayList<>();
+                    tokens.forEach(keys::add);
+
+                    Map<String, Optional<TrackingSnapshot>> result = new HashMap<>();
+                    for (String key : keys) {
+                        result.put(key, Optional.empty());
+                    }
+                    for (Load load : loadRepository.findForTrackingByTokens(keys)) {
+                        result.put(load.getTrackingToken(), Optional.of(TrackingSnapshot.from(load)));
+                    }
+                    return result;
+                }
+            });
+    }
+
+    /**
+     * Find a shipment by its tracking token
+     */
+    public Optional<TrackingSnapshot> findByToken(String trackingCode) {
+        String token = trackingTokenGenerator.normalize(trackingCode);
+        if (!trackingTokenGenerator.isWellFormed(token)) {
+            return Optional.empty();
+        }
+        return snapshots.get(token);
+    }
+
+    /**
+     * Find several shipments at once - cache misses are resolved with one query
+     * Returned map is keyed by the codes as supplied; unknown codes are omitted
+     */
+    public Map<String, TrackingSnapshot> findByTokens(Collection<String> trackingCodes) {
+        Map<String, String> tokensByCode = new LinkedHashMap<>();
+        for (String code : trackingCodes) {
+            String token = trackingTokenGenerator.normalize(code);
+            if (trackingTokenGenerator.isWellFormed(token)) {
+                tokensByCode.put(code, token);
+            }
+        }
+        if (tokensByCode.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Optional<TrackingSnapshot>> found = snapshots.getAll(new HashSet<>(tokensByCode.values()));
+
+        Map<String, TrackingSnapshot> result = new LinkedHashMap<>();
+        tokensByCode.forEach((code, token) ->
+            found.getOrDefault(token, Optional.empty()).ifPresent(snapshot -> result.put(code, snapshot)));
+        return result;
+    }
+
+    /**
+     * Drop a cached snapshot after the load changes
+     */
+    public void evict(String trackingToken) {
+        if (trackingToken != null) {
+            snapshots.invalidate(trackingToken);
+        }
+    }
+
+    /**
+     * Status changes reach the portal through the outbox relay rather than the request path
+     */
+    @Override
+    public void onLoadEvents(List<LoadStatusChangedEvent> events) {
+        events.forEach(event -> evict(event.getTrackingToken()));
+    }
+}
@@ -0,0 +1,433 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.dto.search.SearchHit;
+import com.datum.fleetx.dto.search.SearchSource;
+import com.datum.fleetx.exception.ServiceBusyException;
+import com.datum.fleetx.repository.CustomerRepository;
+import com.datum.fleetx.repository.DriverRepository;
+import com.datum.fleetx.repository.LoadRepository;
+import com.datum.fleetx.repository.LocationRepository;
+import com.datum.fleetx.repository.TruckRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Quick Search Service - Type-ahead over a company's loads, customers, drivers, trucks and locations
+ * Each company gets an in-memory index on its first search, built on the search index pool
+ * (the search waits briefly, then answers 503 until it is ready): a sorted token map for
+ * prefix matches and a trigram map for typo-tolerant matches (the same similarity pg_trgm
+ * uses). Entity writes update the loaded indexes one row at a time after commit, including
+ * the loads that show a changed customer's name or location's city, so lookups never touch
+ * the database.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class QuickSearchService {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern LETTER_DIGIT_BOUNDARY = Pattern.compile("(?<=\\p{L})(?=\\p{N})|(?<=\\p{N})(?=\\p{L})");
+    private static final int MAX_TOKEN_LENGTH = 40;
+    private static final int MAX_PREFIX_TOKENS = 2_000;
+    private static final double MIN_SIMILARITY = 0.3;
+    private static final double EXACT_SCORE = 1.0;
+    private static final double PREFIX_SCORE = 0.8;
+    private static final double FUZZY_WEIGHT = 0.7;
+
+    private final LoadRepository loadRepository;
+    private final CustomerRepository customerRepository;
+    private final DriverRepository driverRepository;
+    private final TruckRepository truckRepository;
+    private final LocationRepository locationRepository;
+    private final ThreadPoolTaskExecutor searchIndexExecutor;
+
+    @org.springframework.beans.factory.annotation.Value("${search.max-companies:500}")
+    private long maxCompanies;
+
+    @org.springframework.beans.factory.annotation.Value("${search.idle-hours:6}")
+    private long idleHours;
+
+    @org.springframework.beans.factory.annotation.Value("${search.build-wait-ms:500}")
+    private long buildWaitMs;
+
+    private Cache<UUID, CompanyIndex> indexes;
+
+    // Builds queued or running, one per company
+    private final Map<UUID, CompletableFuture<CompanyIndex>> builds = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void initCache() {
+        indexes = Caffeine.newBuilder()
+            .maximumSize(maxCompanies)
+            .expireAfterAccess(Duration.ofHours(idleHours))
+            .build();
+    }
+
+    /**
+     * Best matches first; every query word must match, as a prefix or approximately
+     */
+    public List<SearchHit> search(UUID companyId, String query, Set<SearchHit.Type> types, int limit) {
+        List<String> terms = new ArrayList<>(tokenize(query));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        CompanyIndex index = awaitIndex(companyId);
+
+        Map<EntryKey, Double> scores = null;
+        for (String term : terms) {
+            Map<EntryKey, Double> termScores = index.match(term);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                Map<EntryKey, Double> previous = scores;
+                scores = new HashMap<>();
+                for (Map.Entry<EntryKey, Double> e : termScores.entrySet()) {
+                    Double before = previous.get(e.getKey());
+                    if (before != null) {
+                        scores.put(e.getKey(), before + e.getValue());
+                    }
+                }
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        return scores.entrySet().stream()
+            .filter(e -> types == null || types.isEmpty() || types.contains(e.getKey().getType()))
+            .map(e -> {
+                Entry entry = index.entries.get(e.getKey());
+                return entry == null ? null
+                    : new SearchHit(entry.key.getType(), entry.key.getId(), entry.title, entry.subtitle, e.getValue());
+            })
+            .filter(hit -> hit != null)
+            .sorted(Comparator.comparingDouble(SearchHit::getScore).reversed()
+                .thenComparing(SearchHit::getTitle, Comparator.nullsLast(Comparator.naturalOrder())))
+            .limit(limit)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Start building a company's index in the background if it isn't loaded (e.g. at sign-in)
+     */
+    public void warm(UUID companyId) {
+        if (indexes.getIfPresent(companyId) == null) {
+            try {
+                startBuild(companyId);
+            } catch (ServiceBusyException e) {
+                // The first search queues it again
+            }
+        }
+    }
+
+    private CompanyIndex awaitIndex(UUID companyId) {
+        CompanyIndex index = indexes.getIfPresent(companyId);
+        if (index != null) {
+            return index;
+        }
+        try {
+            return startBuild(companyId).get(buildWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceBusyException("Search index is being prepared, please retry shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Search interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search index build failed", e.getCause());
+        }
+    }
+
+    private CompletableFuture<CompanyIndex> startBuild(UUID companyId) {
+        CompletableFuture<CompanyIndex> build = new CompletableFuture<>();
+        CompletableFuture<CompanyIndex> existing = builds.putIfAbsent(companyId, build);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            searchIndexExecutor.execute(() -> {
+                try {
+                    // Loaded through the cache, so updates for this company wait for the build
+                    build.complete(indexes.get(companyId, this::buildIndex));
+                } catch (RuntimeException e) {
+                    log.warn("Quick search index build failed for company {}: {}", companyId, e.getMessage());
+                    build.completeExceptionally(e);
+                } finally {
+                    builds.remove(companyId, build);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            builds.remove(companyId, build);
+            throw new ServiceBusyException("Search is busy, please retry shortly");
+        }
+        return build;
+    }
+
+    /**
+     * Drop a company's index after bulk writes that bypass the entity listeners; the next
+     * search rebuilds it
+     */
+    public void invalidate(UUID companyId) {
+        indexes.invalidate(companyId);
+    }
+
+    /**
+     * Re-read one written entity into the indexes that are loaded; nothing happens for
+     * companies nobody has searched yet
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntityChanged(SearchableEntityChangedEvent event) {
+        if (event.getType() == SearchHit.Type.LOCATION) {
+            // Shared rows: refresh wherever the location is already indexed, with the loads
+            // whose entries show its city
+            Optional<SearchSource> source = locationRepository.findSearchSourceById(event.getId());
+            EntryKey key = new EntryKey(SearchHit.Type.LOCATION, event.getId());
+            indexes.asMap().forEach((companyId, index) -> {
+                if (index.entries.containsKey(key)) {
+                    update(companyId, key, source);
+                    updateLoads(companyId, loadRepository.findSearchSourcesByCompanyIdAndLocationId(companyId, event.getId()));
+                }
+            });
+            return;
+        }
+        if (event.getCompanyId() == null || indexes.getIfPresent(event.getCompanyId()) == null) {
+            return;
+        }
+        EntryKey key = new EntryKey(event.getType(), event.getId());
+        update(event.getCompanyId(), key, load(key));
+        if (event.getType() == SearchHit.Type.CUSTOMER) {
+            // Load entries carry the customer's name
+            updateLoads(event.getCompanyId(), loadRepository.findSearchSourcesByCustomerId(event.getId()));
+        }
+        if (event.getType() == SearchHit.Type.LOAD) {
+            // A load may point at locations this company hasn't used before
+            for (SearchSource location : locationRepository.findSearchSourcesByLoadId(event.getId())) {
+                update(event.getCompanyId(), new EntryKey(SearchHit.Type.LOCATION, location.getId()), Optional.of(location));
+            }
+        }
+    }
+
+    private void update(UUID companyId, EntryKey key, Optional<SearchSource> source) {
+        // Waits for an in-flight build of the same company, so the update is never lost
+        indexes.asMap().computeIfPresent(companyId, (id, index) -> {
+            if (source.isPresent()) {
+                index.add(key.getType(), source.get());
+            } else {
+                index.remove(key);
+            }
+            return index;
+        });
+    }
+
+    private void updateLoads(UUID companyId, List<SearchSource> loads) {
+        for (SearchSource source : loads) {
+            update(companyId, new EntryKey(SearchHit.Type.LOAD, source.getId()), Optional.of(source));
+        }
+    }
+
+    private Optional<SearchSource> load(EntryKey key) {
+        switch (key.getType()) {
+            case LOAD: return loadRepository.findSearchSourceById(key.getId());
+            case CUSTOMER: return customerRepository.findSearchSourceById(key.getId());
+            case DRIVER: return driverRepository.findSearchSourceById(key.getId());
+            case TRUCK: return truckRepository.findSearchSourceById(key.getId());
+            default: return locationRepository.findSearchSourceById(key.getId());
+        }
+    }
+
+    private CompanyIndex buildIndex(UUID companyId) {
+        long start = System.nanoTime();
+        CompanyIndex index = new CompanyIndex();
+        loadRepository.findSearchSourcesByCompanyId(companyId).forEach(s -> index.add(SearchHit.Type.LOAD, s));
+        customerRepository.findSearchSourcesByCompanyId(companyId).forEach(s -> index.add(SearchHit.Type.CUSTOMER, s));
+        driverRepository.findSearchSourcesByCompanyId(companyId).forEach(s -> index.add(SearchHit.Type.DRIVER, s));
+        truckRepository.findSearchSourcesByCompanyId(companyId).forEach(s -> index.add(SearchHit.Type.TRUCK, s));
+        locationRepository.findSearchSourcesByCompanyId(companyId).forEach(s -> index.add(SearchHit.Type.LOCATION, s));
+        log.info("Built quick search index for company {}: {} entries, {} tokens in {} ms", companyId,
+            index.entries.size(), index.tokens.size(), (System.nanoTime() - start) / 1_000_000);
+        return index;
+    }
+
+    /**
+     * Lowercased alphanumeric tokens; "LD-2026-0042" also yields "ld20260042" and
+     * "TRK12" also yields "trk" and "12", so either way of typing an identifier matches
+     */
+    static Set<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptySet();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (String token : NON_WORD.split(lower)) {
+            addToken(tokens, token);
+            for (String part : LETTER_DIGIT_BOUNDARY.split(token)) {
+                if (part.length() != token.length()) {
+                    addToken(tokens, part);
+                }
+            }
+        }
+        return tokens;
+    }
+
+    private static void addToken(Set<String> tokens, String token) {
+        if (!token.isEmpty() && token.length() <= MAX_TOKEN_LENGTH) {
+            tokens.add(token);
+        }
+    }
+
+    /**
+     * Trigrams of the token padded as pg_trgm does ("  ab " for "ab")
+     */
+    private static Set<String> trigrams(String token) {
+        String padded = "  " + token + " ";
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    @Value
+    private static class EntryKey {
+        SearchHit.Type type;
+        UUID id;
+    }
+
+    private static class Entry {
+        private final EntryKey key;
+        private final String title;
+        private final String subtitle;
+        private final Set<String> tokens;
+
+        Entry(EntryKey key, SearchSource source, Set<String> tokens) {
+            this.key = key;
+            this.title = source.getTitle();
+            this.subtitle = source.getSubtitle() != null && !source.getSubtitle().isBlank()
+                ? source.getSubtitle().trim() : null;
+            this.tokens = tokens;
+        }
+    }
+
+    /**
+     * Concurrent maps so lookups run lock-free alongside single-writer updates
+     */
+    private static class CompanyIndex {
+        private final Map<EntryKey, Entry> entries = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<String, Set<EntryKey>> tokens = new ConcurrentSkipListMap<>();
+        private final Map<String, Set<String>> trigramTokens = new ConcurrentHashMap<>();
+
+        synchronized void add(SearchHit.Type type, SearchSource source) {
+            EntryKey key = new EntryKey(type, source.getId());
+            remove(key);
+            Set<String> entryTokens = tokenize(Stream.of(source.getTitle(), source.getSubtitle(), source.getKeywords())
+                .filter(Objects::nonNull)
+                .collect(Collectors.joining(" ")));
+            if (source.getTitle() != null) {
+                // Identifier typed without separators
+                addToken(entryTokens, NON_WORD.matcher(source.getTitle().toLowerCase(Locale.ROOT)).replaceAll(""));
+            }
+            for (String token : entryTokens) {
+                tokens.computeIfAbsent(token, t -> {
+                    for (String gram : trigrams(t)) {
+                        trigramTokens.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(t);
+                    }
+                    return ConcurrentHashMap.newKeySet();
+                }).add(key);
+            }
+            entries.put(key, new Entry(key, source, entryTokens));
+        }
+
+        synchronized void remove(EntryKey key) {
+            Entry existing = entries.remove(key);
+            if (existing == null) return;
+            for (String token : existing.tokens) {
+                Set<EntryKey> keys = tokens.get(token);
+                if (keys == null) continue;
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    tokens.remove(token);
+                    for (String gram : trigrams(token)) {
+                        Set<String> grams = trigramTokens.get(gram);
+                        if (grams != null) {
+                            grams.remove(token);
+                            if (grams.isEmpty()) trigramTokens.remove(gram);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Best score per entry for one query word: exact token, token prefix, or trigram similarity
+         */
+        Map<EntryKey, Double> match(String term) {
+            Map<String, Double> matchedTokens = new HashMap<>();
+            int scanned = 0;
+            for (String token : tokens.subMap(term, true, term + Character.MAX_VALUE, false).keySet()) {
+                matchedTokens.put(token, token.equals(term) ? EXACT_SCORE : PREFIX_SCORE);
+                if (++scanned >= MAX_PREFIX_TOKENS) break;
+            }
+
+            if (term.length() >= 3) {
+                Set<String> termGrams = trigrams(term);
+                Map<String, Integer> shared = new HashMap<>();
+                for (String gram : termGrams) {
+                    Set<String> candidates = trigramTokens.get(gram);
+                    if (candidates == null) continue;
+                    for (String token : candidates) {
+                        shared.merge(token, 1, Integer::sum);
+                    }
+                }
+                for (Map.Entry<String, Integer> e : shared.entrySet()) {
+                    // A token of n characters has at most n + 2 padded trigrams
+                    int union = termGrams.size() + e.getKey().length() + 2 - e.getValue();
+                    double similarity = (double) e.getValue() / union;
+                    if (similarity >= MIN_SIMILARITY) {
+                        matchedTokens.merge(e.getKey(), FUZZY_WEIGHT * similarity, Math::max);
+                    }
+                }
+            }
+
+            Map<EntryKey, Double> scores = new HashMap<>();
+            for (Map.Entry<String, Double> e : matchedTokens.entrySet()) {
+                Set<EntryKey> keys = tokens.get(e.getKey());
+                if (keys == null) continue;
+                for (EntryKey key : keys) {
+                    scores.merge(key, e.getValue(), Math::max);
+                }
+            }
+            return scores;
+        }
+    }
+}
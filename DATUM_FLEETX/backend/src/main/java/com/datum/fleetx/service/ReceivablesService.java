@@ -0,0 +1,165 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.dto.invoice.ArAgingReport;
+import com.datum.fleetx.entity.Invoice;
+import com.datum.fleetx.repository.CustomerRepository;
+import com.datum.fleetx.repository.InvoiceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Receivables Service - AR aging and customer balances
+ * Aging is one grouped query over the open invoices, per customer and currency. Each
+ * customer's open balance is kept per currency (customer_balances), moved by atomic upserts
+ * in the same transaction as each invoice or payment change, and recomputed from the
+ * invoices at startup and nightly to correct any drift. The recompute finds drifted balances
+ * with one read, then fixes each in its own short transaction that locks the balance row
+ * before summing, so increments committed meanwhile are counted and never overwritten.
+ */
+@Slf4j
+@Service
+public class ReceivablesService {
+
+    // Balances missing, stale or left over, compared with the open invoices in one snapshot
+    private static final String FIND_DRIFTED = "SELECT COALESCE(b.customer_id, o.customer_id), " +
+        "COALESCE(b.currency, o.currency) FROM customer_balances b FULL JOIN (" +
+        "SELECT i.customer_id, i.currency, SUM(i.total_amount - COALESCE(i.paid_amount, 0)) AS balance " +
+        "FROM invoices i WHERE i.customer_id IS NOT NULL AND i.active = true " +
+        "AND i.status NOT IN ('PAID', 'CANCELLED') GROUP BY i.customer_id, i.currency) o " +
+        "ON o.customer_id = b.customer_id AND o.currency = b.currency " +
+        "WHERE COALESCE(b.balance, 0) <> COALESCE(o.balance, 0)";
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Transactional(readOnly = true)
+    public ArAgingReport aging(UUID companyId, UUID customerId) {
+        LocalDate asOf = LocalDate.now();
+        List<Object[]> rows = customerId != null
+            ? invoiceRepository.sumOpenBalancesByAgeForCustomer(companyId, customerId, asOf, asOf.minusDays(30),
+                asOf.minusDays(60), asOf.minusDays(90))
+            : invoiceRepository.sumOpenBalancesByAge(companyId, asOf, asOf.minusDays(30),
+                asOf.minusDays(60), asOf.minusDays(90));
+
+        Map<String, ArAgingReport.Buckets> totals = new TreeMap<>();
+        Map<UUID, ArAgingReport.CustomerAging> customers = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            String currency = (String) row[2];
+            ArAgingReport.Buckets buckets = new ArAgingReport.Buckets(amount(row[3]), amount(row[4]),
+                amount(row[5]), amount(row[6]), amount(row[7]), BigDecimal.ZERO);
+            buckets.setTotal(buckets.getCurrent().add(buckets.getDays1To30()).add(buckets.getDays31To60())
+                .add(buckets.getDays61To90()).add(buckets.getOver90()));
+            customers.computeIfAbsent((UUID) row[0],
+                id -> new ArAgingReport.CustomerAging(id, (String) row[1], new TreeMap<>()))
+                .getBuckets().put(currency, buckets);
+            add(totals.computeIfAbsent(currency, c -> new ArAgingReport.Buckets()), buckets);
+        }
+        List<ArAgingReport.CustomerAging> sorted = new ArrayList<>(customers.values());
+        sorted.sort(Comparator.comparing(ArAgingReport.CustomerAging::getCustomerName,
+            Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+        return new ArAgingReport(asOf, totals, sorted);
+    }
+
+    /**
+     * What the invoice adds to its customer's balance: the unpaid part while it is live and open
+     */
+    public static BigDecimal openBalance(Invoice invoice) {
+        if (!Boolean.TRUE.equals(invoice.getActive()) || invoice.getStatus() == Invoice.InvoiceStatus.PAID
+                || invoice.getStatus() == Invoice.InvoiceStatus.CANCELLED) {
+            return BigDecimal.ZERO;
+        }
+        return invoice.getBalance();
+    }
+
+    /**
+     * Must run in the transaction that changed the invoice
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void adjustBalance(UUID customerId, String currency, BigDecimal delta) {
+        if (customerId != null && delta.signum() != 0) {
+            customerRepository.adjustBalance(UUID.randomUUID(), customerId, currency, delta);
+        }
+    }
+
+    /**
+     * @param deltas per customer, per currency
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void adjustBalances(Map<UUID, Map<String, BigDecimal>> deltas) {
+        // Sorted, so concurrent runs lock balance rows in the same order
+        new TreeMap<>(deltas).forEach((customerId, byCurrency) ->
+            new TreeMap<>(byCurrency).forEach((currency, delta) -> adjustBalance(customerId, currency, delta)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${invoicing.balance-reconcile-cron:0 0 4 * * *}")
+    public void reconcileBalances() {
+        // [customer id, currency] of balances that looked drifted in one snapshot
+        List<Object[]> drifted = jdbcTemplate.query(FIND_DRIFTED,
+            (rs, i) -> new Object[]{rs.getObject(1, UUID.class), rs.getString(2)});
+        int corrected = 0;
+        for (Object[] balance : drifted) {
+            UUID customerId = (UUID) balance[0];
+            String currency = (String) balance[1];
+            Integer changed = transactionTemplate.execute(status -> {
+                // Zero upsert: creates a missing balance row or locks the existing one
+                customerRepository.adjustBalance(UUID.randomUUID(), customerId, currency, BigDecimal.ZERO);
+                return customerRepository.reconcileBalance(customerId, currency);
+            });
+            if (changed != null && changed > 0) corrected++;
+        }
+        if (corrected > 0) {
+            log.info("Recomputed {} customer balances", corrected);
+        }
+    }
+
+    private static void add(ArAgingReport.Buckets total, ArAgingReport.Buckets buckets) {
+        total.setCurrent(total.getCurrent().add(buckets.getCurrent()));
+        total.setDays1To30(total.getDays1To30().add(buckets.getDays1To30()));
+        total.setDays31To60(total.getDays31To60().add(buckets.getDays31To60()));
+        total.setDays61To90(total.getDays61To90().add(buckets.getDays61To90()));
+        total.setOver90(total.getOver90().add(buckets.getOver90()));
+        total.setTotal(total.getTotal().add(buckets.getTotal()));
+    }
+
+    private static BigDecimal amount(Object value) {
+        if (value == null) return BigDecimal.ZERO;
+        return value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+    }
+}
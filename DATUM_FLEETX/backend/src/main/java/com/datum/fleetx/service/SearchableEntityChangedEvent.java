@@ -0,0 +1,16 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.dto.search.SearchHit;
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * Published when a searchable entity is written; companyId is null for shared locations
+ */
+@Value
+public class SearchableEntityChangedEvent {
+    UUID companyId;
+    SearchHit.Type type;
+    UUID id;
+}
@@ -0,0 +1,205 @@
+package com.datum.fleetx.service;
+
+import com.datum.fleetx.entity.Document;
+import com.datum.fleetx.exception.ServiceBusyException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thumbnail Service - Downscaled JPEG previews for uploaded documents
+ * Thumbnails are rendered once on the document executor right after upload (first page
+ * for PDFs, resized image for photos) and kept on disk next to the stored object. A preview
+ * that is still missing is queued on the same executor, never rendered on the request thread.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ThumbnailService {
+
+    private static final int MAX_DIMENSION = 320;
+    private static final String PDF = "application/pdf";
+
+    private final DocumentStorageService documentStorageService;
+    private final ThreadPoolTaskExecutor documentTaskExecutor;
+
+    // Content hashes queued or rendering, so repeated previews don't queue duplicates
+    private final Set<String> rendering = ConcurrentHashMap.newKeySet();
+
+    // Sources that could not be rendered; answered as missing instead of re-queued on every poll
+    private final Cache<String, Boolean> failed = Caffeine.newBuilder()
+        .maximumSize(10_000)
+        .expireAfterWrite(Duration.ofHours(1))
+        .build();
+
+    public boolean isSupported(String contentType) {
+        return contentType != null && (contentType.equals(PDF) || contentType.startsWith("image/"));
+    }
+
+    /**
+     * Queue thumbnail generation; if the queue is full it is queued again on first preview
+     */
+    public void scheduleThumbnail(Document document) {
+        if (document.getContentHash() == null || !isSupported(document.getContentType())) {
+            return;
+        }
+        if (!submit(document)) {
+            log.debug("Thumbnail queue full, deferring {}", document.getContentHash());
+        }
+    }
+
+    public Optional<Path> findThumbnail(Document document) {
+        if (document.getContentHash() == null) {
+            return Optional.empty();
+        }
+        Path thumbnail = documentStorageService.thumbnailPath(document.getContentHash());
+        return Files.exists(thumbnail) ? Optional.of(thumbnail) : Optional.empty();
+    }
+
+    /**
+     * Make sure a missing thumbnail is being rendered in the background
+     * @return false if the document can have no preview
+     */
+    public boolean requestThumbnail(Document document) {
+        if (document.getContentHash() == null || !isSupported(document.getContentType())
+                || failed.getIfPresent(document.getContentHash()) != null
+                || !documentStorageService.exists(document.getFilePath())) {
+            return false;
+        }
+        if (!submit(document)) {
+            throw new ServiceBusyException("Preview queue is full, try again shortly");
+        }
+        return true;
+    }
+
+    private boolean submit(Document document) {
+        String contentHash = document.getContentHash();
+        String storageKey = document.getFilePath();
+        String contentType = document.getContentType();
+        if (!rendering.add(contentHash)) {
+            return true;
+        }
+        try {
+            documentTaskExecutor.execute(() -> {
+                try {
+                    if (!generate(contentHash, storageKey, contentType)) {
+                        failed.put(contentHash, Boolean.TRUE);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failed.put(contentHash, Boolean.TRUE);
+                    log.warn("Thumbnail generation failed for {}: {}", contentHash, e.getMessage());
+                } finally {
+                    rendering.remove(contentHash);
+                }
+            });
+            return true;
+        } catch (TaskRejectedException e) {
+            rendering.remove(contentHash);
+            return false;
+        }
+    }
+
+    private boolean generate(String contentHash, String storageKey, String contentType) throws IOException {
+        Path thumbnail = documentStorageService.thumbnailPath(contentHash);
+        if (Files.exists(thumbnail)) {
+            return true;
+        }
+
+        Path source = documentStorageService.resolve(storageKey);
+        BufferedImage rendered = PDF.equals(contentType) ? renderPdfFirstPage(source) : readImage(source);
+        if (rendered == null) {
+            return false;
+        }
+
+        Path temp = documentStorageService.createTempFile("thumb-");
+        try {
+            ImageIO.write(fitWithin(rendered), "jpg", temp.toFile());
+            Files.createDirectories(thumbnail.getParent());
+            Files.move(temp, thumbnail, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return true;
+    }
+
+    private BufferedImage renderPdfFirstPage(Path source) throws IOException {
+        // Scratch buffers go to temp files so large scans don't land in heap
+        try (PDDocument pdf = PDDocument.load(source.toFile(), MemoryUsageSetting.setupTempFileOnly())) {
+            if (pdf.getNumberOfPages() == 0) {
+                return null;
+            }
+            PDRectangle box = pdf.getPage(0).getCropBox();
+            float scale = MAX_DIMENSION / Math.max(box.getWidth(), box.getHeight());
+            return new PDFRenderer(pdf).renderImage(0, scale, ImageType.RGB);
+        }
+    }
+
+    private BufferedImage readImage(Path source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                // Decode at reduced resolution instead of materializing a full-size photo
+                int largest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, largest / (MAX_DIMENSION * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage fitWithin(BufferedImage source) {
+        double ratio = Math.min(1.0, (double) MAX_DIMENSION / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+}
@@ -0,0 +1,66 @@
+package com.datum.fleetx.service;
+
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Tracking Token Generator - Compact, unguessable tokens for public tracking links
+ * Tokens are 11 random Crockford base32 characters plus one check character,
+ * so mistyped or probed codes can be rejected without a database lookup
+ */
+@Component
+public class TrackingTokenGenerator {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+    private static final int RANDOM_LENGTH = 11;
+    private static final int TOKEN_LENGTH = RANDOM_LENGTH + 1;
+
+    // Tokens issued before compact tokens were introduced are plain UUIDs
+    private static final Pattern LEGACY_TOKEN = Pattern.compile(
+        "^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$");
+
+    private final SecureRandom random = new SecureRandom();
+
+    public String generate() {
+        char[] token = new char[TOKEN_LENGTH];
+        for (int i = 0; i < RANDOM_LENGTH; i++) {
+            token[i] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+        }
+        token[RANDOM_LENGTH] = checkCharacter(token);
+        return new String(token);
+    }
+
+    /**
+     * Normalize user input to the stored form (compact tokens are upper case)
+     */
+    public String normalize(String token) {
+        if (token == null) return null;
+        String trimmed = token.trim();
+        return trimmed.length() == TOKEN_LENGTH ? trimmed.toUpperCase() : trimmed;
+    }
+
+    /**
+     * Cheap shape check - anything that fails here can never match a stored token
+     */
+    public boolean isWellFormed(String token) {
+        if (token == null) return false;
+        if (token.length() == TOKEN_LENGTH) {
+            char[] chars = token.toCharArray();
+            for (char c : chars) {
+                if (ALPHABET.indexOf(c) < 0) return false;
+            }
+            return chars[RANDOM_LENGTH] == checkCharacter(chars);
+        }
+        return LEGACY_TOKEN.matcher(token).matches();
+    }
+
+    private char checkCharacter(char[] token) {
+        int sum = 0;
+        for (int i = 0; i < RANDOM_LENGTH; i++) {
+            sum += (i + 1) * ALPHABET.indexOf(token[i]);
+        }
+        return ALPHABET.charAt(sum % ALPHABET.length());
+    }
+}
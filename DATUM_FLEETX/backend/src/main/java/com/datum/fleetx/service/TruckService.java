@@ -23,6 +23,12 @@ public class TruckService {
     @Autowired
     private CompanyRepository companyRepository;
 
+    @Autowired
+    private LivePositionService livePositionService;
+
+    @Autowired
+    private CollectionVersionService collectionVersionService;
+
     public List<Truck> getAllTrucksByCompany(UUID companyId) {
         return truckRepository.findByCompanyId(companyId);
     }
@@ -86,6 +92,7 @@ public class TruckService {
         Truck truck = getTruckById(id, companyId);
         truck.setActive(false);
         truckRepository.save(truck);
+        livePositionService.remove(truck.getId());
     }
 
     public Truck updateTruckStatus(UUID id, Truck.TruckStatus status, UUID companyId) {
@@ -95,11 +102,14 @@ public class TruckService {
     }
 
     public Truck updateTruckLocation(UUID id, Double latitude, Double longitude, UUID companyId) {
-        Truck truck = getTruckById(id, companyId);
-        truck.setCurrentLatitude(latitude);
-        truck.setCurrentLongitude(longitude);
-        truck.setLastLocationUpdate(java.time.Instant.now());
-        return truckRepository.save(truck);
+        java.time.Instant now = java.time.Instant.now();
+        if (truckRepository.updatePosition(id, companyId, latitude, longitude, now) == 0) {
+            throw new ResourceNotFoundException("Truck", "id", id);
+        }
+        // Pings are frequent; the truck list's ETag catches up within the coalesce interval
+        collectionVersionService.markChangedCoalesced(companyId, Truck.class);
+        livePositionService.update(companyId, id, latitude, longitude, now);
+        return getTruckById(id, companyId);
     }
 
     public List<Truck> getAvailableTrucks(UUID companyId) {
@@ -0,0 +1,118 @@
+package com.datum.fleetx.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DispatchAuctionTest {
+
+    private static final double PENALTY = 1001;
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    @Test
+    void sparesTheOnlyTruckAnotherLoadCanUse() {
+        // Load 0 is slightly closer to truck 0, but load 1 can only use truck 0
+        int[][] trucks = {{0, 1}, {0}};
+        double[][] miles = {{10, 12}, {50}};
+
+        DispatchAuction.Result result = DispatchAuction.solve(trucks, miles, 2, PENALTY, NO_DEADLINE);
+
+        assertTrue(result.optimal);
+        assertEquals(1, result.truckOf[0]);
+        assertEquals(0, result.truckOf[1]);
+    }
+
+    @Test
+    void leavesLoadsWithoutCandidatesUnassigned() {
+        int[][] trucks = {{}, {1}};
+        double[][] miles = {{}, {100}};
+
+        DispatchAuction.Result result = DispatchAuction.solve(trucks, miles, 3, PENALTY, NO_DEADLINE);
+
+        assertTrue(result.optimal);
+        assertEquals(-1, result.truckOf[0]);
+        assertEquals(1, result.truckOf[1]);
+    }
+
+    @Test
+    void matchesBruteForceOnSmallInstances() {
+        Random random = new Random(42);
+        for (int instance = 0; instance < 2_000; instance++) {
+            int loads = 1 + random.nextInt(6);
+            int truckCount = 1 + random.nextInt(8);
+            int[][] trucks = new int[loads][];
+            double[][] miles = new double[loads][];
+            for (int i = 0; i < loads; i++) {
+                // Random subset of the trucks, like the nearest-candidates cut in planning
+                int[] subset = random.ints(0, truckCount).distinct().limit(random.nextInt(truckCount + 1)).toArray();
+                trucks[i] = subset;
+                miles[i] = new double[subset.length];
+                for (int k = 0; k < subset.length; k++) {
+                    // Coarse distances make ties and near-ties common
+                    miles[i][k] = random.nextBoolean() ? random.nextInt(10) * 50 : random.nextDouble() * 500;
+                }
+            }
+
+            DispatchAuction.Result result = DispatchAuction.solve(trucks, miles, truckCount, PENALTY, NO_DEADLINE);
+
+            assertTrue(result.optimal, "instance " + instance);
+            double optimum = best(trucks, miles, 0, new boolean[truckCount]);
+            assertEquals(optimum, value(trucks, miles, result.truckOf, truckCount), DispatchAuction.FINAL_EPSILON,
+                "instance " + instance);
+        }
+    }
+
+    @Test
+    void reportsNotOptimalWhenTheBudgetRunsOut() {
+        int[][] trucks = {{0, 1}, {0, 1}};
+        double[][] miles = {{10, 20}, {15, 30}};
+
+        DispatchAuction.Result result = DispatchAuction.solve(trucks, miles, 2, PENALTY, System.nanoTime());
+
+        assertFalse(result.optimal);
+        assertEquals(2, result.truckOf.length);
+    }
+
+    /**
+     * Exhaustive: every load either takes a free candidate truck or stays unassigned
+     */
+    private static double best(int[][] trucks, double[][] miles, int load, boolean[] taken) {
+        if (load == trucks.length) {
+            return 0;
+        }
+        double best = best(trucks, miles, load + 1, taken);
+        for (int k = 0; k < trucks[load].length; k++) {
+            int t = trucks[load][k];
+            if (taken[t]) continue;
+            taken[t] = true;
+            best = Math.max(best, PENALTY - miles[load][k] + best(trucks, miles, load + 1, taken));
+            taken[t] = false;
+        }
+        return best;
+    }
+
+    private static double value(int[][] trucks, double[][] miles, int[] truckOf, int truckCount) {
+        boolean[] taken = new boolean[truckCount];
+        double total = 0;
+        for (int i = 0; i < truckOf.length; i++) {
+            if (truckOf[i] < 0) continue;
+            assertFalse(taken[truckOf[i]], "truck assigned twice");
+            taken[truckOf[i]] = true;
+            int k = indexOf(trucks[i], truckOf[i]);
+            assertTrue(k >= 0, "truck is not a candidate of the load");
+            total += PENALTY - miles[i][k];
+        }
+        return total;
+    }
+
+    private static int indexOf(int[] values, int value) {
+        for (int k = 0; k < values.length; k++) {
+            if (values[k] == value) return k;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,131 @@
+package com.datum.fleetx.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Edi204ReaderTest {
+
+    private static final ZoneId CHICAGO = ZoneId.of("America/Chicago");
+    private static final String ISA = "ISA*00*          *00*          *ZZ*SHIPPER        *ZZ*DATUMFLEETX    " +
+        "*231019*1200*U*00401*000000001*0*P*>~\n";
+    private static final String GS = "GS*SM*SHIPPER*DATUMFLEETX*20231019*1200*1*X*004010~\n";
+    private static final String TRAILER = "GE*1*1~\nIEA*1*000000001~\n";
+
+    @Test
+    void readsTenderWithStopsReferencesAndCharges() throws IOException {
+        List<LoadImportRow> rows = read(ISA + GS +
+            "ST*204*0001~\n" +
+            "B2**SCAC**SHP12345**PP~\n" +
+            "L11*PO998877*PO~\n" +
+            "L11*BOL5544*BM~\n" +
+            "N1*BT*Acme Foods~\n" +
+            "S5*1*LD~\n" +
+            "N1*SF*Acme Plant 3~\n" +
+            "N3*100 Industrial Way~\n" +
+            "N4*Dallas*TX*75201*US~\n" +
+            "G62*69*20231020*U*0830*CT~\n" +
+            "S5*2*UL~\n" +
+            "N1*ST*Store 12~\n" +
+            "N4*Houston*TX*77002~\n" +
+            "G62*70*20231021*X*1400~\n" +
+            "L5*1*Frozen foods~\n" +
+            "AT8*G*L*42000*22~\n" +
+            "L3*42000*G***125050~\n" +
+            "SE*18*0001~\n" + TRAILER);
+
+        assertEquals(1, rows.size());
+        LoadImportRow row = rows.get(0);
+        assertNull(row.getError());
+        assertEquals(1, row.getRowNumber());
+        assertEquals("SHP12345", row.getReferenceNumber());
+        assertEquals("Acme Foods", row.getCustomerName());
+        assertEquals("Acme Plant 3", row.getPickup().getName());
+        assertEquals("100 Industrial Way", row.getPickup().getAddressLine1());
+        assertEquals("Dallas", row.getPickup().getCity());
+        assertEquals("75201", row.getPickup().getPostalCode());
+        assertEquals("US", row.getPickup().getCountry());
+        assertEquals(ZonedDateTime.of(2023, 10, 20, 8, 30, 0, 0, ZoneId.of("America/Chicago")),
+            row.getPickupDateTime());
+        assertEquals("Store 12", row.getDelivery().getName());
+        assertEquals("Houston", row.getDelivery().getCity());
+        // No time zone code: the import's zone
+        assertEquals(ZonedDateTime.of(2023, 10, 21, 14, 0, 0, 0, CHICAGO), row.getDeliveryDateTime());
+        assertEquals("Frozen foods", row.getCommodity());
+        assertEquals(42_000.0, row.getWeight());
+        assertEquals("LBS", row.getWeightUnit());
+        assertEquals(22, row.getPieces());
+        // L3-05 carries two implied decimals
+        assertEquals(new BigDecimal("1250.50"), row.getRate());
+        assertEquals("References: PO PO998877, BM BOL5544", row.getNotes());
+    }
+
+    @Test
+    void readsEveryTransactionSetAsOneRow() throws IOException {
+        List<LoadImportRow> rows = read(ISA + GS +
+            "ST*204*0001~B2**SCAC**A1~N1*SH*Shipper One~S5*1*LD~N4*Austin*TX~S5*2*UL~N4*Waco*TX~SE*8*0001~" +
+            "ST*204*0002~B2**SCAC**A2~N1*BT*Bill To Two~S5*1*CL~N4*Tulsa*OK~" +
+            "S5*2*UL~N4*Wichita*KS~S5*3*UL~N4*Omaha*NE~SE*10*0002~" + TRAILER);
+
+        assertEquals(2, rows.size());
+        // Without a bill-to party the shipper is the customer
+        assertEquals("Shipper One", rows.get(0).getCustomerName());
+        assertEquals("Austin", rows.get(0).getPickup().getCity());
+        assertEquals("Waco", rows.get(0).getDelivery().getCity());
+        assertEquals(2, rows.get(1).getRowNumber());
+        assertEquals("Bill To Two", rows.get(1).getCustomerName());
+        // The last delivery stop wins; earlier drops are noted
+        assertEquals("Omaha", rows.get(1).getDelivery().getCity());
+        assertEquals("1 additional stop(s) in the tender", rows.get(1).getNotes());
+    }
+
+    @Test
+    void usesTheSeparatorsFromTheIsaHeader() throws IOException {
+        String isa = ISA.replace('*', '|').replace('~', '\'');
+        List<LoadImportRow> rows = read(isa + "ST|204|0001'B2||SCAC||P7'N1|BT|Pipe Co'S5|1|LD'N4|Reno|NV'SE|5|0001'");
+
+        assertEquals(1, rows.size());
+        assertNull(rows.get(0).getError());
+        assertEquals("P7", rows.get(0).getReferenceNumber());
+        assertEquals("Pipe Co", rows.get(0).getCustomerName());
+        assertEquals("Reno", rows.get(0).getPickup().getCity());
+    }
+
+    @Test
+    void flagsBadTendersWithoutStoppingTheFile() throws IOException {
+        List<LoadImportRow> rows = read(ISA + GS +
+            "ST*990*0001~B2**SCAC**R1~S5*1*LD~N4*Austin*TX~SE*5*0001~" +
+            "ST*204*0002~B2**SCAC**R2~N1*BT*Acme~SE*4*0002~" +
+            "ST*204*0003~B2**SCAC**R3~S5*1*LD~N4*Austin*TX~G62*69*2023AB20~SE*6*0003~" +
+            "ST*204*0004~B2**SCAC**R4~S5*1*LD~N4*Austin*TX~");
+
+        assertEquals(4, rows.size());
+        assertEquals("Transaction set 990 is not a 204 load tender", rows.get(0).getError());
+        assertEquals("Tender has no stops", rows.get(1).getError());
+        assertEquals("G62: unrecognized date '2023AB20'", rows.get(2).getError());
+        assertEquals("Transaction set is missing its SE trailer", rows.get(3).getError());
+        assertTrue(rows.stream().allMatch(row -> row.getReferenceNumber() != null));
+    }
+
+    @Test
+    void rejectsInputWithoutAnInterchangeHeader() {
+        assertThrows(IllegalArgumentException.class, () -> read("customer,weight\nAcme,100\n"));
+    }
+
+    private static List<LoadImportRow> read(String edi) throws IOException {
+        List<LoadImportRow> rows = new ArrayList<>();
+        new Edi204Reader(CHICAGO).read(new StringReader(edi), rows::add);
+        return rows;
+    }
+}
@@ -0,0 +1,104 @@
+package com.datum.fleetx.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadCsvReaderTest {
+
+    private static final ZoneId CHICAGO = ZoneId.of("America/Chicago");
+
+    @Test
+    void readsColumnsRegardlessOfCaseSpacesAndUnderscores() throws IOException {
+        List<LoadImportRow> rows = read("Reference Number,CUSTOMER,pickup_city,Pickup State,delivery city,Weight,Rate,Hazmat\n" +
+            "PO-1,Acme Foods,Dallas,TX,Houston,\"42,000\",$1250.50,yes\n");
+
+        assertEquals(1, rows.size());
+        LoadImportRow row = rows.get(0);
+        assertNull(row.getError());
+        assertEquals(2, row.getRowNumber());
+        assertEquals("PO-1", row.getReferenceNumber());
+        assertEquals("Acme Foods", row.getCustomerName());
+        assertEquals("Dallas", row.getPickup().getCity());
+        assertEquals("TX", row.getPickup().getStateProvince());
+        assertEquals("Houston", row.getDelivery().getCity());
+        assertEquals(42_000.0, row.getWeight());
+        assertEquals(new BigDecimal("1250.50"), row.getRate());
+        assertEquals(Boolean.TRUE, row.getHazmat());
+    }
+
+    @Test
+    void handlesQuotedFieldsByteOrderMarkAndCrlf() throws IOException {
+        List<LoadImportRow> rows = read("\uFEFFcustomer,notes,commodity\r\n" +
+            "Acme,\"Call \"\"Bob\"\" first,\r\nthen dock 4\",Steel\r\n" +
+            "\r\n" +
+            "Acme,,Lumber\r\n");
+
+        assertEquals(2, rows.size());
+        assertEquals("Call \"Bob\" first,\r\nthen dock 4", rows.get(0).getNotes());
+        assertEquals("Steel", rows.get(0).getCommodity());
+        // Row numbers are the line a record starts on, counting the header and the multi-line field
+        assertEquals(2, rows.get(0).getRowNumber());
+        assertEquals(5, rows.get(1).getRowNumber());
+        assertEquals("Lumber", rows.get(1).getCommodity());
+        assertNull(rows.get(1).getNotes());
+    }
+
+    @Test
+    void parsesOffsetLocalAndDateOnlyTimes() throws IOException {
+        List<LoadImportRow> rows = read("customer,pickup date,delivery date\n" +
+            "Acme,2024-03-01T08:00:00-05:00,2024-03-02 14:30\n" +
+            "Acme,2024-03-05,\n");
+
+        assertEquals(ZonedDateTime.parse("2024-03-01T08:00:00-05:00").toInstant(),
+            rows.get(0).getPickupDateTime().toInstant());
+        assertEquals(ZonedDateTime.of(2024, 3, 2, 14, 30, 0, 0, CHICAGO), rows.get(0).getDeliveryDateTime());
+        assertEquals(ZonedDateTime.of(2024, 3, 5, 0, 0, 0, 0, CHICAGO), rows.get(1).getPickupDateTime());
+        assertNull(rows.get(1).getDeliveryDateTime());
+    }
+
+    @Test
+    void recordsTheFirstBadValueOnTheRowInsteadOfThrowing() throws IOException {
+        String customerId = UUID.randomUUID().toString();
+        List<LoadImportRow> rows = read("customer_id,weight,pieces,pickup date\n" +
+            "not-an-id,heavy,3,2024-03-01\n" +
+            customerId + ",100,2.5,2024-03-01\n" +
+            customerId + ",100,2,next week\n" +
+            customerId + ",100,2,2024-03-01\n");
+
+        assertEquals(4, rows.size());
+        assertEquals("customerid: not a valid id 'not-an-id'", rows.get(0).getError());
+        assertEquals("pieces: not a whole number '2.5'", rows.get(1).getError());
+        assertEquals("pickupdate: unrecognized date 'next week'", rows.get(2).getError());
+        assertNull(rows.get(3).getError());
+        assertEquals(UUID.fromString(customerId), rows.get(3).getCustomerId());
+    }
+
+    @Test
+    void requiresACustomerColumn() {
+        assertThrows(IllegalArgumentException.class, () -> read("reference,weight\nPO-1,100\n"));
+    }
+
+    @Test
+    void emptyFileHasNoRows() throws IOException {
+        assertTrue(read("").isEmpty());
+    }
+
+    private static List<LoadImportRow> read(String csv) throws IOException {
+        List<LoadImportRow> rows = new ArrayList<>();
+        new LoadCsvReader(CHICAGO).read(new StringReader(csv), rows::add);
+        return rows;
+    }
+}
@@ -1,20 +1,51 @@
 import { useState } from 'react'
-import { useQuery } from '@tanstack/react-query'
+import { useInfiniteQuery } from '@tanstack/react-query'
 import { motion } from 'framer-motion'
 import { Calendar, List, Map, Plus, Filter, Clock, MapPin, Truck, User } from 'lucide-react'
 import api from '../services/api'
 
-// Fetch loads for dispatch board from API
-const fetchDispatchLoads = async () => {
+// Board column for each load status shown on the board
+const boardColumnByStatus = {
+  CREATED: 'created',
+  BOOKED: 'created',
+  DISPATCHED: 'dispatched',
+  EN_ROUTE: 'dispatched',
+  AT_PICKUP: 'dispatched',
+  PICKED_UP: 'in_transit',
+  IN_TRANSIT: 'in_transit',
+  AT_DELIVERY: 'in_transit',
+  DELIVERED: 'delivered',
+}
+
+// Fetch one keyset page of board loads, soonest pickup first
+const fetchDispatchLoadsPage = async ({ pageParam }) => {
+  const params = new URLSearchParams({ limit: '100', sort: 'PICKUP_DATE' })
+  Object.keys(boardColumnByStatus).forEach((status) => params.append('status', status))
+  if (pageParam) params.set('cursor', pageParam)
   try {
-    const response = await api.get('/loads')
-    return response.data.data || []
+    const response = await api.get('/loads/search', { params })
+    return response.data.data || { items: [], hasMore: false }
   } catch (error) {
     console.error('Failed to fetch loads:', error)
-    return []
+    return { items: [], hasMore: false }
   }
 }
 
+const place = (city, state) => [city, state].filter(Boolean).join(', ')
+
+// Search results are load summaries; shape them like the board cards
+const toCard = (load) => ({
+  key: load.id,
+  id: load.loadNumber,
+  customer: load.customerName,
+  pickup: place(load.pickupCity, load.pickupState),
+  delivery: place(load.deliveryCity, load.deliveryState),
+  date: load.pickupDateTime?.slice(0, 10),
+  status: boardColumnByStatus[load.status],
+  driver: [load.driverFirstName, load.driverLastName].filter(Boolean).join(' ') || null,
+  truck: load.truckNumber,
+})
+
 // Mock data for demo/offline mode
 const mockLoads = [
   { id: 'LD-001', customer: 'ABC Logistics', pickup: 'Los Angeles, CA', delivery: 'Phoenix, AZ', date: '2026-02-20', status: 'created', driver: null, truck: null },
@@ -41,14 +72,18 @@ const statusColors = {
 export default function DispatchBoard() {
   const [view, setView] = useState('board')
   
-  // Fetch loads from API
-  const { data: apiLoads = [], isLoading } = useQuery({
+  // Fetch loads from API a page at a time
+  const { data, isLoading, hasNextPage, fetchNextPage, isFetchingNextPage } = useInfiniteQuery({
     queryKey: ['dispatchLoads'],
-    queryFn: fetchDispatchLoads,
+    queryFn: fetchDispatchLoadsPage,
+    initialPageParam: null,
+    getNextPageParam: (lastPage) => (lastPage.hasMore ? lastPage.nextCursor : undefined),
   })
+  const apiLoads = data?.pages.flatMap((page) => page.items.map(toCard)) ?? []
   
   // Use API data if available, otherwise mock data
-  const loads = apiLoads.length > 0 ? apiLoads : mockLoads
+  const usingMock = !isLoading && apiLoads.length === 0
+  const loads = usingMock ? mockLoads : apiLoads
   
   return (
     <div className="space-y-6">
@@ -84,19 +119,19 @@ export default function DispatchBoard() {
             <div className={`flex items-center gap-2 pb-3 border-b-2 ${column.color} mb-4`}>
               <h3 className="font-semibold text-textPrimary">{column.title}</h3>
               <span className="text-textMuted text-sm">
-                {mockLoads.filter(l => l.status === column.id).length}
+                {loads.filter(l => l.status === column.id).length}
               </span>
             </div>
             
             <div className="space-y-3">
-              {mockLoads
+              {loads
                 .filter((load) => load.status === column.id)
                 .map((load, index) => (
                   <motion.div
-                    key={load.id}
+                    key={load.key || load.id}
                     initial={{ opacity: 0, scale: 0.95 }}
                     animate={{ opacity: 1, scale: 1 }}
-                    transition={{ delay: index * 0.05 }}
+                    transition={{ delay: Math.min(index, 10) * 0.05 }}
                     className="bg-surfaceLight/50 p-4 rounded-xl border border-surfaceLighter/30 hover:border-primary/30 cursor-grab active:cursor-grabbing transition-colors"
                   >
                     <div className="flex items-start justify-between mb-2">
@@ -143,6 +178,18 @@ export default function DispatchBoard() {
           </div>
         ))}
       </div>
+      
+      {!usingMock && hasNextPage && (
+        <div className="text-center">
+          <button
+            onClick={() => fetchNextPage()}
+            disabled={isFetchingNextPage}
+            className="btn-secondary"
+          >
+            {isFetchingNextPage ? 'Loading...' : 'Load more'}
+          </button>
+        </div>
+      )}
     </div>
   )
 }
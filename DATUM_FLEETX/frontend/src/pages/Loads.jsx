@@ -1,20 +1,41 @@
 import { useState } from 'react'
-import { useQuery } from '@tanstack/react-query'
+import { useInfiniteQuery } from '@tanstack/react-query'
 import { motion } from 'framer-motion'
 import { Plus, Search, Filter, MoreVertical, Route, MapPin, Clock, DollarSign, Truck, Package } from 'lucide-react'
 import api from '../services/api'
 
-// Fetch loads from API
-const fetchLoads = async () => {
+const PAGE_SIZE = 50
+
+// Fetch one keyset page of loads; the status filter runs on the server
+const fetchLoadsPage = async ({ pageParam, queryKey }) => {
+  const [, status] = queryKey
+  const params = { limit: PAGE_SIZE, sort: 'PICKUP_DATE', descending: true }
+  if (pageParam) params.cursor = pageParam
+  if (status !== 'all') params.status = status
   try {
-    const response = await api.get('/loads')
-    return response.data.data || []
+    const response = await api.get('/loads/search', { params })
+    return response.data.data || { items: [], hasMore: false }
   } catch (error) {
     console.error('Failed to fetch loads:', error)
-    return []
+    return { items: [], hasMore: false }
   }
 }
 
+const place = (city, state) => [city, state].filter(Boolean).join(', ')
+
+// Search results are load summaries; shape them like the table rows
+const toRow = (load) => ({
+  key: load.id,
+  id: load.loadNumber,
+  customer: load.customerName,
+  origin: place(load.pickupCity, load.pickupState),
+  destination: place(load.deliveryCity, load.deliveryState),
+  rate: Number(load.totalRate) || 0,
+  status: load.status,
+  pickupDate: load.pickupDateTime?.slice(0, 10),
+  deliveryDate: load.deliveryDateTime?.slice(0, 10),
+})
+
 // Mock data for demo/offline mode
 const mockLoads = [
   { id: 'LD-001', customer: 'ABC Logistics', origin: 'Los Angeles, CA', destination: 'Phoenix, AZ', rate: 2500, status: 'IN_TRANSIT', pickupDate: '2026-02-20', deliveryDate: '2026-02-21', distance: 370, weight: 42000, commodity: 'Electronics' },
@@ -39,18 +60,22 @@ export default function Loads() {
   const [searchTerm, setSearchTerm] = useState('')
   const [statusFilter, setStatusFilter] = useState('all')
   
-  // Fetch loads from API
-  const { data: apiLoads = [], isLoading } = useQuery({
-    queryKey: ['loads'],
-    queryFn: fetchLoads,
+  // Fetch loads from API a page at a time
+  const { data, isLoading, hasNextPage, fetchNextPage, isFetchingNextPage } = useInfiniteQuery({
+    queryKey: ['loads', statusFilter],
+    queryFn: fetchLoadsPage,
+    initialPageParam: null,
+    getNextPageParam: (lastPage) => (lastPage.hasMore ? lastPage.nextCursor : undefined),
   })
+  const apiLoads = data?.pages.flatMap((page) => page.items.map(toRow)) ?? []
   
   // Use API data if available, otherwise mock data
-  const loads = apiLoads.length > 0 ? apiLoads : mockLoads
+  const usingMock = !isLoading && apiLoads.length === 0 && statusFilter === 'all'
+  const loads = usingMock ? mockLoads : apiLoads
   
   const filteredLoads = loads.filter(load => {
     const matchesSearch = 
-      (load.loadNumber || load.id || '').toLowerCase().includes(searchTerm.toLowerCase()) ||
+      (load.id || '').toLowerCase().includes(searchTerm.toLowerCase()) ||
       (load.customer || '').toLowerCase().includes(searchTerm.toLowerCase()) ||
       (load.origin || '').toLowerCase().includes(searchTerm.toLowerCase()) ||
       (load.destination || '').toLowerCase().includes(searchTerm.toLowerCase())
@@ -59,10 +84,11 @@ export default function Loads() {
   })
   
   const stats = {
+    // Counts cover the pages loaded so far
     total: loads.length,
     active: loads.filter(l => l.status === 'IN_TRANSIT' || l.status === 'PICKED_UP').length,
     delivered: loads.filter(l => l.status === 'DELIVERED').length,
-    totalRevenue: loads.reduce((acc, l) => acc + (l.rate || l.rateAmount || 0), 0),
+    totalRevenue: loads.reduce((acc, l) => acc + (l.rate || 0), 0),
   }
 
   return (
@@ -142,10 +168,10 @@ export default function Loads() {
             <tbody>
               {filteredLoads.map((load, index) => (
                 <motion.tr
-                  key={load.id}
+                  key={load.key || load.id}
                   initial={{ opacity: 0, y: 10 }}
                   animate={{ opacity: 1, y: 0 }}
-                  transition={{ delay: index * 0.05 }}
+                  transition={{ delay: (index % PAGE_SIZE) * 0.05 }}
                   className="border-b border-surfaceLighter/30 hover:bg-surfaceLight/30 transition-colors"
                 >
                   <td className="p-4">
@@ -160,17 +186,21 @@ export default function Loads() {
                       <MapPin className="w-4 h-4 text-danger" />
                       {load.destination}
                     </div>
-                    <div className="flex items-center gap-1 text-textMuted text-xs mt-1">
-                      <Route className="w-3 h-3" />
-                      {load.distance} miles
-                    </div>
+                    {load.distance != null && (
+                      <div className="flex items-center gap-1 text-textMuted text-xs mt-1">
+                        <Route className="w-3 h-3" />
+                        {load.distance} miles
+                      </div>
+                    )}
                   </td>
                   <td className="p-4">
                     <div className="flex items-center gap-2 text-textSecondary">
                       <Package className="w-4 h-4 text-textMuted" />
-                      {load.commodity}
+                      {load.commodity || '—'}
                     </div>
-                    <div className="text-textMuted text-xs">{(load.weight / 1000).toFixed(1)}K lbs</div>
+                    {load.weight != null && (
+                      <div className="text-textMuted text-xs">{(load.weight / 1000).toFixed(1)}K lbs</div>
+                    )}
                   </td>
                   <td className="p-4">
                     <span className="font-semibold text-success">${load.rate.toLocaleString()}</span>
@@ -193,6 +223,18 @@ export default function Loads() {
           </table>
         </div>
         
+        {!usingMock && hasNextPage && (
+          <div className="p-4 text-center border-t border-surfaceLighter/30">
+            <button
+              onClick={() => fetchNextPage()}
+              disabled={isFetchingNextPage}
+              className="btn-secondary"
+            >
+              {isFetchingNextPage ? 'Loading...' : 'Load more'}
+            </button>
+          </div>
+        )}
+        
         {filteredLoads.length === 0 && (
           <div className="p-12 text-center">
             <Route className="w-12 h-12 text-textMuted mx-auto mb-4" />
@@ -1,4 +1,5 @@
 import axios from 'axios'
+import { useAuthStore } from '../store/authStore'
 
 const api = axios.create({
   baseURL: import.meta.env.VITE_API_URL || 'http://localhost:8080/api/v1',
@@ -10,12 +11,9 @@ const api = axios.create({
 // Request interceptor to add auth token
 api.interceptors.request.use(
   (config) => {
-    const stored = localStorage.getItem('fleetx-auth')
-    if (stored) {
-      const { state } = JSON.parse(stored)
-      if (state?.token) {
-        config.headers.Authorization = `Bearer ${state.token}`
-      }
+    const { token } = useAuthStore.getState()
+    if (token) {
+      config.headers.Authorization = `Bearer ${token}`
     }
     return config
   },
@@ -24,12 +22,43 @@ api.interceptors.request.use(
   }
 )
 
-// Response interceptor for error handling
+// One refresh at a time; concurrent 401s wait for the same rotation
+let refreshing = null
+
+const refreshAccessToken = () => {
+  if (!refreshing) {
+    const { refreshToken } = useAuthStore.getState()
+    refreshing = (refreshToken
+      ? axios.post(`${api.defaults.baseURL}/auth/refresh`, { refreshToken }).then(({ data }) => {
+          // Through the store, so its in-memory copy (which persist writes back) holds the rotated pair
+          useAuthStore.setState({ token: data.token, refreshToken: data.refreshToken })
+          return data.token
+        })
+      : Promise.reject(new Error('No refresh token'))
+    ).finally(() => {
+      refreshing = null
+    })
+  }
+  return refreshing
+}
+
+// Response interceptor: renew an expired access token once, then give up and log in again
 api.interceptors.response.use(
   (response) => response,
-  (error) => {
+  async (error) => {
+    const original = error.config
+    if (error.response?.status === 401 && original && !original._retried) {
+      original._retried = true
+      try {
+        const token = await refreshAccessToken()
+        original.headers.Authorization = `Bearer ${token}`
+        return api(original)
+      } catch (refreshError) {
+        // Fall through to the login redirect
+      }
+    }
     if (error.response?.status === 401) {
-      localStorage.removeItem('fleetx-auth')
+      useAuthStore.setState({ user: null, token: null, refreshToken: null, isAuthenticated: false })
       window.location.href = '/login'
     }
     return Promise.reject(error)
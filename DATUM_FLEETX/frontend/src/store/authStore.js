@@ -19,6 +19,7 @@ export const useAuthStore = create(
     (set, get) => ({
       user: null,
       token: null,
+      refreshToken: null,
       isAuthenticated: false,
       isLoading: false,
       
@@ -42,7 +43,7 @@ export const useAuthStore = create(
         set({ isLoading: true })
         try {
           const response = await api.post('/api/v1/auth/login', { email, password })
-          const { token, userId, firstName, lastName, role, companyId, companyName, subscriptionPlan } = response.data.data
+          const { token, refreshToken, userId, firstName, lastName, role, companyId, companyName, subscriptionPlan } = response.data.data
           
           set({
             user: {
@@ -56,6 +57,7 @@ export const useAuthStore = create(
               subscriptionPlan
             },
             token,
+            refreshToken,
             isAuthenticated: true,
             isLoading: false
           })
@@ -92,9 +94,15 @@ export const useAuthStore = create(
       },
       
       logout: () => {
+        const { refreshToken } = get()
+        if (refreshToken) {
+          // Ends the server-side session; local state is cleared either way
+          api.post('/auth/logout', { refreshToken }).catch(() => {})
+        }
         set({
           user: null,
           token: null,
+          refreshToken: null,
           isAuthenticated: false
         })
       },
@@ -110,6 +118,7 @@ export const useAuthStore = create(
       partialize: (state) => ({ 
         user: state.user, 
         token: state.token, 
+        refreshToken: state.refreshToken,
         isAuthenticated: state.isAuthenticated 
       }),
     }